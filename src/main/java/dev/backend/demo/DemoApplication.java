@@ -3,6 +3,7 @@ package dev.backend.demo;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import dev.backend.demo.config.JwtProperties;
 
@@ -12,6 +13,7 @@ import dev.backend.demo.config.JwtProperties;
  */
 @SpringBootApplication // Spring Boot 主註解：啟用自動配置、元件掃描等功能
 @EnableConfigurationProperties(JwtProperties.class) // 啟用 JWT 配置屬性
+@EnableScheduling // 啟用排程任務（背景清除已刪除商品的購物車項目等）
 public class DemoApplication {
 
 	/**
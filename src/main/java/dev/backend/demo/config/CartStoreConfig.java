@@ -0,0 +1,91 @@
+package dev.backend.demo.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import dev.backend.demo.store.CartShardRouter;
+import dev.backend.demo.store.CartStore;
+import dev.backend.demo.store.DocumentCartStore;
+import dev.backend.demo.store.JdbcCartStore;
+import dev.backend.demo.store.JpaCartStore;
+import dev.backend.demo.store.OffHeapCartStore;
+import dev.backend.demo.store.ShardedCartStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 購物車儲存後端配置
+ * 依 cart.store.type 建立對應的 CartStore 實作
+ */
+@Configuration
+public class CartStoreConfig {
+    
+    /**
+     * JPA 儲存（預設）：carts / cart_items 資料表
+     */
+    @Bean
+    @ConditionalOnProperty(name = "cart.store.type", havingValue = "jpa", matchIfMissing = true)
+    public CartStore jpaCartStore() {
+        return new JpaCartStore();
+    }
+    
+    /**
+     * 文件模式：整個購物車存成 carts.document (JSONB)，單列讀寫 + 樂觀鎖
+     */
+    @Bean
+    @ConditionalOnProperty(name = "cart.store.type", havingValue = "document")
+    public CartStore documentCartStore(CartStoreProperties properties) {
+        return new DocumentCartStore(properties.getDocument().getMaxLines());
+    }
+    
+    /**
+     * 雜湊分片：carts / cart_items 依 userId 分散到多個資料庫，每個分片一個連線池
+     * 桶對照表存放在主資料庫（spring.datasource）
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "cart.store.type", havingValue = "sharded")
+    public ShardedCartStore shardedCartStore(CartStoreProperties properties, JdbcTemplate jdbcTemplate) {
+        List<CartStoreProperties.Shard> shardConfigs = properties.getSharded().getShards();
+        if (shardConfigs.isEmpty()) {
+            throw new IllegalStateException("cart.store.type=sharded 需要設定 cart.store.sharded.shards");
+        }
+        
+        CartShardRouter router = new CartShardRouter(jdbcTemplate, properties.getSharded().getBuckets(), shardConfigs.size());
+        List<JdbcCartStore> shards = new ArrayList<>();
+        List<DataSource> dataSources = new ArrayList<>();
+        for (int i = 0; i < shardConfigs.size(); i++) {
+            DataSource dataSource = shardDataSource(i, shardConfigs.get(i));
+            new ResourceDatabasePopulator(new ClassPathResource("db/cart-shard-schema.sql")).execute(dataSource);
+            dataSources.add(dataSource);
+            shards.add(new JdbcCartStore(new JdbcTemplate(dataSource), router::bucketOf));
+        }
+        return new ShardedCartStore(router, shards, dataSources);
+    }
+    
+    private DataSource shardDataSource(int index, CartStoreProperties.Shard shard) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("cart-shard-" + index);
+        dataSource.setJdbcUrl(shard.getUrl());
+        dataSource.setUsername(shard.getUsername());
+        dataSource.setPassword(shard.getPassword());
+        dataSource.setMaximumPoolSize(shard.getMaxPoolSize());
+        return dataSource;
+    }
+    
+    /**
+     * Off-heap 儲存：記憶體映射檔案，關閉應用程式時寫回磁碟
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "cart.store.type", havingValue = "offheap")
+    public CartStore offHeapCartStore(CartStoreProperties properties) {
+        CartStoreProperties.OffHeap offHeap = properties.getOffHeap();
+        return new OffHeapCartStore(Path.of(offHeap.getPath()), offHeap.getCapacity(), offHeap.getMaxLines());
+    }
+}
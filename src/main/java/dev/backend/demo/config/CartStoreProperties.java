@@ -0,0 +1,207 @@
+package dev.backend.demo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 購物車儲存配置屬性
+ * 從 application.properties 讀取 cart.store.* 開頭的配置
+ * 
+ * 範例：
+ * cart.store.type=offheap
+ * cart.store.off-heap.path=data/carts.bin
+ */
+@Configuration
+@ConfigurationProperties(prefix = "cart.store")
+public class CartStoreProperties {
+    
+    /**
+     * 儲存後端：jpa（預設）、document、sharded 或 offheap
+     */
+    private String type = "jpa";
+    
+    /**
+     * 文件模式設定（type=document 時使用）
+     */
+    private Document document = new Document();
+    
+    /**
+     * 分片設定（type=sharded 時使用）
+     */
+    private Sharded sharded = new Sharded();
+    
+    /**
+     * off-heap 儲存設定（type=offheap 時使用）
+     */
+    private OffHeap offHeap = new OffHeap();
+    
+    // Getters and Setters
+    
+    public String getType() {
+        return type;
+    }
+    
+    public void setType(String type) {
+        this.type = type;
+    }
+    
+    public Document getDocument() {
+        return document;
+    }
+    
+    public void setDocument(Document document) {
+        this.document = document;
+    }
+    
+    public Sharded getSharded() {
+        return sharded;
+    }
+    
+    public void setSharded(Sharded sharded) {
+        this.sharded = sharded;
+    }
+    
+    public OffHeap getOffHeap() {
+        return offHeap;
+    }
+    
+    public void setOffHeap(OffHeap offHeap) {
+        this.offHeap = offHeap;
+    }
+    
+    public static class Document {
+        
+        /**
+         * 每個購物車的項目上限（文件模式適合小型購物車）
+         */
+        private int maxLines = 50;
+        
+        public int getMaxLines() {
+            return maxLines;
+        }
+        
+        public void setMaxLines(int maxLines) {
+            this.maxLines = maxLines;
+        }
+    }
+    
+    public static class Sharded {
+        
+        /**
+         * 雜湊桶數，重新分片以桶為單位搬移（第一次啟動後不可變更）
+         */
+        private int buckets = 1024;
+        
+        /**
+         * 分片資料庫清單，索引即分片編號；新增分片請加在最後
+         */
+        private List<Shard> shards = new ArrayList<>();
+        
+        public int getBuckets() {
+            return buckets;
+        }
+        
+        public void setBuckets(int buckets) {
+            this.buckets = buckets;
+        }
+        
+        public List<Shard> getShards() {
+            return shards;
+        }
+        
+        public void setShards(List<Shard> shards) {
+            this.shards = shards;
+        }
+    }
+    
+    public static class Shard {
+        
+        private String url;
+        private String username;
+        private String password;
+        
+        /**
+         * 此分片連線池的最大連線數
+         */
+        private int maxPoolSize = 10;
+        
+        public String getUrl() {
+            return url;
+        }
+        
+        public void setUrl(String url) {
+            this.url = url;
+        }
+        
+        public String getUsername() {
+            return username;
+        }
+        
+        public void setUsername(String username) {
+            this.username = username;
+        }
+        
+        public String getPassword() {
+            return password;
+        }
+        
+        public void setPassword(String password) {
+            this.password = password;
+        }
+        
+        public int getMaxPoolSize() {
+            return maxPoolSize;
+        }
+        
+        public void setMaxPoolSize(int maxPoolSize) {
+            this.maxPoolSize = maxPoolSize;
+        }
+    }
+    
+    public static class OffHeap {
+        
+        /**
+         * 記憶體映射檔案路徑
+         */
+        private String path = "data/carts.bin";
+        
+        /**
+         * 可同時容納的非空購物車數量（向上取整為 2 的次方；清空的購物車釋放槽位）
+         * 變更後需刪除舊檔案
+         */
+        private int capacity = 65536;
+        
+        /**
+         * 每個購物車的項目上限
+         * 變更後需刪除舊檔案
+         */
+        private int maxLines = 50;
+        
+        public String getPath() {
+            return path;
+        }
+        
+        public void setPath(String path) {
+            this.path = path;
+        }
+        
+        public int getCapacity() {
+            return capacity;
+        }
+        
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+        
+        public int getMaxLines() {
+            return maxLines;
+        }
+        
+        public void setMaxLines(int maxLines) {
+            this.maxLines = maxLines;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package dev.backend.demo.config;
+
+import dev.backend.demo.journal.EventJournal;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+/**
+ * 商業事件日誌設定
+ * 日誌寫在 journal.path 目錄下的記憶體映射分段檔，關閉應用程式時寫完佇列中的事件
+ */
+@Configuration
+public class JournalConfig {
+    
+    @Bean(destroyMethod = "close")
+    public EventJournal eventJournal(
+            @Value("${journal.path:data/journal}") String path,
+            @Value("${journal.segment-size:67108864}") int segmentSize,
+            @Value("${journal.flush-interval-ms:1000}") long flushIntervalMs,
+            @Value("${journal.queue-capacity:1000000}") int queueCapacity) {
+        return new EventJournal(Path.of(path), segmentSize, flushIntervalMs, queueCapacity);
+    }
+}
@@ -1,6 +1,7 @@
 package dev.backend.demo.config;
 
 import dev.backend.demo.filter.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -39,6 +40,8 @@ public class SecurityConfig {
             .cors(cors -> {}) 
             // 3. 配置授權規則
             .authorizeHttpRequests(auth -> auth
+                // SSE 等非同步請求完成時會再經過一次過濾鏈，原請求已驗證過，不再檢查
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers(
                     "/",
                     "/index.html",
@@ -58,6 +61,8 @@ public class SecurityConfig {
                     "/styles.css",          // 明確允許 styles.css
                     "/favicon.ico"          // 允許網站圖示
                 ).permitAll() // 允許所有人訪問這些路徑
+                // 管理 API（批次更新、匯入、分片搬移……）只允許 security.admin-user-ids 中的使用者
+                .requestMatchers("/api/admin/**").hasRole("ADMIN")
                 .anyRequest().authenticated() // 其他所有請求需要認證（JWT Filter 會處理）
             )
             .sessionManagement(session -> session
@@ -0,0 +1,111 @@
+package dev.backend.demo.controller;
+
+import dev.backend.demo.exception.InvalidOperationException;
+import dev.backend.demo.service.SalesAggregates;
+import dev.backend.demo.service.SalesAnalyticsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 銷售分析 API（儀表板用）
+ *
+ * 所有查詢都從記憶體中的分桶彙總計算，不查詢資料庫。
+ * window 參數：today（今天 0 點至今）或最近一段時間，例如 15m、1h、24h、2d。
+ * 時間範圍以桶（analytics.bucket-minutes）為單位計入，回傳的 from / to 為實際的查詢範圍。
+ */
+@RestController
+@RequestMapping("/api/admin/analytics")
+public class AnalyticsController {
+
+    private static final int MAX_LIMIT = 100;
+
+    @Autowired
+    private SalesAnalyticsService analyticsService;
+
+    /**
+     * 訂單數、件數與營收總計
+     * GET /api/admin/analytics/summary?window=today
+     */
+    @GetMapping("/summary")
+    public ResponseEntity<Map<String, Object>> summary(@RequestParam(defaultValue = "today") String window) {
+        SalesAnalyticsService.Range range = analyticsService.resolve(window);
+        SalesAggregates.Window result = analyticsService.query(range);
+
+        Map<String, Object> response = rangeResponse(window, range);
+        response.put("orders", result.getOrders());
+        response.put("units", result.getUnits());
+        response.put("revenue", BigDecimal.valueOf(result.getRevenue(), 2));
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 銷售排行前幾名的商品（可限定類別）
+     * GET /api/admin/analytics/top-products?window=1h&limit=10&by=revenue&categoryId={categoryId}
+     */
+    @GetMapping("/top-products")
+    public ResponseEntity<Map<String, Object>> topProducts(
+            @RequestParam(defaultValue = "1h") String window,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(defaultValue = "revenue") String by,
+            @RequestParam(required = false) Long categoryId) {
+
+        SalesAnalyticsService.Range range = analyticsService.resolve(window);
+        SalesAggregates.Window result = analyticsService.query(range);
+
+        Map<String, Object> response = rangeResponse(window, range);
+        response.put("by", by);
+        response.put("categoryId", categoryId);
+        response.put("products", analyticsService.topProducts(result, clamp(limit), categoryId, byUnits(by)));
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 各類別的銷售排行
+     * GET /api/admin/analytics/top-categories?window=today&limit=10&by=revenue
+     */
+    @GetMapping("/top-categories")
+    public ResponseEntity<Map<String, Object>> topCategories(
+            @RequestParam(defaultValue = "today") String window,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(defaultValue = "revenue") String by) {
+
+        SalesAnalyticsService.Range range = analyticsService.resolve(window);
+        SalesAggregates.Window result = analyticsService.query(range);
+
+        Map<String, Object> response = rangeResponse(window, range);
+        response.put("by", by);
+        response.put("categories", analyticsService.topCategories(result, clamp(limit), byUnits(by)));
+        return ResponseEntity.ok(response);
+    }
+
+    private Map<String, Object> rangeResponse(String window, SalesAnalyticsService.Range range) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("window", window);
+        response.put("from", range.from());
+        response.put("to", range.to());
+        response.put("bucketMinutes", analyticsService.getBucketMinutes());
+        return response;
+    }
+
+    private static int clamp(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    private static boolean byUnits(String by) {
+        if ("units".equalsIgnoreCase(by)) {
+            return true;
+        }
+        if ("revenue".equalsIgnoreCase(by)) {
+            return false;
+        }
+        throw new InvalidOperationException("排序欄位錯誤: " + by + "（可用 revenue、units）");
+    }
+}
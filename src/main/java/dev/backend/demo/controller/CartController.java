@@ -4,12 +4,15 @@ import dev.backend.demo.dto.cart.AddToCartRequest;
 import dev.backend.demo.dto.cart.CartResponseDTO;
 import dev.backend.demo.exception.UnauthorizedException;
 import dev.backend.demo.service.CartService;
+import dev.backend.demo.service.CartStreamService;
 import dev.backend.demo.util.JwtUtil;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -26,6 +29,9 @@ public class CartController {
     @Autowired
     private CartService cartService;
     
+    @Autowired
+    private CartStreamService cartStreamService;
+    
     @Autowired
     private JwtUtil jwtUtil;
     
@@ -54,6 +60,19 @@ public class CartController {
         return ResponseEntity.ok(cart);
     }
     
+    /**
+     * 購物車即時同步（Server-Sent Events）
+     * GET /api/cart/stream
+     * 連線後先送出 snapshot（完整購物車），之後每次購物車異動送出 delta
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamCart(
+            @RequestHeader("Authorization") String authHeader) {
+        
+        Long userId = getUserIdFromToken(authHeader);
+        return cartStreamService.subscribe(userId);
+    }
+    
     /**
      * 加入商品到購物車
      * POST /api/cart
@@ -145,7 +164,8 @@ public class CartController {
             @RequestHeader("Authorization") String authHeader) {
         
         Long userId = getUserIdFromToken(authHeader);
-        CartResponseDTO cart = cartService.getCart(userId);
+        // 清空購物車並發布結帳完成事件
+        CartResponseDTO cart = cartService.checkout(userId);
         
         if (cart.getItems().isEmpty()) {
             Map<String, Object> response = new HashMap<>();
@@ -154,9 +174,6 @@ public class CartController {
             return ResponseEntity.badRequest().body(response);
         }
         
-        // 清空購物車
-        cartService.clearCart(userId);
-        
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
         response.put("message", "結帳成功！感謝您的購買！");
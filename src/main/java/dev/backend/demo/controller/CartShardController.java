@@ -0,0 +1,69 @@
+package dev.backend.demo.controller;
+
+import dev.backend.demo.service.CartReshardingService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 購物車分片管理 API（cart.store.type=sharded 時才啟用）
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/admin/cart-shards")
+@ConditionalOnProperty(name = "cart.store.type", havingValue = "sharded")
+public class CartShardController {
+    
+    @Autowired
+    private CartReshardingService reshardingService;
+    
+    /**
+     * 查詢各分片的桶數與購物車數
+     * GET /api/admin/cart-shards
+     */
+    @GetMapping
+    public ResponseEntity<List<Map<String, Object>>> describe() {
+        return ResponseEntity.ok(reshardingService.describe());
+    }
+    
+    /**
+     * 將單一桶線上搬移到指定分片
+     * POST /api/admin/cart-shards/buckets/{bucket}/move?targetShard=
+     */
+    @PostMapping("/buckets/{bucket}/move")
+    public ResponseEntity<Map<String, Object>> moveBucket(
+            @PathVariable int bucket,
+            @RequestParam int targetShard) {
+        
+        log.info("API: 搬移購物車桶, bucket={}, targetShard={}", bucket, targetShard);
+        int users = reshardingService.moveBucket(bucket, targetShard);
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("bucket", bucket);
+        response.put("targetShard", targetShard);
+        response.put("movedUsers", users);
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * 平均分配桶到所有分片（新增分片後執行）
+     * POST /api/admin/cart-shards/rebalance
+     */
+    @PostMapping("/rebalance")
+    public ResponseEntity<Map<String, Object>> rebalance() {
+        log.info("API: 重新平衡購物車分片");
+        int buckets = reshardingService.rebalance();
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("movedBuckets", buckets);
+        return ResponseEntity.ok(response);
+    }
+}
@@ -0,0 +1,101 @@
+package dev.backend.demo.controller;
+
+import dev.backend.demo.dto.category.CategoryDTO;
+import dev.backend.demo.dto.category.CategoryRequest;
+import dev.backend.demo.service.CategoryService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 商品類別 API
+ *
+ * 查詢從記憶體中的類別樹取得，不查詢資料庫；商品數含所有子類別。
+ * 某類別之下的所有商品以 GET /api/products?categoryId={id}&includeSubcategories=true 分頁取得。
+ */
+@RestController
+@RequestMapping("/api/categories")
+public class CategoryController {
+
+    @Autowired
+    private CategoryService categoryService;
+
+    /**
+     * 所有類別
+     * GET /api/categories
+     *
+     * 依前序排列（上層類別在子類別之前，同層依 ID），以 parentId、depth 組成樹狀選單
+     */
+    @GetMapping
+    public ResponseEntity<List<CategoryDTO>> getCategories() {
+        return ResponseEntity.ok(categoryService.getCategories());
+    }
+
+    /**
+     * 取得一個類別與其路徑（麵包屑）、直接的子類別
+     * GET /api/categories/{id}
+     *
+     * - HTTP 404 Not Found: 類別不存在
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> getCategory(@PathVariable Long id) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("category", categoryService.getCategory(id));
+        response.put("path", categoryService.getPath(id));
+        response.put("children", categoryService.getChildren(id));
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 新增類別
+     * POST /api/categories
+     *
+     * 請求本文：{"categoryName": "耳機", "parentId": 1}（parentId 省略表示最上層）
+     * - HTTP 201 Created: 成功建立
+     * - HTTP 400 Bad Request: 名稱空白或上層類別不存在
+     */
+    @PostMapping
+    public ResponseEntity<CategoryDTO> createCategory(@Valid @RequestBody CategoryRequest request) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(categoryService.createCategory(request));
+    }
+
+    /**
+     * 修改類別名稱或移到其他上層類別（子類別跟著移動）
+     * PUT /api/categories/{id}
+     *
+     * - HTTP 400 Bad Request: 上層類別不存在，或移到自己或自己的子類別之下
+     * - HTTP 404 Not Found: 類別不存在
+     */
+    @PutMapping("/{id}")
+    public ResponseEntity<CategoryDTO> updateCategory(@PathVariable Long id,
+                                                      @Valid @RequestBody CategoryRequest request) {
+        return ResponseEntity.ok(categoryService.updateCategory(id, request));
+    }
+
+    /**
+     * 刪除類別（需沒有子類別與商品）
+     * DELETE /api/categories/{id}
+     *
+     * - HTTP 204 No Content: 成功刪除
+     * - HTTP 400 Bad Request: 還有子類別或商品
+     * - HTTP 404 Not Found: 類別不存在
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteCategory(@PathVariable Long id) {
+        categoryService.deleteCategory(id);
+        return ResponseEntity.noContent().build();
+    }
+}
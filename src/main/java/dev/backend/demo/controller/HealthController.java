@@ -1,6 +1,8 @@
 package dev.backend.demo.controller;
 
+import dev.backend.demo.invalidation.InvalidationBus;
 import dev.backend.demo.repository.ProductRepository;
+import dev.backend.demo.service.ProductPageCache;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -29,6 +31,12 @@ public class HealthController {
     @Autowired
     private ProductRepository productRepository;
     
+    @Autowired
+    private InvalidationBus invalidationBus;
+    
+    @Autowired
+    private ProductPageCache pageCache;
+    
     /**
      * 基本健康檢查
      * GET /health
@@ -97,4 +105,28 @@ public class HealthController {
             return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(status);
         }
     }
+    
+    /**
+     * 跨節點快取失效匯流排狀態
+     * GET /health/invalidation
+     * 
+     * listening 為 false 表示 LISTEN 連線中斷（其他節點的異動暫時不會反映到這個節點）
+     */
+    @GetMapping("/health/invalidation")
+    public ResponseEntity<Map<String, Object>> invalidationHealth() {
+        Map<String, Object> status = invalidationBus.getStats();
+        status.put("timestamp", Instant.now());
+        return ResponseEntity.ok(status);
+    }
+    
+    /**
+     * 商品列表回應快取狀態（項目數、heap 外佔用位元組、命中與未命中次數）
+     * GET /health/response-cache
+     */
+    @GetMapping("/health/response-cache")
+    public ResponseEntity<Map<String, Object>> responseCacheHealth() {
+        Map<String, Object> status = pageCache.getStats();
+        status.put("timestamp", Instant.now());
+        return ResponseEntity.ok(status);
+    }
 }
@@ -0,0 +1,49 @@
+package dev.backend.demo.controller;
+
+import dev.backend.demo.service.ProductPopularityService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 熱門商品 API（儀表板用）
+ *
+ * 從記憶體中的熱門排行取得，不查詢資料庫；次數為本節點最近的估計值，
+ * 每 decayIntervalMs 減半。累計的次數另外定期寫入 product_stats。
+ */
+@RestController
+@RequestMapping("/api/admin/hot-products")
+public class HotProductsController {
+
+    @Autowired
+    private ProductPopularityService popularityService;
+
+    /**
+     * 瀏覽或加入購物車次數最多的商品
+     * GET /api/admin/hot-products?by=views&limit=20
+     *
+     * - by：views（預設）或 cartAdds
+     * - limit 預設 20，最多 product.popularity.top-k
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> hotProducts(
+            @RequestParam(defaultValue = "views") String by,
+            @RequestParam(defaultValue = "20") int limit) {
+
+        ProductPopularityService.Metric metric = ProductPopularityService.Metric.parse(by);
+        int clamped = Math.max(1, Math.min(limit, popularityService.getTopK()));
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("by", by);
+        response.put("decayIntervalMs", popularityService.getDecayIntervalMs());
+        response.put("total", popularityService.getTotal(metric));
+        response.put("products", popularityService.getHotProducts(metric, clamped));
+        return ResponseEntity.ok(response);
+    }
+}
@@ -0,0 +1,49 @@
+package dev.backend.demo.controller;
+
+import dev.backend.demo.journal.EventJournal;
+import dev.backend.demo.journal.JournalEvent;
+import dev.backend.demo.service.CommerceJournalService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 商業事件日誌管理 API（除錯用）
+ */
+@RestController
+@RequestMapping("/api/admin/journal")
+public class JournalController {
+    
+    @Autowired
+    private CommerceJournalService journalService;
+    
+    /**
+     * 讀取日誌事件
+     * GET /api/admin/journal?fromSequence={sequence}&limit={limit}
+     * 
+     * 回傳 nextSequence 供下一次請求接續讀取（最多 1000 筆）
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> read(
+            @RequestParam(defaultValue = "1") long fromSequence,
+            @RequestParam(defaultValue = "100") int limit) {
+        
+        List<JournalEvent> events = journalService.read(fromSequence, Math.max(1, Math.min(limit, 1000)));
+        EventJournal journal = journalService.getJournal();
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("events", events);
+        response.put("nextSequence", events.isEmpty() ? fromSequence : events.get(events.size() - 1).sequence() + 1);
+        response.put("lastSequence", journal.getLastSequence());
+        response.put("queued", journal.getQueuedCount());
+        response.put("dropped", journal.getDroppedCount());
+        return ResponseEntity.ok(response);
+    }
+}
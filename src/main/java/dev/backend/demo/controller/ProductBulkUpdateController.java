@@ -0,0 +1,44 @@
+package dev.backend.demo.controller;
+
+import dev.backend.demo.dto.product.ProductBulkUpdateRequest;
+import dev.backend.demo.service.ProductBulkUpdateService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 商品批次更新 API（管理用）
+ */
+@RestController
+@RequestMapping("/api/admin/products/bulk-update")
+public class ProductBulkUpdateController {
+
+    @Autowired
+    private ProductBulkUpdateService bulkUpdateService;
+
+    /**
+     * 依條件批次更新商品價格、類別或供應商
+     * POST /api/admin/products/bulk-update
+     *
+     * 請求本文：{"where": {"productIds": [...], "categoryId": 7, "supplierId": 3},
+     *           "set": {"unitPrice": 99, "priceChangePercent": 5, "categoryId": 8, "supplierId": 4}}
+     * 以單一 UPDATE 執行，回傳更新的商品數；條件或內容不合法時回傳 400
+     */
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> bulkUpdate(@Valid @RequestBody ProductBulkUpdateRequest request) {
+        long started = System.currentTimeMillis();
+        int updated = bulkUpdateService.update(request);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("updated", updated);
+        response.put("elapsedMs", System.currentTimeMillis() - started);
+        return ResponseEntity.ok(response);
+    }
+}
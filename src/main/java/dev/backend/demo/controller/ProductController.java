@@ -1,12 +1,39 @@
 package dev.backend.demo.controller;
 
+import dev.backend.demo.dto.product.ProductFacetResultDTO;
+import dev.backend.demo.dto.product.ProductSearchHitDTO;
+import dev.backend.demo.dto.product.ProductSuggestionDTO;
+import dev.backend.demo.dto.product.RelatedProductDTO;
 import dev.backend.demo.model.Product;
+import dev.backend.demo.service.CatalogSnapshot;
+import dev.backend.demo.service.CategoryService;
+import dev.backend.demo.service.CategoryTree;
+import dev.backend.demo.service.ProductChangeStreamService;
+import dev.backend.demo.service.ProductExportService;
+import dev.backend.demo.service.ProductFacetService;
+import dev.backend.demo.service.ProductPageCache;
+import dev.backend.demo.service.ProductPopularityService;
+import dev.backend.demo.service.ProductSearchService;
 import dev.backend.demo.service.ProductService;
+import dev.backend.demo.service.ProductSuggestService;
+import dev.backend.demo.service.RelatedProductService;
+import dev.backend.demo.util.ResponseBytesCache;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.util.List;
 
 /**
@@ -22,53 +49,289 @@ import java.util.List;
 @RequestMapping("/api/products")  // RESTful: 資源為複數名詞
 public class ProductController {
     
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int MAX_SEARCH_RESULTS = 100;
+    // 內容需登入才能取得，只允許瀏覽器快取；每次使用前以 ETag 向伺服器確認
+    private static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+    
     @Autowired
     private ProductService productService;
     
+    @Autowired
+    private RelatedProductService relatedProductService;
+    
+    @Autowired
+    private ProductExportService exportService;
+    
+    @Autowired
+    private ProductSearchService searchService;
+    
+    @Autowired
+    private ProductFacetService facetService;
+    
+    @Autowired
+    private ProductChangeStreamService changeStreamService;
+    
+    @Autowired
+    private ProductPageCache pageCache;
+    
+    @Autowired
+    private ProductSuggestService suggestService;
+    
+    @Autowired
+    private ProductPopularityService popularityService;
+    
+    @Autowired
+    private CategoryService categoryService;
+    
     /**
-     * 取得所有產品
-     * GET /api/products
+     * 分頁取得產品
+     * GET /api/products?categoryId={categoryId}&includeSubcategories={true|false}&sort={sort}&order={order}&limit={limit}&cursor={cursor}
      * 
      * RESTful 設計：
-     * - 使用 GET 方法查詢資源集合
-     * - 直接回傳資源陣列，不包裝在 response 物件中
-     * - HTTP 200 OK 表示成功
+     * - 使用 GET 方法查詢資源集合，篩選、排序與分頁條件放在 query string
+     * - 以游標分頁（keyset pagination）：回傳 nextCursor，下一頁只需帶 cursor 與 limit
+     * - includeSubcategories=true 時包含 categoryId 之下所有子類別的商品（記憶體中的類別樹展開，不查詢資料庫）
+     * - sort：id（預設）、price、name、createdAt；order：asc（預設）、desc
+     * - limit 預設 50，最多 200
+     * - HTTP 200 OK 表示成功；參數或游標錯誤回傳 400
+     * - 回應帶 ETag（目錄與類別樹的內容版本，各節點相同）；If-None-Match 相符時回傳 304，不查詢也不序列化。
+     *   不送 Last-Modified：修改時間來自各節點的時鐘，時鐘有誤差時 If-Modified-Since 會對已改變的內容回 304
+     * - 回應內容依目錄版本與查詢條件快取（ProductPageCache），命中時直接寫出序列化好的位元組；
+     *   請求帶 Accept-Encoding: gzip 時寫出預先壓縮的版本
      */
     @GetMapping
-    public ResponseEntity<List<Product>> getAllProducts(HttpSession session) {
+    public ResponseEntity<Void> getProducts(
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(defaultValue = "false") boolean includeSubcategories,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(defaultValue = "asc") String order,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) String cursor,
+            HttpSession session,
+            WebRequest request,
+            HttpServletResponse response) throws IOException {
         // 驗證使用者登入狀態
         if (!isAuthenticated(session)) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
         
-        List<Product> products = productService.getAllProducts();
-        return ResponseEntity.ok(products);
+        // 先取版本再產生內容：期間若有異動，內容只會比版本新，下次請求會因版本不同而重新取得
+        CatalogSnapshot snapshot = productService.getCatalogSnapshot();
+        // 包含子類別的頁面（游標中也可能帶著）隨類別樹改變，版本一併納入類別樹
+        CategoryTree categories = categoryService.tree();
+        String version = snapshot.version() + "-" + categories.version();
+        boolean gzip = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        // 壓縮與未壓縮的內容不同，強驗證值也要不同
+        String etag = "\"" + version + (gzip ? "-gz" : "") + "\"";
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        
+        ResponseBytesCache.Entry page = pageCache.getPage(version, categoryId, includeSubcategories, sort, order,
+            Math.max(1, Math.min(limit, MAX_PAGE_SIZE)), cursor);
+        ByteBuffer body = gzip ? page.gzip() : page.plain();
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.remaining());
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL.getHeaderValue());
+        WritableByteChannel channel = Channels.newChannel(response.getOutputStream());
+        while (body.hasRemaining()) {
+            channel.write(body);
+        }
+        return null;
+    }
+    
+    /**
+     * 匯出所有產品
+     * GET /api/products/export?format={ndjson|csv}
+     * 
+     * 以串流方式邊讀邊寫（StreamingResponseBody），不把整個目錄載入記憶體
+     * - ndjson：每行一個 JSON 物件（application/x-ndjson）
+     * - csv：第一行為欄位名稱（text/csv）
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @RequestParam(defaultValue = "ndjson") String format,
+            HttpSession session) {
+        
+        if (!isAuthenticated(session)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        
+        ProductExportService.Format exportFormat = ProductExportService.Format.fromParam(format);
+        StreamingResponseBody body = out -> exportService.export(exportFormat, out);
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"))
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"products." + exportFormat.getExtension() + "\"")
+            .body(body);
+    }
+    
+    /**
+     * 商品異動串流（Server-Sent Events）
+     * GET /api/products/changes?since={sequence}
+     * 
+     * 連線後先送出 ready（目前序號），之後每次商品新增、修改、刪除送出 created / updated / deleted，
+     * 事件 id 為序號；重新連線時帶 Last-Event-ID（或 since）補送中間漏掉的事件，
+     * 無法補送時送出 reset，用戶端應重新載入列表
+     */
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamChanges(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            @RequestParam(required = false) Long since,
+            HttpSession session) {
+        
+        if (!isAuthenticated(session)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        
+        Long resumeFrom = since;
+        if (lastEventId != null) {
+            try {
+                resumeFrom = Long.parseLong(lastEventId.trim());
+            } catch (NumberFormatException e) {
+                // 無法辨識的序號：當作已過期，由串流送出 reset
+                resumeFrom = -1L;
+            }
+        }
+        return ResponseEntity.ok(changeStreamService.subscribe(resumeFrom));
+    }
+    
+    /**
+     * 全文搜尋產品
+     * GET /api/products/search?q={keywords}&limit={limit}
+     * 
+     * 比對商品名稱與描述（名稱權重較高），依相關性（BM25）排序
+     * - 任一關鍵字出現即符合；中文以相鄰兩字為單位比對
+     * - limit 預設 20，最多 100
+     * - 沒有可搜尋的關鍵字時回傳 400
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<ProductSearchHitDTO>> searchProducts(
+            @RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "20") int limit,
+            HttpSession session) {
+        
+        if (!isAuthenticated(session)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        
+        List<ProductSearchHitDTO> hits = searchService.search(q, Math.max(1, Math.min(limit, MAX_SEARCH_RESULTS)));
+        return ResponseEntity.ok(hits);
+    }
+    
+    /**
+     * 搜尋框輸入提示
+     * GET /api/products/suggest?prefix={prefix}&limit={limit}
+     * 
+     * 比對商品名稱開頭或名稱中任一個詞的開頭（不分大小寫與重音符號），依累計銷售數量排序
+     * - 從記憶體中的前綴索引取得，不查詢資料庫
+     * - limit 預設 8，最多 10（product.suggest.max-results）
+     * - prefix 沒有可比對的字元時回傳空清單
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<ProductSuggestionDTO>> suggestProducts(
+            @RequestParam(defaultValue = "") String prefix,
+            @RequestParam(defaultValue = "8") int limit,
+            HttpSession session) {
+        
+        if (!isAuthenticated(session)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        
+        return ResponseEntity.ok(suggestService.suggest(prefix, Math.max(1, limit)));
+    }
+    
+    /**
+     * 多條件篩選產品並回傳各篩選欄位的數量
+     * GET /api/products/facets?categoryId={id}&supplierId={id}&priceBand={band}&afterId={id}&limit={limit}
+     * 
+     * - categoryId、supplierId、priceBand 都可重複（或以逗號分隔）多選：同一欄位取聯集，不同欄位取交集
+     * - priceBand 為價格區間編號，區間範圍見回應中的 priceBands
+     * - 結果依 ID 排序，以 afterId（回應中的 nextAfterId）取下一頁；limit 預設 50，最多 200
+     */
+    @GetMapping("/facets")
+    public ResponseEntity<ProductFacetResultDTO> filterProducts(
+            @RequestParam(required = false) List<Long> categoryId,
+            @RequestParam(required = false) List<Long> supplierId,
+            @RequestParam(required = false) List<Long> priceBand,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "50") int limit,
+            HttpSession session) {
+        
+        if (!isAuthenticated(session)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        
+        ProductFacetResultDTO result = facetService.filter(
+            categoryId == null ? List.of() : categoryId,
+            supplierId == null ? List.of() : supplierId,
+            priceBand == null ? List.of() : priceBand,
+            afterId, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+        return ResponseEntity.ok(result);
     }
     
     /**
      * 根據 ID 取得單一產品
      * GET /api/products/{id}
      * 
+     * 回傳完整欄位（含描述與建立、更新時間）；列表 API 只回傳精簡欄位
+     * 
      * RESTful 設計：
      * - 使用路徑變數 {id} 表示特定資源
      * - HTTP 200 OK: 找到資源
+     * - HTTP 304 Not Modified: If-None-Match 與商品版本相符（以快照比對，不讀取描述）
      * - HTTP 404 Not Found: 資源不存在
+     * - 記錄一次瀏覽（ProductPopularityService，不寫資料庫）
      */
     @GetMapping("/{id}")
     public ResponseEntity<Product> getProductById(
             @PathVariable Long id, 
-            HttpSession session) {
+            HttpSession session,
+            WebRequest request) {
         
         if (!isAuthenticated(session)) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
         
+        Product summary = productService.getProductSummary(id);
+        // 瀏覽次數只累加記憶體中的計數器（304 也算一次瀏覽）
+        popularityService.recordView(id);
+        // 與列表相同只以 ETag 判斷，不送 Last-Modified（updatedAt 依寫入節點的時鐘）
+        String etag = "\"" + id + "-" + CatalogSnapshot.version(summary) + "\"";
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        
         Product product = productService.getProductById(id);
-        if (product == null) {
-            return ResponseEntity.notFound().build();
+        return ResponseEntity.ok()
+            .eTag(etag)
+            .cacheControl(CACHE_CONTROL)
+            .body(product);
+    }
+    
+    /**
+     * 取得經常一起購買的產品
+     * GET /api/products/{id}/related?limit={limit}
+     * 
+     * 從記憶體中的共同購買矩陣取前 limit 名（預設 5，最多 50），依共同購買次數排序
+     */
+    @GetMapping("/{id}/related")
+    public ResponseEntity<List<RelatedProductDTO>> getRelatedProducts(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "5") int limit,
+            HttpSession session) {
+        
+        if (!isAuthenticated(session)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
         
-        return ResponseEntity.ok(product);
+        List<RelatedProductDTO> related = relatedProductService.getRelatedProducts(id, Math.max(0, Math.min(limit, 50)));
+        return ResponseEntity.ok(related);
     }
     
     /**
@@ -112,7 +375,7 @@ public class ProductController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
         
-        Product existingProduct = productService.getProductById(id);
+        Product existingProduct = productService.getProductSummary(id);
         if (existingProduct == null) {
             return ResponseEntity.notFound().build();
         }
@@ -142,7 +405,8 @@ public class ProductController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
         
-        Product existingProduct = productService.getProductById(id);
+        // 從資料庫取得可修改的實體（快照中的物件是共用的，不可直接修改）
+        Product existingProduct = productService.getProductForUpdate(id);
         if (existingProduct == null) {
             return ResponseEntity.notFound().build();
         }
@@ -186,7 +450,7 @@ public class ProductController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
         
-        Product product = productService.getProductById(id);
+        Product product = productService.getProductSummary(id);
         if (product == null) {
             return ResponseEntity.notFound().build();
         }
@@ -196,24 +460,19 @@ public class ProductController {
     }
     
     /**
-     * 根據類別 ID 取得產品列表
-     * GET /api/products?categoryId={categoryId}
-     * 
-     * RESTful 設計：
-     * - 使用查詢參數進行資源過濾
-     * - 保持 URL 簡潔，篩選條件放在 query string
+     * Accept-Encoding 是否接受 gzip（q=0 表示明確拒絕）
      */
-    @GetMapping(params = "categoryId")
-    public ResponseEntity<List<Product>> getProductsByCategory(
-            @RequestParam Long categoryId,
-            HttpSession session) {
-        
-        if (!isAuthenticated(session)) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+    private boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
         }
-        
-        List<Product> products = productService.getProductsByCategoryId(categoryId);
-        return ResponseEntity.ok(products);
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length < 2 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
     }
     
     /**
@@ -0,0 +1,80 @@
+package dev.backend.demo.controller;
+
+import dev.backend.demo.service.ProductImportService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 商品批次匯入 API（管理用）
+ *
+ * 請求本文直接是 CSV 或 NDJSON 檔案內容，收到後寫到暫存檔並在背景匯入，以作業 ID 查詢進度與結果。
+ * 欄位：productName、unitPrice（必填），categoryId、supplierId、description（選填）。
+ */
+@RestController
+@RequestMapping("/api/admin/products/import")
+public class ProductImportController {
+
+    @Autowired
+    private ProductImportService importService;
+
+    /**
+     * 匯入商品
+     * POST /api/admin/products/import?format={csv|ndjson}
+     *
+     * 未指定 format 時依 Content-Type（text/csv、application/x-ndjson）判斷。
+     * - HTTP 202 Accepted: 檔案已接收，回傳執行中的作業（jobId）與 Location 標頭，
+     *   以 GET /api/admin/products/import/{jobId} 查詢進度；格式錯誤的列不會中斷匯入，完成後列在 errors（列號與原因）
+     * - HTTP 400 Bad Request: 無法判斷格式
+     */
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> importProducts(
+            @RequestParam(required = false) String format,
+            HttpServletRequest request) throws IOException {
+
+        ProductImportService.Format importFormat = ProductImportService.Format.resolve(format, request.getContentType());
+        try (InputStream in = request.getInputStream()) {
+            ProductImportService.ImportJob job = importService.submit(in, importFormat);
+            return ResponseEntity.accepted()
+                .location(URI.create(request.getRequestURI() + "/" + job.getId()))
+                .body(job.toMap(false));
+        }
+    }
+
+    /**
+     * 查詢匯入作業進度
+     * GET /api/admin/products/import/{jobId}
+     */
+    @GetMapping("/{jobId}")
+    public ResponseEntity<Map<String, Object>> getJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(importService.getJob(jobId).toMap(true));
+    }
+
+    /**
+     * 最近的匯入作業（不含錯誤列明細）
+     * GET /api/admin/products/import
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getRecentJobs() {
+        List<Map<String, Object>> jobs = importService.getRecentJobs().stream()
+            .map(job -> job.toMap(false))
+            .toList();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("jobs", jobs);
+        return ResponseEntity.ok(response);
+    }
+}
@@ -0,0 +1,71 @@
+package dev.backend.demo.controller;
+
+import dev.backend.demo.service.SupplierFeedSyncService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 供應商商品檔同步 API（管理用）
+ *
+ * 商品檔放在伺服器的商品檔目錄（product.feed.directory），以串流方式讀取。
+ * 欄位：sku、productName、unitPrice（必填），categoryId、description（選填）。
+ * 只寫入有變動的列，未變動的商品不會被改寫（updatedAt 不變）。
+ */
+@RestController
+@RequestMapping("/api/admin/feed-sync")
+public class SupplierFeedController {
+
+    @Autowired
+    private SupplierFeedSyncService feedSyncService;
+
+    /**
+     * 同步一個供應商的商品檔
+     * POST /api/admin/feed-sync?supplierId={supplierId}&file={fileName}
+     *
+     * 完成後回傳結果：新增、更新、未變動、略過（管理者已刪除的商品）、刪除、失敗的筆數與錯誤列（列號與原因）。
+     * 檔案不在商品檔目錄中或該供應商正在同步時回傳 400，檔案不存在時回傳 404。
+     */
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> sync(
+            @RequestParam long supplierId,
+            @RequestParam String file) throws IOException {
+
+        SupplierFeedSyncService.SyncJob job = feedSyncService.sync(supplierId, file);
+        return ResponseEntity.ok(job.toMap(true));
+    }
+
+    /**
+     * 查詢同步作業進度
+     * GET /api/admin/feed-sync/{jobId}
+     */
+    @GetMapping("/{jobId}")
+    public ResponseEntity<Map<String, Object>> getJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(feedSyncService.getJob(jobId).toMap(true));
+    }
+
+    /**
+     * 最近的同步作業（不含錯誤列明細）
+     * GET /api/admin/feed-sync
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getRecentJobs() {
+        List<Map<String, Object>> jobs = feedSyncService.getRecentJobs().stream()
+            .map(job -> job.toMap(false))
+            .toList();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("jobs", jobs);
+        return ResponseEntity.ok(response);
+    }
+}
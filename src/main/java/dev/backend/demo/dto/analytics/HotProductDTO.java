@@ -0,0 +1,54 @@
+package dev.backend.demo.dto.analytics;
+
+/**
+ * 熱門商品 DTO
+ * views、cartAdds 為最近的瀏覽與加入購物車次數的估計值（定期減半，偏重最近的次數）
+ */
+public class HotProductDTO {
+    private Long productId;
+    private String productName;
+    private long views;
+    private long cartAdds;
+
+    public HotProductDTO() {}
+
+    public HotProductDTO(Long productId, String productName, long views, long cartAdds) {
+        this.productId = productId;
+        this.productName = productName;
+        this.views = views;
+        this.cartAdds = cartAdds;
+    }
+
+    // Getters and Setters
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public void setProductName(String productName) {
+        this.productName = productName;
+    }
+
+    public long getViews() {
+        return views;
+    }
+
+    public void setViews(long views) {
+        this.views = views;
+    }
+
+    public long getCartAdds() {
+        return cartAdds;
+    }
+
+    public void setCartAdds(long cartAdds) {
+        this.cartAdds = cartAdds;
+    }
+}
@@ -0,0 +1,57 @@
+package dev.backend.demo.dto.analytics;
+
+import java.math.BigDecimal;
+
+/**
+ * 銷售排名 DTO
+ * 商品排名時 productId 為商品 ID；類別排名時 productId 為 null
+ * categoryId 為 null 表示未分類
+ */
+public class SalesEntryDTO {
+    private Long productId;
+    private Long categoryId;
+    private Long units;
+    private BigDecimal revenue;
+    
+    public SalesEntryDTO() {}
+    
+    public SalesEntryDTO(Long productId, Long categoryId, Long units, BigDecimal revenue) {
+        this.productId = productId;
+        this.categoryId = categoryId;
+        this.units = units;
+        this.revenue = revenue;
+    }
+    
+    // Getters and Setters
+    public Long getProductId() {
+        return productId;
+    }
+    
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+    
+    public Long getCategoryId() {
+        return categoryId;
+    }
+    
+    public void setCategoryId(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+    
+    public Long getUnits() {
+        return units;
+    }
+    
+    public void setUnits(Long units) {
+        this.units = units;
+    }
+    
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+    
+    public void setRevenue(BigDecimal revenue) {
+        this.revenue = revenue;
+    }
+}
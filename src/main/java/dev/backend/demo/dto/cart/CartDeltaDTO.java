@@ -0,0 +1,83 @@
+package dev.backend.demo.dto.cart;
+
+import dev.backend.demo.event.CartChangedEvent;
+
+import java.math.BigDecimal;
+
+/**
+ * 購物車異動 DTO
+ * 透過 /api/cart/stream 推送給同一使用者的其他連線，只包含異動的項目與新的總計
+ */
+public class CartDeltaDTO {
+    private CartChangedEvent.Type type;
+    private Long productId;
+    // 異動後的項目；項目被移除或清空購物車時為 null
+    private CartItemDTO item;
+    private Integer totalItems;
+    private BigDecimal totalPrice;
+    
+    public CartDeltaDTO() {}
+    
+    public CartDeltaDTO(CartChangedEvent.Type type, Long productId, CartItemDTO item,
+                        Integer totalItems, BigDecimal totalPrice) {
+        this.type = type;
+        this.productId = productId;
+        this.item = item;
+        this.totalItems = totalItems;
+        this.totalPrice = totalPrice;
+    }
+    
+    /**
+     * 由購物車異動事件建立
+     */
+    public static CartDeltaDTO from(CartChangedEvent event) {
+        CartResponseDTO cart = event.getCart();
+        CartItemDTO item = cart.getItems().stream()
+            .filter(i -> i.getProductId().equals(event.getProductId()))
+            .findFirst()
+            .orElse(null);
+        return new CartDeltaDTO(event.getType(), event.getProductId(), item,
+            cart.getTotalItems(), cart.getTotalPrice());
+    }
+    
+    // Getters and Setters
+    public CartChangedEvent.Type getType() {
+        return type;
+    }
+    
+    public void setType(CartChangedEvent.Type type) {
+        this.type = type;
+    }
+    
+    public Long getProductId() {
+        return productId;
+    }
+    
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+    
+    public CartItemDTO getItem() {
+        return item;
+    }
+    
+    public void setItem(CartItemDTO item) {
+        this.item = item;
+    }
+    
+    public Integer getTotalItems() {
+        return totalItems;
+    }
+    
+    public void setTotalItems(Integer totalItems) {
+        this.totalItems = totalItems;
+    }
+    
+    public BigDecimal getTotalPrice() {
+        return totalPrice;
+    }
+    
+    public void setTotalPrice(BigDecimal totalPrice) {
+        this.totalPrice = totalPrice;
+    }
+}
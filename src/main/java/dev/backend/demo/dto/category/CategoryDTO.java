@@ -0,0 +1,64 @@
+package dev.backend.demo.dto.category;
+
+/**
+ * 類別 DTO
+ * depth 為在類別樹中的深度（最上層為 0）；productCount 為此類別與其下所有子類別的商品數
+ */
+public class CategoryDTO {
+    private Long categoryId;
+    private String categoryName;
+    private Long parentId;
+    private int depth;
+    private long productCount;
+
+    public CategoryDTO() {}
+
+    public CategoryDTO(Long categoryId, String categoryName, Long parentId, int depth, long productCount) {
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+        this.parentId = parentId;
+        this.depth = depth;
+        this.productCount = productCount;
+    }
+
+    // Getters and Setters
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public void setCategoryName(String categoryName) {
+        this.categoryName = categoryName;
+    }
+
+    public Long getParentId() {
+        return parentId;
+    }
+
+    public void setParentId(Long parentId) {
+        this.parentId = parentId;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public void setDepth(int depth) {
+        this.depth = depth;
+    }
+
+    public long getProductCount() {
+        return productCount;
+    }
+
+    public void setProductCount(long productCount) {
+        this.productCount = productCount;
+    }
+}
@@ -0,0 +1,36 @@
+package dev.backend.demo.dto.category;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+/**
+ * 新增或修改類別的請求 DTO
+ * parentId 為 null 表示最上層類別；修改時改變 parentId 即是把類別（連同子類別）移到新的上層之下
+ */
+public class CategoryRequest {
+
+    @NotBlank(message = "類別名稱不能為空")
+    @Size(max = 100, message = "類別名稱最多 100 個字元")
+    private String categoryName;
+
+    private Long parentId;
+
+    public CategoryRequest() {}
+
+    // Getters and Setters
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public void setCategoryName(String categoryName) {
+        this.categoryName = categoryName;
+    }
+
+    public Long getParentId() {
+        return parentId;
+    }
+
+    public void setParentId(Long parentId) {
+        this.parentId = parentId;
+    }
+}
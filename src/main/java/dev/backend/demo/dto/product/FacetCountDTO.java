@@ -0,0 +1,57 @@
+package dev.backend.demo.dto.product;
+
+import java.math.BigDecimal;
+
+/**
+ * 篩選欄位值的商品數 DTO
+ * value 為類別 ID、供應商 ID 或價格區間編號（null 表示未設定）；
+ * 價格區間另外帶 min（含）與 max（不含，最後一個區間為 null）
+ */
+public class FacetCountDTO {
+    private Long value;
+    private BigDecimal min;
+    private BigDecimal max;
+    private long count;
+    
+    public FacetCountDTO() {}
+    
+    public FacetCountDTO(Long value, BigDecimal min, BigDecimal max, long count) {
+        this.value = value;
+        this.min = min;
+        this.max = max;
+        this.count = count;
+    }
+    
+    // Getters and Setters
+    public Long getValue() {
+        return value;
+    }
+    
+    public void setValue(Long value) {
+        this.value = value;
+    }
+    
+    public BigDecimal getMin() {
+        return min;
+    }
+    
+    public void setMin(BigDecimal min) {
+        this.min = min;
+    }
+    
+    public BigDecimal getMax() {
+        return max;
+    }
+    
+    public void setMax(BigDecimal max) {
+        this.max = max;
+    }
+    
+    public long getCount() {
+        return count;
+    }
+    
+    public void setCount(long count) {
+        this.count = count;
+    }
+}
@@ -0,0 +1,132 @@
+package dev.backend.demo.dto.product;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * 商品批次更新請求 DTO
+ *
+ * where：要更新哪些商品（各條件同時成立，至少一個條件）
+ * set：要改成什麼（只套用非 null 的欄位，至少一個欄位）
+ *
+ * 例：{"where": {"categoryId": 7}, "set": {"priceChangePercent": 5}} 為類別 7 的所有商品漲價 5%
+ */
+public class ProductBulkUpdateRequest {
+
+    @NotNull(message = "更新條件不能為空")
+    @Valid
+    private Filter where;
+
+    @NotNull(message = "更新內容不能為空")
+    @Valid
+    private Changes set;
+
+    public ProductBulkUpdateRequest() {}
+
+    /**
+     * 更新條件
+     */
+    public static class Filter {
+        private List<Long> productIds;
+        private Long categoryId;
+        private Long supplierId;
+
+        public Filter() {}
+
+        // Getters and Setters
+        public List<Long> getProductIds() {
+            return productIds;
+        }
+
+        public void setProductIds(List<Long> productIds) {
+            this.productIds = productIds;
+        }
+
+        public Long getCategoryId() {
+            return categoryId;
+        }
+
+        public void setCategoryId(Long categoryId) {
+            this.categoryId = categoryId;
+        }
+
+        public Long getSupplierId() {
+            return supplierId;
+        }
+
+        public void setSupplierId(Long supplierId) {
+            this.supplierId = supplierId;
+        }
+    }
+
+    /**
+     * 更新內容（unitPrice 與 priceChangePercent 只能擇一）
+     */
+    public static class Changes {
+        @DecimalMin(value = "0", message = "價格不能為負數")
+        private BigDecimal unitPrice;
+
+        // 價格調整百分比，例如 5 為漲價 5%、-10 為降價 10%（結果四捨五入到小數 2 位）
+        @DecimalMin(value = "-100", inclusive = false, message = "降價幅度必須小於 100%")
+        private BigDecimal priceChangePercent;
+
+        private Long categoryId;
+        private Long supplierId;
+
+        public Changes() {}
+
+        // Getters and Setters
+        public BigDecimal getUnitPrice() {
+            return unitPrice;
+        }
+
+        public void setUnitPrice(BigDecimal unitPrice) {
+            this.unitPrice = unitPrice;
+        }
+
+        public BigDecimal getPriceChangePercent() {
+            return priceChangePercent;
+        }
+
+        public void setPriceChangePercent(BigDecimal priceChangePercent) {
+            this.priceChangePercent = priceChangePercent;
+        }
+
+        public Long getCategoryId() {
+            return categoryId;
+        }
+
+        public void setCategoryId(Long categoryId) {
+            this.categoryId = categoryId;
+        }
+
+        public Long getSupplierId() {
+            return supplierId;
+        }
+
+        public void setSupplierId(Long supplierId) {
+            this.supplierId = supplierId;
+        }
+    }
+
+    // Getters and Setters
+    public Filter getWhere() {
+        return where;
+    }
+
+    public void setWhere(Filter where) {
+        this.where = where;
+    }
+
+    public Changes getSet() {
+        return set;
+    }
+
+    public void setSet(Changes set) {
+        this.set = set;
+    }
+}
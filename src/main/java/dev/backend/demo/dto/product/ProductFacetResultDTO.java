@@ -0,0 +1,78 @@
+package dev.backend.demo.dto.product;
+
+import java.util.List;
+
+/**
+ * 商品篩選結果 DTO
+ * total 為符合所有條件的商品數，items 依 ID 排序；nextAfterId 為下一頁的 afterId，沒有下一頁時為 null。
+ * 各欄位的數量套用其他欄位的條件計算（同一欄位改選其他值時會有幾筆）
+ */
+public class ProductFacetResultDTO {
+    private long total;
+    private List<ProductSummaryDTO> items;
+    private Long nextAfterId;
+    private List<FacetCountDTO> categories;
+    private List<FacetCountDTO> suppliers;
+    private List<FacetCountDTO> priceBands;
+    
+    public ProductFacetResultDTO() {}
+    
+    public ProductFacetResultDTO(long total, List<ProductSummaryDTO> items, Long nextAfterId, List<FacetCountDTO> categories,
+                                 List<FacetCountDTO> suppliers, List<FacetCountDTO> priceBands) {
+        this.total = total;
+        this.items = items;
+        this.nextAfterId = nextAfterId;
+        this.categories = categories;
+        this.suppliers = suppliers;
+        this.priceBands = priceBands;
+    }
+    
+    // Getters and Setters
+    public long getTotal() {
+        return total;
+    }
+    
+    public void setTotal(long total) {
+        this.total = total;
+    }
+    
+    public List<ProductSummaryDTO> getItems() {
+        return items;
+    }
+    
+    public void setItems(List<ProductSummaryDTO> items) {
+        this.items = items;
+    }
+    
+    public Long getNextAfterId() {
+        return nextAfterId;
+    }
+    
+    public void setNextAfterId(Long nextAfterId) {
+        this.nextAfterId = nextAfterId;
+    }
+    
+    public List<FacetCountDTO> getCategories() {
+        return categories;
+    }
+    
+    public void setCategories(List<FacetCountDTO> categories) {
+        this.categories = categories;
+    }
+    
+    public List<FacetCountDTO> getSuppliers() {
+        return suppliers;
+    }
+    
+    public void setSuppliers(List<FacetCountDTO> suppliers) {
+        this.suppliers = suppliers;
+    }
+    
+    public List<FacetCountDTO> getPriceBands() {
+        return priceBands;
+    }
+    
+    public void setPriceBands(List<FacetCountDTO> priceBands) {
+        this.priceBands = priceBands;
+    }
+}
@@ -0,0 +1,78 @@
+package dev.backend.demo.dto.product;
+
+import java.util.List;
+
+/**
+ * 商品分頁 DTO
+ * nextCursor 為下一頁的游標，沒有下一頁時為 null
+ * includeSubcategories 為 true 時，商品包含 categoryId 之下所有子類別的商品
+ */
+public class ProductPageDTO {
+    private List<ProductSummaryDTO> items;
+    private String nextCursor;
+    private String sort;
+    private String order;
+    private Long categoryId;
+    private boolean includeSubcategories;
+    
+    public ProductPageDTO() {}
+    
+    public ProductPageDTO(List<ProductSummaryDTO> items, String nextCursor, String sort, String order, Long categoryId,
+                          boolean includeSubcategories) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.sort = sort;
+        this.order = order;
+        this.categoryId = categoryId;
+        this.includeSubcategories = includeSubcategories;
+    }
+    
+    // Getters and Setters
+    public List<ProductSummaryDTO> getItems() {
+        return items;
+    }
+    
+    public void setItems(List<ProductSummaryDTO> items) {
+        this.items = items;
+    }
+    
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+    
+    public String getSort() {
+        return sort;
+    }
+    
+    public void setSort(String sort) {
+        this.sort = sort;
+    }
+    
+    public String getOrder() {
+        return order;
+    }
+    
+    public void setOrder(String order) {
+        this.order = order;
+    }
+    
+    public Long getCategoryId() {
+        return categoryId;
+    }
+    
+    public void setCategoryId(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+    
+    public boolean isIncludeSubcategories() {
+        return includeSubcategories;
+    }
+    
+    public void setIncludeSubcategories(boolean includeSubcategories) {
+        this.includeSubcategories = includeSubcategories;
+    }
+}
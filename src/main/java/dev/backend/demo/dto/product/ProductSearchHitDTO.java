@@ -0,0 +1,77 @@
+package dev.backend.demo.dto.product;
+
+import java.math.BigDecimal;
+
+/**
+ * 商品搜尋結果 DTO
+ * score 為 BM25 相關性分數，只用於同一次查詢中的排序比較
+ */
+public class ProductSearchHitDTO {
+    private Long productId;
+    private String productName;
+    private Long categoryId;
+    private Long supplierId;
+    private BigDecimal unitPrice;
+    private double score;
+
+    public ProductSearchHitDTO() {}
+
+    public ProductSearchHitDTO(Long productId, String productName, Long categoryId, Long supplierId,
+                               BigDecimal unitPrice, double score) {
+        this.productId = productId;
+        this.productName = productName;
+        this.categoryId = categoryId;
+        this.supplierId = supplierId;
+        this.unitPrice = unitPrice;
+        this.score = score;
+    }
+
+    // Getters and Setters
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public void setProductName(String productName) {
+        this.productName = productName;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public Long getSupplierId() {
+        return supplierId;
+    }
+
+    public void setSupplierId(Long supplierId) {
+        this.supplierId = supplierId;
+    }
+
+    public BigDecimal getUnitPrice() {
+        return unitPrice;
+    }
+
+    public void setUnitPrice(BigDecimal unitPrice) {
+        this.unitPrice = unitPrice;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+}
@@ -0,0 +1,66 @@
+package dev.backend.demo.dto.product;
+
+import java.math.BigDecimal;
+
+/**
+ * 商品輸入提示 DTO
+ * sold 為累計銷售數量，提示依此排序
+ */
+public class ProductSuggestionDTO {
+    private Long productId;
+    private String productName;
+    private Long categoryId;
+    private BigDecimal unitPrice;
+    private long sold;
+
+    public ProductSuggestionDTO() {}
+
+    public ProductSuggestionDTO(Long productId, String productName, Long categoryId, BigDecimal unitPrice, long sold) {
+        this.productId = productId;
+        this.productName = productName;
+        this.categoryId = categoryId;
+        this.unitPrice = unitPrice;
+        this.sold = sold;
+    }
+
+    // Getters and Setters
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public void setProductName(String productName) {
+        this.productName = productName;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public BigDecimal getUnitPrice() {
+        return unitPrice;
+    }
+
+    public void setUnitPrice(BigDecimal unitPrice) {
+        this.unitPrice = unitPrice;
+    }
+
+    public long getSold() {
+        return sold;
+    }
+
+    public void setSold(long sold) {
+        this.sold = sold;
+    }
+}
@@ -0,0 +1,73 @@
+package dev.backend.demo.dto.product;
+
+import dev.backend.demo.model.Product;
+
+import java.math.BigDecimal;
+
+/**
+ * 商品列表用的精簡 DTO
+ * 只含列表顯示需要的欄位；描述與建立、更新時間只在 GET /api/products/{id} 回傳
+ */
+public class ProductSummaryDTO {
+    private Long productId;
+    private String productName;
+    private Long categoryId;
+    private Long supplierId;
+    private BigDecimal unitPrice;
+    
+    public ProductSummaryDTO() {}
+    
+    public ProductSummaryDTO(Long productId, String productName, Long categoryId, Long supplierId, BigDecimal unitPrice) {
+        this.productId = productId;
+        this.productName = productName;
+        this.categoryId = categoryId;
+        this.supplierId = supplierId;
+        this.unitPrice = unitPrice;
+    }
+    
+    public static ProductSummaryDTO from(Product product) {
+        return new ProductSummaryDTO(product.getProductId(), product.getProductName(), product.getCategoryId(),
+            product.getSupplierId(), product.getUnitPrice());
+    }
+    
+    // Getters and Setters
+    public Long getProductId() {
+        return productId;
+    }
+    
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+    
+    public String getProductName() {
+        return productName;
+    }
+    
+    public void setProductName(String productName) {
+        this.productName = productName;
+    }
+    
+    public Long getCategoryId() {
+        return categoryId;
+    }
+    
+    public void setCategoryId(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+    
+    public Long getSupplierId() {
+        return supplierId;
+    }
+    
+    public void setSupplierId(Long supplierId) {
+        this.supplierId = supplierId;
+    }
+    
+    public BigDecimal getUnitPrice() {
+        return unitPrice;
+    }
+    
+    public void setUnitPrice(BigDecimal unitPrice) {
+        this.unitPrice = unitPrice;
+    }
+}
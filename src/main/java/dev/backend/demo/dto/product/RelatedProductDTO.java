@@ -0,0 +1,34 @@
+package dev.backend.demo.dto.product;
+
+/**
+ * 共同購買商品 DTO
+ * 用於回傳「經常一起購買」的商品與共同出現的訂單數
+ */
+public class RelatedProductDTO {
+    private Long productId;
+    private Long count;
+    
+    public RelatedProductDTO() {}
+    
+    public RelatedProductDTO(Long productId, Long count) {
+        this.productId = productId;
+        this.count = count;
+    }
+    
+    // Getters and Setters
+    public Long getProductId() {
+        return productId;
+    }
+    
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+    
+    public Long getCount() {
+        return count;
+    }
+    
+    public void setCount(Long count) {
+        this.count = count;
+    }
+}
@@ -0,0 +1,59 @@
+package dev.backend.demo.event;
+
+import dev.backend.demo.dto.cart.CartResponseDTO;
+
+/**
+ * 購物車異動事件
+ * 由 CartService 在每次修改購物車後發布，攜帶修改後的完整購物車內容
+ */
+public class CartChangedEvent {
+    
+    /**
+     * 異動類型
+     */
+    public enum Type {
+        ITEM_ADDED,
+        QUANTITY_UPDATED,
+        ITEM_REMOVED,
+        CLEARED
+    }
+    
+    private final Long userId;
+    private final Type type;
+    private final Long productId;
+    private final Integer quantity;
+    private final CartResponseDTO cart;
+    
+    /**
+     * @param productId 異動的商品，CLEARED 時為 null
+     * @param quantity  ITEM_ADDED 為加入的數量，QUANTITY_UPDATED 為新的數量，其餘為 0
+     * @param cart      修改後的購物車
+     */
+    public CartChangedEvent(Long userId, Type type, Long productId, Integer quantity, CartResponseDTO cart) {
+        this.userId = userId;
+        this.type = type;
+        this.productId = productId;
+        this.quantity = quantity;
+        this.cart = cart;
+    }
+    
+    public Long getUserId() {
+        return userId;
+    }
+    
+    public Type getType() {
+        return type;
+    }
+    
+    public Long getProductId() {
+        return productId;
+    }
+    
+    public Integer getQuantity() {
+        return quantity;
+    }
+    
+    public CartResponseDTO getCart() {
+        return cart;
+    }
+}
@@ -0,0 +1,41 @@
+package dev.backend.demo.event;
+
+import dev.backend.demo.dto.cart.CartResponseDTO;
+import dev.backend.demo.model.Order;
+
+import java.time.LocalDateTime;
+
+/**
+ * 結帳完成事件
+ * 由 CartService.checkout 在清空購物車後發布，攜帶結帳時的購物車內容與建立的訂單
+ */
+public class CheckoutCompletedEvent {
+    
+    private final Long userId;
+    private final CartResponseDTO cart;
+    private final Order order;
+    private final LocalDateTime checkedOutAt;
+    
+    public CheckoutCompletedEvent(Long userId, CartResponseDTO cart, Order order, LocalDateTime checkedOutAt) {
+        this.userId = userId;
+        this.cart = cart;
+        this.order = order;
+        this.checkedOutAt = checkedOutAt;
+    }
+    
+    public Long getUserId() {
+        return userId;
+    }
+    
+    public CartResponseDTO getCart() {
+        return cart;
+    }
+    
+    public Order getOrder() {
+        return order;
+    }
+    
+    public LocalDateTime getCheckedOutAt() {
+        return checkedOutAt;
+    }
+}
@@ -0,0 +1,57 @@
+package dev.backend.demo.event;
+
+import java.util.List;
+
+/**
+ * 商品異動事件
+ * 由 ProductService（單一商品）或批次作業（多個商品）在寫入後發布，
+ * 提交後由 ProductCatalog 更新記憶體中的商品目錄。
+ * 其他節點的異動經由 InvalidationBus 轉成 remote 事件在本節點發布（不再轉送出去）
+ */
+public class ProductChangedEvent {
+    
+    /**
+     * 異動類型
+     */
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+    
+    private final List<Long> productIds;
+    private final Type type;
+    private final boolean remote;
+    
+    public ProductChangedEvent(Long productId, Type type) {
+        this(List.of(productId), type);
+    }
+    
+    public ProductChangedEvent(List<Long> productIds, Type type) {
+        this(productIds, type, false);
+    }
+    
+    public ProductChangedEvent(List<Long> productIds, Type type, boolean remote) {
+        this.productIds = List.copyOf(productIds);
+        this.type = type;
+        this.remote = remote;
+    }
+    
+    /**
+     * 異動的商品 ID（至少一個）
+     */
+    public List<Long> getProductIds() {
+        return productIds;
+    }
+    
+    public Type getType() {
+        return type;
+    }
+    
+    /**
+     * 是否為其他節點的異動
+     */
+    public boolean isRemote() {
+        return remote;
+    }
+}
@@ -6,7 +6,10 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
@@ -14,6 +17,8 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 
 /**
  * JWT 身份驗證過濾器
@@ -25,6 +30,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private JwtUtil jwtUtil;
 
+    // 管理員的使用者 ID（使用者名稱可重複，以 ID 判斷），取得 ROLE_ADMIN 才能呼叫 /api/admin/**
+    @Value("${security.admin-user-ids:}")
+    private Set<Long> adminUserIds;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
@@ -68,9 +77,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             // 驗證 token
             if (jwtUtil.validateToken(jwt, username)) {
                 logger.info("✅ Token 驗證成功，使用者: " + username);
-                // 建立認證對象
+                // 建立認證對象（管理員另外授予 ROLE_ADMIN）
+                List<GrantedAuthority> authorities = new ArrayList<>();
+                Long userId = jwtUtil.extractUserId(jwt);
+                if (userId != null && adminUserIds.contains(userId)) {
+                    authorities.add(new SimpleGrantedAuthority("ROLE_ADMIN"));
+                }
                 UsernamePasswordAuthenticationToken authenticationToken = 
-                    new UsernamePasswordAuthenticationToken(username, null, new ArrayList<>());
+                    new UsernamePasswordAuthenticationToken(username, null, authorities);
                 authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 
                 // 將認證對象設定到 Spring Security 上下文中
@@ -0,0 +1,469 @@
+package dev.backend.demo.invalidation;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 跨節點快取失效匯流排（PostgreSQL LISTEN / NOTIFY）
+ *
+ * 多個應用程式節點共用同一個資料庫時，各節點記憶體中的快取（商品目錄快照、搜尋索引……）
+ * 只會收到自己節點的異動。這裡把失效通知經由資料庫轉送到其他節點，不需要額外的訊息服務：
+ *
+ * 發布：
+ * - publish 在交易中呼叫時等提交後才送出（rollback 不送），交易外呼叫立即排入
+ * - 送出執行緒等待 batch-delay-ms 收集一批，同一實體、動作的 key 合併去重，
+ *   以一個 SELECT pg_notify(...) 送出；單一通知不超過 PostgreSQL 的 8000 bytes 限制（key 多時分成多則），
+ *   同一實體的 key 超過 max-keys 時改送「全部失效」（上限遠大於匯入、同步的批次大小，一般批次不會觸發）
+ * - 送出失敗（資料庫暫時無法連線）時不丟棄：這批通知降級為所涉及實體的「全部失效」，
+ *   以指數退避與之後排入的通知合併重送，直到成功為止
+ *
+ * 接收：
+ * - 每個節點以一條獨立連線（不佔用連線池）LISTEN，略過自己送出的通知
+ * - 一次取完已送達的通知，與發布端相同合併去重後，依實體交給對應的 InvalidationListener；
+ *   同一實體有「全部失效」時只重新載入一次，同一批的 key 不再個別處理。
+ *   處理期間（例如全部重新載入）送達的通知累積在連線上，處理完後一次取出：
+ *   期間收到多次全部失效也只再重新載入一次，不會每則通知各重新載入一次
+ * - 連線中斷時以指數退避重新連線；重新 LISTEN 後對所有實體送出「全部失效」，補上中斷期間遺失的通知
+ */
+@Slf4j
+@Component
+public class InvalidationBus {
+
+    // 單一通知的內容上限（PostgreSQL 為 8000 bytes，保留空間給 JSON 其他欄位）
+    private static final int MAX_PAYLOAD_BYTES = 7000;
+    private static final long MAX_BACKOFF_MS = 30000;
+    // 接收端一次取通知的最長時間：通知持續送達時也要定期處理
+    private static final long MAX_DRAIN_MS = 1000;
+
+    /**
+     * 一則失效通知（也是 NOTIFY 的 JSON 內容）
+     * @param origin 發出通知的節點
+     * @param all    true 表示整個實體失效（keys 為空）
+     */
+    public record Invalidation(String origin, String entity, String action, Set<String> keys, boolean all) {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ObjectProvider<InvalidationListener> listeners;
+
+    @Value("${invalidation.enabled:true}")
+    private boolean enabled;
+
+    @Value("${invalidation.channel:cache_invalidation}")
+    private String channel;
+
+    @Value("${invalidation.batch-delay-ms:20}")
+    private long batchDelayMs;
+
+    @Value("${invalidation.max-keys:50000}")
+    private int maxKeys;
+
+    @Value("${invalidation.poll-ms:1000}")
+    private int pollMs;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final BlockingQueue<Invalidation> outbox = new LinkedBlockingQueue<>();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong reconnects = new AtomicLong();
+    private final AtomicLong sendFailures = new AtomicLong();
+
+    private volatile boolean running;
+    private volatile Connection listenConnection;
+    private Thread sender;
+    private Thread receiver;
+
+    @PostConstruct
+    public void init() {
+        if (!channel.matches("[a-z_][a-z0-9_]*")) {
+            throw new IllegalStateException("invalidation.channel 只能包含小寫英文、數字與底線: " + channel);
+        }
+    }
+
+    /**
+     * 應用程式就緒（各快取已載入）後才開始收送，啟動前的通知不需要處理
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        sender = Thread.ofVirtual().name("invalidation-sender").start(this::sendLoop);
+        receiver = Thread.ofPlatform().daemon().name("invalidation-listener").start(this::receiveLoop);
+        log.info("快取失效匯流排啟動: node={}, channel={}", nodeId, channel);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (sender != null) {
+            sender.interrupt();
+        }
+        Connection connection = listenConnection;
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                log.debug("關閉 LISTEN 連線失敗: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 通知其他節點這些 key 已失效
+     * @param action 附帶給接收端的動作，可為 null
+     */
+    public void publish(String entity, String action, Collection<?> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        Set<String> keySet = new LinkedHashSet<>();
+        for (Object key : keys) {
+            keySet.add(String.valueOf(key));
+        }
+        enqueue(new Invalidation(nodeId, entity, action, keySet, false));
+    }
+
+    /**
+     * 通知其他節點整個實體已失效
+     */
+    public void publishAll(String entity) {
+        enqueue(new Invalidation(nodeId, entity, null, Set.of(), true));
+    }
+
+    /**
+     * 統計資料（監控用）
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("node", nodeId);
+        stats.put("enabled", enabled);
+        stats.put("listening", listenConnection != null);
+        stats.put("sent", sent.get());
+        stats.put("received", received.get());
+        stats.put("reconnects", reconnects.get());
+        stats.put("sendFailures", sendFailures.get());
+        stats.put("pending", outbox.size());
+        return stats;
+    }
+
+    private void enqueue(Invalidation invalidation) {
+        if (!running) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    outbox.add(invalidation);
+                }
+            });
+        } else {
+            outbox.add(invalidation);
+        }
+    }
+
+    // ========== 送出 ==========
+
+    private void sendLoop() {
+        // 上次送出失敗、等待重送的通知（已降級為全部失效）
+        List<Invalidation> retry = List.of();
+        long backoff = 1000;
+        while (running) {
+            try {
+                List<Invalidation> batch = new ArrayList<>(retry);
+                if (batch.isEmpty()) {
+                    batch.add(outbox.take());
+                }
+                // 等待一小段時間收集同一批異動（例如批次匯入的多個區塊）
+                Thread.sleep(batchDelayMs);
+                outbox.drainTo(batch);
+                List<Invalidation> merged = merge(batch, nodeId, maxKeys);
+                try {
+                    send(merged);
+                    retry = List.of();
+                    backoff = 1000;
+                } catch (RuntimeException e) {
+                    // 其他節點的 LISTEN 連線不一定也中斷過，不能只靠重新連線時的全部失效：
+                    // 保留這批涉及的實體，之後以全部失效重送（只記實體，不保留 key，中斷再久記憶體也不會增加）
+                    retry = degrade(merged, nodeId);
+                    sendFailures.incrementAndGet();
+                    log.warn("送出快取失效通知失敗，{}ms 後以全部失效重送: entities={}, {}",
+                        backoff, retry.stream().map(Invalidation::entity).toList(), e.getMessage());
+                    Thread.sleep(backoff);
+                    backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * 同一實體、動作的通知合併去重；key 過多或已有全部失效時改為全部失效
+     * @param origin  合併後通知的發出節點
+     * @param maxKeys 同一實體的 key 超過此數時改為全部失效
+     */
+    static List<Invalidation> merge(List<Invalidation> batch, String origin, int maxKeys) {
+        Map<String, Set<String>> keysByGroup = new LinkedHashMap<>();
+        Map<String, Invalidation> groups = new LinkedHashMap<>();
+        Set<String> flushed = new LinkedHashSet<>();
+        for (Invalidation invalidation : batch) {
+            if (invalidation.all()) {
+                flushed.add(invalidation.entity());
+                continue;
+            }
+            String group = invalidation.entity() + "\u0000" + invalidation.action();
+            groups.putIfAbsent(group, invalidation);
+            keysByGroup.computeIfAbsent(group, g -> new LinkedHashSet<>()).addAll(invalidation.keys());
+        }
+        Map<String, Integer> keysPerEntity = new LinkedHashMap<>();
+        keysByGroup.forEach((group, keys) -> keysPerEntity.merge(groups.get(group).entity(), keys.size(), Integer::sum));
+        keysPerEntity.forEach((entity, count) -> {
+            if (count > maxKeys) {
+                flushed.add(entity);
+            }
+        });
+
+        List<Invalidation> merged = new ArrayList<>();
+        for (String entity : flushed) {
+            merged.add(new Invalidation(origin, entity, null, Set.of(), true));
+        }
+        keysByGroup.forEach((group, keys) -> {
+            Invalidation first = groups.get(group);
+            if (!flushed.contains(first.entity())) {
+                merged.add(new Invalidation(origin, first.entity(), first.action(), keys, false));
+            }
+        });
+        return merged;
+    }
+
+    /**
+     * 送出失敗的通知改為所涉及實體的全部失效（每個實體一則）
+     */
+    static List<Invalidation> degrade(List<Invalidation> failed, String origin) {
+        Set<String> entities = new LinkedHashSet<>();
+        for (Invalidation invalidation : failed) {
+            entities.add(invalidation.entity());
+        }
+        List<Invalidation> degraded = new ArrayList<>();
+        for (String entity : entities) {
+            degraded.add(new Invalidation(origin, entity, null, Set.of(), true));
+        }
+        return degraded;
+    }
+
+    /**
+     * 依 8000 bytes 的通知上限切分：每則通知的 key（JSON 字串，含引號與逗號）合計不超過 maxPayloadBytes
+     */
+    static List<Invalidation> split(List<Invalidation> invalidations, int maxPayloadBytes) {
+        List<Invalidation> split = new ArrayList<>();
+        for (Invalidation invalidation : invalidations) {
+            if (invalidation.all()) {
+                split.add(invalidation);
+                continue;
+            }
+            Set<String> chunk = new LinkedHashSet<>();
+            int bytes = 0;
+            for (String key : invalidation.keys()) {
+                int keyBytes = key.getBytes(StandardCharsets.UTF_8).length + 3;
+                if (bytes + keyBytes > maxPayloadBytes && !chunk.isEmpty()) {
+                    split.add(new Invalidation(invalidation.origin(), invalidation.entity(), invalidation.action(), chunk, false));
+                    chunk = new LinkedHashSet<>();
+                    bytes = 0;
+                }
+                chunk.add(key);
+                bytes += keyBytes;
+            }
+            split.add(new Invalidation(invalidation.origin(), invalidation.entity(), invalidation.action(), chunk, false));
+        }
+        return split;
+    }
+
+    private void send(List<Invalidation> invalidations) {
+        List<String> payloads = new ArrayList<>();
+        for (Invalidation invalidation : split(invalidations, MAX_PAYLOAD_BYTES)) {
+            payloads.add(toJson(invalidation));
+        }
+        jdbcTemplate.queryForList("SELECT pg_notify(?, payload) FROM unnest(?::text[]) AS payload",
+            channel, payloads.toArray(new String[0]));
+        sent.addAndGet(payloads.size());
+        log.debug("送出快取失效通知: notifications={}", payloads.size());
+    }
+
+    private String toJson(Invalidation invalidation) {
+        try {
+            return objectMapper.writeValueAsString(invalidation);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("無法序列化快取失效通知", e);
+        }
+    }
+
+    // ========== 接收 ==========
+
+    private void receiveLoop() {
+        long backoff = 1000;
+        boolean connectedBefore = false;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                listenConnection = connection;
+                if (connectedBefore) {
+                    // 中斷期間的通知已遺失，所有快取重新載入
+                    reconnects.incrementAndGet();
+                    log.info("快取失效匯流排重新連線，全部失效: channel={}", channel);
+                    listeners.orderedStream().forEach(this::invalidateAll);
+                }
+                connectedBefore = true;
+                backoff = 1000;
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(pollMs);
+                    if (notifications == null || notifications.length == 0) {
+                        continue;
+                    }
+                    dispatch(drain(pgConnection::getNotifications, notifications, (int) Math.max(1, batchDelayMs), MAX_DRAIN_MS));
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("快取失效匯流排連線中斷，{}ms 後重試: {}", backoff, e.getMessage());
+            } finally {
+                listenConnection = null;
+            }
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                return;
+            }
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+        }
+    }
+
+    /**
+     * 取得通知的來源（PGConnection.getNotifications）
+     */
+    @FunctionalInterface
+    interface NotificationSource {
+        PGNotification[] poll(int timeoutMs) throws SQLException;
+    }
+
+    /**
+     * 從 first 開始，繼續取出已送達的通知，直到 delayMs 內沒有新的通知或超過 maxMs
+     *
+     * 同一批異動可能分成多則通知；上一批處理期間累積的通知也在這裡一次取完，合併後只處理一次。
+     */
+    static List<PGNotification> drain(NotificationSource source, PGNotification[] first, int delayMs, long maxMs)
+            throws SQLException {
+        List<PGNotification> batch = new ArrayList<>(List.of(first));
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxMs);
+        while (System.nanoTime() < deadline) {
+            PGNotification[] more = source.poll(delayMs);
+            if (more == null || more.length == 0) {
+                break;
+            }
+            batch.addAll(List.of(more));
+        }
+        return batch;
+    }
+
+    private void dispatch(List<PGNotification> notifications) {
+        List<Invalidation> invalidations = new ArrayList<>();
+        for (PGNotification notification : notifications) {
+            Invalidation invalidation;
+            try {
+                invalidation = objectMapper.readValue(notification.getParameter(), Invalidation.class);
+            } catch (JsonProcessingException e) {
+                log.warn("無法解析快取失效通知: {}", notification.getParameter());
+                continue;
+            }
+            if (nodeId.equals(invalidation.origin())) {
+                continue;
+            }
+            received.incrementAndGet();
+            invalidations.add(invalidation);
+        }
+        if (invalidations.isEmpty()) {
+            return;
+        }
+        // 接收端不設 key 數上限：全部失效只來自發布端（或重新連線）
+        List<Invalidation> merged = merge(invalidations, nodeId, Integer.MAX_VALUE);
+        listeners.orderedStream().forEach(listener -> {
+            String entity = listener.entity();
+            for (Invalidation invalidation : merged) {
+                if (!invalidation.entity().equals(entity)) {
+                    continue;
+                }
+                if (invalidation.all()) {
+                    // merge 後全部失效排在前面，且同一實體不再帶 key
+                    invalidateAll(listener);
+                    return;
+                }
+                try {
+                    listener.invalidate(invalidation.action(), invalidation.keys());
+                } catch (RuntimeException e) {
+                    log.error("套用快取失效通知失敗，改為全部失效: entity={}", entity, e);
+                    invalidateAll(listener);
+                    return;
+                }
+            }
+        });
+    }
+
+    private void invalidateAll(InvalidationListener listener) {
+        try {
+            listener.invalidateAll();
+        } catch (RuntimeException e) {
+            log.error("快取全部失效失敗: entity={}", listener.entity(), e);
+        }
+    }
+}
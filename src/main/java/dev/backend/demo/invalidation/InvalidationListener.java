@@ -0,0 +1,28 @@
+package dev.backend.demo.invalidation;
+
+import java.util.Set;
+
+/**
+ * 接收其他節點送來的快取失效通知
+ *
+ * 實作成 Spring bean 即會由 InvalidationBus 自動呼叫；自己節點發出的通知不會送回來。
+ * 呼叫都在 InvalidationBus 的接收執行緒上依序進行，實作不需要處理同一實體的並行通知。
+ */
+public interface InvalidationListener {
+
+    /**
+     * 負責的實體名稱（與 InvalidationBus.publish 的 entity 相同）
+     */
+    String entity();
+
+    /**
+     * 一批失效的 key（已去除重複）
+     * @param action 發布時附帶的動作（例如 CREATED、DELETED），沒有時為 null
+     */
+    void invalidate(String action, Set<String> keys);
+
+    /**
+     * 全部失效：發布端一次失效太多 key，或接收連線中斷後重新連線（期間的通知可能已遺失）
+     */
+    void invalidateAll();
+}
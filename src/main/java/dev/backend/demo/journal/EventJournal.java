@@ -0,0 +1,290 @@
+package dev.backend.demo.journal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 商業事件日誌（只能附加）
+ *
+ * 請求執行緒呼叫 append 只把事件放進無鎖佇列（ConcurrentLinkedQueue）就返回，
+ * 由單一寫入執行緒依序寫進記憶體映射的分段檔（格式見 JournalSegments），分段寫滿時換到新檔。
+ * 佇列空了寫入執行緒就 park（有未 fsync 的資料時最多等到下次 fsync），
+ * 佇列由空變為非空的那次 append 才 unpark 它：閒置時不佔用 CPU，忙碌時 append 不需要喚醒。
+ * 寫入的資料立即可被同一台機器上的讀取端看到；fsync（force）每隔 flushInterval 執行一次。
+ *
+ * 佇列超過 queueCapacity 筆時丟棄新事件並計數（寫入執行緒跟不上時不拖慢請求）。
+ * 啟動時掃描最後一個分段，從最後一筆完整的事件之後繼續寫入。
+ */
+@Slf4j
+public class EventJournal implements AutoCloseable {
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long flushIntervalNanos;
+    private final int queueCapacity;
+
+    private final ConcurrentLinkedQueue<Pending> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+
+    // 以下欄位只由寫入執行緒存取（啟動前由建構子初始化）
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private int position;
+    private boolean unflushed;
+    private long lastFlush;
+
+    private volatile long lastSequence;
+    private volatile boolean running = true;
+    private final Thread writer;
+
+    /**
+     * @param directory       分段檔目錄
+     * @param segmentSize     每個分段檔的大小（bytes）
+     * @param flushIntervalMs fsync 間隔（毫秒）
+     * @param queueCapacity   待寫入事件上限
+     */
+    public EventJournal(Path directory, int segmentSize, long flushIntervalMs, int queueCapacity) {
+        if (segmentSize < JournalSegments.HEADER_SIZE + JournalSegments.RECORD_SIZE) {
+            throw new IllegalArgumentException("日誌分段大小太小: " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.queueCapacity = queueCapacity;
+        try {
+            Files.createDirectories(directory);
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("無法開啟事件日誌: " + directory, e);
+        }
+        writer = new Thread(this::writeLoop, "event-journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * 附加一筆事件（非阻塞）
+     * @return false 表示佇列已滿或日誌已關閉，事件被丟棄
+     */
+    public boolean append(JournalEvent.Type type, long userId, long productId, int quantity, long amountCents) {
+        if (!running) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        int size = queued.incrementAndGet();
+        if (size > queueCapacity) {
+            queued.decrementAndGet();
+            dropped.incrementAndGet();
+            return false;
+        }
+        boolean wasEmpty = size == 1;
+        queue.offer(new Pending(System.currentTimeMillis(), type, userId, productId, quantity, amountCents));
+        if (wasEmpty) {
+            // 寫入執行緒可能已經或正要 park：先 unpark 時 permit 會保留，下一次 park 立即返回
+            LockSupport.unpark(writer);
+        }
+        return true;
+    }
+
+    /**
+     * 從指定序號開始讀取的讀取端（序號小於第一個分段時從頭開始）
+     */
+    public JournalReader reader(long fromSequence) {
+        return new JournalReader(directory, fromSequence);
+    }
+
+    /**
+     * 最後一筆已寫入（讀取端可見）的序號，尚未寫入任何事件時為 0
+     */
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * 因佇列已滿而丟棄的事件數
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public int getQueuedCount() {
+        return queued.get();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * 寫完佇列中剩餘的事件，fsync 後關閉
+     */
+    @Override
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("事件日誌已關閉: lastSequence={}, dropped={}", lastSequence, dropped.get());
+    }
+
+    // ========== 寫入執行緒 ==========
+
+    private void writeLoop() {
+        try {
+            while (running || !queue.isEmpty()) {
+                Pending event = queue.poll();
+                if (event == null) {
+                    flushIfDue();
+                    idle();
+                    continue;
+                }
+                queued.decrementAndGet();
+                write(event);
+            }
+            flush();
+            channel.close();
+        } catch (IOException | RuntimeException e) {
+            running = false;
+            log.error("事件日誌寫入失敗，停止寫入: lastSequence={}", lastSequence, e);
+        }
+    }
+
+    /**
+     * 佇列為空時等待 append 喚醒；有未 fsync 的資料時最多等到下次 fsync 的時間
+     */
+    private void idle() {
+        if (!running) {
+            return;
+        }
+        if (unflushed) {
+            LockSupport.parkNanos(Math.max(1, flushIntervalNanos - (System.nanoTime() - lastFlush)));
+        } else {
+            LockSupport.park(this);
+        }
+    }
+
+    private void write(Pending event) throws IOException {
+        if (position + JournalSegments.RECORD_SIZE > segment.capacity()) {
+            roll(lastSequence + 1);
+        }
+        long sequence = lastSequence + 1;
+        JournalSegments.writeRecord(segment, position, sequence, event.timestamp, event.type,
+            event.userId, event.productId, event.quantity, event.amountCents);
+        position += JournalSegments.RECORD_SIZE;
+        lastSequence = sequence;
+        unflushed = true;
+        flushIfDue();
+    }
+
+    private void flushIfDue() {
+        if (unflushed && System.nanoTime() - lastFlush >= flushIntervalNanos) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        if (unflushed) {
+            segment.force();
+            unflushed = false;
+        }
+        lastFlush = System.nanoTime();
+    }
+
+    /**
+     * 結束目前的分段，建立以 startSequence 命名的新分段
+     */
+    private void roll(long startSequence) throws IOException {
+        if (channel != null) {
+            flush();
+            channel.close();
+        }
+        Path file = JournalSegments.fileFor(directory, startSequence);
+        channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // 預先配置整個分段，讀取端可以直接映射完整大小
+        channel.write(ByteBuffer.wrap(new byte[1]), segmentSize - 1);
+        segment = JournalSegments.map(channel, FileChannel.MapMode.READ_WRITE);
+        JournalSegments.writeHeader(segment, startSequence);
+        segment.force();
+        position = JournalSegments.HEADER_SIZE;
+        log.info("建立事件日誌分段: file={}", file.getFileName());
+    }
+
+    /**
+     * 開啟最後一個分段並找到寫入位置；沒有分段時建立第一個
+     */
+    private void recover() throws IOException {
+        List<Long> starts = JournalSegments.list(directory);
+        if (starts.isEmpty()) {
+            roll(1);
+            return;
+        }
+        long start = starts.get(starts.size() - 1);
+        Path file = JournalSegments.fileFor(directory, start);
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = JournalSegments.map(channel, FileChannel.MapMode.READ_WRITE);
+        try {
+            JournalSegments.checkHeader(file, segment, start);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+
+        position = JournalSegments.HEADER_SIZE;
+        lastSequence = start - 1;
+        JournalEvent event;
+        while ((event = JournalSegments.readRecord(segment, position)) != null && event.sequence() == lastSequence + 1) {
+            lastSequence = event.sequence();
+            position += JournalSegments.RECORD_SIZE;
+        }
+        // 中斷的寫入可能留下不完整的資料（或斷電後順序錯亂的頁面），清除後從這裡繼續
+        if (!isZero(position)) {
+            log.warn("事件日誌最後一個分段有不完整的資料，已清除: file={}, position={}", file.getFileName(), position);
+            byte[] zeros = new byte[64 * 1024];
+            for (int i = position; i < segment.capacity(); i += zeros.length) {
+                segment.put(i, zeros, 0, Math.min(zeros.length, segment.capacity() - i));
+            }
+            segment.force();
+        }
+        log.info("開啟事件日誌: directory={}, lastSequence={}", directory, lastSequence);
+    }
+
+    private boolean isZero(int from) {
+        int i = from;
+        for (; i + 8 <= segment.capacity(); i += 8) {
+            if (segment.getLong(i) != 0) {
+                return false;
+            }
+        }
+        for (; i < segment.capacity(); i++) {
+            if (segment.get(i) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private record Pending(long timestamp, JournalEvent.Type type, long userId, long productId,
+                           int quantity, long amountCents) {
+    }
+}
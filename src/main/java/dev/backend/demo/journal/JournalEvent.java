@@ -0,0 +1,54 @@
+package dev.backend.demo.journal;
+
+/**
+ * 日誌中的一筆商業事件
+ *
+ * @param sequence    寫入順序（從 1 開始連續遞增）
+ * @param timestamp   事件發生時間（epoch 毫秒）
+ * @param type        事件類型
+ * @param userId      使用者
+ * @param productId   商品；與單一商品無關的事件為 0
+ * @param quantity    數量（加入的數量、更新後的數量或結帳總件數）
+ * @param amountCents 金額（以分為單位），沒有金額的事件為 0
+ */
+public record JournalEvent(long sequence, long timestamp, Type type, long userId, long productId,
+                           int quantity, long amountCents) {
+
+    /**
+     * 事件類型，code 寫入檔案，新增類型時只能附加新的 code
+     */
+    public enum Type {
+        CART_ITEM_ADDED(1),
+        CART_QUANTITY_UPDATED(2),
+        CART_ITEM_REMOVED(3),
+        CART_CLEARED(4),
+        CHECKOUT(5),
+        CHECKOUT_LINE(6);
+
+        private static final Type[] BY_CODE = new Type[16];
+
+        static {
+            for (Type type : values()) {
+                BY_CODE[type.code] = type;
+            }
+        }
+
+        private final byte code;
+
+        Type(int code) {
+            this.code = (byte) code;
+        }
+
+        public byte getCode() {
+            return code;
+        }
+
+        public static Type fromCode(byte code) {
+            Type type = code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+            if (type == null) {
+                throw new IllegalArgumentException("未知的日誌事件類型: " + code);
+            }
+            return type;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package dev.backend.demo.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 事件日誌讀取端
+ *
+ * 依序號讀取分段檔，可用於：
+ * - 重播：replay 讀到目前的結尾為止
+ * - 追蹤（tailing）：重複呼叫 poll，讀到結尾時回傳 0，之後寫入的事件下次 poll 會讀到
+ *
+ * 讀取端以唯讀方式映射分段檔，不會影響寫入端；一個 JournalReader 只能由一個執行緒使用。
+ */
+public class JournalReader implements AutoCloseable {
+
+    private final Path directory;
+    private long nextSequence;
+
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long segmentStart;
+    private int position;
+
+    /**
+     * @param fromSequence 第一筆要讀取的序號（小於 1 時從頭開始）
+     */
+    public JournalReader(Path directory, long fromSequence) {
+        this.directory = directory;
+        this.nextSequence = Math.max(1, fromSequence);
+    }
+
+    /**
+     * 讀取最多 limit 筆事件
+     * @return 讀到的筆數；0 表示目前沒有新的事件
+     */
+    public int poll(Consumer<JournalEvent> handler, int limit) {
+        int count = 0;
+        while (count < limit) {
+            if (segment == null && !openSegment()) {
+                return count;
+            }
+            JournalEvent event = JournalSegments.readRecord(segment, position);
+            if (event == null) {
+                // 目前分段沒有更多事件。寫入端只在分段放不下下一筆時才換分段，
+                // 分段還有空間就表示尚未寫入，不需要列出目錄
+                if (position + JournalSegments.RECORD_SIZE <= segment.capacity()) {
+                    return count;
+                }
+                long nextStart = nextSegmentStart();
+                if (nextStart < 0) {
+                    return count;
+                }
+                // 寫入端換分段前已寫完這個分段，再讀一次確認沒有漏掉最後一筆
+                event = JournalSegments.readRecord(segment, position);
+                if (event == null) {
+                    closeSegment();
+                    nextSequence = Math.max(nextSequence, nextStart);
+                    continue;
+                }
+            }
+            position += JournalSegments.RECORD_SIZE;
+            if (event.sequence() < nextSequence) {
+                continue;
+            }
+            nextSequence = event.sequence() + 1;
+            handler.accept(event);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 讀取到目前的結尾
+     * @return 讀到的筆數
+     */
+    public long replay(Consumer<JournalEvent> handler) {
+        long total = 0;
+        int read;
+        while ((read = poll(handler, 4096)) > 0) {
+            total += read;
+        }
+        return total;
+    }
+
+    /**
+     * 下一筆要讀取的序號
+     */
+    public long getNextSequence() {
+        return nextSequence;
+    }
+
+    @Override
+    public void close() {
+        closeSegment();
+    }
+
+    // ========== 分段切換 ==========
+
+    /**
+     * 開啟包含 nextSequence 的分段（起始序號 ≤ nextSequence 的最後一個）
+     */
+    private boolean openSegment() {
+        List<Long> starts = JournalSegments.list(directory);
+        Long start = null;
+        for (Long candidate : starts) {
+            if (candidate <= nextSequence || start == null) {
+                start = candidate;
+            }
+            if (candidate > nextSequence) {
+                break;
+            }
+        }
+        if (start == null) {
+            return false;
+        }
+        Path file = JournalSegments.fileFor(directory, start);
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            segment = JournalSegments.map(channel, FileChannel.MapMode.READ_ONLY);
+            JournalSegments.checkHeader(file, segment, start);
+        } catch (IOException e) {
+            closeSegment();
+            throw new UncheckedIOException("無法開啟事件日誌分段: " + file, e);
+        }
+        // 已讀過的事件直接跳過：固定長度的紀錄可以直接計算位置
+        segmentStart = start;
+        long skip = Math.max(0, nextSequence - start);
+        position = (int) Math.min(JournalSegments.HEADER_SIZE + skip * JournalSegments.RECORD_SIZE, segment.capacity());
+        return true;
+    }
+
+    /**
+     * 目前分段之後的下一個分段起始序號，沒有時為 -1
+     */
+    private long nextSegmentStart() {
+        for (Long start : JournalSegments.list(directory)) {
+            if (start > segmentStart) {
+                return start;
+            }
+        }
+        return -1;
+    }
+
+    private void closeSegment() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // 唯讀檔案關閉失敗不影響資料
+            }
+        }
+        channel = null;
+        segment = null;
+    }
+}
@@ -0,0 +1,167 @@
+package dev.backend.demo.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * 日誌分段檔格式（寫入端與讀取端共用）
+ *
+ * 每個分段檔預先配置為固定大小，檔名為第一筆事件的序號：journal-00000000000000000001.seg
+ * <pre>
+ * Header (64 bytes，little endian)
+ *   0  int   magic
+ *   4  int   格式版本
+ *   8  long  第一筆事件的序號
+ * Record（從 offset 64 開始，每筆對齊 8 bytes）
+ *   0  int   body 長度（0 表示尚未寫入；最後才寫入，作為發布標記）
+ *   4  int   body 的 CRC32C
+ *   8  long  序號
+ *   16 long  時間（epoch 毫秒）
+ *   24 long  userId
+ *   32 long  productId
+ *   40 long  金額（分）
+ *   48 int   數量
+ *   52 byte  事件類型
+ * </pre>
+ */
+final class JournalSegments {
+
+    static final int MAGIC = 0x4A524E4C; // "JRNL"
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    static final int HEADER_START_SEQUENCE = 8;
+
+    static final int RECORD_HEADER_SIZE = 8;
+    static final int BODY_SIZE = 45;
+    static final int RECORD_SIZE = align(RECORD_HEADER_SIZE + BODY_SIZE);
+
+    private static final int BODY_SEQUENCE = 0;
+    private static final int BODY_TIMESTAMP = 8;
+    private static final int BODY_USER_ID = 16;
+    private static final int BODY_PRODUCT_ID = 24;
+    private static final int BODY_AMOUNT = 32;
+    private static final int BODY_QUANTITY = 40;
+    private static final int BODY_TYPE = 44;
+
+    static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    // 以 release / acquire 語意讀寫長度欄位，讀取端看到長度時 body 一定已寫完
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ORDER);
+
+    private static final Pattern FILE_NAME = Pattern.compile("journal-(\\d{20})\\.seg");
+
+    private JournalSegments() {
+    }
+
+    static Path fileFor(Path directory, long startSequence) {
+        return directory.resolve(String.format("journal-%020d.seg", startSequence));
+    }
+
+    /**
+     * 列出目錄中所有分段的起始序號（由小到大）
+     */
+    static List<Long> list(Path directory) {
+        List<Long> starts = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return starts;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                Matcher matcher = FILE_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    starts.add(Long.parseLong(matcher.group(1)));
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("無法列出日誌分段: " + directory, e);
+        }
+        starts.sort(null);
+        return starts;
+    }
+
+    static MappedByteBuffer map(FileChannel channel, FileChannel.MapMode mode) throws IOException {
+        MappedByteBuffer buffer = channel.map(mode, 0, channel.size());
+        buffer.order(ORDER);
+        return buffer;
+    }
+
+    static void writeHeader(ByteBuffer buffer, long startSequence) {
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, FORMAT_VERSION);
+        buffer.putLong(HEADER_START_SEQUENCE, startSequence);
+    }
+
+    static void checkHeader(Path file, ByteBuffer buffer, long startSequence) throws IOException {
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION
+                || buffer.getLong(HEADER_START_SEQUENCE) != startSequence) {
+            throw new IOException("日誌分段檔標頭不符: " + file);
+        }
+    }
+
+    /**
+     * 寫入一筆事件並發布（長度欄位最後以 release 寫入）
+     */
+    static void writeRecord(ByteBuffer buffer, int position, long sequence, long timestamp, JournalEvent.Type type,
+                            long userId, long productId, int quantity, long amountCents) {
+        int body = position + RECORD_HEADER_SIZE;
+        buffer.putLong(body + BODY_SEQUENCE, sequence);
+        buffer.putLong(body + BODY_TIMESTAMP, timestamp);
+        buffer.putLong(body + BODY_USER_ID, userId);
+        buffer.putLong(body + BODY_PRODUCT_ID, productId);
+        buffer.putLong(body + BODY_AMOUNT, amountCents);
+        buffer.putInt(body + BODY_QUANTITY, quantity);
+        buffer.put(body + BODY_TYPE, type.getCode());
+        buffer.putInt(position + 4, crc(buffer, body));
+        INT.setRelease(buffer, position, BODY_SIZE);
+    }
+
+    /**
+     * 讀取已發布的事件
+     * @return 事件；尚未寫入或 CRC 不符（寫入中斷）時為 null
+     */
+    static JournalEvent readRecord(ByteBuffer buffer, int position) {
+        if (position + RECORD_SIZE > buffer.capacity()) {
+            return null;
+        }
+        int length = (int) INT.getAcquire(buffer, position);
+        if (length != BODY_SIZE) {
+            return null;
+        }
+        int body = position + RECORD_HEADER_SIZE;
+        if (buffer.getInt(position + 4) != crc(buffer, body)) {
+            return null;
+        }
+        return new JournalEvent(
+            buffer.getLong(body + BODY_SEQUENCE),
+            buffer.getLong(body + BODY_TIMESTAMP),
+            JournalEvent.Type.fromCode(buffer.get(body + BODY_TYPE)),
+            buffer.getLong(body + BODY_USER_ID),
+            buffer.getLong(body + BODY_PRODUCT_ID),
+            buffer.getInt(body + BODY_QUANTITY),
+            buffer.getLong(body + BODY_AMOUNT));
+    }
+
+    private static int crc(ByteBuffer buffer, int body) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(body, BODY_SIZE));
+        return (int) crc.getValue();
+    }
+
+    private static int align(int size) {
+        return (size + 7) & ~7;
+    }
+}
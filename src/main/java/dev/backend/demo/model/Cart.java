@@ -15,6 +15,7 @@ import jakarta.persistence.OneToMany;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.Data;
 
 /**
@@ -23,7 +24,10 @@ import lombok.Data;
  */
 @Data
 @Entity
-@Table(name = "carts")
+@Table(name = "carts", uniqueConstraints = {
+    // 每個使用者只有一個購物車（文件模式以 user_id 做 upsert）
+    @UniqueConstraint(name = "uk_carts_user_id", columnNames = "user_id")
+})
 public class Cart {
 
     @Id
@@ -33,6 +37,12 @@ public class Cart {
     @Column(name = "created_at", nullable = false) private java.time.LocalDateTime createdAt; // 建立時間
     @Column(name = "updated_at", nullable = false) private java.time.LocalDateTime updatedAt; // 更新時間
 
+    // 文件模式（cart.store.type=document）使用的欄位，由 DocumentCartStore 以 JDBC 直接讀寫，JPA 不寫入
+    @Column(name = "document", columnDefinition = "jsonb", insertable = false, updatable = false)
+    private String document; // 整個購物車的 JSON 文件
+    @Column(name = "version", columnDefinition = "bigint not null default 0", insertable = false, updatable = false)
+    private Long version; // 樂觀鎖版本號
+
     // 一對多關聯：一個購物車有多個購物車項目
     @OneToMany(mappedBy = "cart", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<CartItem> items = new ArrayList<>();
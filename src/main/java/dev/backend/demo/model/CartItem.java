@@ -12,7 +12,13 @@ import java.time.LocalDateTime;
  */
 @Data
 @Entity
-@Table(name = "cart_items")
+@Table(name = "cart_items", indexes = {
+    // 背景清除已刪除商品的項目時，依 product_id 查找
+    @Index(name = "idx_cart_items_product_id", columnList = "product_id")
+}, uniqueConstraints = {
+    // 同一購物車中每個商品只有一個項目（加入商品以 cart_id, product_id 做 upsert）
+    @UniqueConstraint(name = "uk_cart_items_cart_product", columnNames = {"cart_id", "product_id"})
+})
 public class CartItem {
     
     @Id
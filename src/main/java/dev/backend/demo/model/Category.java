@@ -0,0 +1,50 @@
+package dev.backend.demo.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 商品類別實體
+ * 對應資料庫 categories 表（products.category_id 指向這裡，沒有外鍵約束）
+ *
+ * 類別以 parent_id 指向上層類別組成樹狀結構，parent_id 為 null 的是最上層類別；
+ * 查詢時不走資料庫，由 CategoryService 載入成記憶體中的 CategoryTree
+ */
+@Data
+@Entity
+@Table(name = "categories", indexes = {
+    @Index(name = "idx_categories_parent_id", columnList = "parent_id")
+})
+public class Category {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "category_id")
+    private Long categoryId;
+
+    @Column(name = "category_name", nullable = false, length = 100)
+    private String categoryName;
+
+    // 上層類別 ID，null 表示最上層
+    @Column(name = "parent_id")
+    private Long parentId;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = createdAt;
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,55 @@
+package dev.backend.demo.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.persistence.CascadeType;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * 訂單模型類別
+ * 結帳時由購物車內容建立，之後不再修改
+ */
+@Data
+@Entity
+@Table(name = "orders", indexes = {
+    // 銷售分析啟動時依時間載入最近的訂單
+    @Index(name = "idx_orders_created_at", columnList = "created_at")
+})
+public class Order {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "order_id") private Long orderId; // 訂單ID
+    @Column(name = "user_id", nullable = false) private Long userId; // 使用者ID
+    @Column(name = "total_items", nullable = false) private Integer totalItems; // 商品總件數
+    @Column(name = "total_amount", nullable = false, precision = 12, scale = 2) private BigDecimal totalAmount; // 訂單總金額
+    @Column(name = "created_at", nullable = false, updatable = false) private LocalDateTime createdAt; // 結帳時間
+
+    // 一對多關聯：一筆訂單有多個訂單項目
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    private List<OrderItem> items = new ArrayList<>();
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package dev.backend.demo.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import java.math.BigDecimal;
+
+/**
+ * 訂單項目實體
+ * 對應資料庫 order_items 表
+ *
+ * 商品名稱、單價與類別都是結帳當時的值，之後商品修改或刪除不影響已成立的訂單
+ */
+@Data
+@Entity
+@Table(name = "order_items", indexes = {
+    @Index(name = "idx_order_items_order_id", columnList = "order_id")
+})
+public class OrderItem {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "order_item_id")
+    private Long orderItemId;
+    
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+    
+    // 結帳當時的商品類別（未分類時為 null）
+    @Column(name = "category_id")
+    private Long categoryId;
+    
+    @Column(name = "product_name", nullable = false, length = 100)
+    private String productName;
+    
+    @Column(name = "quantity", nullable = false)
+    private Integer quantity;
+    
+    @Column(name = "unit_price", nullable = false, precision = 10, scale = 2)
+    private BigDecimal unitPrice;
+    
+    @Column(name = "subtotal", nullable = false, precision = 12, scale = 2)
+    private BigDecimal subtotal;
+    
+    // 多對一關聯：多個訂單項目屬於一筆訂單
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_id", nullable = false)
+    private Order order;
+}
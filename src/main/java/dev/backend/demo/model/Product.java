@@ -1,5 +1,6 @@
 package dev.backend.demo.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -56,6 +57,14 @@ public class Product {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // 刪除時間 - 軟刪除標記（墓碑），null 表示商品仍在架上
+    // 商品列保留下來，讓仍指向它的 cart_items 可以被辨識並由背景工作清除
+    // 只由 ProductRepository.softDeleteById（JPQL 批次更新）寫入：一般的實體儲存不更新此欄位，
+    // PUT/PATCH 帶來的實體（deletedAt 一定是 null）與刪除同時發生時，不會讓已刪除的商品復活
+    @JsonIgnore
+    @Column(name = "deleted_at", updatable = false)
+    private LocalDateTime deletedAt;
+
     // ========== 建構子 ==========
     
     /**
@@ -163,6 +172,14 @@ public class Product {
         this.updatedAt = updatedAt;
     }
 
+    public LocalDateTime getDeletedAt() {
+        return deletedAt;
+    }
+
+    public void setDeletedAt(LocalDateTime deletedAt) {
+        this.deletedAt = deletedAt;
+    }
+
     @Override
     public String toString() {
         return "Product{" +
@@ -174,6 +191,7 @@ public class Product {
                 ", unitPrice=" + unitPrice +
                 ", createdAt=" + createdAt +
                 ", updatedAt=" + updatedAt +
+                ", deletedAt=" + deletedAt +
                 '}';
     }
 }
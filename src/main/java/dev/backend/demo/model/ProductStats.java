@@ -0,0 +1,32 @@
+package dev.backend.demo.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 商品熱門度統計實體
+ * 對應資料庫 product_stats 表
+ *
+ * 累計的瀏覽與加入購物車次數，由 ProductPopularityService 定期以批次 upsert 累加
+ * （多個節點各自累加同一列）；應用程式不經由 JPA 讀寫，實體只用來建立資料表
+ */
+@Data
+@Entity
+@Table(name = "product_stats")
+public class ProductStats {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "view_count", nullable = false)
+    private Long viewCount;
+
+    @Column(name = "cart_add_count", nullable = false)
+    private Long cartAddCount;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
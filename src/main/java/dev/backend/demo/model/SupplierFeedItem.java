@@ -0,0 +1,33 @@
+package dev.backend.demo.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * 供應商商品檔項目實體
+ * 對應資料庫 supplier_feed_items 表
+ *
+ * 記錄供應商的 SKU 對應到哪個商品，以及上次套用的內容雜湊（SupplierFeedSyncService 比對用）；
+ * 應用程式以 JDBC 批次讀寫，實體只用來建立資料表
+ */
+@Data
+@Entity
+@Table(name = "supplier_feed_items", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_supplier_feed_items_supplier_sku", columnNames = {"supplier_id", "sku"})
+})
+public class SupplierFeedItem {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "supplier_id", nullable = false)
+    private Long supplierId;
+
+    @Column(name = "sku", nullable = false, length = 100)
+    private String sku;
+
+    // 商品名稱、類別、描述、單價的 SHA-256 前 8 個位元組
+    @Column(name = "content_hash", nullable = false)
+    private Long contentHash;
+}
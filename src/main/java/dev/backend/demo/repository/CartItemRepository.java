@@ -3,8 +3,11 @@ package dev.backend.demo.repository;
 import dev.backend.demo.model.CartItem;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying; // 引入 Modifying 註解，用於非查詢操作
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional; // 引入 Transactional 註解
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.List;
 
@@ -61,4 +64,44 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     @Modifying
     void deleteByCartId(Long cartId);
     
-}
\ No newline at end of file
+    /**
+     * 批次刪除指向已刪除商品的購物車項目 (set-based 刪除)
+     *
+     * 與 deleteBy 命名查詢不同，這裡直接下一條 DELETE，不會先把實體載入 persistence context。
+     * 子查詢中的 LIMIT 限制每批刪除的列數，讓每個交易保持短小、鎖定範圍有限，
+     * 熱門商品被刪除時也不會一次鎖住上萬個使用者的購物車。
+     * * @param productIds 已刪除商品的 ID 集合
+     * @param batchSize  每批最多刪除的列數
+     * @return int  本批實際刪除的列數
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM cart_items WHERE cart_item_id IN ("
+            + "SELECT cart_item_id FROM cart_items WHERE product_id IN (:productIds) LIMIT :batchSize)",
+            nativeQuery = true)
+    int deleteBatchByProductIdIn(Collection<Long> productIds, int batchSize);
+    
+    /**
+     * 加入商品：購物車不存在則建立，項目已存在則累加數量 (單一語句的 upsert)
+     *
+     * 兩段 INSERT ... ON CONFLICT 在同一條語句中完成，依賴 uk_carts_user_id 與
+     * uk_cart_items_cart_product 兩個唯一約束：同一使用者同時加入同一商品時，
+     * 數量在資料庫中累加，不會遺失更新，也不會產生重複的項目。
+     *
+     * 因為繞過 persistence context，執行前先 flush、執行後清除，避免之後讀到過期的 Cart 實體。
+     * * @param userId    使用者 ID
+     * @param productId 商品 ID
+     * @param quantity  增加的數量
+     * @param unitPrice 新增項目時的單價（已存在的項目保留原單價）
+     * @return int  新增或更新的項目數（1）
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "WITH c AS (INSERT INTO carts (user_id, created_at, updated_at) VALUES (:userId, now(), now()) "
+            + "ON CONFLICT (user_id) DO UPDATE SET updated_at = now() RETURNING cart_id) "
+            + "INSERT INTO cart_items (cart_id, product_id, quantity, unit_price, created_at, updated_at) "
+            + "SELECT cart_id, :productId, :quantity, :unitPrice, now(), now() FROM c "
+            + "ON CONFLICT (cart_id, product_id) DO UPDATE "
+            + "SET quantity = cart_items.quantity + EXCLUDED.quantity, updated_at = now()",
+            nativeQuery = true)
+    int addQuantity(Long userId, Long productId, int quantity, BigDecimal unitPrice);
+}
@@ -2,6 +2,7 @@ package dev.backend.demo.repository;
 
 import dev.backend.demo.model.Cart;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import java.util.Optional;
@@ -59,4 +60,18 @@ public interface CartRepository extends JpaRepository<Cart, Long> {
      * @return boolean  如果存在則返回 true，否則返回 false
      */
     boolean existsByUserId(Long userId);
-}
\ No newline at end of file
+    
+    /**
+     * 建立使用者的購物車，已存在則不做任何事 (單一語句的 upsert)
+     *
+     * 以 uk_carts_user_id 唯一約束判斷是否已存在：兩個請求同時為同一使用者建立購物車時，
+     * 不會因為先查詢再新增而撞上唯一約束錯誤。
+     * * @param userId 使用者 ID
+     * @return int  1 表示新建立，0 表示已存在
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "INSERT INTO carts (user_id, created_at, updated_at) VALUES (:userId, now(), now()) "
+            + "ON CONFLICT (user_id) DO NOTHING",
+            nativeQuery = true)
+    int insertIfAbsent(Long userId);
+}
@@ -0,0 +1,18 @@
+package dev.backend.demo.repository;
+
+import dev.backend.demo.model.Category;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * 類別資料存取層
+ * 繼承 JpaRepository 自動提供 CRUD 操作（類別樹的查詢由 CategoryService 的記憶體索引負責）
+ */
+@Repository
+public interface CategoryRepository extends JpaRepository<Category, Long> {
+
+    /**
+     * 是否有以此類別為上層的子類別
+     */
+    boolean existsByParentId(Long parentId);
+}
@@ -0,0 +1,13 @@
+package dev.backend.demo.repository;
+
+import dev.backend.demo.model.Order;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * 訂單資料存取層
+ * 訂單項目透過 Order.items 串聯儲存
+ */
+@Repository
+public interface OrderRepository extends JpaRepository<Order, Long> {
+}
@@ -2,7 +2,13 @@ package dev.backend.demo.repository;
 
 import dev.backend.demo.model.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * 商品資料存取層 (Repository/DAO)
@@ -42,4 +48,22 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
      * 返回符合條件的所有商品
      */
     java.util.List<Product> findByCategoryId(Long categoryId);
+    
+    /**
+     * 查詢所有已軟刪除產品（墓碑）的 ID
+     * 只取 ID 欄位，啟動時用來建立記憶體中的墓碑快取
+     */
+    @Query("SELECT p.productId FROM Product p WHERE p.deletedAt IS NOT NULL")
+    List<Long> findDeletedProductIds();
+    
+    /**
+     * 軟刪除產品：只標記 deleted_at，不移除資料列
+     * 
+     * 條件中的 deleted_at IS NULL 讓重複刪除成為 no-op
+     * @return 受影響的列數（0 表示產品不存在或已被刪除）
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Product p SET p.deletedAt = :deletedAt WHERE p.productId = :productId AND p.deletedAt IS NULL")
+    int softDeleteById(Long productId, LocalDateTime deletedAt);
 }
@@ -0,0 +1,116 @@
+package dev.backend.demo.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 逐列處理檔案的批次作業（商品匯入、供應商商品檔同步）的進度與結果
+ *
+ * 計數可在執行中由其他執行緒讀取；失敗的列最多保留 maxErrors 筆明細（列號與原因），之後只累加筆數。
+ * 子類別加上自己的計數，並在 describe 中放進 API 回應。
+ */
+public abstract class BatchJob {
+
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final int maxErrors;
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private final long startedNanos = System.nanoTime();
+    // 讀取的資料列數（不含欄位名稱與空白行）與失敗的列數
+    final AtomicLong rows = new AtomicLong();
+    final AtomicLong failed = new AtomicLong();
+    private final List<Map<String, Object>> errors = Collections.synchronizedList(new ArrayList<>());
+    private volatile Status status = Status.RUNNING;
+    private volatile String message;
+    private volatile long elapsedNanos = -1;
+
+    protected BatchJob(int maxErrors) {
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * 記錄一列失敗
+     * @param row 檔案中的列號（從 1 起算）
+     */
+    void fail(long row, String reason) {
+        failed.incrementAndGet();
+        if (errors.size() < maxErrors) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("row", row);
+            error.put("error", reason);
+            errors.add(error);
+        }
+    }
+
+    /**
+     * 附帶說明（例如部分步驟未執行的原因），作業繼續執行
+     */
+    void setMessage(String message) {
+        this.message = message;
+    }
+
+    /**
+     * 結束作業
+     * @param message 結束的原因；null 時保留先前的說明
+     */
+    void finish(Status status, String message) {
+        this.elapsedNanos = System.nanoTime() - startedNanos;
+        if (message != null) {
+            this.message = message;
+        }
+        this.status = status;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public long getElapsedMs() {
+        long nanos = elapsedNanos >= 0 ? elapsedNanos : System.nanoTime() - startedNanos;
+        return nanos / 1_000_000;
+    }
+
+    /**
+     * 目前狀態（API 回應用）
+     * @param includeErrors 是否包含錯誤列明細
+     */
+    public Map<String, Object> toMap(boolean includeErrors) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("jobId", id);
+        map.put("status", status);
+        map.put("startedAt", startedAt);
+        map.put("elapsedMs", getElapsedMs());
+        map.put("rows", rows.get());
+        map.put("failed", failed.get());
+        describe(map);
+        if (message != null) {
+            map.put("message", message);
+        }
+        if (includeErrors) {
+            synchronized (errors) {
+                map.put("errors", new ArrayList<>(errors));
+            }
+        }
+        return map;
+    }
+
+    /**
+     * 加入子類別的欄位與計數
+     */
+    protected abstract void describe(Map<String, Object> map);
+}
@@ -0,0 +1,57 @@
+package dev.backend.demo.service;
+
+import dev.backend.demo.store.CartStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Set;
+
+/**
+ * 購物車孤兒項目清除服務
+ * 
+ * 商品軟刪除後，指向它的購物車項目不會在刪除請求中同步處理，
+ * 而是由這個背景工作透過 CartStore 分批清除（JPA 儲存使用 set-based DELETE）：
+ * - 每批一個短交易，最多刪除 batchSize 列
+ * - 刪除商品的 API 不必等待數千個購物車被更新
+ * - 清除期間讀取購物車會透過 ProductTombstoneCache 略過失效項目
+ */
+@Slf4j
+@Service
+public class CartItemPurgeService {
+    
+    @Autowired
+    private CartStore cartStore;
+    
+    @Autowired
+    private ProductTombstoneCache tombstoneCache;
+    
+    @Value("${cart.purge.batch-size:500}")
+    private int batchSize;
+    
+    /**
+     * 定期清除已刪除商品的購物車項目
+     * 每輪持續分批刪除，直到某一批少於 batchSize 列為止
+     * @return 本輪刪除的總列數
+     */
+    @Scheduled(fixedDelayString = "${cart.purge.interval-ms:60000}", initialDelayString = "${cart.purge.interval-ms:60000}")
+    public int purgeOrphanedCartItems() {
+        Set<Long> productIds = tombstoneCache.pendingPurge();
+        if (productIds.isEmpty()) {
+            return 0;
+        }
+        
+        int total = 0;
+        int deleted;
+        do {
+            deleted = cartStore.purgeProducts(productIds, batchSize);
+            total += deleted;
+        } while (deleted == batchSize);
+        
+        tombstoneCache.purged(productIds);
+        log.info("清除已刪除商品的購物車項目: products={}, deletedRows={}", productIds.size(), total);
+        return total;
+    }
+}
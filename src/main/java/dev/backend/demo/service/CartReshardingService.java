@@ -0,0 +1,110 @@
+package dev.backend.demo.service;
+
+import dev.backend.demo.store.CartShardRouter;
+import dev.backend.demo.store.ShardedCartStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 購物車重新分片服務（cart.store.type=sharded）
+ * 
+ * 新增分片的流程：
+ * 1. 在 cart.store.sharded.shards 清單最後加入新分片並重新啟動（既有桶仍在原分片）
+ * 2. 呼叫 rebalance()，將多出的桶線上搬移到新分片
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "cart.store.type", havingValue = "sharded")
+public class CartReshardingService {
+    
+    @Autowired
+    private ShardedCartStore shardedCartStore;
+    
+    /**
+     * 搬移單一桶
+     * @return 搬移的使用者數
+     */
+    public int moveBucket(int bucket, int targetShard) {
+        return shardedCartStore.moveBucket(bucket, targetShard);
+    }
+    
+    /**
+     * 平均分配桶到所有分片，只搬移超出平均數的桶（搬移量最小）
+     * @return 搬移的桶數
+     */
+    public int rebalance() {
+        CartShardRouter router = shardedCartStore.getRouter();
+        int shardCount = shardedCartStore.getShardCount();
+        int bucketCount = router.getBucketCount();
+        
+        List<Deque<Integer>> bucketsByShard = new ArrayList<>();
+        for (int shard = 0; shard < shardCount; shard++) {
+            bucketsByShard.add(new ArrayDeque<>());
+        }
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            bucketsByShard.get(router.shardOfBucket(bucket)).add(bucket);
+        }
+        
+        // 前 bucketCount % shardCount 個分片多分配一個桶
+        Map<Integer, Integer> quota = new HashMap<>();
+        for (int shard = 0; shard < shardCount; shard++) {
+            quota.put(shard, bucketCount / shardCount + (shard < bucketCount % shardCount ? 1 : 0));
+        }
+        
+        Deque<Integer> surplus = new ArrayDeque<>();
+        for (int shard = 0; shard < shardCount; shard++) {
+            Deque<Integer> buckets = bucketsByShard.get(shard);
+            while (buckets.size() > quota.get(shard)) {
+                surplus.add(buckets.pollLast());
+            }
+        }
+        
+        int moved = 0;
+        for (int shard = 0; shard < shardCount; shard++) {
+            Deque<Integer> buckets = bucketsByShard.get(shard);
+            while (buckets.size() < quota.get(shard) && !surplus.isEmpty()) {
+                int bucket = surplus.poll();
+                shardedCartStore.moveBucket(bucket, shard);
+                buckets.add(bucket);
+                moved++;
+            }
+        }
+        log.info("購物車分片重新平衡完成: movedBuckets={}", moved);
+        return moved;
+    }
+    
+    /**
+     * 每個分片的桶數與購物車數
+     */
+    public List<Map<String, Object>> describe() {
+        CartShardRouter router = shardedCartStore.getRouter();
+        List<List<int[]>> counts = shardedCartStore.bucketCounts();
+        List<Map<String, Object>> shards = new ArrayList<>();
+        for (int shard = 0; shard < shardedCartStore.getShardCount(); shard++) {
+            int buckets = 0;
+            for (int bucket = 0; bucket < router.getBucketCount(); bucket++) {
+                if (router.shardOfBucket(bucket) == shard) {
+                    buckets++;
+                }
+            }
+            long carts = counts.get(shard).stream().mapToLong(row -> row[1]).sum();
+            
+            Map<String, Object> info = new LinkedHashMap<>();
+            info.put("shard", shard);
+            info.put("buckets", buckets);
+            info.put("carts", carts);
+            shards.add(info);
+        }
+        return shards;
+    }
+}
@@ -2,26 +2,37 @@ package dev.backend.demo.service;
 
 import dev.backend.demo.dto.cart.CartItemDTO;
 import dev.backend.demo.dto.cart.CartResponseDTO;
+import dev.backend.demo.event.CartChangedEvent;
+import dev.backend.demo.event.CheckoutCompletedEvent;
 import dev.backend.demo.exception.InvalidOperationException;
 import dev.backend.demo.exception.ResourceNotFoundException;
-import dev.backend.demo.model.Cart;
-import dev.backend.demo.model.CartItem;
+import dev.backend.demo.model.Order;
+import dev.backend.demo.model.OrderItem;
 import dev.backend.demo.model.Product;
-import dev.backend.demo.repository.CartRepository;
-import dev.backend.demo.repository.CartItemRepository;
+import dev.backend.demo.repository.OrderRepository;
 import dev.backend.demo.repository.ProductRepository;
+import dev.backend.demo.store.CartLine;
+import dev.backend.demo.store.CartStore;
+import dev.backend.demo.store.StoredCart;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 /**
  * 購物車服務
- * 使用資料庫持久化購物車資料
+ * 透過 CartStore 存取購物車資料，儲存後端由 cart.store.type 設定決定
+ * 每次修改購物車後發布 CartChangedEvent（提交後由 CartStreamService 推送給使用者的其他連線）
  */
 @Slf4j
 @Service
@@ -29,25 +40,19 @@ import java.util.stream.Collectors;
 public class CartService {
     
     @Autowired
-    private CartRepository cartRepository;
+    private CartStore cartStore;
     
     @Autowired
-    private CartItemRepository cartItemRepository;
+    private ProductRepository productRepository;
     
     @Autowired
-    private ProductRepository productRepository;
+    private ProductTombstoneCache tombstoneCache;
     
-    /**
-     * 取得或建立使用者的購物車
-     */
-    private Cart getOrCreateCart(Long userId) {
-        return cartRepository.findByUserId(userId)
-            .orElseGet(() -> {
-                Cart newCart = new Cart();
-                newCart.setUserId(userId);
-                return cartRepository.save(newCart);
-            });
-    }
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
     
     /**
      * 加入商品到購物車
@@ -65,39 +70,18 @@ public class CartService {
             throw new InvalidOperationException("商品數量不能超過 999");
         }
         
-        // 驗證商品是否存在
+        // 驗證商品是否存在（已刪除的商品不可再加入購物車）
         Product product = productRepository.findById(productId)
+            .filter(p -> p.getDeletedAt() == null)
             .orElseThrow(() -> {
                 log.error("商品不存在: productId={}", productId);
                 return new ResourceNotFoundException("商品不存在：ID = " + productId);
             });
         
-        // 取得或建立購物車
-        Cart cart = getOrCreateCart(userId);
-        
-        // 檢查商品是否已在購物車中
-        CartItem cartItem = cartItemRepository.findByCartIdAndProductId(cart.getCartId(), productId)
-            .orElse(null);
-        
-        if (cartItem != null) {
-            // 更新數量
-            int oldQuantity = cartItem.getQuantity();
-            cartItem.setQuantity(cartItem.getQuantity() + quantity);
-            log.info("更新商品數量: productId={}, oldQuantity={}, newQuantity={}", 
-                productId, oldQuantity, cartItem.getQuantity());
-        } else {
-            // 新增項目
-            cartItem = new CartItem();
-            log.info("新增商品到購物車: productId={}, quantity={}", productId, quantity);
-            cartItem.setCart(cart);
-            cartItem.setProductId(productId);
-            cartItem.setQuantity(quantity);
-            cartItem.setUnitPrice(product.getUnitPrice());
-        }
-        
-        cartItemRepository.save(cartItem);
+        // 已在購物車中則累加數量，否則新增項目（購物車不存在時自動建立）
+        cartStore.addQuantity(userId, productId, quantity, product.getUnitPrice());
         
-        return getCart(userId);
+        return publish(userId, CartChangedEvent.Type.ITEM_ADDED, productId, quantity);
     }
     
     /**
@@ -105,21 +89,26 @@ public class CartService {
      */
     @Transactional(readOnly = true)
     public CartResponseDTO getCart(Long userId) {
-        Cart cart = cartRepository.findByUserIdWithItems(userId)
-            .orElseGet(() -> {
-                Cart newCart = new Cart();
-                newCart.setUserId(userId);
-                return cartRepository.save(newCart);
-            });
+        // 唯讀交易中不建立購物車：尚未加入任何商品的使用者回傳空購物車
+        StoredCart cart = cartStore.find(userId).orElse(null);
+        if (cart == null) {
+            return new CartResponseDTO(null, new ArrayList<>(), 0, BigDecimal.ZERO);
+        }
         
-        List<CartItemDTO> itemDTOs = cart.getItems().stream()
+        List<CartItemDTO> itemDTOs = cart.getLines().stream()
+            // 略過已刪除商品的項目（由記憶體墓碑判斷，不查資料庫），背景工作會再清除這些列
+            .filter(item -> !tombstoneCache.isDeleted(item.getProductId()))
             .map(item -> {
                 // 手動載入 Product 以避免 LazyInitializationException
-                Product product = productRepository.findById(item.getProductId())
-                    .orElseThrow(() -> new ResourceNotFoundException("商品不存在：ID = " + item.getProductId()));
+                Product product = productRepository.findById(item.getProductId()).orElse(null);
+                if (product == null) {
+                    log.warn("購物車項目指向不存在的商品，略過: lineId={}, productId={}",
+                        item.getLineId(), item.getProductId());
+                    return null;
+                }
                 
                 return new CartItemDTO(
-                    item.getCartItemId(),
+                    item.getLineId(),
                     item.getProductId(),
                     product.getProductName(),
                     item.getUnitPrice(),
@@ -127,6 +116,7 @@ public class CartService {
                     item.getSubtotal()
                 );
             })
+            .filter(Objects::nonNull)
             .collect(Collectors.toList());
         
         Integer totalItems = itemDTOs.stream()
@@ -160,28 +150,30 @@ public class CartService {
             throw new InvalidOperationException("商品數量不能超過 999");
         }
         
-        Cart cart = cartRepository.findByUserId(userId)
+        StoredCart cart = cartStore.find(userId)
             .orElseThrow(() -> {
                 log.error("購物車不存在: userId={}", userId);
                 return new ResourceNotFoundException("購物車不存在：User ID = " + userId);
             });
         
-        CartItem cartItem = cartItemRepository.findByCartIdAndProductId(cart.getCartId(), productId)
-            .orElseThrow(() -> {
-                log.error("商品不在購物車中: userId={}, productId={}", userId, productId);
-                return new ResourceNotFoundException("商品不在購物車中：Product ID = " + productId);
-            });
-        
+        boolean updated;
+        CartChangedEvent.Type type;
         if (quantity == 0) {
             log.info("從購物車刪除商品 (quantity=0): userId={}, productId={}", userId, productId);
-            cartItemRepository.delete(cartItem);
+            updated = cartStore.removeLine(userId, productId);
+            type = CartChangedEvent.Type.ITEM_REMOVED;
         } else {
             log.info("更新商品數量為: userId={}, productId={}, newQuantity={}", userId, productId, quantity);
-            cartItem.setQuantity(quantity);
-            cartItemRepository.save(cartItem);
+            updated = cartStore.setQuantity(userId, productId, quantity);
+            type = CartChangedEvent.Type.QUANTITY_UPDATED;
         }
         
-        return getCart(userId);
+        if (!updated) {
+            log.error("商品不在購物車中: userId={}, productId={}, cartId={}", userId, productId, cart.getCartId());
+            throw new ResourceNotFoundException("商品不在購物車中：Product ID = " + productId);
+        }
+        
+        return publish(userId, type, productId, quantity);
     }
     
     /**
@@ -190,29 +182,79 @@ public class CartService {
     public CartResponseDTO removeFromCart(Long userId, Long productId) {
         log.info("從購物車移除商品: userId={}, productId={}", userId, productId);
         
-        Cart cart = cartRepository.findByUserId(userId)
-            .orElseThrow(() -> {
-                log.error("購物車不存在: userId={}", userId);
-                return new ResourceNotFoundException("購物車不存在：User ID = " + userId);
-            });
-        
-        CartItem cartItem = cartItemRepository.findByCartIdAndProductId(cart.getCartId(), productId)
-            .orElseThrow(() -> new ResourceNotFoundException("商品不在購物車中：Product ID = " + productId));
+        if (cartStore.find(userId).isEmpty()) {
+            log.error("購物車不存在: userId={}", userId);
+            throw new ResourceNotFoundException("購物車不存在：User ID = " + userId);
+        }
         
-        cartItemRepository.delete(cartItem);
+        if (!cartStore.removeLine(userId, productId)) {
+            throw new ResourceNotFoundException("商品不在購物車中：Product ID = " + productId);
+        }
         
-        return getCart(userId);
+        return publish(userId, CartChangedEvent.Type.ITEM_REMOVED, productId, 0);
     }
     
     /**
      * 清空購物車
      */
     public void clearCart(Long userId) {
-        Cart cart = cartRepository.findByUserId(userId)
-            .orElse(null);
+        cartStore.clear(userId);
+        publish(userId, CartChangedEvent.Type.CLEARED, null, 0);
+    }
+    
+    /**
+     * 結帳（模擬）：建立訂單、清空購物車並發布結帳完成事件
+     * @return 結帳時的購物車內容；購物車是空的時候不做任何事，直接回傳空購物車
+     */
+    public CartResponseDTO checkout(Long userId) {
+        CartResponseDTO cart = getCart(userId);
+        if (cart.getItems().isEmpty()) {
+            return cart;
+        }
         
-        if (cart != null) {
-            cartItemRepository.deleteByCartId(cart.getCartId());
+        Order order = orderRepository.save(createOrder(userId, cart));
+        clearCart(userId);
+        eventPublisher.publishEvent(new CheckoutCompletedEvent(userId, cart, order, order.getCreatedAt()));
+        log.info("結帳完成: userId={}, orderId={}, totalItems={}, totalPrice={}",
+            userId, order.getOrderId(), cart.getTotalItems(), cart.getTotalPrice());
+        return cart;
+    }
+    
+    /**
+     * 以購物車內容建立訂單（記錄結帳當時的商品類別）
+     */
+    private Order createOrder(Long userId, CartResponseDTO cart) {
+        List<Long> productIds = cart.getItems().stream().map(CartItemDTO::getProductId).collect(Collectors.toList());
+        Map<Long, Long> categoryIds = new HashMap<>();
+        for (Product product : productRepository.findAllById(productIds)) {
+            categoryIds.put(product.getProductId(), product.getCategoryId());
+        }
+        
+        Order order = new Order();
+        order.setUserId(userId);
+        order.setTotalItems(cart.getTotalItems());
+        order.setTotalAmount(cart.getTotalPrice());
+        order.setCreatedAt(LocalDateTime.now());
+        for (CartItemDTO cartItem : cart.getItems()) {
+            OrderItem item = new OrderItem();
+            item.setOrder(order);
+            item.setProductId(cartItem.getProductId());
+            item.setCategoryId(categoryIds.get(cartItem.getProductId()));
+            item.setProductName(cartItem.getProductName());
+            item.setQuantity(cartItem.getQuantity());
+            item.setUnitPrice(cartItem.getUnitPrice());
+            item.setSubtotal(cartItem.getSubtotal());
+            order.getItems().add(item);
         }
+        return order;
+    }
+    
+    /**
+     * 讀取修改後的購物車並發布異動事件
+     */
+    private CartResponseDTO publish(Long userId, CartChangedEvent.Type type, Long productId, Integer quantity) {
+        CartResponseDTO cart = getCart(userId);
+        eventPublisher.publishEvent(new CartChangedEvent(userId, type, productId, quantity, cart));
+        return cart;
     }
 }
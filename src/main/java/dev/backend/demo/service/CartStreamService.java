@@ -0,0 +1,234 @@
+package dev.backend.demo.service;
+
+import dev.backend.demo.dto.cart.CartDeltaDTO;
+import dev.backend.demo.event.CartChangedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 購物車即時同步（Server-Sent Events）
+ *
+ * 同一使用者可在多個裝置開啟 /api/cart/stream，任一裝置修改購物車後，
+ * 其他連線會收到 delta 事件，不需要重新載入購物車。
+ *
+ * 事件類型：
+ * - snapshot：完整購物車（連線建立時，以及佇列溢出後重新同步）
+ * - delta：單一項目異動與新的總計
+ *
+ * 連線管理：
+ * - 閒置連線只佔用一個 SseEmitter（非同步請求），不佔用任何執行緒
+ * - 每個連線有固定容量的佇列，有資料時才由虛擬執行緒送出；同一連線同時只有一個執行緒在寫入
+ * - 背壓：佇列已滿表示用戶端讀取太慢，捨棄佇列中的 delta，改送一次完整的 snapshot
+ */
+@Slf4j
+@Service
+public class CartStreamService {
+
+    // 佇列中代表心跳的標記（SseEventBuilder 不可重複使用，佇列只存放資料，送出時才建立事件）
+    private static final Object HEARTBEAT = new Object();
+
+    @Autowired
+    private CartService cartService;
+
+    @Value("${cart.stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${cart.stream.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${cart.stream.max-connections-per-user:10}")
+    private int maxConnectionsPerUser;
+
+    // userId → 該使用者的所有連線（依建立順序）
+    private final ConcurrentHashMap<Long, ConcurrentLinkedDeque<Connection>> connections = new ConcurrentHashMap<>();
+
+    private final AtomicInteger connectionCount = new AtomicInteger();
+
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * 建立新的購物車串流連線，並先送出目前的購物車內容
+     */
+    public SseEmitter subscribe(Long userId) {
+        Connection connection = new Connection(userId, new SseEmitter(timeoutMs));
+        SseEmitter emitter = connection.emitter;
+        emitter.onCompletion(() -> unregister(connection));
+        emitter.onTimeout(() -> unregister(connection));
+        emitter.onError(e -> unregister(connection));
+
+        // 在 compute 中加入，避免與 unregister 移除空清單同時發生而加到已移除的清單
+        ConcurrentLinkedDeque<Connection> userConnections = connections.compute(userId, (id, deque) -> {
+            ConcurrentLinkedDeque<Connection> result = deque != null ? deque : new ConcurrentLinkedDeque<>();
+            result.add(connection);
+            return result;
+        });
+        connectionCount.incrementAndGet();
+
+        // 超過每位使用者的連線上限時關閉最舊的連線
+        while (userConnections.size() > maxConnectionsPerUser) {
+            Connection oldest = userConnections.peekFirst();
+            if (oldest == null || oldest == connection) {
+                break;
+            }
+            log.info("購物車串流連線數超過上限，關閉最舊的連線: userId={}", userId);
+            oldest.close();
+        }
+
+        connection.resync();
+        log.debug("購物車串流連線建立: userId={}, connections={}", userId, connectionCount.get());
+        return emitter;
+    }
+
+    /**
+     * 購物車修改並提交後，推送 delta 給該使用者的所有連線
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCartChanged(CartChangedEvent event) {
+        ConcurrentLinkedDeque<Connection> userConnections = connections.get(event.getUserId());
+        if (userConnections == null || userConnections.isEmpty()) {
+            return;
+        }
+        CartDeltaDTO delta = CartDeltaDTO.from(event);
+        for (Connection connection : userConnections) {
+            connection.offer(delta);
+        }
+    }
+
+    /**
+     * 定期送出註解行，讓代理伺服器不會關閉閒置連線，並清除已斷線的用戶端
+     */
+    @Scheduled(fixedDelayString = "${cart.stream.heartbeat-ms:25000}")
+    public void heartbeat() {
+        for (ConcurrentLinkedDeque<Connection> userConnections : connections.values()) {
+            for (Connection connection : userConnections) {
+                connection.offerIfIdle(HEARTBEAT);
+            }
+        }
+    }
+
+    /**
+     * 目前開啟的連線數
+     */
+    public int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ConcurrentLinkedDeque<Connection> userConnections : connections.values()) {
+            userConnections.forEach(Connection::close);
+        }
+        senders.shutdown();
+    }
+
+    private void unregister(Connection connection) {
+        ConcurrentLinkedDeque<Connection> userConnections = connections.get(connection.userId);
+        if (userConnections != null && userConnections.remove(connection)) {
+            connectionCount.decrementAndGet();
+            connections.computeIfPresent(connection.userId, (id, deque) -> deque.isEmpty() ? null : deque);
+        }
+    }
+
+    /**
+     * 單一 SSE 連線：有界佇列 + 單一寫入者
+     */
+    private class Connection {
+        final Long userId;
+        final SseEmitter emitter;
+        final Queue<Object> queue = new ArrayBlockingQueue<>(queueCapacity);
+        final AtomicBoolean sending = new AtomicBoolean();
+        final AtomicBoolean resyncPending = new AtomicBoolean();
+        volatile boolean closed;
+
+        Connection(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        void offer(Object message) {
+            if (!queue.offer(message)) {
+                // 用戶端跟不上：已排隊的 delta 都作廢，改送完整購物車
+                queue.clear();
+                resyncPending.set(true);
+                log.debug("購物車串流佇列已滿，改送完整購物車: userId={}", userId);
+            }
+            schedule();
+        }
+
+        void offerIfIdle(Object message) {
+            if (queue.isEmpty() && !sending.get()) {
+                offer(message);
+            }
+        }
+
+        void resync() {
+            resyncPending.set(true);
+            schedule();
+        }
+
+        private void schedule() {
+            if (!closed && sending.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                do {
+                    if (resyncPending.getAndSet(false)) {
+                        send(SseEmitter.event().name("snapshot")
+                            .data(cartService.getCart(userId), MediaType.APPLICATION_JSON));
+                    }
+                    Object message;
+                    while (!closed && (message = queue.poll()) != null) {
+                        send(message == HEARTBEAT
+                            ? SseEmitter.event().comment("ping")
+                            : SseEmitter.event().name("delta").data(message, MediaType.APPLICATION_JSON));
+                    }
+                    sending.set(false);
+                    // 釋放寫入權後若又有新事件，且沒有其他執行緒接手，繼續送出
+                } while (!closed && (!queue.isEmpty() || resyncPending.get()) && sending.compareAndSet(false, true));
+            } catch (IOException | IllegalStateException e) {
+                log.debug("購物車串流連線中斷: userId={}, error={}", userId, e.getMessage());
+                sending.set(false);
+                close();
+            } catch (RuntimeException e) {
+                log.warn("購物車串流送出失敗: userId={}", userId, e);
+                sending.set(false);
+                close();
+            }
+        }
+
+        private void send(SseEmitter.SseEventBuilder event) throws IOException {
+            if (!closed) {
+                emitter.send(event);
+            }
+        }
+
+        void close() {
+            if (!closed) {
+                closed = true;
+                queue.clear();
+                unregister(this);
+                emitter.complete();
+            }
+        }
+    }
+}
@@ -0,0 +1,535 @@
+package dev.backend.demo.service;
+
+import dev.backend.demo.model.Product;
+import dev.backend.demo.util.ContentHash;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 不可變的商品目錄快照
+ *
+ * 商品依 ID 排序存放在陣列中，另有：
+ * - ID 索引：排序好的 long[]，以二分搜尋查找
+ * - 類別索引：類別 ID → 該類別的商品（依 ID 排序的陣列）
+ * - 排序索引：依（排序欄位, ID）排好的商品陣列，第一次使用時建立，供分頁以二分搜尋定位游標；
+ *   包含子類別時是子樹中各類別商品的聯集（子樹由 CategoryTree 的前序區間取得，不需遞迴查詢）。
+ *   已建立的排序索引隨 with / without 帶到新的快照，只移除、插入異動的商品，不重新排序
+ *
+ * 建立後不再修改，可由任意執行緒無鎖讀取；異動時以 with / without 複製出新的快照（copy-on-write）：
+ * 商品與 ID 陣列只插入、移除或取代異動的位置，類別索引只換掉異動商品所在類別的陣列，其他類別與新快照共用；
+ * 一次異動多個商品時與目前的陣列依 ID 合併一次，不重新排序整個目錄。
+ * 快照中的 Product 物件由多個請求共用，呼叫者不可修改。
+ *
+ * 版本由內容摘要（每個商品各欄位的 64 位元雜湊之和）與商品數組成，只由資料決定，不依賴任何時鐘：
+ * 重新啟動或其他節點載入相同資料時得到相同的版本，任何欄位改變版本就不同，可直接作為 ETag 與快取鍵。
+ * with / without 只加減異動商品的雜湊，不重新計算整個目錄。
+ */
+public final class CatalogSnapshot {
+
+    private static final Product[] NO_PRODUCTS = new Product[0];
+    private static final Comparator<Product> BY_ID = ProductSort.ID.comparator();
+
+    private final Product[] products;
+    private final long[] ids;
+    private final Map<Long, Product[]> categoryIndex;
+    private final List<Product> all;
+    private final Map<View, Product[]> views = new ConcurrentHashMap<>();
+    // 最近一次用來展開子類別的類別樹，換新的樹時丟掉以舊樹建立的索引
+    private volatile CategoryTree viewTree;
+    // 所有商品內容雜湊之和（溢位環繞）
+    private final long digest;
+
+    private CatalogSnapshot(Product[] products, long[] ids, Map<Long, Product[]> categoryIndex, long digest) {
+        this.products = products;
+        this.ids = ids;
+        this.categoryIndex = categoryIndex;
+        this.all = Collections.unmodifiableList(Arrays.asList(products));
+        this.digest = digest;
+    }
+
+    /**
+     * 以一批商品建立快照（同一 ID 出現多次時以最後一個為準）
+     */
+    public static CatalogSnapshot of(Collection<Product> products) {
+        Map<Long, Product> byId = new HashMap<>();
+        for (Product product : products) {
+            byId.put(product.getProductId(), product);
+        }
+        Product[] sorted = byId.values().toArray(NO_PRODUCTS);
+        Arrays.sort(sorted, BY_ID);
+        long[] ids = new long[sorted.length];
+        long digest = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            ids[i] = sorted[i].getProductId();
+            digest += contentHash(sorted[i]);
+        }
+        return new CatalogSnapshot(sorted, ids, buildCategoryIndex(sorted), digest);
+    }
+
+    public static CatalogSnapshot empty() {
+        return new CatalogSnapshot(NO_PRODUCTS, new long[0], new HashMap<>(), 0);
+    }
+
+    /**
+     * 目錄版本：內容摘要與商品數（36 進位），資料不變時版本不變，任何商品的任何欄位改變時版本改變
+     */
+    public String version() {
+        return Long.toUnsignedString(digest, 36) + "-" + Integer.toString(products.length, 36);
+    }
+
+    /**
+     * 所有商品（依 ID 排序，唯讀）
+     */
+    public List<Product> all() {
+        return all;
+    }
+
+    /**
+     * 依 ID 查找，不存在時為 null
+     */
+    public Product get(long productId) {
+        int i = Arrays.binarySearch(ids, productId);
+        return i >= 0 ? products[i] : null;
+    }
+
+    /**
+     * 某個類別的商品（依 ID 排序）
+     */
+    public List<Product> byCategory(Long categoryId) {
+        return new ArrayList<>(Arrays.asList(category(categoryId)));
+    }
+
+    /**
+     * 多個類別的商品（依 ID 排序），例如一個類別與其下所有子類別
+     */
+    public List<Product> byCategories(long[] categoryIds) {
+        return new ArrayList<>(Arrays.asList(union(categoryIds)));
+    }
+
+    /**
+     * 某個類別的商品數（不含子類別）
+     */
+    public int countByCategory(Long categoryId) {
+        return category(categoryId).length;
+    }
+
+    /**
+     * 依排序取得一頁（keyset pagination）
+     *
+     * 以二分搜尋在排序索引中找到游標之後的位置，不論第幾頁成本都相同。
+     * @param categoryId 只取這個類別的商品；null 表示全部
+     * @param after      上一頁的游標；null 表示第一頁
+     * @param limit      最多回傳的筆數
+     */
+    public List<Product> page(ProductSort sort, boolean descending, Long categoryId, ProductCursor after, int limit) {
+        return page(sort, descending, categoryId, null, after, limit);
+    }
+
+    /**
+     * 依排序取得一頁，類別包含其下所有子類別
+     * @param subtreeOf 展開子類別用的類別樹；null 表示只取 categoryId 本身
+     */
+    public List<Product> page(ProductSort sort, boolean descending, Long categoryId, CategoryTree subtreeOf,
+                              ProductCursor after, int limit) {
+        Product[] sorted = view(sort, categoryId, categoryId == null ? null : subtreeOf);
+        List<Product> page = new ArrayList<>(Math.min(limit, sorted.length));
+        if (descending) {
+            int start = after == null ? sorted.length - 1 : lowerBound(sorted, sort, after) - 1;
+            for (int i = start; i >= 0 && page.size() < limit; i--) {
+                page.add(sorted[i]);
+            }
+        } else {
+            int start = after == null ? 0 : upperBound(sorted, sort, after);
+            for (int i = start; i < sorted.length && page.size() < limit; i++) {
+                page.add(sorted[i]);
+            }
+        }
+        return page;
+    }
+
+    public int size() {
+        return products.length;
+    }
+
+    /**
+     * 內容相同但不帶排序索引的快照（之後的 with / without 不再合併排序索引）
+     */
+    CatalogSnapshot withoutViews() {
+        return new CatalogSnapshot(products, ids, categoryIndex, digest);
+    }
+
+    /**
+     * 新增或取代一個商品後的新快照
+     */
+    public CatalogSnapshot with(Product product) {
+        int i = Arrays.binarySearch(ids, product.getProductId());
+        if (i >= 0) {
+            Product previous = products[i];
+            Product[] next = products.clone();
+            next[i] = product;
+            // ID 不變，ID 陣列與新快照共用
+            return new CatalogSnapshot(next, ids, withCategories(previous, product),
+                digest + contentHash(product) - contentHash(previous)).withViewsOf(this, List.of(previous), List.of(product));
+        }
+        int at = -i - 1;
+        Product[] next = new Product[products.length + 1];
+        System.arraycopy(products, 0, next, 0, at);
+        next[at] = product;
+        System.arraycopy(products, at, next, at + 1, products.length - at);
+        long[] nextIds = new long[ids.length + 1];
+        System.arraycopy(ids, 0, nextIds, 0, at);
+        nextIds[at] = product.getProductId();
+        System.arraycopy(ids, at, nextIds, at + 1, ids.length - at);
+        return new CatalogSnapshot(next, nextIds, withCategories(null, product), digest + contentHash(product))
+            .withViewsOf(this, List.of(), List.of(product));
+    }
+
+    /**
+     * 移除一個商品後的新快照（不存在時回傳自己）
+     */
+    public CatalogSnapshot without(long productId) {
+        int i = Arrays.binarySearch(ids, productId);
+        if (i < 0) {
+            return this;
+        }
+        Product removed = products[i];
+        Product[] next = new Product[products.length - 1];
+        System.arraycopy(products, 0, next, 0, i);
+        System.arraycopy(products, i + 1, next, i, products.length - i - 1);
+        long[] nextIds = new long[ids.length - 1];
+        System.arraycopy(ids, 0, nextIds, 0, i);
+        System.arraycopy(ids, i + 1, nextIds, i, ids.length - i - 1);
+        return new CatalogSnapshot(next, nextIds, withCategories(removed, null), digest - contentHash(removed))
+            .withViewsOf(this, List.of(removed), List.of());
+    }
+
+    /**
+     * 重新讀取多個商品後的新快照：current 中的商品新增或取代，productIds 中不在 current 裡的商品移除
+     * （沒有任何改變時回傳自己）
+     *
+     * 只排序異動的商品，再與目前的陣列依 ID 合併一次；類別索引只合併異動商品所在的類別
+     */
+    public CatalogSnapshot with(Collection<Long> productIds, Collection<Product> current) {
+        Map<Long, Product> changed = new HashMap<>();
+        for (Product product : current) {
+            changed.put(product.getProductId(), product);
+        }
+        long[] touched = new long[productIds.size() + changed.size()];
+        int t = 0;
+        for (Long productId : productIds) {
+            touched[t++] = productId;
+        }
+        for (Long productId : changed.keySet()) {
+            touched[t++] = productId;
+        }
+        Arrays.sort(touched);
+        t = distinct(touched);
+        touched = Arrays.copyOf(touched, t);
+
+        Product[] next = new Product[products.length + t];
+        long[] nextIds = new long[products.length + t];
+        List<Product> removed = new ArrayList<>();
+        List<Product> added = new ArrayList<>();
+        long nextDigest = digest;
+        int n = 0;
+        for (int i = 0, j = 0; i < products.length || j < t; ) {
+            if (j == t || (i < products.length && ids[i] < touched[j])) {
+                nextIds[n] = ids[i];
+                next[n++] = products[i++];
+                continue;
+            }
+            Product previous = i < products.length && ids[i] == touched[j] ? products[i++] : null;
+            Product product = changed.get(touched[j++]);
+            if (previous != null) {
+                removed.add(previous);
+                nextDigest -= contentHash(previous);
+            }
+            if (product != null) {
+                added.add(product);
+                nextDigest += contentHash(product);
+                nextIds[n] = product.getProductId();
+                next[n++] = product;
+            }
+        }
+        if (removed.isEmpty() && added.isEmpty()) {
+            return this;
+        }
+        return new CatalogSnapshot(Arrays.copyOf(next, n), Arrays.copyOf(nextIds, n), withCategories(removed, added),
+            nextDigest).withViewsOf(this, removed, added);
+    }
+
+    /**
+     * 單一商品的版本（內容雜湊，36 進位），與 version() 相同只由資料決定
+     */
+    public static String version(Product product) {
+        return Long.toUnsignedString(contentHash(product), 36);
+    }
+
+    /**
+     * 商品的內容雜湊：快照中的所有欄位（快照沒有描述，修改描述時 updatedAt 一併改變）
+     */
+    static long contentHash(Product product) {
+        return new ContentHash()
+            .add(product.getProductId())
+            .add(product.getProductName())
+            .add(product.getCategoryId())
+            .add(product.getSupplierId())
+            .add(product.getUnitPrice())
+            .add(product.getCreatedAt())
+            .add(product.getUpdatedAt())
+            .get();
+    }
+
+    /**
+     * 帶入 previous 已建立的排序索引（以目前的類別樹建立的）：每個索引移除 removed、插入 added 中屬於它的商品，
+     * 與異動無關的索引直接共用
+     */
+    private CatalogSnapshot withViewsOf(CatalogSnapshot previous, List<Product> removed, List<Product> added) {
+        CategoryTree tree = previous.viewTree;
+        viewTree = tree;
+        previous.views.forEach((view, sorted) -> {
+            if (view.tree() == null || view.tree() == tree) {
+                views.put(view, merge(sorted, view.sort().comparator(), view.filter(removed), view.filter(added)));
+            }
+        });
+        return this;
+    }
+
+    /**
+     * 依排序欄位排好的商品（依類別過濾時只含該類別；有類別樹時含其下所有子類別）
+     */
+    private Product[] view(ProductSort sort, Long categoryId, CategoryTree tree) {
+        if (sort == ProductSort.ID && tree == null) {
+            // 商品陣列與類別索引本身就依 ID 排序
+            return categoryId == null ? products : category(categoryId);
+        }
+        if (tree != null && tree != viewTree) {
+            views.keySet().removeIf(view -> view.tree() != null && view.tree() != tree);
+            viewTree = tree;
+        }
+        return views.computeIfAbsent(new View(sort, categoryId, tree), view -> {
+            Product[] scope;
+            if (categoryId == null) {
+                scope = products;
+            } else if (tree != null) {
+                scope = union(tree.subtreeIds(categoryId));
+            } else {
+                scope = category(categoryId);
+            }
+            if (sort == ProductSort.ID) {
+                return scope;
+            }
+            Product[] sorted = scope.clone();
+            Arrays.sort(sorted, sort.comparator());
+            return sorted;
+        });
+    }
+
+    /**
+     * 第一個大於游標的位置
+     */
+    private static int upperBound(Product[] sorted, ProductSort sort, ProductCursor after) {
+        Comparable<?> key = after.parsedKey();
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sort.compare(sorted[mid], key, after.productId()) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 第一個大於或等於游標的位置
+     */
+    private static int lowerBound(Product[] sorted, ProductSort sort, ProductCursor after) {
+        Comparable<?> key = after.parsedKey();
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sort.compare(sorted[mid], key, after.productId()) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private Product[] category(Long categoryId) {
+        return categoryIndex.getOrDefault(categoryId, NO_PRODUCTS);
+    }
+
+    /**
+     * 多個類別的商品合併後依 ID 排序
+     */
+    private Product[] union(long[] categoryIds) {
+        int total = 0;
+        Product[] single = NO_PRODUCTS;
+        for (long categoryId : categoryIds) {
+            Product[] products = category(categoryId);
+            if (products.length > 0) {
+                total += products.length;
+                single = products;
+            }
+        }
+        if (total == single.length) {
+            // 只有一個類別有商品，直接共用它的陣列
+            return single;
+        }
+        Product[] merged = new Product[total];
+        int n = 0;
+        for (long categoryId : categoryIds) {
+            Product[] products = category(categoryId);
+            System.arraycopy(products, 0, merged, n, products.length);
+            n += products.length;
+        }
+        // 各類別已依 ID 排序，合併排序只需合併這幾段
+        Arrays.sort(merged, BY_ID);
+        return merged;
+    }
+
+    /**
+     * 移除 removed、加入 added 後的類別索引（都可為 null）：只換掉這兩個類別的陣列
+     */
+    private Map<Long, Product[]> withCategories(Product removed, Product added) {
+        return withCategories(removed == null ? List.of() : List.of(removed), added == null ? List.of() : List.of(added));
+    }
+
+    private Map<Long, Product[]> withCategories(List<Product> removed, List<Product> added) {
+        Map<Long, List<Product>> removedByCategory = new HashMap<>();
+        Map<Long, List<Product>> addedByCategory = new HashMap<>();
+        for (Product product : removed) {
+            removedByCategory.computeIfAbsent(product.getCategoryId(), key -> new ArrayList<>()).add(product);
+            addedByCategory.putIfAbsent(product.getCategoryId(), new ArrayList<>());
+        }
+        for (Product product : added) {
+            addedByCategory.computeIfAbsent(product.getCategoryId(), key -> new ArrayList<>()).add(product);
+        }
+        Map<Long, Product[]> next = new HashMap<>(categoryIndex);
+        addedByCategory.forEach((categoryId, categoryAdded) -> putCategory(next, categoryId,
+            merge(category(categoryId), BY_ID, removedByCategory.getOrDefault(categoryId, List.of()), categoryAdded)));
+        return next;
+    }
+
+    private static void putCategory(Map<Long, Product[]> index, Long categoryId, Product[] products) {
+        if (products.length == 0) {
+            index.remove(categoryId);
+        } else {
+            index.put(categoryId, products);
+        }
+    }
+
+    /**
+     * 依 order 排序的陣列移除 removed（陣列中的商品）、加入 added 後的新陣列
+     *
+     * 以二分搜尋找出移除與插入的位置，其餘部分整段複製，不逐一比較也不重新排序
+     */
+    static Product[] merge(Product[] sorted, Comparator<Product> order, List<Product> removed, List<Product> added) {
+        if (removed.isEmpty() && added.isEmpty()) {
+            return sorted;
+        }
+        int[] skip = new int[removed.size()];
+        int skips = 0;
+        for (Product product : removed) {
+            int i = Arrays.binarySearch(sorted, product, order);
+            if (i >= 0) {
+                skip[skips++] = i;
+            }
+        }
+        Arrays.sort(skip, 0, skips);
+        Product[] inserts = added.toArray(NO_PRODUCTS);
+        Arrays.sort(inserts, order);
+        // 插入在原陣列中第一個不小於它的元素之前（與被取代的舊版本排序相同時插在它前面，舊版本隨後略過）
+        int[] at = new int[inserts.length];
+        for (int k = 0; k < inserts.length; k++) {
+            int i = Arrays.binarySearch(sorted, inserts[k], order);
+            at[k] = i >= 0 ? i : -i - 1;
+        }
+
+        Product[] next = new Product[sorted.length - skips + inserts.length];
+        int n = 0;
+        int from = 0;
+        for (int s = 0, k = 0; s < skips || k < inserts.length; ) {
+            int position = Math.min(s < skips ? skip[s] : Integer.MAX_VALUE, k < inserts.length ? at[k] : Integer.MAX_VALUE);
+            System.arraycopy(sorted, from, next, n, position - from);
+            n += position - from;
+            from = position;
+            if (k < inserts.length && at[k] == position) {
+                next[n++] = inserts[k++];
+            } else {
+                from++;
+                s++;
+            }
+        }
+        System.arraycopy(sorted, from, next, n, sorted.length - from);
+        return next;
+    }
+
+    /**
+     * 排序好的陣列去除重複後的長度（不重複的值移到前面）
+     */
+    private static int distinct(long[] sorted) {
+        int n = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (n == 0 || sorted[i] != sorted[n - 1]) {
+                sorted[n++] = sorted[i];
+            }
+        }
+        return n;
+    }
+
+    /**
+     * 排序索引的 key；tree 不是 null 時類別包含子類別（以類別樹的實例區分，樹換新後舊的索引不再使用）
+     */
+    private record View(ProductSort sort, Long categoryId, CategoryTree tree) {
+
+        /**
+         * 屬於這個索引的商品
+         */
+        List<Product> filter(List<Product> products) {
+            if (categoryId == null) {
+                return products;
+            }
+            List<Product> included = new ArrayList<>(products.size());
+            for (Product product : products) {
+                Long productCategory = product.getCategoryId();
+                if (productCategory != null && (productCategory.equals(categoryId)
+                        || tree != null && tree.isWithin(productCategory, categoryId))) {
+                    included.add(product);
+                }
+            }
+            return included;
+        }
+    }
+
+    private static Map<Long, Product[]> buildCategoryIndex(Product[] products) {
+        Map<Long, int[]> counts = new HashMap<>();
+        for (Product product : products) {
+            counts.computeIfAbsent(product.getCategoryId(), key -> new int[1])[0]++;
+        }
+        Map<Long, Product[]> index = new HashMap<>(counts.size() * 2);
+        counts.forEach((categoryId, count) -> {
+            index.put(categoryId, new Product[count[0]]);
+            count[0] = 0;
+        });
+        for (Product product : products) {
+            Long categoryId = product.getCategoryId();
+            index.get(categoryId)[counts.get(categoryId)[0]++] = product;
+        }
+        return index;
+    }
+}
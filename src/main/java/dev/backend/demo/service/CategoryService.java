@@ -0,0 +1,237 @@
+package dev.backend.demo.service;
+
+import dev.backend.demo.dto.category.CategoryDTO;
+import dev.backend.demo.dto.category.CategoryRequest;
+import dev.backend.demo.exception.InvalidOperationException;
+import dev.backend.demo.exception.ResourceNotFoundException;
+import dev.backend.demo.invalidation.InvalidationBus;
+import dev.backend.demo.invalidation.InvalidationListener;
+import dev.backend.demo.model.Category;
+import dev.backend.demo.repository.CategoryRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 商品類別服務
+ *
+ * 持有目前的 CategoryTree（volatile 參考）：類別查詢、麵包屑、「某類別之下的所有商品」都從記憶體取得，
+ * 不以遞迴 CTE 查詢資料庫。類別新增、修改、刪除寫入資料庫後整棵重新載入（類別數通常只有數百到數千個），
+ * 並透過 InvalidationBus 通知其他節點重新載入。
+ *
+ * 寫入彼此序列化，移動類別前以目前的類別樹檢查不會形成循環；
+ * 不同節點同時移動類別仍可能寫出循環，CategoryTree 建立時會把循環斷開。
+ */
+@Slf4j
+@Service
+@DependsOn("entityManagerFactory")
+public class CategoryService implements InvalidationListener {
+
+    public static final String ENTITY = "category";
+
+    private static final String SELECT_CATEGORIES =
+        "SELECT category_id, category_name, parent_id, created_at, updated_at FROM categories";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductCatalog catalog;
+
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    private volatile CategoryTree tree = CategoryTree.empty();
+
+    /**
+     * 啟動時載入所有類別
+     */
+    @PostConstruct
+    public synchronized void reload() {
+        tree = CategoryTree.of(jdbcTemplate.query(SELECT_CATEGORIES, (rs, rowNum) -> {
+            Category category = new Category();
+            category.setCategoryId(rs.getLong("category_id"));
+            category.setCategoryName(rs.getString("category_name"));
+            category.setParentId(rs.getObject("parent_id", Long.class));
+            category.setCreatedAt(rs.getObject("created_at", LocalDateTime.class));
+            category.setUpdatedAt(rs.getObject("updated_at", LocalDateTime.class));
+            return category;
+        }));
+        log.info("載入類別樹: categories={}", tree.size());
+    }
+
+    /**
+     * 目前的類別樹
+     */
+    public CategoryTree tree() {
+        return tree;
+    }
+
+    /**
+     * 所有類別（前序：上層類別在子類別之前），商品數含子類別
+     */
+    public List<CategoryDTO> getCategories() {
+        CategoryTree tree = this.tree;
+        CatalogSnapshot snapshot = catalog.snapshot();
+        List<Category> all = tree.all();
+        long[] counts = new long[all.size()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = snapshot.countByCategory(all.get(i).getCategoryId());
+        }
+        long[] totals = tree.subtreeSums(counts);
+        List<CategoryDTO> result = new ArrayList<>(all.size());
+        for (int i = 0; i < all.size(); i++) {
+            result.add(toDTO(tree, all.get(i), totals[i]));
+        }
+        return result;
+    }
+
+    /**
+     * 取得一個類別（商品數含子類別）
+     * @throws ResourceNotFoundException 類別不存在
+     */
+    public CategoryDTO getCategory(Long id) {
+        CategoryTree tree = this.tree;
+        return toDTO(tree, require(tree, id), catalog.snapshot());
+    }
+
+    /**
+     * 從最上層到此類別的路徑（含自己）
+     * @throws ResourceNotFoundException 類別不存在
+     */
+    public List<CategoryDTO> getPath(Long id) {
+        CategoryTree tree = this.tree;
+        require(tree, id);
+        CatalogSnapshot snapshot = catalog.snapshot();
+        return tree.ancestors(id).stream().map(category -> toDTO(tree, category, snapshot)).toList();
+    }
+
+    /**
+     * 直接的子類別；id 為 null 時為最上層類別
+     * @throws ResourceNotFoundException 類別不存在
+     */
+    public List<CategoryDTO> getChildren(Long id) {
+        CategoryTree tree = this.tree;
+        CatalogSnapshot snapshot = catalog.snapshot();
+        List<Category> children = id == null ? tree.roots() : tree.children(require(tree, id).getCategoryId());
+        return children.stream().map(category -> toDTO(tree, category, snapshot)).toList();
+    }
+
+    /**
+     * 新增類別
+     * @throws InvalidOperationException 上層類別不存在
+     */
+    public synchronized CategoryDTO createCategory(CategoryRequest request) {
+        checkParent(request.getParentId());
+        Category category = new Category();
+        category.setCategoryName(request.getCategoryName().trim());
+        category.setParentId(request.getParentId());
+        Category saved = categoryRepository.save(category);
+        changed(saved.getCategoryId());
+        log.info("類別新增成功: categoryId={}, parentId={}", saved.getCategoryId(), saved.getParentId());
+        return getCategory(saved.getCategoryId());
+    }
+
+    /**
+     * 修改類別名稱或上層類別（子類別跟著移動）
+     * @throws ResourceNotFoundException 類別不存在
+     * @throws InvalidOperationException 上層類別不存在，或移到自己或自己的子類別之下
+     */
+    public synchronized CategoryDTO updateCategory(Long id, CategoryRequest request) {
+        Category category = categoryRepository.findById(id)
+            .orElseThrow(() -> new ResourceNotFoundException("類別不存在: " + id));
+        Long parentId = request.getParentId();
+        checkParent(parentId);
+        if (parentId != null && tree.isWithin(parentId, id)) {
+            throw new InvalidOperationException("不可把類別移到自己或自己的子類別之下: " + id);
+        }
+        category.setCategoryName(request.getCategoryName().trim());
+        category.setParentId(parentId);
+        categoryRepository.save(category);
+        changed(id);
+        log.info("類別更新成功: categoryId={}, parentId={}", id, parentId);
+        return getCategory(id);
+    }
+
+    /**
+     * 刪除類別（只能刪除沒有子類別、也沒有商品的類別）
+     * @throws ResourceNotFoundException 類別不存在
+     * @throws InvalidOperationException 還有子類別或商品
+     */
+    public synchronized void deleteCategory(Long id) {
+        if (!categoryRepository.existsById(id)) {
+            throw new ResourceNotFoundException("類別不存在: " + id);
+        }
+        if (categoryRepository.existsByParentId(id)) {
+            throw new InvalidOperationException("類別下還有子類別，無法刪除: " + id);
+        }
+        int products = catalog.snapshot().countByCategory(id);
+        if (products > 0) {
+            throw new InvalidOperationException("類別下還有 " + products + " 個商品，無法刪除: " + id);
+        }
+        categoryRepository.deleteById(id);
+        changed(id);
+        log.info("類別刪除成功: categoryId={}", id);
+    }
+
+    @Override
+    public String entity() {
+        return ENTITY;
+    }
+
+    /**
+     * 其他節點的類別異動：整棵重新載入
+     */
+    @Override
+    public void invalidate(String action, Set<String> keys) {
+        reload();
+    }
+
+    @Override
+    public void invalidateAll() {
+        reload();
+    }
+
+    private void changed(Long id) {
+        reload();
+        invalidationBus.publish(ENTITY, null, List.of(id));
+    }
+
+    private void checkParent(Long parentId) {
+        if (parentId != null && !tree.contains(parentId)) {
+            throw new InvalidOperationException("上層類別不存在: " + parentId);
+        }
+    }
+
+    private static Category require(CategoryTree tree, Long id) {
+        Category category = tree.get(id);
+        if (category == null) {
+            throw new ResourceNotFoundException("類別不存在: " + id);
+        }
+        return category;
+    }
+
+    private static CategoryDTO toDTO(CategoryTree tree, Category category, CatalogSnapshot snapshot) {
+        long count = 0;
+        for (long categoryId : tree.subtreeIds(category.getCategoryId())) {
+            count += snapshot.countByCategory(categoryId);
+        }
+        return toDTO(tree, category, count);
+    }
+
+    private static CategoryDTO toDTO(CategoryTree tree, Category category, long productCount) {
+        return new CategoryDTO(category.getCategoryId(), category.getCategoryName(),
+            tree.parentId(category.getCategoryId()), tree.depth(category.getCategoryId()), productCount);
+    }
+}
@@ -0,0 +1,305 @@
+package dev.backend.demo.service;
+
+import dev.backend.demo.model.Category;
+import dev.backend.demo.util.ContentHash;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 不可變的類別樹（以前序區間編號的祖先／子孫索引）
+ *
+ * 類別依前序（深度優先，子類別依 ID 排序）排成一個陣列，每個類別記錄自己的位置與子樹結尾 end：
+ * 子樹剛好是連續的區間 [position, end)。
+ * - 「A 是否在 B 之下」只需比較兩個整數（B.position <= A.position < B.end）
+ * - 「B 之下的所有類別」是陣列的一段，不需要遞迴走訪
+ * - 各子樹的合計（例如商品數）以前綴和一次算出
+ *
+ * 建立時容忍不一致的資料：上層類別不存在的類別視為最上層；
+ * parent_id 形成循環時，從循環中 ID 最小的類別斷開，把它視為最上層。
+ *
+ * 建立後不再修改，可由任意執行緒無鎖讀取；類別異動時由 CategoryService 整棵重建（類別數遠少於商品數）。
+ * 樹中的 Category 物件由多個請求共用，呼叫者不可修改。
+ */
+public final class CategoryTree {
+
+    private static final int NONE = -1;
+
+    // 依前序排列
+    private final Category[] categories;
+    private final long[] preorderIds;
+    private final int[] end;
+    private final int[] parents;
+    private final int[] depths;
+    // 依 ID 排序的 ID 與對應的前序位置
+    private final long[] ids;
+    private final int[] positions;
+    private final List<Category> all;
+    private final String version;
+
+    private CategoryTree(Category[] categories, int[] parents) {
+        int n = categories.length;
+        this.categories = categories;
+        this.parents = parents;
+        this.preorderIds = new long[n];
+        this.depths = new int[n];
+        this.end = new int[n];
+        long digest = 0;
+        for (int i = 0; i < n; i++) {
+            digest += new ContentHash()
+                .add(categories[i].getCategoryId())
+                .add(categories[i].getCategoryName())
+                .add(categories[i].getParentId())
+                .add(categories[i].getCreatedAt())
+                .add(categories[i].getUpdatedAt())
+                .get();
+            preorderIds[i] = categories[i].getCategoryId();
+            depths[i] = parents[i] == NONE ? 0 : depths[parents[i]] + 1;
+            end[i] = i + 1;
+        }
+        // 子節點的位置一定在上層之後：由後往前把子樹結尾往上傳
+        for (int i = n - 1; i >= 0; i--) {
+            if (parents[i] != NONE) {
+                end[parents[i]] = Math.max(end[parents[i]], end[i]);
+            }
+        }
+        Integer[] byId = new Integer[n];
+        Arrays.setAll(byId, i -> i);
+        Arrays.sort(byId, Comparator.comparingLong(i -> preorderIds[i]));
+        this.ids = new long[n];
+        this.positions = new int[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = preorderIds[byId[i]];
+            positions[i] = byId[i];
+        }
+        this.all = Collections.unmodifiableList(Arrays.asList(categories));
+        this.version = Long.toUnsignedString(digest, 36) + "-" + Integer.toString(n, 36);
+    }
+
+    /**
+     * 以所有類別建立類別樹（同一 ID 出現多次時以最後一個為準）
+     */
+    public static CategoryTree of(Collection<Category> categories) {
+        Map<Long, Category> byId = new HashMap<>();
+        for (Category category : categories) {
+            byId.put(category.getCategoryId(), category);
+        }
+        Map<Long, List<Category>> children = new HashMap<>();
+        List<Category> roots = new ArrayList<>();
+        for (Category category : byId.values()) {
+            Long parentId = category.getParentId();
+            if (parentId == null || !byId.containsKey(parentId) || parentId.equals(category.getCategoryId())) {
+                roots.add(category);
+            } else {
+                children.computeIfAbsent(parentId, key -> new ArrayList<>()).add(category);
+            }
+        }
+        Comparator<Category> byCategoryId = Comparator.comparing(Category::getCategoryId);
+        roots.sort(byCategoryId);
+        children.values().forEach(list -> list.sort(byCategoryId));
+
+        Category[] order = new Category[byId.size()];
+        int[] parents = new int[byId.size()];
+        Set<Long> visited = new HashSet<>();
+        int n = 0;
+        for (Category root : roots) {
+            n = visit(root, children, order, parents, n, visited);
+        }
+        if (n < order.length) {
+            // 剩下的類別都在循環中或循環之下：每次從一個循環中 ID 最小的類別斷開
+            List<Category> remaining = new ArrayList<>(byId.values());
+            remaining.sort(byCategoryId);
+            for (Category category : remaining) {
+                if (!visited.contains(category.getCategoryId())) {
+                    n = visit(cycleStart(category, byId), children, order, parents, n, visited);
+                }
+            }
+        }
+        return new CategoryTree(order, parents);
+    }
+
+    public static CategoryTree empty() {
+        return new CategoryTree(new Category[0], new int[0]);
+    }
+
+    /**
+     * 類別樹版本：所有類別內容雜湊之和與類別數（36 進位），與 CatalogSnapshot.version() 相同不依賴時鐘，
+     * 資料不變時版本不變，任何類別的名稱、上層或時間改變時版本改變
+     */
+    public String version() {
+        return version;
+    }
+
+    public int size() {
+        return categories.length;
+    }
+
+    /**
+     * 所有類別（前序：上層類別在子類別之前，唯讀）
+     */
+    public List<Category> all() {
+        return all;
+    }
+
+    public boolean contains(long categoryId) {
+        return position(categoryId) >= 0;
+    }
+
+    /**
+     * 依 ID 查找，不存在時為 null
+     */
+    public Category get(long categoryId) {
+        int position = position(categoryId);
+        return position >= 0 ? categories[position] : null;
+    }
+
+    /**
+     * 樹中的上層類別 ID（最上層或不存在時為 null；循環被斷開的類別與 parent_id 不同）
+     */
+    public Long parentId(long categoryId) {
+        int position = position(categoryId);
+        return position >= 0 && parents[position] != NONE ? preorderIds[parents[position]] : null;
+    }
+
+    /**
+     * 深度（最上層為 0）；不存在時為 -1
+     */
+    public int depth(long categoryId) {
+        int position = position(categoryId);
+        return position >= 0 ? depths[position] : -1;
+    }
+
+    /**
+     * 最上層類別（依 ID 排序）
+     */
+    public List<Category> roots() {
+        return siblings(0, categories.length);
+    }
+
+    /**
+     * 直接的子類別（依 ID 排序）；不存在時為空清單
+     */
+    public List<Category> children(long categoryId) {
+        int position = position(categoryId);
+        return position >= 0 ? siblings(position + 1, end[position]) : List.of();
+    }
+
+    /**
+     * 從最上層到此類別的路徑（含自己，麵包屑用）；不存在時為空清單
+     */
+    public List<Category> ancestors(long categoryId) {
+        List<Category> path = new ArrayList<>();
+        for (int position = position(categoryId); position >= 0; position = parents[position]) {
+            path.add(categories[position]);
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * descendantId 是否為 ancestorId 或在它之下
+     */
+    public boolean isWithin(long descendantId, long ancestorId) {
+        int descendant = position(descendantId);
+        int ancestor = position(ancestorId);
+        return descendant >= 0 && ancestor >= 0 && ancestor <= descendant && descendant < end[ancestor];
+    }
+
+    /**
+     * 此類別與其下所有類別的 ID（前序）；不在樹中的類別只回傳自己
+     * （商品可以指向尚未建立的類別 ID，仍可依該 ID 查詢）
+     */
+    public long[] subtreeIds(long categoryId) {
+        int position = position(categoryId);
+        return position >= 0 ? Arrays.copyOfRange(preorderIds, position, end[position]) : new long[]{categoryId};
+    }
+
+    /**
+     * 各類別子樹的合計
+     * @param values 每個類別自己的值，依 all() 的順序
+     * @return 每個類別與其下所有類別的值的總和，依 all() 的順序
+     */
+    public long[] subtreeSums(long[] values) {
+        if (values.length != categories.length) {
+            throw new IllegalArgumentException("values 長度應為 " + categories.length);
+        }
+        long[] prefix = new long[values.length + 1];
+        for (int i = 0; i < values.length; i++) {
+            prefix[i + 1] = prefix[i] + values[i];
+        }
+        long[] sums = new long[values.length];
+        for (int i = 0; i < values.length; i++) {
+            sums[i] = prefix[end[i]] - prefix[i];
+        }
+        return sums;
+    }
+
+    private List<Category> siblings(int from, int to) {
+        List<Category> result = new ArrayList<>();
+        for (int position = from; position < to; position = end[position]) {
+            result.add(categories[position]);
+        }
+        return result;
+    }
+
+    private int position(long categoryId) {
+        int i = Arrays.binarySearch(ids, categoryId);
+        return i >= 0 ? positions[i] : NONE;
+    }
+
+    /**
+     * 以前序走訪 root 的子樹（以堆疊代替遞迴，層數很深也不會 StackOverflowError），回傳下一個可用的位置
+     */
+    private static int visit(Category root, Map<Long, List<Category>> children, Category[] order, int[] parents,
+                             int n, Set<Long> visited) {
+        Deque<Category> stack = new ArrayDeque<>();
+        Deque<Integer> parentPositions = new ArrayDeque<>();
+        stack.push(root);
+        parentPositions.push(NONE);
+        while (!stack.isEmpty()) {
+            Category category = stack.pop();
+            int parent = parentPositions.pop();
+            if (!visited.add(category.getCategoryId())) {
+                continue;
+            }
+            int position = n++;
+            order[position] = category;
+            parents[position] = parent;
+            List<Category> list = children.getOrDefault(category.getCategoryId(), List.of());
+            // 反向放入堆疊，取出時依 ID 遞增
+            for (int i = list.size() - 1; i >= 0; i--) {
+                stack.push(list.get(i));
+                parentPositions.push(position);
+            }
+        }
+        return n;
+    }
+
+    /**
+     * 沿著上層類別往上走到循環中，回傳循環中 ID 最小的類別
+     */
+    private static Category cycleStart(Category category, Map<Long, Category> byId) {
+        Set<Long> seen = new HashSet<>();
+        Category current = category;
+        while (seen.add(current.getCategoryId())) {
+            current = byId.get(current.getParentId());
+        }
+        Category smallest = current;
+        for (Category member = byId.get(current.getParentId()); member != current; member = byId.get(member.getParentId())) {
+            if (member.getCategoryId() < smallest.getCategoryId()) {
+                smallest = member;
+            }
+        }
+        return smallest;
+    }
+}
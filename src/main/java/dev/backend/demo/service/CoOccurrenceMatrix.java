@@ -0,0 +1,279 @@
+package dev.backend.demo.service;
+
+import dev.backend.demo.util.LongLongHashMap;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+
+/**
+ * 商品共同購買矩陣
+ *
+ * count(a, b) = 同時包含商品 a 與 b 的訂單數。每個商品 a 的一列是一個 LongLongHashMap（b → 次數），
+ * 依 a 雜湊分到多個分片，每個分片各有一把讀寫鎖：結帳更新只鎖住涉及的分片，查詢只取讀鎖。
+ */
+public class CoOccurrenceMatrix {
+
+    private static final int SNAPSHOT_MAGIC = 0x434F4F43; // "COOC"
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private final Shard[] shards;
+
+    public CoOccurrenceMatrix(int shardCount) {
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard();
+        }
+    }
+
+    /**
+     * 記錄一筆訂單：訂單中每一對不同的商品次數加一
+     * @param productIds 訂單中的商品（重複的會被忽略）
+     */
+    public void recordOrder(long[] productIds) {
+        long[] distinct = Arrays.stream(productIds).distinct().toArray();
+        if (distinct.length < 2) {
+            return;
+        }
+        // 依分片分組，每個分片只鎖一次
+        for (int s = 0; s < shards.length; s++) {
+            Shard shard = null;
+            for (long a : distinct) {
+                if (shardIndex(a) != s) {
+                    continue;
+                }
+                if (shard == null) {
+                    shard = shards[s];
+                    shard.lock.writeLock().lock();
+                }
+                LongLongHashMap row = shard.rowFor(a);
+                for (long b : distinct) {
+                    if (b != a) {
+                        row.addTo(b, 1);
+                    }
+                }
+            }
+            if (shard != null) {
+                shard.lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * 取得與商品最常一起購買的前 k 個商品（次數由高到低，同次數依商品 ID）
+     * @param exclude 要排除的商品（例如已刪除）
+     */
+    public List<Entry> topK(long productId, int k, LongPredicate exclude) {
+        if (k <= 0) {
+            return List.of();
+        }
+        Shard shard = shards[shardIndex(productId)];
+        // 以陣列實作的最小堆積，堆頂是目前前 k 名中最弱的一個
+        long[] heapIds = new long[k];
+        long[] heapCounts = new long[k];
+        int[] size = {0};
+
+        shard.lock.readLock().lock();
+        try {
+            LongLongHashMap row = shard.row(productId);
+            if (row == null) {
+                return List.of();
+            }
+            row.forEach((other, count) -> {
+                if (exclude.test(other)) {
+                    return;
+                }
+                if (size[0] < k) {
+                    heapIds[size[0]] = other;
+                    heapCounts[size[0]] = count;
+                    siftUp(heapIds, heapCounts, size[0]++);
+                } else if (stronger(other, count, heapIds[0], heapCounts[0])) {
+                    heapIds[0] = other;
+                    heapCounts[0] = count;
+                    siftDown(heapIds, heapCounts, 0, size[0]);
+                }
+            });
+        } finally {
+            shard.lock.readLock().unlock();
+        }
+
+        Entry[] result = new Entry[size[0]];
+        for (int i = size[0] - 1; i >= 0; i--) {
+            result[i] = new Entry(heapIds[0], heapCounts[0]);
+            heapIds[0] = heapIds[i];
+            heapCounts[0] = heapCounts[i];
+            siftDown(heapIds, heapCounts, 0, i);
+        }
+        return Arrays.asList(result);
+    }
+
+    /**
+     * 有共同購買紀錄的商品數
+     */
+    public int productCount() {
+        int count = 0;
+        for (Shard shard : shards) {
+            shard.lock.readLock().lock();
+            try {
+                count += shard.rowList.size();
+            } finally {
+                shard.lock.readLock().unlock();
+            }
+        }
+        return count;
+    }
+
+    // ========== 快照 ==========
+
+    /**
+     * 寫出快照：magic、版本，接著每列 (a, n, n 組 (b, count))，以 a = -1 結尾
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeInt(SNAPSHOT_VERSION);
+        for (Shard shard : shards) {
+            shard.lock.readLock().lock();
+            try {
+                for (Row row : shard.rowList) {
+                    out.writeLong(row.productId);
+                    out.writeInt(row.counts.size());
+                    IOException[] error = new IOException[1];
+                    row.counts.forEach((other, count) -> {
+                        if (error[0] == null) {
+                            try {
+                                out.writeLong(other);
+                                out.writeLong(count);
+                            } catch (IOException e) {
+                                error[0] = e;
+                            }
+                        }
+                    });
+                    if (error[0] != null) {
+                        throw error[0];
+                    }
+                }
+            } finally {
+                shard.lock.readLock().unlock();
+            }
+        }
+        out.writeLong(-1L);
+    }
+
+    /**
+     * 讀入快照並累加到目前的矩陣（分片數可與寫出時不同）
+     */
+    public void readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+            throw new IOException("共同購買快照格式不符");
+        }
+        for (long a = in.readLong(); a != -1L; a = in.readLong()) {
+            int n = in.readInt();
+            Shard shard = shards[shardIndex(a)];
+            shard.lock.writeLock().lock();
+            try {
+                LongLongHashMap row = shard.rowFor(a);
+                for (int i = 0; i < n; i++) {
+                    row.addTo(in.readLong(), in.readLong());
+                }
+            } finally {
+                shard.lock.writeLock().unlock();
+            }
+        }
+    }
+
+    // ========== 內部實作 ==========
+
+    private int shardIndex(long productId) {
+        long h = productId * 0x9E3779B97F4A7C15L;
+        return Math.floorMod((int) (h >>> 32), shards.length);
+    }
+
+    private static boolean stronger(long id, long count, long otherId, long otherCount) {
+        return count > otherCount || (count == otherCount && id < otherId);
+    }
+
+    private static void siftUp(long[] ids, long[] counts, int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!stronger(ids[parent], counts[parent], ids[i], counts[i])) {
+                break;
+            }
+            swap(ids, counts, i, parent);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(long[] ids, long[] counts, int i, int size) {
+        while (true) {
+            int weakest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && stronger(ids[weakest], counts[weakest], ids[left], counts[left])) {
+                weakest = left;
+            }
+            if (right < size && stronger(ids[weakest], counts[weakest], ids[right], counts[right])) {
+                weakest = right;
+            }
+            if (weakest == i) {
+                return;
+            }
+            swap(ids, counts, i, weakest);
+            i = weakest;
+        }
+    }
+
+    private static void swap(long[] ids, long[] counts, int i, int j) {
+        long id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+        long count = counts[i];
+        counts[i] = counts[j];
+        counts[j] = count;
+    }
+
+    /**
+     * 一個分片：商品 ID → 列索引（LongLongHashMap），以及所有列
+     */
+    private static class Shard {
+        final ReadWriteLock lock = new ReentrantReadWriteLock();
+        final LongLongHashMap rowIndex = new LongLongHashMap();
+        final List<Row> rowList = new ArrayList<>();
+
+        LongLongHashMap row(long productId) {
+            long i = rowIndex.get(productId, -1L);
+            return i < 0 ? null : rowList.get((int) i).counts;
+        }
+
+        LongLongHashMap rowFor(long productId) {
+            LongLongHashMap row = row(productId);
+            if (row == null) {
+                Row created = new Row(productId);
+                rowIndex.put(productId, rowList.size());
+                rowList.add(created);
+                row = created.counts;
+            }
+            return row;
+        }
+    }
+
+    private static class Row {
+        final long productId;
+        final LongLongHashMap counts = new LongLongHashMap();
+
+        Row(long productId) {
+            this.productId = productId;
+        }
+    }
+
+    /**
+     * 查詢結果：商品 ID 與共同購買次數
+     */
+    public record Entry(long productId, long count) {
+    }
+}
@@ -0,0 +1,82 @@
+package dev.backend.demo.service;
+
+import dev.backend.demo.dto.cart.CartItemDTO;
+import dev.backend.demo.dto.cart.CartResponseDTO;
+import dev.backend.demo.event.CartChangedEvent;
+import dev.backend.demo.event.CheckoutCompletedEvent;
+import dev.backend.demo.journal.EventJournal;
+import dev.backend.demo.journal.JournalEvent;
+import dev.backend.demo.journal.JournalReader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 商業事件記錄服務
+ * 
+ * 購物車異動與結帳在交易提交後寫入 EventJournal：
+ * - 購物車異動：CART_ITEM_ADDED / CART_QUANTITY_UPDATED / CART_ITEM_REMOVED / CART_CLEARED
+ * - 結帳：一筆 CHECKOUT（總件數、總金額），接著每個項目一筆 CHECKOUT_LINE（數量、小計）
+ * 請求執行緒只把事件放進佇列，不等待磁碟寫入。
+ */
+@Slf4j
+@Service
+public class CommerceJournalService {
+    
+    @Autowired
+    private EventJournal journal;
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCartChanged(CartChangedEvent event) {
+        JournalEvent.Type type = switch (event.getType()) {
+            case ITEM_ADDED -> JournalEvent.Type.CART_ITEM_ADDED;
+            case QUANTITY_UPDATED -> JournalEvent.Type.CART_QUANTITY_UPDATED;
+            case ITEM_REMOVED -> JournalEvent.Type.CART_ITEM_REMOVED;
+            case CLEARED -> JournalEvent.Type.CART_CLEARED;
+        };
+        long productId = event.getProductId() != null ? event.getProductId() : 0;
+        int quantity = event.getQuantity() != null ? event.getQuantity() : 0;
+        append(type, event.getUserId(), productId, quantity, 0);
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCheckout(CheckoutCompletedEvent event) {
+        CartResponseDTO cart = event.getCart();
+        append(JournalEvent.Type.CHECKOUT, event.getUserId(), 0, cart.getTotalItems(), toCents(cart.getTotalPrice()));
+        for (CartItemDTO item : cart.getItems()) {
+            append(JournalEvent.Type.CHECKOUT_LINE, event.getUserId(), item.getProductId(), item.getQuantity(),
+                toCents(item.getSubtotal()));
+        }
+    }
+    
+    /**
+     * 從指定序號開始讀取最多 limit 筆事件
+     */
+    public List<JournalEvent> read(long fromSequence, int limit) {
+        List<JournalEvent> events = new ArrayList<>();
+        try (JournalReader reader = journal.reader(fromSequence)) {
+            reader.poll(events::add, limit);
+        }
+        return events;
+    }
+    
+    public EventJournal getJournal() {
+        return journal;
+    }
+    
+    private void append(JournalEvent.Type type, long userId, long productId, int quantity, long amountCents) {
+        if (!journal.append(type, userId, productId, quantity, amountCents)) {
+            log.warn("事件日誌佇列已滿，事件未記錄: type={}, userId={}, productId={}", type, userId, productId);
+        }
+    }
+    
+    private static long toCents(BigDecimal amount) {
+        return amount == null ? 0 : amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+}
@@ -0,0 +1,320 @@
+package dev.backend.demo.service;
+
+import dev.backend.demo.model.Product;
+import dev.backend.demo.util.CompressedBitmap;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 商品篩選用的點陣圖索引（不可變）
+ *
+ * 以商品 ID 為位元編號，每個類別、供應商、價格區間各有一個壓縮點陣圖：
+ * - 篩選：同一個欄位選多個值取聯集，不同欄位之間取交集
+ * - 各欄位的數量：以「其他欄位的篩選結果」與每個值的點陣圖做交集計數，
+ *   讓使用者看到改選同一欄位其他值時會有幾筆（disjunctive faceting）
+ * 點陣圖的位元順序即 ID 順序，依序走訪就是依 ID 排序的結果。
+ * 商品異動時以 with 只更新異動商品所在值的點陣圖，其他點陣圖與前一個索引共用。
+ * 商品 ID 必須在 0 到 Integer.MAX_VALUE 之間（點陣圖的位元編號為 int）。
+ */
+public final class FacetIndex {
+
+    // 篩選結果少於全部商品的 1/SCAN_RATIO 時，以走訪結果的方式計數
+    private static final int SCAN_RATIO = 8;
+
+    /**
+     * 可篩選的欄位
+     */
+    public enum Facet {
+        CATEGORY,
+        SUPPLIER,
+        PRICE_BAND
+    }
+
+    /**
+     * 一個欄位值與符合的商品數
+     */
+    public record Count(Long value, int count) {
+    }
+
+    // 索引內容對應的商品（不維護排序索引），異動時與新的商品比對出各欄位舊的值
+    private final CatalogSnapshot snapshot;
+    private final BigDecimal[] priceBounds;
+    private final Map<Facet, Map<Long, CompressedBitmap>> bitmaps;
+    private final CompressedBitmap all;
+
+    /**
+     * @param priceBounds 價格區間的分界（遞增），n 個分界形成 n + 1 個區間：
+     *                    區間 0 為 [0, bounds[0])，區間 i 為 [bounds[i-1], bounds[i])，最後一個區間沒有上限
+     */
+    public FacetIndex(CatalogSnapshot snapshot, BigDecimal[] priceBounds) {
+        this.snapshot = snapshot.withoutViews();
+        this.priceBounds = priceBounds.clone();
+        this.bitmaps = new EnumMap<>(Facet.class);
+
+        Map<Facet, Map<Long, CompressedBitmap.Builder>> builders = new EnumMap<>(Facet.class);
+        for (Facet facet : Facet.values()) {
+            builders.put(facet, new HashMap<>());
+        }
+        CompressedBitmap.Builder allBuilder = CompressedBitmap.builder();
+        for (Product product : snapshot.all()) {
+            int bit = bit(product.getProductId());
+            allBuilder.add(bit);
+            for (Facet facet : Facet.values()) {
+                builders.get(facet).computeIfAbsent(value(facet, product), key -> CompressedBitmap.builder()).add(bit);
+            }
+        }
+        this.all = allBuilder.build();
+        builders.forEach((facet, byValue) -> {
+            Map<Long, CompressedBitmap> built = new HashMap<>(byValue.size() * 2);
+            byValue.forEach((value, builder) -> built.put(value, builder.build()));
+            bitmaps.put(facet, built);
+        });
+    }
+
+    private FacetIndex(CatalogSnapshot snapshot, BigDecimal[] priceBounds, Map<Facet, Map<Long, CompressedBitmap>> bitmaps,
+                       CompressedBitmap all) {
+        this.snapshot = snapshot;
+        this.priceBounds = priceBounds;
+        this.bitmaps = bitmaps;
+        this.all = all;
+    }
+
+    /**
+     * 套用商品異動後的新索引（沒有任何改變時回傳自己）
+     *
+     * 以 latest 中的商品取代 productIds 中的商品（latest 中沒有的商品移除），
+     * 只有值改變的點陣圖以差集、聯集更新，其他點陣圖共用
+     * @param latest 已套用這些異動的商品目錄快照
+     */
+    public FacetIndex with(Collection<Long> productIds, CatalogSnapshot latest) {
+        List<Product> current = new ArrayList<>();
+        Map<Facet, Map<Long, List<Integer>>> removed = new EnumMap<>(Facet.class);
+        Map<Facet, Map<Long, List<Integer>>> added = new EnumMap<>(Facet.class);
+        List<Integer> removedBits = new ArrayList<>();
+        List<Integer> addedBits = new ArrayList<>();
+        for (Long productId : productIds) {
+            Product previous = snapshot.get(productId);
+            Product product = latest.get(productId);
+            if (product != null) {
+                current.add(product);
+            }
+            if (previous == product) {
+                continue;
+            }
+            int bit = bit(productId);
+            if (previous == null) {
+                addedBits.add(bit);
+            } else if (product == null) {
+                removedBits.add(bit);
+            }
+            for (Facet facet : Facet.values()) {
+                Long before = previous != null ? value(facet, previous) : null;
+                Long after = product != null ? value(facet, product) : null;
+                if (previous != null && product != null && Objects.equals(before, after)) {
+                    continue;
+                }
+                if (previous != null) {
+                    removed.computeIfAbsent(facet, key -> new HashMap<>()).computeIfAbsent(before, key -> new ArrayList<>()).add(bit);
+                }
+                if (product != null) {
+                    added.computeIfAbsent(facet, key -> new HashMap<>()).computeIfAbsent(after, key -> new ArrayList<>()).add(bit);
+                }
+            }
+        }
+        CatalogSnapshot next = snapshot.with(productIds, current);
+        if (next == snapshot) {
+            return this;
+        }
+        Map<Facet, Map<Long, CompressedBitmap>> nextBitmaps = new EnumMap<>(Facet.class);
+        for (Facet facet : Facet.values()) {
+            Map<Long, List<Integer>> facetRemoved = removed.getOrDefault(facet, Map.of());
+            Map<Long, List<Integer>> facetAdded = added.getOrDefault(facet, Map.of());
+            if (facetRemoved.isEmpty() && facetAdded.isEmpty()) {
+                nextBitmaps.put(facet, bitmaps.get(facet));
+                continue;
+            }
+            Map<Long, CompressedBitmap> byValue = new HashMap<>(bitmaps.get(facet));
+            facetRemoved.forEach((value, bits) -> {
+                CompressedBitmap bitmap = byValue.get(value).andNot(bitmap(bits));
+                if (bitmap.isEmpty()) {
+                    byValue.remove(value);
+                } else {
+                    byValue.put(value, bitmap);
+                }
+            });
+            facetAdded.forEach((value, bits) ->
+                byValue.put(value, byValue.getOrDefault(value, CompressedBitmap.EMPTY).or(bitmap(bits))));
+            nextBitmaps.put(facet, byValue);
+        }
+        CompressedBitmap nextAll = all.andNot(bitmap(removedBits)).or(bitmap(addedBits));
+        return new FacetIndex(next, priceBounds, nextBitmaps, nextAll);
+    }
+
+    /**
+     * 索引內容對應的商品
+     */
+    public CatalogSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * 價格所在的區間編號（價格為 null 時為 null）
+     */
+    public Long priceBand(BigDecimal price) {
+        if (price == null) {
+            return null;
+        }
+        int band = 0;
+        while (band < priceBounds.length && price.compareTo(priceBounds[band]) >= 0) {
+            band++;
+        }
+        return (long) band;
+    }
+
+    /**
+     * 區間的下限（含）
+     */
+    public BigDecimal bandMin(int band) {
+        return band == 0 ? BigDecimal.ZERO : priceBounds[band - 1];
+    }
+
+    /**
+     * 區間的上限（不含），最後一個區間為 null
+     */
+    public BigDecimal bandMax(int band) {
+        return band < priceBounds.length ? priceBounds[band] : null;
+    }
+
+    public int bandCount() {
+        return priceBounds.length + 1;
+    }
+
+    /**
+     * 套用篩選條件
+     * @param filters 每個欄位選取的值（沒有出現或空集合表示不篩選這個欄位）
+     */
+    public Selection select(Map<Facet, List<Long>> filters) {
+        return new Selection(filters);
+    }
+
+    /**
+     * 一組篩選條件的結果：每個欄位選取值的聯集只計算一次，供篩選結果與各欄位的數量共用
+     */
+    public final class Selection {
+
+        private final Map<Facet, CompressedBitmap> selected = new EnumMap<>(Facet.class);
+        private CompressedBitmap matches;
+
+        private Selection(Map<Facet, List<Long>> filters) {
+            for (Facet facet : Facet.values()) {
+                List<Long> values = filters.getOrDefault(facet, List.of());
+                if (values.isEmpty()) {
+                    continue;
+                }
+                CompressedBitmap union = CompressedBitmap.EMPTY;
+                for (Long value : values) {
+                    union = union.or(bitmaps.get(facet).getOrDefault(value, CompressedBitmap.EMPTY));
+                }
+                selected.put(facet, union);
+            }
+        }
+
+        /**
+         * 符合所有篩選條件的商品
+         */
+        public CompressedBitmap matches() {
+            if (matches == null) {
+                matches = intersectExcept(null);
+            }
+            return matches;
+        }
+
+        /**
+         * 某個欄位每個值的商品數（套用其他欄位的篩選條件），數量為 0 的值不列出，依數量由多到少排序
+         */
+        public List<Count> counts(Facet facet) {
+            CompressedBitmap base = intersectExcept(facet);
+            List<Count> counts = new ArrayList<>();
+            if (base.cardinality() * SCAN_RATIO < all.cardinality()) {
+                // 篩選結果遠小於全部商品：走訪結果中的每個商品，依欄位值計數
+                Map<Long, int[]> perValue = new HashMap<>();
+                base.forEach(0, bit -> {
+                    perValue.computeIfAbsent(value(facet, snapshot.get(bit)), key -> new int[1])[0]++;
+                    return true;
+                });
+                perValue.forEach((value, count) -> counts.add(new Count(value, count[0])));
+            } else {
+                for (Map.Entry<Long, CompressedBitmap> entry : bitmaps.get(facet).entrySet()) {
+                    int count = base == all ? entry.getValue().cardinality() : base.andCardinality(entry.getValue());
+                    if (count > 0) {
+                        counts.add(new Count(entry.getKey(), count));
+                    }
+                }
+            }
+            counts.sort((a, b) -> a.count() != b.count() ? Integer.compare(b.count(), a.count())
+                : a.value() == null ? 1 : b.value() == null ? -1 : Long.compare(a.value(), b.value()));
+            return counts;
+        }
+
+        /**
+         * 依 ID 順序取出 ID 大於 afterId 的前 limit 個符合的商品
+         */
+        public List<Product> page(Long afterId, int limit) {
+            List<Product> page = new ArrayList<>(Math.min(limit, matches().cardinality()));
+            if (afterId != null && afterId >= Integer.MAX_VALUE) {
+                return page;
+            }
+            int from = afterId == null || afterId < 0 ? 0 : (int) (afterId + 1);
+            matches().forEach(from, bit -> {
+                page.add(snapshot.get(bit));
+                return page.size() < limit;
+            });
+            return page;
+        }
+
+        /**
+         * 除了 excluded 以外所有欄位的交集（從最小的集合開始，中間結果最小）
+         */
+        private CompressedBitmap intersectExcept(Facet excluded) {
+            CompressedBitmap result = null;
+            List<CompressedBitmap> sets = new ArrayList<>();
+            selected.forEach((facet, bitmap) -> {
+                if (facet != excluded) {
+                    sets.add(bitmap);
+                }
+            });
+            sets.sort(Comparator.comparingInt(CompressedBitmap::cardinality));
+            for (CompressedBitmap set : sets) {
+                result = result == null ? set : result.and(set);
+            }
+            return result == null ? all : result;
+        }
+    }
+
+    private Long value(Facet facet, Product product) {
+        return switch (facet) {
+            case CATEGORY -> product.getCategoryId();
+            case SUPPLIER -> product.getSupplierId();
+            case PRICE_BAND -> priceBand(product.getUnitPrice());
+        };
+    }
+
+    private static int bit(long productId) {
+        if (productId < 0 || productId > Integer.MAX_VALUE) {
+            throw new IllegalStateException("商品 ID 超出篩選索引的範圍: " + productId);
+        }
+        return (int) productId;
+    }
+
+    private static CompressedBitmap bitmap(List<Integer> bits) {
+        return CompressedBitmap.of(bits.stream().mapToInt(Integer::intValue).toArray());
+    }
+}
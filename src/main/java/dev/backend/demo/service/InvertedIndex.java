@@ -0,0 +1,357 @@
+package dev.backend.demo.service;
+
+import dev.backend.demo.util.LongLongHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 商品全文檢索的倒排索引（BM25 排序）
+ *
+ * 每個商品在索引中有一個內部文件編號（依加入順序遞增），每個詞有一個 posting list，
+ * 依文件編號排序存放（文件編號差值, 詞頻），兩者都以 varint 編碼在 byte[] 中，
+ * 一筆 posting 通常只佔 2～3 個位元組。
+ *
+ * 商品名稱中的詞以 NAME_WEIGHT 倍計入詞頻與文件長度（名稱比描述重要）。
+ *
+ * 更新商品時舊文件只標記刪除、以新編號重新加入，查詢時略過已刪除的文件；
+ * 已刪除的文件超過一定比例時整理一次（重寫所有 posting list）。
+ * 與 Lucene 相同，整理前的文件數、文件頻率等統計值包含已刪除的文件。
+ *
+ * 查詢與寫入以讀寫鎖保護：查詢可並行，寫入彼此序列化。
+ */
+public class InvertedIndex {
+
+    static final int NAME_WEIGHT = 3;
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int MAX_QUERY_TERMS = 16;
+    private static final int COMPACT_MIN_DELETED = 1024;
+    private static final double COMPACT_RATIO = 0.2;
+    private static final long REMOVED = -1;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private LongLongHashMap docByProduct = new LongLongHashMap();
+    private long[] productByDoc = new long[1024];
+    private int[] docLength = new int[1024];
+    private final BitSet deleted = new BitSet();
+    // 文件總數（含已刪除）
+    private int docCount;
+    private int deletedCount;
+    private long totalLength;
+
+    /**
+     * 查詢結果
+     */
+    public record Hit(long productId, double score) {
+    }
+
+    /**
+     * 加入或取代一個商品
+     */
+    public void index(long productId, String name, String description) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        int length = 0;
+        for (String token : TextTokenizer.tokenize(name)) {
+            frequencies.merge(token, NAME_WEIGHT, Integer::sum);
+            length += NAME_WEIGHT;
+        }
+        for (String token : TextTokenizer.tokenize(description)) {
+            frequencies.merge(token, 1, Integer::sum);
+            length++;
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(productId);
+            int doc = docCount++;
+            if (doc == productByDoc.length) {
+                productByDoc = Arrays.copyOf(productByDoc, doc * 2);
+                docLength = Arrays.copyOf(docLength, doc * 2);
+            }
+            productByDoc[doc] = productId;
+            docLength[doc] = length;
+            totalLength += length;
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), term -> new PostingList()).add(doc, entry.getValue());
+            }
+            docByProduct.put(productId, doc);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 移除一個商品（不存在時不做任何事）
+     */
+    public void remove(long productId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 以 BM25 分數取前 limit 名（任一查詢詞出現即符合，分數高的在前）
+     */
+    public List<Hit> search(String query, int limit) {
+        Set<String> terms = new LinkedHashSet<>(TextTokenizer.tokenize(query));
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            if (docCount == 0) {
+                return List.of();
+            }
+            double averageLength = Math.max(1.0, (double) totalLength / docCount);
+            List<PostingList.Cursor> cursors = new ArrayList<>();
+            double[] idfs = new double[MAX_QUERY_TERMS];
+            Iterator<String> it = terms.iterator();
+            for (int i = 0; i < MAX_QUERY_TERMS && it.hasNext(); i++) {
+                PostingList list = postings.get(it.next());
+                if (list != null) {
+                    PostingList.Cursor cursor = list.cursor();
+                    cursor.next();
+                    idfs[cursors.size()] = Math.log(1 + (docCount - list.docFrequency + 0.5) / (list.docFrequency + 0.5));
+                    cursors.add(cursor);
+                }
+            }
+
+            // 依文件編號同時走訪所有 posting list（document-at-a-time），以大小為 limit 的 min-heap 保留前幾名
+            PriorityQueue<long[]> top = new PriorityQueue<>(limit + 1,
+                Comparator.comparingDouble((long[] entry) -> Double.longBitsToDouble(entry[1])));
+            while (true) {
+                int doc = Integer.MAX_VALUE;
+                for (PostingList.Cursor cursor : cursors) {
+                    doc = Math.min(doc, cursor.doc);
+                }
+                if (doc == Integer.MAX_VALUE) {
+                    break;
+                }
+                double norm = K1 * (1 - B + B * docLength[doc] / averageLength);
+                double score = 0;
+                for (int i = 0; i < cursors.size(); i++) {
+                    PostingList.Cursor cursor = cursors.get(i);
+                    if (cursor.doc == doc) {
+                        score += idfs[i] * cursor.frequency * (K1 + 1) / (cursor.frequency + norm);
+                        cursor.next();
+                    }
+                }
+                if (deleted.get(doc)) {
+                    continue;
+                }
+                if (top.size() < limit) {
+                    top.add(new long[] {doc, Double.doubleToLongBits(score)});
+                } else if (score > Double.longBitsToDouble(top.peek()[1])) {
+                    top.poll();
+                    top.add(new long[] {doc, Double.doubleToLongBits(score)});
+                }
+            }
+
+            List<Hit> hits = new ArrayList<>(top.size());
+            for (long[] entry : top) {
+                hits.add(new Hit(productByDoc[(int) entry[0]], Double.longBitsToDouble(entry[1])));
+            }
+            hits.sort(Comparator.comparingDouble(Hit::score).reversed().thenComparingLong(Hit::productId));
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 索引中的商品數（不含已刪除）
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docCount - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 不重複的詞數
+     */
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 所有 posting list 佔用的位元組數
+     */
+    public long postingBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            for (PostingList list : postings.values()) {
+                bytes += list.size;
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ========== 內部實作（呼叫者需持有寫鎖） ==========
+
+    private void removeLocked(long productId) {
+        long doc = docByProduct.get(productId, REMOVED);
+        if (doc == REMOVED) {
+            return;
+        }
+        deleted.set((int) doc);
+        deletedCount++;
+        docByProduct.put(productId, REMOVED);
+        if (deletedCount >= COMPACT_MIN_DELETED && deletedCount > docCount * COMPACT_RATIO) {
+            compact();
+        }
+    }
+
+    /**
+     * 移除已刪除的文件，重新編號並重寫所有 posting list
+     */
+    private void compact() {
+        int[] remap = new int[docCount];
+        int live = 0;
+        for (int doc = 0; doc < docCount; doc++) {
+            remap[doc] = deleted.get(doc) ? -1 : live++;
+        }
+
+        long[] products = new long[Math.max(1024, live * 2)];
+        int[] lengths = new int[products.length];
+        LongLongHashMap byProduct = new LongLongHashMap(live);
+        long length = 0;
+        for (int doc = 0; doc < docCount; doc++) {
+            int target = remap[doc];
+            if (target >= 0) {
+                products[target] = productByDoc[doc];
+                lengths[target] = docLength[doc];
+                byProduct.put(productByDoc[doc], target);
+                length += docLength[doc];
+            }
+        }
+
+        Iterator<PostingList> lists = postings.values().iterator();
+        while (lists.hasNext()) {
+            PostingList list = lists.next();
+            if (!list.compact(remap)) {
+                lists.remove();
+            }
+        }
+
+        productByDoc = products;
+        docLength = lengths;
+        docByProduct = byProduct;
+        totalLength = length;
+        docCount = live;
+        deletedCount = 0;
+        deleted.clear();
+    }
+
+    /**
+     * 一個詞的 posting list：依文件編號遞增的（編號差值, 詞頻），以 varint 編碼
+     */
+    static final class PostingList {
+
+        private byte[] data = new byte[8];
+        private int size;
+        private int docFrequency;
+        private int lastDoc = -1;
+
+        /**
+         * 加入一筆 posting（doc 必須大於之前加入的所有編號）
+         */
+        void add(int doc, int frequency) {
+            if (size + 10 > data.length) {
+                data = Arrays.copyOf(data, Math.max(size + 10, data.length + (data.length >> 1)));
+            }
+            writeVarInt(doc - lastDoc);
+            writeVarInt(frequency);
+            lastDoc = doc;
+            docFrequency++;
+        }
+
+        Cursor cursor() {
+            return new Cursor();
+        }
+
+        /**
+         * 依 remap（舊編號 → 新編號，-1 表示移除）重寫
+         * @return 重寫後是否還有任何 posting
+         */
+        boolean compact(int[] remap) {
+            PostingList rewritten = new PostingList();
+            Cursor cursor = cursor();
+            for (cursor.next(); cursor.doc != Integer.MAX_VALUE; cursor.next()) {
+                if (remap[cursor.doc] >= 0) {
+                    rewritten.add(remap[cursor.doc], cursor.frequency);
+                }
+            }
+            data = Arrays.copyOf(rewritten.data, rewritten.size);
+            size = rewritten.size;
+            docFrequency = rewritten.docFrequency;
+            lastDoc = rewritten.lastDoc;
+            return docFrequency > 0;
+        }
+
+        private void writeVarInt(int value) {
+            while ((value & ~0x7F) != 0) {
+                data[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[size++] = (byte) value;
+        }
+
+        /**
+         * 依序解碼的游標；doc 為 Integer.MAX_VALUE 表示已走完
+         */
+        final class Cursor {
+            private int pos;
+            int doc = -1;
+            int frequency;
+
+            void next() {
+                if (pos >= size) {
+                    doc = Integer.MAX_VALUE;
+                    return;
+                }
+                doc += readVarInt();
+                frequency = readVarInt();
+            }
+
+            private int readVarInt() {
+                int value = 0;
+                for (int shift = 0; ; shift += 7) {
+                    byte b = data[pos++];
+                    value |= (b & 0x7F) << shift;
+                    if (b >= 0) {
+                        return value;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package dev.backend.demo.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntToLongFunction;
+
+/**
+ * 批次寫入商品的 JDBC 共用程式（ProductImportService、SupplierFeedSyncService）
+ *
+ * 每批在一個獨立交易中以陣列參數寫入；整批失敗時改為逐筆寫入，找出是哪幾列造成錯誤，
+ * 其他列照常寫入。
+ */
+@Slf4j
+final class JdbcBatches {
+
+    private static final String ALLOCATE_PRODUCT_IDS =
+        "SELECT nextval(pg_get_serial_sequence('products', 'product_id')) FROM generate_series(1, ?)";
+
+    @FunctionalInterface
+    interface SqlWork<T> {
+        T run(Connection connection) throws SQLException;
+    }
+
+    @FunctionalInterface
+    interface RangeWriter {
+        /**
+         * 在一個交易中寫入第 [from, to) 列，回傳異動的商品 ID
+         */
+        List<Long> write(int from, int to) throws SQLException;
+    }
+
+    private JdbcBatches() {
+    }
+
+    /**
+     * 在一個交易中執行（成功時提交，SQLException 時 rollback），結束後恢復連線的 autocommit 設定
+     */
+    static <T> T inTransaction(DataSource dataSource, SqlWork<T> work) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                T result = work.run(connection);
+                connection.commit();
+                return result;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    /**
+     * 整批寫入 size 列；失敗時改為逐筆寫入，失敗的列以 rowNumber 換成檔案列號記錄在作業中
+     * @return 成功寫入的商品 ID
+     */
+    static List<Long> writeWithFallback(BatchJob job, int size, RangeWriter writer, IntToLongFunction rowNumber) {
+        if (size == 0) {
+            return List.of();
+        }
+        try {
+            return writer.write(0, size);
+        } catch (SQLException e) {
+            log.warn("批次寫入失敗，改為逐筆寫入: jobId={}, rows={}, error={}", job.getId(), size, e.getMessage());
+        }
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            try {
+                ids.addAll(writer.write(i, i + 1));
+            } catch (SQLException rowError) {
+                job.fail(rowNumber.applyAsLong(i), rowError.getMessage());
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * 一次向 products 的序列取 count 個商品 ID（不需要逐筆 INSERT 取回 ID）
+     */
+    static Long[] allocateProductIds(Connection connection, int count) throws SQLException {
+        Long[] ids = new Long[count];
+        try (PreparedStatement allocate = connection.prepareStatement(ALLOCATE_PRODUCT_IDS)) {
+            allocate.setInt(1, count);
+            try (ResultSet rs = allocate.executeQuery()) {
+                for (int i = 0; rs.next(); i++) {
+                    ids[i] = rs.getLong(1);
+                }
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,115 @@
+package dev.backend.demo.service;
+
+import dev.backend.demo.dto.product.ProductBulkUpdateRequest;
+import dev.backend.demo.event.ProductChangedEvent;
+import dev.backend.demo.exception.InvalidOperationException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 商品批次更新服務
+ *
+ * 依條件以一個 UPDATE 更新所有符合的商品（例如某類別全部漲價 5%），
+ * 不逐筆讀取實體再儲存。RETURNING 取回更新的商品 ID 一起發布 ProductChangedEvent，
+ * 提交後商品目錄快照、搜尋索引等快取只重新讀取這些商品。
+ */
+@Slf4j
+@Service
+public class ProductBulkUpdateService {
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * 依條件批次更新商品（已刪除的商品不更新）
+     * @return 更新的商品數
+     * @throws InvalidOperationException 沒有條件、沒有更新內容、價格設定衝突或更新後價格超出範圍
+     */
+    @Transactional
+    public int update(ProductBulkUpdateRequest request) {
+        ProductBulkUpdateRequest.Filter where = request.getWhere();
+        ProductBulkUpdateRequest.Changes set = request.getSet();
+
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("UPDATE products SET updated_at = ?");
+        params.add(LocalDateTime.now());
+        int changes = 0;
+        if (set.getUnitPrice() != null && set.getPriceChangePercent() != null) {
+            throw new InvalidOperationException("unitPrice 與 priceChangePercent 只能擇一");
+        }
+        if (set.getUnitPrice() != null) {
+            sql.append(", unit_price = ?");
+            params.add(set.getUnitPrice());
+            changes++;
+        }
+        if (set.getPriceChangePercent() != null) {
+            sql.append(", unit_price = round(unit_price * ?, 2)");
+            params.add(HUNDRED.add(set.getPriceChangePercent()).divide(HUNDRED));
+            changes++;
+        }
+        if (set.getCategoryId() != null) {
+            sql.append(", category_id = ?");
+            params.add(set.getCategoryId());
+            changes++;
+        }
+        if (set.getSupplierId() != null) {
+            sql.append(", supplier_id = ?");
+            params.add(set.getSupplierId());
+            changes++;
+        }
+        if (changes == 0) {
+            throw new InvalidOperationException("沒有要更新的欄位");
+        }
+
+        // 至少要有一個條件，避免漏填條件時更新整個目錄
+        sql.append(" WHERE deleted_at IS NULL");
+        int conditions = 0;
+        if (where.getProductIds() != null && !where.getProductIds().isEmpty()) {
+            sql.append(" AND product_id = ANY (?)");
+            params.add(where.getProductIds().toArray(new Long[0]));
+            conditions++;
+        }
+        if (where.getCategoryId() != null) {
+            sql.append(" AND category_id = ?");
+            params.add(where.getCategoryId());
+            conditions++;
+        }
+        if (where.getSupplierId() != null) {
+            sql.append(" AND supplier_id = ?");
+            params.add(where.getSupplierId());
+            conditions++;
+        }
+        if (conditions == 0) {
+            throw new InvalidOperationException("至少需要一個更新條件（productIds、categoryId 或 supplierId）");
+        }
+        sql.append(" RETURNING product_id");
+
+        List<Long> updated;
+        try {
+            updated = jdbcTemplate.queryForList(sql.toString(), Long.class, params.toArray());
+        } catch (DataIntegrityViolationException e) {
+            // 例如漲價後超過 unit_price 的精度
+            throw new InvalidOperationException("更新失敗，價格超出允許範圍");
+        }
+        if (!updated.isEmpty()) {
+            eventPublisher.publishEvent(new ProductChangedEvent(updated, ProductChangedEvent.Type.UPDATED));
+        }
+        log.info("批次更新商品: updated={}, sql={}", updated.size(), sql);
+        return updated.size();
+    }
+}
@@ -0,0 +1,119 @@
+package dev.backend.demo.service;
+
+import dev.backend.demo.event.ProductChangedEvent;
+import dev.backend.demo.model.Product;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 記憶體中的商品目錄
+ *
+ * 持有目前的 CatalogSnapshot（volatile 參考）：讀取只取參考，不加鎖、不查詢資料庫。
+ * 快照只載入列表需要的欄位，不含描述（TEXT，長度不限）：描述只在查詢單一商品時以 loadDescription 讀取。
+ * 商品異動提交後，從資料庫重新讀取該商品並換上新的快照（products 資料表由 Hibernate 建立，需等它先初始化）；
+ * 換快照的動作彼此序列化，避免較舊的讀取結果覆蓋較新的快照。
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+public class ProductCatalog {
+
+    private static final String SELECT_PRODUCTS =
+        "SELECT product_id, product_name, category_id, supplier_id, unit_price, created_at, updated_at " +
+        "FROM products WHERE deleted_at IS NULL";
+
+    private static final String SELECT_DESCRIPTION =
+        "SELECT description FROM products WHERE product_id = ? AND deleted_at IS NULL";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private volatile CatalogSnapshot snapshot = CatalogSnapshot.empty();
+
+    /**
+     * 啟動時載入所有未刪除的商品
+     */
+    @PostConstruct
+    public synchronized void reload() {
+        snapshot = CatalogSnapshot.of(jdbcTemplate.query(SELECT_PRODUCTS, rowMapper));
+        log.info("載入商品目錄: products={}", snapshot.size());
+    }
+
+    /**
+     * 目前的快照
+     */
+    public CatalogSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * 商品異動提交後更新快照
+     * 排在其他監聽者（例如搜尋索引）之前，讓它們讀到更新後的快照
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getProductIds().size() == 1) {
+            refresh(event.getProductIds().get(0));
+        } else {
+            refresh(event.getProductIds());
+        }
+    }
+
+    /**
+     * 從資料庫重新讀取一個商品並換上新的快照（已刪除或不存在時移除）
+     */
+    public synchronized void refresh(Long productId) {
+        List<Product> rows = jdbcTemplate.query(SELECT_PRODUCTS + " AND product_id = ?", rowMapper, productId);
+        if (!rows.isEmpty()) {
+            snapshot = snapshot.with(rows.get(0));
+        } else {
+            snapshot = snapshot.without(productId);
+        }
+    }
+
+    /**
+     * 重新讀取多個商品（批次異動用），只換一次快照
+     * 與目前的快照依 ID 合併，不複製整個目錄重新排序
+     */
+    public synchronized void refresh(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        snapshot = snapshot.with(productIds, jdbcTemplate.query(SELECT_PRODUCTS + " AND product_id = ANY (?)", rowMapper,
+            (Object) productIds.toArray(new Long[0])));
+    }
+
+    /**
+     * 從資料庫讀取一個商品的描述（商品不存在或已刪除時為 null）
+     */
+    public String loadDescription(Long productId) {
+        List<String> rows = jdbcTemplate.queryForList(SELECT_DESCRIPTION, String.class, productId);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    /**
+     * 以 JDBC 直接讀取資料列：不經過 JPA 的持久化內容（open-in-view 時同一請求中可能拿到尚未重新載入的實體），
+     * 每個快照物件都是獨立的，呼叫端修改實體不會影響已發布的快照
+     */
+    private final RowMapper<Product> rowMapper = (rs, rowNum) -> {
+        Product product = new Product(rs.getString("product_name"), rs.getObject("category_id", Long.class),
+            rs.getObject("supplier_id", Long.class), null, rs.getBigDecimal("unit_price"));
+        product.setProductId(rs.getLong("product_id"));
+        product.setCreatedAt(rs.getObject("created_at", LocalDateTime.class));
+        product.setUpdatedAt(rs.getObject("updated_at", LocalDateTime.class));
+        return product;
+    };
+}
@@ -0,0 +1,299 @@
+package dev.backend.demo.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.backend.demo.dto.product.ProductSummaryDTO;
+import dev.backend.demo.event.ProductChangedEvent;
+import dev.backend.demo.model.Product;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 商品目錄異動串流（Server-Sent Events，GET /api/products/changes）
+ *
+ * 商品新增、修改、刪除提交後（ProductCatalog 換上新快照之後）依序編號，推送給所有連線，
+ * 頁面保留已載入的商品並套用異動，不需要重新載入整個列表。
+ *
+ * 事件類型（每個事件的 id 為序號）：
+ * - created / updated：ProductSummaryDTO
+ * - deleted：{"productId": ...}
+ * - reset：異動已超出保留範圍（或一次異動太多商品），用戶端應重新載入列表
+ * - ready：連線建立（沒有 id），data 為目前序號與目錄版本
+ *
+ * 續傳：重新連線時帶 Last-Event-ID（或 since 參數），只補送之後的事件；
+ * 序號以啟動時間（微秒）起算，重新啟動後舊的序號一律視為過期而送出 reset。
+ *
+ * 記憶體與執行緒：
+ * - 最近的異動放在固定大小的環狀緩衝區，每個異動只序列化一次，所有連線共用
+ * - 每個連線只記錄已送出的序號，沒有自己的佇列；落後超過緩衝區大小時改送 reset
+ * - 閒置連線不佔用執行緒，有新異動時才由虛擬執行緒送出；同一連線同時只有一個執行緒在寫入
+ */
+@Slf4j
+@Service
+public class ProductChangeStreamService {
+
+    @Autowired
+    private ProductCatalog catalog;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${product.changes.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${product.changes.buffer-size:10000}")
+    private int bufferSize;
+
+    /**
+     * 一個已編號的異動（data 為序列化好的 JSON）
+     */
+    private record Change(long sequence, String type, String data) {
+    }
+
+    private Change[] buffer;
+    // 第一個序號與最後一個已發布的序號；寫入由 synchronized 保護，讀取不加鎖
+    private long firstSequence;
+    private volatile long lastSequence;
+
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    @PostConstruct
+    public void init() {
+        buffer = new Change[bufferSize];
+        firstSequence = ChronoUnit.MICROS.between(Instant.EPOCH, Instant.now());
+        lastSequence = firstSequence - 1;
+    }
+
+    /**
+     * 建立新的異動串流連線
+     * @param lastEventId 用戶端最後收到的序號；null 表示從現在開始
+     */
+    public SseEmitter subscribe(Long lastEventId) {
+        long head = lastSequence;
+        boolean resumable = lastEventId == null
+            || (lastEventId <= head && lastEventId >= Math.max(firstSequence, head - bufferSize + 1) - 1);
+        Connection connection = new Connection(new SseEmitter(timeoutMs), resumable && lastEventId != null ? lastEventId : head,
+            !resumable);
+        SseEmitter emitter = connection.emitter;
+        emitter.onCompletion(() -> unregister(connection));
+        emitter.onTimeout(() -> unregister(connection));
+        emitter.onError(e -> unregister(connection));
+        connections.add(connection);
+
+        connection.schedule();
+        log.debug("商品異動串流連線建立: lastEventId={}, resumable={}, connections={}",
+            lastEventId, resumable, connections.size());
+        return emitter;
+    }
+
+    /**
+     * 商品異動提交後編號並通知所有連線
+     * 預設排在 ProductCatalog 之後，讀到的是更新後的快照
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getProductIds().size() > bufferSize / 2) {
+            // 一次異動太多商品：與其推送大量事件讓所有連線落後，直接要求重新載入
+            reset();
+            return;
+        }
+        append(event);
+        for (Connection connection : connections) {
+            connection.schedule();
+        }
+    }
+
+    /**
+     * 要求所有連線重新載入列表（商品目錄整個重新載入時）
+     */
+    public void reset() {
+        append(List.of(new Change(0, "reset", "{}")));
+        for (Connection connection : connections) {
+            connection.schedule();
+        }
+    }
+
+    /**
+     * 定期送出註解行，讓代理伺服器不會關閉閒置連線，並清除已斷線的用戶端
+     */
+    @Scheduled(fixedDelayString = "${product.changes.heartbeat-ms:25000}")
+    public void heartbeat() {
+        for (Connection connection : connections) {
+            connection.heartbeat();
+        }
+    }
+
+    /**
+     * 目前開啟的連線數
+     */
+    public int getConnectionCount() {
+        return connections.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        connections.forEach(Connection::close);
+        senders.shutdown();
+    }
+
+    /**
+     * 讀取快照、產生內容與編號在同一個鎖內：兩筆異動同時提交時，序號較大的事件一定讀自不早於前一個事件的快照，
+     * 用戶端依序號套用後與目前的目錄一致（在鎖外讀取時，較舊的內容可能拿到較大的序號而覆蓋較新的內容）
+     */
+    private synchronized void append(ProductChangedEvent event) {
+        List<Change> changes = new ArrayList<>();
+        CatalogSnapshot snapshot = catalog.snapshot();
+        for (Long productId : event.getProductIds()) {
+            Product product = snapshot.get(productId);
+            if (event.getType() == ProductChangedEvent.Type.DELETED || product == null) {
+                changes.add(new Change(0, "deleted", toJson(Map.of("productId", productId))));
+            } else {
+                changes.add(new Change(0, event.getType() == ProductChangedEvent.Type.CREATED ? "created" : "updated",
+                    toJson(ProductSummaryDTO.from(product))));
+            }
+        }
+        append(changes);
+    }
+
+    private synchronized void append(List<Change> changes) {
+        long sequence = lastSequence;
+        for (Change change : changes) {
+            sequence++;
+            buffer[(int) (sequence % bufferSize)] = new Change(sequence, change.type(), change.data());
+        }
+        // volatile 寫入在緩衝區寫入之後，讀到新序號的執行緒一定看得到對應的異動
+        lastSequence = sequence;
+    }
+
+    /**
+     * 取出某個序號的異動；已被覆寫（落後太多）時回傳 null
+     */
+    private Change get(long sequence) {
+        Change change = buffer[(int) (sequence % bufferSize)];
+        return change != null && change.sequence() == sequence ? change : null;
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("無法序列化商品異動", e);
+        }
+    }
+
+    private void unregister(Connection connection) {
+        connections.remove(connection);
+    }
+
+    /**
+     * 單一 SSE 連線：只記錄已送出的序號 + 單一寫入者
+     */
+    private class Connection {
+        final SseEmitter emitter;
+        final AtomicBoolean sending = new AtomicBoolean();
+        final AtomicBoolean heartbeatPending = new AtomicBoolean();
+        // 連線建立時要先送出的事件：ready 或 reset
+        volatile boolean greeted;
+        volatile boolean resetPending;
+        volatile long cursor;
+        volatile boolean closed;
+
+        Connection(SseEmitter emitter, long cursor, boolean resetPending) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+            this.resetPending = resetPending;
+        }
+
+        void heartbeat() {
+            if (cursor == lastSequence && !sending.get()) {
+                heartbeatPending.set(true);
+                schedule();
+            }
+        }
+
+        void schedule() {
+            if (!closed && sending.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private boolean hasPending() {
+            return cursor < lastSequence || resetPending || heartbeatPending.get();
+        }
+
+        private void drain() {
+            try {
+                do {
+                    if (!greeted) {
+                        greeted = true;
+                        send(SseEmitter.event().name("ready").data(Map.of("sequence", cursor,
+                            "catalogVersion", catalog.snapshot().version()), MediaType.APPLICATION_JSON));
+                    }
+                    while (!closed && (cursor < lastSequence || resetPending)) {
+                        Change change = resetPending ? null : get(cursor + 1);
+                        if (change == null || change.type().equals("reset")) {
+                            // 落後超過緩衝區（或批次異動）：跳到最新，請用戶端重新載入
+                            long head = change != null ? change.sequence() : lastSequence;
+                            resetPending = false;
+                            cursor = head;
+                            send(SseEmitter.event().id(Long.toString(head)).name("reset").data("{}"));
+                            continue;
+                        }
+                        cursor = change.sequence();
+                        send(SseEmitter.event().id(Long.toString(change.sequence())).name(change.type())
+                            .data(change.data()));
+                    }
+                    if (heartbeatPending.getAndSet(false)) {
+                        send(SseEmitter.event().comment("ping"));
+                    }
+                    sending.set(false);
+                    // 釋放寫入權後若又有新異動，且沒有其他執行緒接手，繼續送出
+                } while (!closed && hasPending() && sending.compareAndSet(false, true));
+            } catch (IOException | IllegalStateException e) {
+                log.debug("商品異動串流連線中斷: error={}", e.getMessage());
+                sending.set(false);
+                close();
+            } catch (RuntimeException e) {
+                log.warn("商品異動串流送出失敗", e);
+                sending.set(false);
+                close();
+            }
+        }
+
+        private void send(SseEmitter.SseEventBuilder event) throws IOException {
+            if (!closed) {
+                emitter.send(event);
+            }
+        }
+
+        void close() {
+            if (!closed) {
+                closed = true;
+                unregister(this);
+                emitter.complete();
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package dev.backend.demo.service;
+
+import dev.backend.demo.exception.InvalidOperationException;
+import dev.backend.demo.model.Product;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Base64;
+
+/**
+ * 商品列表的分頁游標
+ *
+ * 記錄查詢條件（排序、方向、類別、是否包含子類別）與上一頁最後一筆的（排序欄位值, productId），
+ * 下一頁從這個位置之後開始（keyset pagination），不需要 offset。
+ * 對用戶端是不透明的字串（Base64URL），內容格式可以在不影響用戶端的情況下調整。
+ */
+public record ProductCursor(ProductSort sort, boolean descending, Long categoryId, boolean includeSubcategories,
+                            String key, long productId) {
+
+    // 版本 2 加入 includeSubcategories；版本 1 的游標仍可解析（視為不含子類別）
+    private static final byte VERSION = 2;
+
+    /**
+     * 以一頁的最後一筆商品建立下一頁的游標
+     */
+    public static ProductCursor after(ProductSort sort, boolean descending, Long categoryId, Product last) {
+        return after(sort, descending, categoryId, false, last);
+    }
+
+    public static ProductCursor after(ProductSort sort, boolean descending, Long categoryId,
+                                      boolean includeSubcategories, Product last) {
+        return new ProductCursor(sort, descending, categoryId, includeSubcategories, sort.formatKey(last),
+            last.getProductId());
+    }
+
+    /**
+     * 排序欄位的值（已轉回原本的型別）
+     */
+    Comparable<?> parsedKey() {
+        return key == null ? null : sort.parseKey(key);
+    }
+
+    public String encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeByte(sort.ordinal());
+            out.writeBoolean(descending);
+            out.writeBoolean(categoryId != null);
+            out.writeLong(categoryId == null ? 0 : categoryId);
+            out.writeBoolean(includeSubcategories);
+            out.writeBoolean(key != null);
+            out.writeUTF(key == null ? "" : key);
+            out.writeLong(productId);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    /**
+     * @throws InvalidOperationException 游標格式不正確
+     */
+    public static ProductCursor decode(String token) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(token)))) {
+            byte version = in.readByte();
+            if (version != VERSION && version != 1) {
+                throw new InvalidOperationException("分頁游標版本不符");
+            }
+            ProductSort sort = ProductSort.values()[in.readUnsignedByte()];
+            boolean descending = in.readBoolean();
+            boolean hasCategory = in.readBoolean();
+            long categoryId = in.readLong();
+            boolean includeSubcategories = version != 1 && in.readBoolean();
+            boolean hasKey = in.readBoolean();
+            String key = in.readUTF();
+            ProductCursor cursor = new ProductCursor(sort, descending, hasCategory ? categoryId : null,
+                includeSubcategories, hasKey ? key : null, in.readLong());
+            // 確認排序欄位值可以解析
+            cursor.parsedKey();
+            return cursor;
+        } catch (IOException | RuntimeException e) {
+            if (e instanceof InvalidOperationException invalid) {
+                throw invalid;
+            }
+            throw new InvalidOperationException("分頁游標無效");
+        }
+    }
+}
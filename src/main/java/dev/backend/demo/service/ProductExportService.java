@@ -0,0 +1,201 @@
+package dev.backend.demo.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.backend.demo.exception.InvalidOperationException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * 商品目錄匯出服務
+ *
+ * 以只能往前讀的 JDBC 游標逐列讀取 products，邊讀邊寫到回應串流：
+ * - 不建立 Product 實體、不經過 JPA 持久化內容
+ * - PostgreSQL 需關閉 autocommit 並設定 fetch size 才會以伺服器端游標分批取回，
+ *   否則驅動程式會一次把整個結果集載入記憶體
+ * 因此不論商品數量多少，記憶體用量只跟 fetch size 有關。
+ */
+@Slf4j
+@Service
+public class ProductExportService {
+
+    private static final String SELECT_PRODUCTS =
+        "SELECT product_id, product_name, category_id, supplier_id, description, unit_price, created_at, updated_at " +
+        "FROM products WHERE deleted_at IS NULL ORDER BY product_id";
+
+    private static final String CSV_HEADER =
+        "productId,productName,categoryId,supplierId,description,unitPrice,createdAt,updatedAt";
+
+    /**
+     * 匯出格式
+     */
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format fromParam(String param) {
+            for (Format format : values()) {
+                if (format.extension.equalsIgnoreCase(param)) {
+                    return format;
+                }
+            }
+            throw new InvalidOperationException("匯出格式錯誤: " + param + "（可用 ndjson、csv）");
+        }
+    }
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${product.export.fetch-size:1000}")
+    private int fetchSize;
+
+    /**
+     * 把所有未刪除的商品依 ID 順序寫到 out
+     * @return 匯出的筆數
+     */
+    public long export(Format format, OutputStream out) throws IOException {
+        long started = System.currentTimeMillis();
+        long rows = 0;
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(SELECT_PRODUCTS,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                statement.setFetchSize(fetchSize);
+                try (ResultSet rs = statement.executeQuery()) {
+                    rows = format == Format.CSV ? writeCsv(rs, out) : writeNdjson(rs, out);
+                }
+            } finally {
+                // 唯讀查詢，結束交易後還原連線設定再還給連線池
+                connection.rollback();
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new IOException("商品匯出失敗", e);
+        }
+        log.info("商品匯出完成: format={}, rows={}, elapsed={}ms", format, rows, System.currentTimeMillis() - started);
+        return rows;
+    }
+
+    private long writeNdjson(ResultSet rs, OutputStream out) throws SQLException, IOException {
+        long rows = 0;
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // 每筆之間只用換行分隔（預設會在頂層值之間插入空白）
+            json.setRootValueSeparator(null);
+            while (rs.next()) {
+                json.writeStartObject();
+                json.writeNumberField("productId", rs.getLong("product_id"));
+                json.writeStringField("productName", rs.getString("product_name"));
+                writeNullableLong(json, "categoryId", rs.getObject("category_id", Long.class));
+                writeNullableLong(json, "supplierId", rs.getObject("supplier_id", Long.class));
+                json.writeStringField("description", rs.getString("description"));
+                json.writeNumberField("unitPrice", rs.getBigDecimal("unit_price"));
+                json.writeStringField("createdAt", format(rs.getTimestamp("created_at")));
+                json.writeStringField("updatedAt", format(rs.getTimestamp("updated_at")));
+                json.writeEndObject();
+                json.writeRaw('\n');
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    private long writeCsv(ResultSet rs, OutputStream out) throws SQLException, IOException {
+        long rows = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write("\r\n");
+        while (rs.next()) {
+            writer.write(Long.toString(rs.getLong("product_id")));
+            writer.write(',');
+            writeCsvField(writer, rs.getString("product_name"));
+            writer.write(',');
+            writeCsvField(writer, rs.getObject("category_id", Long.class));
+            writer.write(',');
+            writeCsvField(writer, rs.getObject("supplier_id", Long.class));
+            writer.write(',');
+            writeCsvField(writer, rs.getString("description"));
+            writer.write(',');
+            BigDecimal price = rs.getBigDecimal("unit_price");
+            writeCsvField(writer, price == null ? null : price.toPlainString());
+            writer.write(',');
+            writeCsvField(writer, format(rs.getTimestamp("created_at")));
+            writer.write(',');
+            writeCsvField(writer, format(rs.getTimestamp("updated_at")));
+            writer.write("\r\n");
+            rows++;
+        }
+        writer.flush();
+        return rows;
+    }
+
+    private static void writeNullableLong(JsonGenerator json, String name, Long value) throws IOException {
+        if (value == null) {
+            json.writeNullField(name);
+        } else {
+            json.writeNumberField(name, value);
+        }
+    }
+
+    /**
+     * CSV 欄位（RFC 4180）：含逗號、引號或換行時以引號包住，內部的引號重複一次
+     */
+    private static void writeCsvField(Writer writer, Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        String text = value.toString();
+        boolean quote = false;
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char c = text.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private static String format(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime().toString();
+    }
+}
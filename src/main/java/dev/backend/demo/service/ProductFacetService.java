@@ -0,0 +1,117 @@
+package dev.backend.demo.service;
+
+import dev.backend.demo.dto.product.FacetCountDTO;
+import dev.backend.demo.dto.product.ProductFacetResultDTO;
+import dev.backend.demo.dto.product.ProductSummaryDTO;
+import dev.backend.demo.event.ProductChangedEvent;
+import dev.backend.demo.model.Product;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 商品多欄位篩選服務（類別、供應商、價格區間）
+ *
+ * 篩選與各欄位的數量都由記憶體中的點陣圖索引（FacetIndex）計算，不組動態 SQL。
+ * 索引在第一次查詢時建立，之後依商品異動事件只更新異動商品所在值的點陣圖（與商品目錄快照相同）；
+ * 商品目錄全部重新載入時才整個重建。
+ */
+@Slf4j
+@Service
+public class ProductFacetService {
+
+    @Autowired
+    private ProductCatalog catalog;
+
+    @Value("${product.facets.price-bounds:100,500,1000,5000}")
+    private BigDecimal[] priceBounds;
+
+    private volatile FacetIndex index;
+
+    /**
+     * 依條件篩選商品並計算各欄位的數量
+     * @param categoryIds 類別（可多選，空表示不限）
+     * @param supplierIds 供應商（可多選，空表示不限）
+     * @param priceBands  價格區間編號（可多選，空表示不限）
+     * @param afterId     上一頁最後一個商品的 ID；null 表示第一頁
+     */
+    public ProductFacetResultDTO filter(List<Long> categoryIds, List<Long> supplierIds, List<Long> priceBands,
+                                        Long afterId, int limit) {
+        FacetIndex facets = index();
+        Map<FacetIndex.Facet, List<Long>> filters = new EnumMap<>(FacetIndex.Facet.class);
+        filters.put(FacetIndex.Facet.CATEGORY, categoryIds);
+        filters.put(FacetIndex.Facet.SUPPLIER, supplierIds);
+        filters.put(FacetIndex.Facet.PRICE_BAND, priceBands);
+
+        FacetIndex.Selection selection = facets.select(filters);
+        // 多取一筆判斷是否有下一頁
+        List<Product> items = selection.page(afterId, limit + 1);
+        Long nextAfterId = null;
+        if (items.size() > limit) {
+            items = items.subList(0, limit);
+            nextAfterId = items.get(limit - 1).getProductId();
+        }
+
+        List<FacetCountDTO> categories = selection.counts(FacetIndex.Facet.CATEGORY).stream()
+            .map(count -> new FacetCountDTO(count.value(), null, null, count.count()))
+            .toList();
+        List<FacetCountDTO> suppliers = selection.counts(FacetIndex.Facet.SUPPLIER).stream()
+            .map(count -> new FacetCountDTO(count.value(), null, null, count.count()))
+            .toList();
+        List<FacetCountDTO> bands = selection.counts(FacetIndex.Facet.PRICE_BAND).stream()
+            .sorted((a, b) -> Long.compare(a.value(), b.value()))
+            .map(count -> new FacetCountDTO(count.value(), facets.bandMin(count.value().intValue()),
+                facets.bandMax(count.value().intValue()), count.count()))
+            .toList();
+
+        return new ProductFacetResultDTO(selection.matches().cardinality(),
+            items.stream().map(ProductSummaryDTO::from).toList(), nextAfterId, categories, suppliers, bands);
+    }
+
+    /**
+     * 商品異動後更新索引（商品目錄的監聽者先執行，這裡讀到的快照已包含這次異動；索引尚未建立時略過）
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        if (index != null) {
+            index = index.with(event.getProductIds(), catalog.snapshot());
+        }
+    }
+
+    /**
+     * 以目前的商品目錄快照重建索引（商品目錄全部重新載入後；索引尚未建立時略過）
+     */
+    public synchronized void rebuild() {
+        if (index != null) {
+            index = build();
+        }
+    }
+
+    private FacetIndex index() {
+        FacetIndex current = index;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (index == null) {
+                index = build();
+            }
+            return index;
+        }
+    }
+
+    private FacetIndex build() {
+        long started = System.currentTimeMillis();
+        CatalogSnapshot snapshot = catalog.snapshot();
+        FacetIndex built = new FacetIndex(snapshot, priceBounds);
+        log.debug("建立商品篩選索引: products={}, elapsed={}ms", snapshot.size(), System.currentTimeMillis() - started);
+        return built;
+    }
+}
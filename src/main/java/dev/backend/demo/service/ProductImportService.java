@@ -0,0 +1,424 @@
+package dev.backend.demo.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.backend.demo.event.ProductChangedEvent;
+import dev.backend.demo.exception.InvalidOperationException;
+import dev.backend.demo.util.CsvReader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 商品批次匯入服務
+ *
+ * 串流讀取供應商提供的 CSV 或 NDJSON，每 chunkSize 筆寫入一次：
+ * - 商品 ID 一次向 products 的序列取一整段（nextval × chunkSize），不需要逐筆 INSERT 取回 ID
+ * - 整段資料以陣列參數傳給一個 INSERT ... SELECT FROM unnest(...)，一個 chunk 只有一次往返
+ * - 每個 chunk 是一個獨立交易，提交後更新商品目錄
+ *
+ * 格式錯誤的列在寫入前就被排除並記錄（列號與原因）；
+ * 若整個 chunk 寫入失敗，改為逐筆寫入該 chunk，找出是哪幾列造成錯誤。
+ *
+ * API 上傳的檔案以 submit 在背景匯入：上傳內容先寫到暫存檔，再由虛擬執行緒匯入，
+ * 呼叫者立即取得作業 ID，匯入進度可在執行中透過 getJob 查詢。
+ */
+@Slf4j
+@Service
+public class ProductImportService {
+
+    private static final String INSERT_PRODUCTS =
+        "INSERT INTO products (product_id, product_name, category_id, supplier_id, description, unit_price, created_at, updated_at) " +
+        "SELECT t.id, t.name, t.category_id, t.supplier_id, t.description, t.unit_price, ?, ? " +
+        "FROM unnest(?::bigint[], ?::varchar[], ?::bigint[], ?::bigint[], ?::text[], ?::numeric[]) " +
+        "AS t(id, name, category_id, supplier_id, description, unit_price)";
+
+    private static final int MAX_NAME_LENGTH = 100;
+    // unit_price 為 numeric(10, 2)
+    private static final BigDecimal MAX_PRICE = new BigDecimal("99999999.99");
+    private static final int MAX_RECENT_JOBS = 20;
+
+    /**
+     * 匯入格式
+     */
+    public enum Format {
+        CSV,
+        NDJSON;
+
+        /**
+         * 依查詢參數或 Content-Type 判斷格式
+         */
+        public static Format resolve(String param, String contentType) {
+            String value = param != null ? param : contentType;
+            if (value != null) {
+                String lower = value.toLowerCase(Locale.ROOT);
+                if (lower.contains("csv")) {
+                    return CSV;
+                }
+                if (lower.contains("ndjson") || lower.contains("jsonl")) {
+                    return NDJSON;
+                }
+            }
+            throw new InvalidOperationException("無法判斷匯入格式，請指定 format=csv 或 format=ndjson");
+        }
+    }
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${product.import.chunk-size:5000}")
+    private int chunkSize;
+
+    @Value("${product.import.max-errors:1000}")
+    private int maxErrors;
+
+    private final RecentJobs<ImportJob> jobs = new RecentJobs<>("匯入作業", MAX_RECENT_JOBS);
+
+    /**
+     * 接收上傳的檔案，在背景匯入
+     *
+     * 請求本文在回應後就無法再讀取：先在呼叫的執行緒中寫到暫存檔（只有循序的磁碟寫入，遠快於寫入資料庫），
+     * 再由一個虛擬執行緒讀取暫存檔匯入，結束後刪除暫存檔。
+     * @return 執行中的作業，以 getJob 查詢進度與結果
+     */
+    public ImportJob submit(InputStream in, Format format) throws IOException {
+        Path file = Files.createTempFile("product-import-", "." + format.name().toLowerCase(Locale.ROOT));
+        try {
+            Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        ImportJob job = newJob(format);
+        Thread.ofVirtual().name("product-import-" + job.getId()).start(() -> {
+            try (InputStream spooled = Files.newInputStream(file)) {
+                run(job, spooled);
+            } catch (IOException | RuntimeException e) {
+                // 匯入中的失敗已由 run 記錄；這裡只處理無法開啟暫存檔的情況
+                if (job.getStatus() == ImportJob.Status.RUNNING) {
+                    job.finish(ImportJob.Status.FAILED, e.getMessage());
+                    log.error("商品匯入中斷: jobId={}", job.getId(), e);
+                }
+            } finally {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    log.warn("無法刪除匯入暫存檔: file={}", file, e);
+                }
+            }
+        });
+        return job;
+    }
+
+    /**
+     * 匯入一個檔案（在呼叫的執行緒中執行到完成）
+     * @return 完成的作業（含成功、失敗筆數與錯誤列）
+     */
+    public ImportJob importProducts(InputStream in, Format format) throws IOException {
+        ImportJob job = newJob(format);
+        run(job, in);
+        return job;
+    }
+
+    private ImportJob newJob(Format format) {
+        ImportJob job = new ImportJob(format, maxErrors);
+        jobs.add(job);
+        return job;
+    }
+
+    private void run(ImportJob job, InputStream in) throws IOException {
+        Format format = job.format;
+        log.info("開始匯入商品: jobId={}, format={}", job.getId(), format);
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        Chunk chunk = new Chunk();
+        try {
+            if (format == Format.CSV) {
+                readCsv(reader, job, chunk);
+            } else {
+                readNdjson(reader, job, chunk);
+            }
+            flush(chunk, job);
+            job.finish(ImportJob.Status.COMPLETED, null);
+        } catch (IOException | RuntimeException e) {
+            job.finish(ImportJob.Status.FAILED, e.getMessage());
+            log.error("商品匯入中斷: jobId={}, imported={}", job.getId(), job.imported.get(), e);
+            throw e;
+        }
+        log.info("商品匯入完成: jobId={}, rows={}, imported={}, failed={}, elapsed={}ms",
+            job.getId(), job.rows.get(), job.imported.get(), job.failed.get(), job.getElapsedMs());
+    }
+
+    /**
+     * 查詢匯入作業（可在執行中查詢進度）
+     * @throws ResourceNotFoundException 作業不存在或已過期
+     */
+    public ImportJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    /**
+     * 最近的匯入作業（新的在前）
+     */
+    public List<ImportJob> getRecentJobs() {
+        return jobs.recent();
+    }
+
+    // ========== 讀取 ==========
+
+    /**
+     * CSV 第一列為欄位名稱：productName、unitPrice 必填，categoryId、supplierId、description 選填，
+     * 其他欄位（例如匯出檔中的 productId、createdAt）忽略
+     */
+    private void readCsv(BufferedReader reader, ImportJob job, Chunk chunk) throws IOException {
+        CsvReader csv = new CsvReader(reader);
+        Map<String, Integer> columns = csv.readHeader();
+        if (columns == null) {
+            return;
+        }
+        if (!columns.containsKey("productName") || !columns.containsKey("unitPrice")) {
+            throw new InvalidOperationException("CSV 缺少必要欄位 productName 或 unitPrice");
+        }
+        List<String> record;
+        while ((record = csv.nextNonBlank()) != null) {
+            long row = csv.getRecordLine();
+            job.rows.incrementAndGet();
+            try {
+                chunk.add(row,
+                    CsvReader.column(record, columns, "productName"),
+                    CsvReader.column(record, columns, "categoryId"),
+                    CsvReader.column(record, columns, "supplierId"),
+                    CsvReader.column(record, columns, "description"),
+                    CsvReader.column(record, columns, "unitPrice"));
+            } catch (IllegalArgumentException e) {
+                job.fail(row, e.getMessage());
+            }
+            if (chunk.size() >= chunkSize) {
+                flush(chunk, job);
+            }
+        }
+    }
+
+    /**
+     * NDJSON 每行一個物件，欄位名稱與 CSV 相同
+     */
+    private void readNdjson(BufferedReader reader, ImportJob job, Chunk chunk) throws IOException {
+        String line;
+        long row = 0;
+        while ((line = reader.readLine()) != null) {
+            row++;
+            if (line.isBlank()) {
+                continue;
+            }
+            job.rows.incrementAndGet();
+            try {
+                JsonNode node;
+                try {
+                    node = objectMapper.readTree(line);
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("JSON 格式錯誤");
+                }
+                if (!node.isObject()) {
+                    throw new IllegalArgumentException("每行必須是一個 JSON 物件");
+                }
+                chunk.add(row, text(node, "productName"), text(node, "categoryId"), text(node, "supplierId"),
+                    text(node, "description"), text(node, "unitPrice"));
+            } catch (IllegalArgumentException e) {
+                job.fail(row, e.getMessage());
+            }
+            if (chunk.size() >= chunkSize) {
+                flush(chunk, job);
+            }
+        }
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    // ========== 寫入 ==========
+
+    /**
+     * 寫入目前累積的列並清空 chunk
+     */
+    private void flush(Chunk chunk, ImportJob job) {
+        List<Long> ids = JdbcBatches.writeWithFallback(job, chunk.size(),
+            (from, to) -> insertChunk(chunk, from, to), chunk.rows::get);
+        job.imported.addAndGet(ids.size());
+        chunk.clear();
+        if (!ids.isEmpty()) {
+            eventPublisher.publishEvent(new ProductChangedEvent(ids, ProductChangedEvent.Type.CREATED));
+        }
+    }
+
+    /**
+     * 在一個交易中寫入 chunk 的 [from, to) 列
+     * @return 新商品的 ID
+     */
+    private List<Long> insertChunk(Chunk chunk, int from, int to) throws SQLException {
+        return JdbcBatches.inTransaction(dataSource, connection -> {
+            Long[] ids = JdbcBatches.allocateProductIds(connection, to - from);
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            try (PreparedStatement insert = connection.prepareStatement(INSERT_PRODUCTS)) {
+                insert.setTimestamp(1, now);
+                insert.setTimestamp(2, now);
+                insert.setArray(3, array(connection, "bigint", ids));
+                insert.setArray(4, array(connection, "varchar", chunk.names.subList(from, to).toArray()));
+                insert.setArray(5, array(connection, "bigint", chunk.categoryIds.subList(from, to).toArray()));
+                insert.setArray(6, array(connection, "bigint", chunk.supplierIds.subList(from, to).toArray()));
+                insert.setArray(7, array(connection, "text", chunk.descriptions.subList(from, to).toArray()));
+                insert.setArray(8, array(connection, "numeric", chunk.prices.subList(from, to).toArray()));
+                insert.executeUpdate();
+            }
+            return List.of(ids);
+        });
+    }
+
+    private static Array array(Connection connection, String type, Object[] values) throws SQLException {
+        return connection.createArrayOf(type, values);
+    }
+
+    /**
+     * 驗證商品名稱（必填、不超過 MAX_NAME_LENGTH 個字元），回傳去除前後空白的名稱
+     * @throws IllegalArgumentException 欄位不正確（訊息說明原因）
+     */
+    static String parseName(String value) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("productName 不可為空");
+        }
+        if (value.length() > MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("productName 超過 " + MAX_NAME_LENGTH + " 個字元");
+        }
+        return value.trim();
+    }
+
+    /**
+     * 解析單價（必填、不可為負、最多兩位小數，符合 numeric(10, 2)）
+     * @throws IllegalArgumentException 欄位不正確
+     */
+    static BigDecimal parsePrice(String value) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("unitPrice 不可為空");
+        }
+        BigDecimal price;
+        try {
+            price = new BigDecimal(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("unitPrice 不是數字: " + value);
+        }
+        if (price.signum() < 0 || price.compareTo(MAX_PRICE) > 0 || price.stripTrailingZeros().scale() > 2) {
+            throw new IllegalArgumentException("unitPrice 超出範圍或超過兩位小數: " + value);
+        }
+        return price;
+    }
+
+    /**
+     * 解析選填的 ID 欄位（空白為 null）
+     * @throws IllegalArgumentException 不是整數
+     */
+    static Long parseId(String value, String field) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(field + " 不是整數: " + value);
+        }
+    }
+
+    /**
+     * 待寫入的列（欄位分開存放，直接作為陣列參數）
+     */
+    private static class Chunk {
+        final List<Long> rows = new ArrayList<>();
+        final List<String> names = new ArrayList<>();
+        final List<Long> categoryIds = new ArrayList<>();
+        final List<Long> supplierIds = new ArrayList<>();
+        final List<String> descriptions = new ArrayList<>();
+        final List<BigDecimal> prices = new ArrayList<>();
+
+        /**
+         * 驗證並加入一列
+         * @throws IllegalArgumentException 欄位不正確（訊息說明原因）
+         */
+        void add(long row, String name, String categoryId, String supplierId, String description, String price) {
+            String productName = parseName(name);
+            BigDecimal unitPrice = parsePrice(price);
+            Long category = parseId(categoryId, "categoryId");
+            Long supplier = parseId(supplierId, "supplierId");
+            rows.add(row);
+            names.add(productName);
+            categoryIds.add(category);
+            supplierIds.add(supplier);
+            descriptions.add(description == null || description.isEmpty() ? null : description);
+            prices.add(unitPrice);
+        }
+
+        int size() {
+            return rows.size();
+        }
+
+        void clear() {
+            rows.clear();
+            names.clear();
+            categoryIds.clear();
+            supplierIds.clear();
+            descriptions.clear();
+            prices.clear();
+        }
+    }
+
+    /**
+     * 匯入作業的進度與結果（計數可在執行中讀取）
+     */
+    public static class ImportJob extends BatchJob {
+
+        private final Format format;
+        private final AtomicLong imported = new AtomicLong();
+
+        ImportJob(Format format, int maxErrors) {
+            super(maxErrors);
+            this.format = format;
+        }
+
+        @Override
+        protected void describe(Map<String, Object> map) {
+            long elapsedMs = getElapsedMs();
+            map.put("format", format);
+            map.put("imported", imported.get());
+            map.put("rowsPerSecond", elapsedMs == 0 ? 0 : imported.get() * 1000 / elapsedMs);
+        }
+    }
+}
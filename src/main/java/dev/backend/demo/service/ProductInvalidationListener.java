@@ -0,0 +1,95 @@
+package dev.backend.demo.service;
+
+import dev.backend.demo.event.ProductChangedEvent;
+import dev.backend.demo.invalidation.InvalidationBus;
+import dev.backend.demo.invalidation.InvalidationListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 商品快取的跨節點同步
+ *
+ * 本節點的商品異動提交後轉送到 InvalidationBus；其他節點的異動收到後
+ * 以 remote 的 ProductChangedEvent 在本節點發布，商品目錄快照、搜尋索引、輸入提示、篩選索引、異動串流
+ * 與單一節點時走相同的更新流程（重新讀取異動的商品）。
+ */
+@Slf4j
+@Component
+public class ProductInvalidationListener implements InvalidationListener {
+
+    public static final String ENTITY = "product";
+
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ProductCatalog catalog;
+
+    @Autowired
+    private ProductSearchService searchService;
+
+    @Autowired
+    private ProductSuggestService suggestService;
+
+    @Autowired
+    private ProductTombstoneCache tombstoneCache;
+
+    @Autowired
+    private ProductFacetService facetService;
+
+    @Autowired
+    private ProductChangeStreamService changeStreamService;
+
+    /**
+     * 本節點的異動提交後通知其他節點（其他節點轉來的異動不再轉送）
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!event.isRemote()) {
+            invalidationBus.publish(ENTITY, event.getType().name(), event.getProductIds());
+        }
+    }
+
+    @Override
+    public String entity() {
+        return ENTITY;
+    }
+
+    @Override
+    public void invalidate(String action, Set<String> keys) {
+        List<Long> productIds = keys.stream().map(Long::valueOf).toList();
+        ProductChangedEvent.Type type = action != null ? ProductChangedEvent.Type.valueOf(action) : ProductChangedEvent.Type.UPDATED;
+        if (type == ProductChangedEvent.Type.DELETED) {
+            tombstoneCache.addRemote(productIds);
+        }
+        // 不在交易中，監聽者立即執行（fallbackExecution）
+        eventPublisher.publishEvent(new ProductChangedEvent(productIds, type, true));
+        log.debug("套用其他節點的商品異動: type={}, products={}", type, productIds.size());
+    }
+
+    @Override
+    public void invalidateAll() {
+        long started = System.currentTimeMillis();
+        catalog.reload();
+        try {
+            searchService.build();
+        } catch (SQLException e) {
+            throw new IllegalStateException("重建商品搜尋索引失敗", e);
+        }
+        suggestService.build();
+        facetService.rebuild();
+        tombstoneCache.refresh();
+        changeStreamService.reset();
+        log.info("商品快取全部重新載入: elapsed={}ms", System.currentTimeMillis() - started);
+    }
+}
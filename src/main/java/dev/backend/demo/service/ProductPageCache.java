@@ -0,0 +1,96 @@
+package dev.backend.demo.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.backend.demo.event.ProductChangedEvent;
+import dev.backend.demo.util.ResponseBytesCache;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 商品列表回應快取（GET /api/products）
+ *
+ * 以「目錄版本 + 查詢條件（類別、是否含子類別、排序、方向、筆數、游標）」為 key，
+ * 快取序列化好的 JSON 與 gzip 版本（ResponseBytesCache，存放在 heap 外）。
+ * 命中時直接寫出位元組，不執行 Jackson 也不壓縮。
+ *
+ * 目錄版本是 key 的一部分，商品異動後舊的項目不會再被命中（包含子類別時版本另含類別樹版本，類別移動後同樣不再命中）；
+ * 另外在異動提交後（ProductCatalog 換上新快照之後）清空，立即釋放舊版本佔用的空間。
+ */
+@Slf4j
+@Service
+public class ProductPageCache {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${product.response-cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    @Value("${product.response-cache.max-entries:10000}")
+    private int maxEntries;
+
+    private ResponseBytesCache<Key> cache;
+
+    /**
+     * 快取 key：目錄版本與查詢條件
+     */
+    private record Key(String version, Long categoryId, boolean includeSubcategories, String sort, String order,
+                       int limit, String cursor) {
+    }
+
+    @PostConstruct
+    public void init() {
+        cache = new ResponseBytesCache<>(maxBytes, maxEntries);
+    }
+
+    /**
+     * 取得一頁商品的序列化內容
+     * @param version 呼叫端用來產生 ETag 的目錄版本（在取得內容之前讀取）
+     */
+    public ResponseBytesCache.Entry getPage(String version, Long categoryId, boolean includeSubcategories, String sort,
+                                            String order, int limit, String cursor) {
+        Key key = new Key(version, categoryId, includeSubcategories, sort, order, limit, cursor);
+        return cache.get(key, () -> {
+            try {
+                return objectMapper.writeValueAsBytes(productService.getProductPage(categoryId, includeSubcategories,
+                    sort, order, limit, cursor));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("無法序列化商品列表", e);
+            }
+        });
+    }
+
+    /**
+     * 商品異動提交後清空（排在 ProductCatalog 之後）
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        cache.clear();
+    }
+
+    /**
+     * 統計資料（監控用）
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", cache.size());
+        stats.put("bytes", cache.sizeInBytes());
+        stats.put("hits", cache.hits());
+        stats.put("misses", cache.misses());
+        return stats;
+    }
+}
@@ -0,0 +1,254 @@
+package dev.backend.demo.service;
+
+import dev.backend.demo.dto.analytics.HotProductDTO;
+import dev.backend.demo.event.CartChangedEvent;
+import dev.backend.demo.exception.InvalidOperationException;
+import dev.backend.demo.model.Product;
+import dev.backend.demo.util.HeavyHitters;
+import dev.backend.demo.util.LongLongHashMap;
+import dev.backend.demo.util.StripedCounters;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 商品熱門度統計（瀏覽與加入購物車次數）
+ *
+ * 商品詳細頁的瀏覽與加入購物車（提交後）只累加記憶體中的分段計數器（StripedCounters），
+ * 請求路徑上不寫資料庫也不等待；
+ * 背景工作定期取出累加的次數：
+ * 1. 累加到 count-min sketch 與前 k 名（HeavyHitters），供 /api/admin/hot-products 查詢，
+ *    每個 decay 週期計數減半，排行偏重最近的熱門商品
+ * 2. 依商品 ID 排序、分批以一個 upsert 累加到 product_stats（多個節點各自累加同一列）；
+ *    寫入失敗的次數保留到下一次重試
+ *
+ * 排行只包含本節點的次數，且不含尚未取出的次數（最多一個 flush 週期）；
+ * 程序異常終止時，最後一次 flush 之後的次數不會寫入。
+ */
+@Slf4j
+@Service
+public class ProductPopularityService {
+
+    private static final String UPSERT_SQL =
+        "INSERT INTO product_stats (product_id, view_count, cart_add_count, updated_at) " +
+        "SELECT s.product_id, s.view_count, s.cart_add_count, ? " +
+        "FROM unnest(?::bigint[], ?::bigint[], ?::bigint[]) AS s(product_id, view_count, cart_add_count) " +
+        "ON CONFLICT (product_id) DO UPDATE SET " +
+        "view_count = product_stats.view_count + EXCLUDED.view_count, " +
+        "cart_add_count = product_stats.cart_add_count + EXCLUDED.cart_add_count, " +
+        "updated_at = EXCLUDED.updated_at";
+
+    /**
+     * 排行依據
+     */
+    public enum Metric {
+        VIEWS, CART_ADDS;
+
+        public static Metric parse(String value) {
+            if ("views".equalsIgnoreCase(value)) {
+                return VIEWS;
+            }
+            if ("cartAdds".equalsIgnoreCase(value)) {
+                return CART_ADDS;
+            }
+            throw new InvalidOperationException("排序欄位錯誤: " + value + "（可用 views、cartAdds）");
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductCatalog catalog;
+
+    @Value("${product.popularity.stripes:64}")
+    private int stripes;
+
+    @Value("${product.popularity.sketch-width:65536}")
+    private int sketchWidth;
+
+    @Value("${product.popularity.sketch-depth:4}")
+    private int sketchDepth;
+
+    @Value("${product.popularity.top-k:100}")
+    private int topK;
+
+    @Value("${product.popularity.decay-interval-ms:3600000}")
+    private long decayIntervalMs;
+
+    @Value("${product.popularity.batch-size:1000}")
+    private int batchSize;
+
+    private StripedCounters views;
+    private StripedCounters cartAdds;
+
+    // 以下由 this 保護
+    private HeavyHitters hotViews;
+    private HeavyHitters hotCartAdds;
+    private long lastDecay;
+
+    // 尚未寫入資料庫的次數（只在 flush 中存取，由 flushLock 保護）
+    private final Object flushLock = new Object();
+    private LongLongHashMap pendingViews = new LongLongHashMap();
+    private LongLongHashMap pendingCartAdds = new LongLongHashMap();
+
+    @PostConstruct
+    public void init() {
+        views = new StripedCounters(stripes);
+        cartAdds = new StripedCounters(stripes);
+        hotViews = new HeavyHitters(sketchWidth, sketchDepth, topK);
+        hotCartAdds = new HeavyHitters(sketchWidth, sketchDepth, topK);
+        lastDecay = System.currentTimeMillis();
+    }
+
+    /**
+     * 記錄一次商品瀏覽（只累加記憶體中的計數器）
+     */
+    public void recordView(long productId) {
+        views.increment(productId);
+    }
+
+    /**
+     * 加入購物車提交後記錄一次（只累加記憶體中的計數器）
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCartChanged(CartChangedEvent event) {
+        if (event.getType() == CartChangedEvent.Type.ITEM_ADDED) {
+            cartAdds.increment(event.getProductId());
+        }
+    }
+
+    /**
+     * 取出累加的次數，更新熱門排行並寫入 product_stats
+     */
+    @Scheduled(fixedDelayString = "${product.popularity.flush-interval-ms:10000}",
+        initialDelayString = "${product.popularity.flush-interval-ms:10000}")
+    public void flush() {
+        synchronized (flushLock) {
+            LongLongHashMap viewCounts = views.drain();
+            LongLongHashMap cartAddCounts = cartAdds.drain();
+            synchronized (this) {
+                viewCounts.forEach(hotViews::add);
+                cartAddCounts.forEach(hotCartAdds::add);
+                long now = System.currentTimeMillis();
+                while (now - lastDecay >= decayIntervalMs) {
+                    hotViews.decay();
+                    hotCartAdds.decay();
+                    lastDecay += decayIntervalMs;
+                }
+            }
+            viewCounts.forEach(pendingViews::addTo);
+            cartAddCounts.forEach(pendingCartAdds::addTo);
+            if (!pendingViews.isEmpty() || !pendingCartAdds.isEmpty()) {
+                write();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * 最近的熱門商品（依瀏覽或加入購物車次數的估計值排序，已刪除的商品略過）
+     */
+    public synchronized List<HotProductDTO> getHotProducts(Metric metric, int limit) {
+        HeavyHitters ranking = metric == Metric.VIEWS ? hotViews : hotCartAdds;
+        CatalogSnapshot snapshot = catalog.snapshot();
+        List<HotProductDTO> results = new ArrayList<>();
+        for (HeavyHitters.Entry entry : ranking.top(topK)) {
+            Product product = snapshot.get(entry.key());
+            if (product == null) {
+                continue;
+            }
+            results.add(new HotProductDTO(product.getProductId(), product.getProductName(),
+                hotViews.estimate(entry.key()), hotCartAdds.estimate(entry.key())));
+            if (results.size() == limit) {
+                break;
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 目前排行計入的總次數（含減半）
+     */
+    public synchronized long getTotal(Metric metric) {
+        return metric == Metric.VIEWS ? hotViews.total() : hotCartAdds.total();
+    }
+
+    public long getDecayIntervalMs() {
+        return decayIntervalMs;
+    }
+
+    public int getTopK() {
+        return topK;
+    }
+
+    /**
+     * 依商品 ID 排序分批寫入（多個節點同時寫入時鎖定順序一致，不會互相死結）；
+     * 每批是一個陳述式，失敗時該批與之後的次數保留到下一次 flush
+     */
+    private void write() {
+        LongLongHashMap all = new LongLongHashMap(pendingViews.size() + pendingCartAdds.size());
+        pendingViews.forEach((productId, count) -> all.put(productId, 0));
+        pendingCartAdds.forEach((productId, count) -> all.put(productId, 0));
+        long[] productIds = new long[all.size()];
+        int[] n = {0};
+        all.forEach((productId, ignored) -> productIds[n[0]++] = productId);
+        Arrays.sort(productIds);
+
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        for (int from = 0; from < productIds.length; from += batchSize) {
+            int to = Math.min(productIds.length, from + batchSize);
+            Long[] ids = new Long[to - from];
+            Long[] viewCounts = new Long[ids.length];
+            Long[] cartAddCounts = new Long[ids.length];
+            for (int i = from; i < to; i++) {
+                ids[i - from] = productIds[i];
+                viewCounts[i - from] = pendingViews.get(productIds[i], 0);
+                cartAddCounts[i - from] = pendingCartAdds.get(productIds[i], 0);
+            }
+            try {
+                jdbcTemplate.update(UPSERT_SQL, now, ids, viewCounts, cartAddCounts);
+            } catch (DataAccessException e) {
+                log.error("寫入商品熱門度統計失敗，{} 個商品的次數保留到下次重試", productIds.length - from, e);
+                retain(Arrays.copyOfRange(productIds, from, productIds.length));
+                return;
+            }
+        }
+        pendingViews = new LongLongHashMap();
+        pendingCartAdds = new LongLongHashMap();
+        log.debug("寫入商品熱門度統計: products={}", productIds.length);
+    }
+
+    private void retain(long[] productIds) {
+        LongLongHashMap retainedViews = new LongLongHashMap();
+        LongLongHashMap retainedCartAdds = new LongLongHashMap();
+        for (long productId : productIds) {
+            long viewCount = pendingViews.get(productId, 0);
+            long cartAddCount = pendingCartAdds.get(productId, 0);
+            if (viewCount != 0) {
+                retainedViews.put(productId, viewCount);
+            }
+            if (cartAddCount != 0) {
+                retainedCartAdds.put(productId, cartAddCount);
+            }
+        }
+        pendingViews = retainedViews;
+        pendingCartAdds = retainedCartAdds;
+    }
+}
@@ -0,0 +1,119 @@
+package dev.backend.demo.service;
+
+import dev.backend.demo.dto.product.ProductSearchHitDTO;
+import dev.backend.demo.event.ProductChangedEvent;
+import dev.backend.demo.exception.InvalidOperationException;
+import dev.backend.demo.model.Product;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 商品全文搜尋服務
+ *
+ * 以記憶體中的倒排索引（InvertedIndex）搜尋商品名稱與描述，不對資料庫做 LIKE 查詢。
+ * 商品目錄快照不含描述，索引的內容另外從資料庫讀取：
+ * 啟動時以 JDBC 游標逐列讀取所有商品建立索引（描述只用來斷詞，不保留在記憶體中）；
+ * 商品異動提交後只重新讀取異動的商品，已刪除的從索引移除。
+ */
+@Slf4j
+@Service
+@DependsOn("entityManagerFactory")
+public class ProductSearchService {
+
+    private static final String SELECT_TEXT =
+        "SELECT product_id, product_name, description FROM products WHERE deleted_at IS NULL";
+
+    @Autowired
+    private ProductCatalog catalog;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${product.search.fetch-size:1000}")
+    private int fetchSize;
+
+    private volatile InvertedIndex index = new InvertedIndex();
+
+    /**
+     * 從資料庫建立整個索引，完成後才換掉目前的索引（重建期間搜尋繼續使用舊索引）
+     * 與異動更新互斥，避免重建期間的異動只套用到即將被換掉的舊索引
+     */
+    @PostConstruct
+    public synchronized void build() throws SQLException {
+        long started = System.currentTimeMillis();
+        InvertedIndex index = new InvertedIndex();
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            // 關閉 autocommit 並設定 fetch size，PostgreSQL 才會分批取回而不是一次載入整個結果集
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(SELECT_TEXT)) {
+                statement.setFetchSize(fetchSize);
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        index.index(rs.getLong("product_id"), rs.getString("product_name"), rs.getString("description"));
+                    }
+                }
+            } finally {
+                connection.rollback();
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+        this.index = index;
+        log.info("建立商品搜尋索引: products={}, terms={}, postingBytes={}, elapsed={}ms",
+            index.size(), index.termCount(), index.postingBytes(), System.currentTimeMillis() - started);
+    }
+
+    /**
+     * 商品異動提交後重新讀取異動的商品並更新索引
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        Set<Long> remaining = new HashSet<>(event.getProductIds());
+        jdbcTemplate.query(SELECT_TEXT + " AND product_id = ANY (?)", rs -> {
+            long productId = rs.getLong("product_id");
+            index.index(productId, rs.getString("product_name"), rs.getString("description"));
+            remaining.remove(productId);
+        }, (Object) event.getProductIds().toArray(new Long[0]));
+        remaining.forEach(index::remove);
+    }
+
+    /**
+     * 搜尋商品，依相關性排序
+     * @throws InvalidOperationException 查詢字串沒有可搜尋的詞
+     */
+    public List<ProductSearchHitDTO> search(String query, int limit) {
+        if (query == null || TextTokenizer.tokenize(query).isEmpty()) {
+            throw new InvalidOperationException("搜尋關鍵字不可為空");
+        }
+        CatalogSnapshot snapshot = catalog.snapshot();
+        List<ProductSearchHitDTO> results = new ArrayList<>();
+        for (InvertedIndex.Hit hit : index.search(query, limit)) {
+            Product product = snapshot.get(hit.productId());
+            // 索引與快照不是同時更新，剛刪除的商品可能還在索引中
+            if (product != null) {
+                results.add(new ProductSearchHitDTO(product.getProductId(), product.getProductName(),
+                    product.getCategoryId(), product.getSupplierId(), product.getUnitPrice(), hit.score()));
+            }
+        }
+        return results;
+    }
+}
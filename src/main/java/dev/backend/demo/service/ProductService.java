@@ -1,16 +1,27 @@
 package dev.backend.demo.service;
 
+import dev.backend.demo.dto.product.ProductPageDTO;
+import dev.backend.demo.dto.product.ProductSummaryDTO;
+import dev.backend.demo.event.ProductChangedEvent;
+import dev.backend.demo.exception.InvalidOperationException;
 import dev.backend.demo.exception.ResourceNotFoundException;
 import dev.backend.demo.model.Product;
 import dev.backend.demo.repository.ProductRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
  * 產品服務類別
  * 處理產品相關的業務邏輯
+ * 
+ * 商品讀取一律從 ProductCatalog 的記憶體快照回傳，不查詢資料庫（列表只回傳精簡欄位）；
+ * 只有單一商品的描述在查詢時從資料庫讀取。
+ * 新增、修改、刪除寫入資料庫後發布 ProductChangedEvent，提交後換上新的快照
  */
 @Slf4j
 @Service
@@ -19,26 +30,68 @@ public class ProductService {
     @Autowired
     private ProductRepository productRepository;
     
+    @Autowired
+    private ProductTombstoneCache tombstoneCache;
+    
+    @Autowired
+    private ProductCatalog catalog;
+    
+    @Autowired
+    private CategoryService categoryService;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     /**
-     * 取得所有產品
-     * @return 所有產品列表
+     * 根據 ID 取得完整產品（含描述）
+     * 
+     * 快照中沒有描述，另外只讀取這個商品的 description 欄位，組成新的物件回傳（不修改快照）
+     * @param id 產品 ID
+     * @return 產品物件
+     * @throws ResourceNotFoundException 如果產品不存在或已刪除
      */
-    public List<Product> getAllProducts() {
-        log.debug("取得所有產品");
-        List<Product> products = productRepository.findAll();
-        log.info("查詢到 {} 個產品", products.size());
-        return products;
+    public Product getProductById(Long id) {
+        Product summary = getProductSummary(id);
+        Product product = new Product(summary.getProductName(), summary.getCategoryId(), summary.getSupplierId(),
+            catalog.loadDescription(id), summary.getUnitPrice());
+        product.setProductId(summary.getProductId());
+        product.setCreatedAt(summary.getCreatedAt());
+        product.setUpdatedAt(summary.getUpdatedAt());
+        return product;
     }
     
     /**
-     * 根據 ID 取得產品
+     * 根據 ID 取得快照中的產品（不含描述，不查詢資料庫）
      * @param id 產品 ID
-     * @return 產品物件
-     * @throws ResourceNotFoundException 如果產品不存在
+     * @return 產品物件（快照中的共用物件，不可修改）
+     * @throws ResourceNotFoundException 如果產品不存在或已刪除
      */
-    public Product getProductById(Long id) {
+    public Product getProductSummary(Long id) {
         log.debug("查詢產品: productId={}", id);
+        Product product = catalog.snapshot().get(id);
+        if (product == null) {
+            log.error("產品不存在: productId={}", id);
+            throw new ResourceNotFoundException("產品不存在：ID = " + id);
+        }
+        return product;
+    }
+    
+    /**
+     * 目前的商品目錄快照（取得版本與最後修改時間，供 HTTP 條件式請求比對）
+     */
+    public CatalogSnapshot getCatalogSnapshot() {
+        return catalog.snapshot();
+    }
+    
+    /**
+     * 從資料庫取得可修改的產品（部分更新用）
+     * @param id 產品 ID
+     * @return 產品物件
+     * @throws ResourceNotFoundException 如果產品不存在或已刪除
+     */
+    public Product getProductForUpdate(Long id) {
         return productRepository.findById(id)
+            .filter(product -> product.getDeletedAt() == null)
             .orElseThrow(() -> {
                 log.error("產品不存在: productId={}", id);
                 return new ResourceNotFoundException("產品不存在：ID = " + id);
@@ -51,32 +104,75 @@ public class ProductService {
      * @return 儲存後的產品物件
      */
     public Product saveProduct(Product product) {
-        return productRepository.save(product);
+        boolean created = product.getProductId() == null;
+        Product saved = productRepository.save(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(saved.getProductId(),
+            created ? ProductChangedEvent.Type.CREATED : ProductChangedEvent.Type.UPDATED));
+        return saved;
     }
     
     /**
-     * 刪除產品
+     * 刪除產品（軟刪除）
+     * 
+     * 只標記 deleted_at 並登記墓碑，不移除資料列：
+     * - 購物車讀取時會略過指向此商品的項目
+     * - 孤兒購物車項目由 CartItemPurgeService 在背景分批清除
+     * 
      * @param id 產品 ID
-     * @throws ResourceNotFoundException 如果產品不存在
+     * @throws ResourceNotFoundException 如果產品不存在或已刪除
      */
     public void deleteProduct(Long id) {
         log.info("刪除產品: productId={}", id);
         
-        if (!productRepository.existsById(id)) {
+        if (productRepository.softDeleteById(id, LocalDateTime.now()) == 0) {
             log.error("產品不存在，無法刪除: productId={}", id);
             throw new ResourceNotFoundException("產品不存在，無法刪除：ID = " + id);
         }
         
-        productRepository.deleteById(id);
+        tombstoneCache.add(id);
+        eventPublisher.publishEvent(new ProductChangedEvent(id, ProductChangedEvent.Type.DELETED));
         log.info("產品刪除成功: productId={}", id);
     }
     
     /**
-     * 根據分類 ID 取得產品列表
-     * @param categoryId 分類 ID
-     * @return 該分類下的所有產品
+     * 取得一頁產品（keyset pagination）
+     * 
+     * 有游標時沿用游標中的排序、方向與類別，只需傳入 cursor 與 limit
+     * @param categoryId 只取這個類別；null 表示全部
+     * @param includeSubcategories 是否包含 categoryId 之下的所有子類別（以記憶體中的類別樹展開）
+     * @param sort       排序欄位：id、price、name、createdAt
+     * @param order      asc 或 desc
+     * @param limit      每頁筆數
+     * @param cursor     上一頁回傳的 nextCursor；null 表示第一頁
+     * @throws InvalidOperationException 參數或游標不正確
      */
-    public List<Product> getProductsByCategoryId(Long categoryId) {
-        return productRepository.findByCategoryId(categoryId);
+    public ProductPageDTO getProductPage(Long categoryId, boolean includeSubcategories, String sort, String order,
+                                         int limit, String cursor) {
+        ProductCursor after = cursor == null || cursor.isBlank() ? null : ProductCursor.decode(cursor);
+        ProductSort productSort = after != null ? after.sort() : ProductSort.fromParam(sort);
+        boolean descending = after != null ? after.descending() : isDescending(order);
+        Long category = after != null ? after.categoryId() : categoryId;
+        boolean subtree = after != null ? after.includeSubcategories() : includeSubcategories;
+        
+        // 多取一筆判斷是否還有下一頁
+        List<Product> items = catalog.snapshot().page(productSort, descending, category,
+            subtree ? categoryService.tree() : null, after, limit + 1);
+        String nextCursor = null;
+        if (items.size() > limit) {
+            items = items.subList(0, limit);
+            nextCursor = ProductCursor.after(productSort, descending, category, subtree, items.get(limit - 1)).encode();
+        }
+        return new ProductPageDTO(items.stream().map(ProductSummaryDTO::from).toList(), nextCursor,
+            productSort.getParam(), descending ? "desc" : "asc", category, subtree);
+    }
+    
+    private static boolean isDescending(String order) {
+        if ("desc".equalsIgnoreCase(order)) {
+            return true;
+        }
+        if ("asc".equalsIgnoreCase(order)) {
+            return false;
+        }
+        throw new InvalidOperationException("排序方向錯誤: " + order + "（可用 asc、desc）");
     }
 }
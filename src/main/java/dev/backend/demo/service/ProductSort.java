@@ -0,0 +1,122 @@
+package dev.backend.demo.service;
+
+import dev.backend.demo.exception.InvalidOperationException;
+import dev.backend.demo.model.Product;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+/**
+ * 商品列表的排序欄位
+ *
+ * 每種排序都以（排序欄位, productId）比較，productId 唯一，因此順序穩定，
+ * 分頁游標只需記住上一頁最後一筆的這兩個值。
+ */
+public enum ProductSort {
+
+    ID("id") {
+        @Override
+        Comparable<?> keyOf(Product product) {
+            return null;
+        }
+
+        @Override
+        Comparable<?> parseKey(String key) {
+            return null;
+        }
+    },
+    PRICE("price") {
+        @Override
+        Comparable<?> keyOf(Product product) {
+            return product.getUnitPrice();
+        }
+
+        @Override
+        Comparable<?> parseKey(String key) {
+            return new BigDecimal(key);
+        }
+    },
+    NAME("name") {
+        @Override
+        Comparable<?> keyOf(Product product) {
+            return product.getProductName();
+        }
+
+        @Override
+        Comparable<?> parseKey(String key) {
+            return key;
+        }
+    },
+    CREATED_AT("createdAt") {
+        @Override
+        Comparable<?> keyOf(Product product) {
+            return product.getCreatedAt();
+        }
+
+        @Override
+        Comparable<?> parseKey(String key) {
+            return LocalDateTime.parse(key);
+        }
+    };
+
+    private final String param;
+    private final Comparator<Product> comparator = (a, b) -> compare(a, keyOf(b), b.getProductId());
+
+    ProductSort(String param) {
+        this.param = param;
+    }
+
+    /**
+     * 排序欄位的值（ID 排序時為 null，只比較 productId）
+     */
+    abstract Comparable<?> keyOf(Product product);
+
+    /**
+     * 把 formatKey 的結果轉回排序欄位的值
+     */
+    abstract Comparable<?> parseKey(String key);
+
+    /**
+     * 排序欄位的值轉成字串（放進分頁游標）
+     */
+    String formatKey(Product product) {
+        Comparable<?> key = keyOf(product);
+        return key == null ? null : key.toString();
+    }
+
+    /**
+     * 比較商品與（排序欄位值, productId）：null 排在最前面
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    int compare(Product product, Comparable<?> key, long productId) {
+        Comparable own = keyOf(product);
+        int result;
+        if (own == null || key == null) {
+            result = own == null ? (key == null ? 0 : -1) : 1;
+        } else {
+            result = own.compareTo(key);
+        }
+        return result != 0 ? result : Long.compare(product.getProductId(), productId);
+    }
+
+    Comparator<Product> comparator() {
+        return comparator;
+    }
+
+    public String getParam() {
+        return param;
+    }
+
+    /**
+     * 依查詢參數取得排序欄位（id、price、name、createdAt）
+     */
+    public static ProductSort fromParam(String param) {
+        for (ProductSort sort : values()) {
+            if (sort.param.equalsIgnoreCase(param)) {
+                return sort;
+            }
+        }
+        throw new InvalidOperationException("排序欄位錯誤: " + param + "（可用 id、price、name、createdAt）");
+    }
+}
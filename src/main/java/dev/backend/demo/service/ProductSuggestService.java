@@ -0,0 +1,115 @@
+package dev.backend.demo.service;
+
+import dev.backend.demo.dto.cart.CartItemDTO;
+import dev.backend.demo.dto.product.ProductSuggestionDTO;
+import dev.backend.demo.event.CheckoutCompletedEvent;
+import dev.backend.demo.event.ProductChangedEvent;
+import dev.backend.demo.model.Product;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 商品輸入提示服務（GET /api/products/suggest）
+ *
+ * 以記憶體中的前綴索引（SuggestionTrie）比對商品名稱，依累計銷售數量取前幾名，
+ * 每次按鍵的查詢都不會到資料庫。
+ *
+ * 商品名稱取自商品目錄快照：啟動時一次建立索引，商品異動提交後（ProductCatalog 更新快照之後）
+ * 只更新異動的商品。銷售數量啟動時從 order_items 彙總一次，之後每次結帳累加。
+ * 其他節點的結帳不會轉送過來，各節點的銷售數量只在重新啟動時對齊。
+ */
+@Slf4j
+@Service
+@DependsOn("entityManagerFactory")
+public class ProductSuggestService {
+
+    private static final String SALES_SQL =
+        "SELECT product_id, sum(quantity) FROM order_items GROUP BY product_id";
+
+    @Autowired
+    private ProductCatalog catalog;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${product.suggest.max-results:10}")
+    private int maxResults;
+
+    private volatile SuggestionTrie trie;
+
+    /**
+     * 建立整個索引，完成後才換掉目前的索引（重建期間查詢繼續使用舊索引）
+     * 與異動、結帳的更新互斥，避免更新只套用到即將被換掉的舊索引
+     */
+    @PostConstruct
+    public synchronized void build() {
+        long started = System.currentTimeMillis();
+        SuggestionTrie trie = new SuggestionTrie(maxResults);
+        jdbcTemplate.query(SALES_SQL, rs -> {
+            trie.addWeight(rs.getLong(1), rs.getLong(2));
+        });
+        Map<Long, String> names = new HashMap<>();
+        for (Product product : catalog.snapshot().all()) {
+            names.put(product.getProductId(), product.getProductName());
+        }
+        trie.putAll(names);
+        this.trie = trie;
+        log.info("建立商品輸入提示索引: products={}, nodes={}, elapsed={}ms",
+            trie.size(), trie.nodeCount(), System.currentTimeMillis() - started);
+    }
+
+    /**
+     * 商品異動提交後更新異動商品的名稱（已刪除的移除）
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        CatalogSnapshot snapshot = catalog.snapshot();
+        for (Long productId : event.getProductIds()) {
+            Product product = snapshot.get(productId);
+            if (product == null) {
+                trie.remove(productId);
+            } else {
+                trie.put(productId, product.getProductName());
+            }
+        }
+    }
+
+    /**
+     * 結帳完成後累加銷售數量
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onCheckout(CheckoutCompletedEvent event) {
+        for (CartItemDTO item : event.getCart().getItems()) {
+            trie.addWeight(item.getProductId(), item.getQuantity());
+        }
+    }
+
+    /**
+     * 以前綴取得輸入提示，依銷售數量排序（沒有可比對的字元時回傳空清單）
+     */
+    public List<ProductSuggestionDTO> suggest(String prefix, int limit) {
+        SuggestionTrie trie = this.trie;
+        CatalogSnapshot snapshot = catalog.snapshot();
+        List<ProductSuggestionDTO> results = new ArrayList<>();
+        for (long productId : trie.suggest(prefix, Math.min(limit, maxResults))) {
+            Product product = snapshot.get(productId);
+            // 索引與快照不是同時更新，剛刪除的商品可能還在索引中
+            if (product != null) {
+                results.add(new ProductSuggestionDTO(product.getProductId(), product.getProductName(),
+                    product.getCategoryId(), product.getUnitPrice(), trie.weight(productId)));
+            }
+        }
+        return results;
+    }
+}
@@ -0,0 +1,91 @@
+package dev.backend.demo.service;
+
+import dev.backend.demo.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 已刪除商品的墓碑快取
+ * 
+ * 商品刪除改為軟刪除後，購物車中可能仍有指向該商品的項目。
+ * 讀取購物車時透過這份記憶體快取判斷商品是否已刪除，直接略過失效的項目，
+ * 不需要為每個項目查詢資料庫。
+ * 
+ * 另外記錄「待清除」的商品 ID，供 CartItemPurgeService 在背景批次刪除孤兒項目。
+ */
+@Slf4j
+@Component
+public class ProductTombstoneCache {
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    // 所有已軟刪除的商品 ID
+    private final Set<Long> deletedProductIds = ConcurrentHashMap.newKeySet();
+    
+    // 仍可能有購物車項目指向的已刪除商品 ID（清除完成後移出）
+    private final Set<Long> pendingPurge = ConcurrentHashMap.newKeySet();
+    
+    /**
+     * 啟動時從資料庫載入所有墓碑
+     * 上次執行時未清完的項目也會在這裡重新排入清除佇列
+     */
+    @PostConstruct
+    public void load() {
+        List<Long> ids = productRepository.findDeletedProductIds();
+        deletedProductIds.addAll(ids);
+        pendingPurge.addAll(ids);
+        log.info("載入商品墓碑: count={}", ids.size());
+    }
+    
+    /**
+     * 判斷商品是否已被刪除
+     */
+    public boolean isDeleted(Long productId) {
+        return productId != null && deletedProductIds.contains(productId);
+    }
+    
+    /**
+     * 登記新的墓碑，並排入購物車項目清除佇列
+     */
+    public void add(Long productId) {
+        deletedProductIds.add(productId);
+        pendingPurge.add(productId);
+    }
+    
+    /**
+     * 登記其他節點刪除的商品
+     * 購物車項目由刪除商品的節點清除，這裡只記錄墓碑，不排入清除佇列
+     */
+    public void addRemote(Collection<Long> productIds) {
+        deletedProductIds.addAll(productIds);
+    }
+    
+    /**
+     * 從資料庫重新載入墓碑（跨節點通知遺失時），不影響清除佇列
+     */
+    public void refresh() {
+        deletedProductIds.addAll(productRepository.findDeletedProductIds());
+    }
+    
+    /**
+     * 取得目前待清除的商品 ID（複本）
+     */
+    public Set<Long> pendingPurge() {
+        return Set.copyOf(pendingPurge);
+    }
+    
+    /**
+     * 標記這些商品的購物車項目已清除完畢
+     */
+    public void purged(Set<Long> productIds) {
+        pendingPurge.removeAll(productIds);
+    }
+}
@@ -0,0 +1,58 @@
+package dev.backend.demo.service;
+
+import dev.backend.demo.exception.ResourceNotFoundException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 最近的批次作業（依開始時間，超過上限時移除最舊的），供執行中與完成後查詢
+ */
+class RecentJobs<J extends BatchJob> {
+
+    private final String kind;
+    private final Map<String, J> jobs;
+
+    /**
+     * @param kind 作業名稱（找不到作業時的錯誤訊息用，例如「匯入作業」）
+     */
+    RecentJobs(String kind, int capacity) {
+        this.kind = kind;
+        this.jobs = Collections.synchronizedMap(new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, J> eldest) {
+                return size() > capacity;
+            }
+        });
+    }
+
+    void add(J job) {
+        jobs.put(job.getId(), job);
+    }
+
+    /**
+     * @throws ResourceNotFoundException 作業不存在或已過期
+     */
+    J get(String jobId) {
+        J job = jobs.get(jobId);
+        if (job == null) {
+            throw new ResourceNotFoundException(kind + "不存在：" + jobId);
+        }
+        return job;
+    }
+
+    /**
+     * 最近的作業（新的在前）
+     */
+    List<J> recent() {
+        List<J> recent;
+        synchronized (jobs) {
+            recent = new ArrayList<>(jobs.values());
+        }
+        Collections.reverse(recent);
+        return recent;
+    }
+}
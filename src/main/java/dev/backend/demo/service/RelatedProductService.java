@@ -0,0 +1,127 @@
+package dev.backend.demo.service;
+
+import dev.backend.demo.dto.cart.CartItemDTO;
+import dev.backend.demo.dto.product.RelatedProductDTO;
+import dev.backend.demo.event.CheckoutCompletedEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * 「經常一起購買」推薦服務
+ *
+ * 每次結帳成功後，以訂單中的商品更新記憶體中的共同購買矩陣（CoOccurrenceMatrix），
+ * 查詢直接從記憶體取前 k 名，不對訂單歷史做任何 SQL 彙總。
+ *
+ * 矩陣定期寫成快照檔（先寫暫存檔再替換），啟動時載入；
+ * 程序異常終止時，最後一次快照之後的結帳不會計入。
+ */
+@Slf4j
+@Service
+public class RelatedProductService {
+
+    @Autowired
+    private ProductTombstoneCache tombstoneCache;
+
+    @Value("${related.shards:16}")
+    private int shards;
+
+    @Value("${related.snapshot.path:data/related-products.bin}")
+    private String snapshotPath;
+
+    @Value("${related.max-products-per-order:50}")
+    private int maxProductsPerOrder;
+
+    private CoOccurrenceMatrix matrix;
+
+    // 上次快照後是否有新的結帳
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    @PostConstruct
+    public void load() {
+        matrix = new CoOccurrenceMatrix(shards);
+        Path path = Path.of(snapshotPath);
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            matrix.readFrom(in);
+            log.info("載入共同購買快照: path={}, products={}", path, matrix.productCount());
+        } catch (IOException e) {
+            // 快照損壞時從空矩陣開始，不影響啟動
+            log.error("共同購買快照讀取失敗，從空矩陣開始: path={}", path, e);
+            matrix = new CoOccurrenceMatrix(shards);
+        }
+    }
+
+    /**
+     * 結帳完成後更新共同購買次數
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCheckout(CheckoutCompletedEvent event) {
+        long[] productIds = event.getCart().getItems().stream()
+            .mapToLong(CartItemDTO::getProductId)
+            .distinct()
+            .limit(maxProductsPerOrder)
+            .toArray();
+        matrix.recordOrder(productIds);
+        dirty.set(true);
+    }
+
+    /**
+     * 取得與商品經常一起購買的前 limit 個商品（不含已刪除商品）
+     */
+    public List<RelatedProductDTO> getRelatedProducts(Long productId, int limit) {
+        return matrix.topK(productId, limit, tombstoneCache::isDeleted).stream()
+            .map(entry -> new RelatedProductDTO(entry.productId(), entry.count()))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * 定期寫出快照（沒有新的結帳時略過）
+     */
+    @Scheduled(fixedDelayString = "${related.snapshot.interval-ms:300000}",
+        initialDelayString = "${related.snapshot.interval-ms:300000}")
+    public void snapshot() {
+        if (!dirty.getAndSet(false)) {
+            return;
+        }
+        Path path = Path.of(snapshotPath);
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                matrix.writeTo(out);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("寫出共同購買快照: path={}, products={}", path, matrix.productCount());
+        } catch (IOException e) {
+            dirty.set(true);
+            log.error("共同購買快照寫出失敗: path={}", path, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        snapshot();
+    }
+}
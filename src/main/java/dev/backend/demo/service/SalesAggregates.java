@@ -0,0 +1,214 @@
+package dev.backend.demo.service;
+
+import dev.backend.demo.util.LongLongHashMap;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 依時間分桶的銷售彙總
+ *
+ * 時間軸切成固定長度的桶（例如 5 分鐘），以環狀陣列保留最近 bucketCount 個桶。
+ * 每個桶記錄訂單數、件數、營收（分），以及每個商品、每個類別的件數與營收。
+ * 結帳時只更新所屬的桶；查詢時合併時間範圍內的桶，不需要掃描訂單。
+ *
+ * 每個桶各自同步，不同時間的寫入與查詢互不阻塞。
+ * 超出保留範圍的舊資料在桶被重新使用時清除。
+ */
+public class SalesAggregates {
+
+    // 沒有類別的商品以 0 記錄
+    public static final long UNCATEGORIZED = 0L;
+
+    private final long bucketMillis;
+    private final Bucket[] buckets;
+
+    public SalesAggregates(long bucketMillis, int bucketCount) {
+        if (bucketMillis <= 0 || bucketCount <= 0) {
+            throw new IllegalArgumentException("分桶設定不正確: bucketMillis=" + bucketMillis + ", bucketCount=" + bucketCount);
+        }
+        this.bucketMillis = bucketMillis;
+        this.buckets = new Bucket[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new Bucket();
+        }
+    }
+
+    /**
+     * 記錄一筆訂單
+     * @param timestamp   結帳時間（epoch 毫秒）
+     * @param productIds  每一行的商品 ID
+     * @param categoryIds 每一行的類別 ID（未分類為 UNCATEGORIZED）
+     * @param quantities  每一行的件數
+     * @param amounts     每一行的金額（分）
+     * @return false 表示時間早於保留範圍，未計入
+     */
+    public boolean recordOrder(long timestamp, long[] productIds, long[] categoryIds, int[] quantities, long[] amounts) {
+        long index = Math.floorDiv(timestamp, bucketMillis);
+        Bucket bucket = buckets[slot(index)];
+        synchronized (bucket) {
+            if (bucket.index > index) {
+                // 這個位置已經被較新的時間使用，表示這筆訂單早於保留範圍
+                return false;
+            }
+            if (bucket.index < index) {
+                bucket.reset(index);
+            }
+            bucket.orders++;
+            for (int i = 0; i < productIds.length; i++) {
+                bucket.units += quantities[i];
+                bucket.revenue += amounts[i];
+                bucket.productUnits.addTo(productIds[i], quantities[i]);
+                bucket.productRevenue.addTo(productIds[i], amounts[i]);
+                bucket.productCategory.put(productIds[i], categoryIds[i]);
+                bucket.categoryUnits.addTo(categoryIds[i], quantities[i]);
+                bucket.categoryRevenue.addTo(categoryIds[i], amounts[i]);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 合併時間範圍 [from, to) 內的桶
+     *
+     * 範圍以桶為單位：與範圍重疊的桶整個計入，早於保留範圍的部分不計入。
+     */
+    public Window query(long from, long to) {
+        Window window = new Window();
+        long first = Math.floorDiv(from, bucketMillis);
+        long last = Math.floorDiv(to - 1, bucketMillis);
+        // 超過 bucketCount 個桶的範圍只可能有最近 bucketCount 個桶的資料
+        first = Math.max(first, last - buckets.length + 1);
+        for (long index = first; index <= last; index++) {
+            Bucket bucket = buckets[slot(index)];
+            synchronized (bucket) {
+                if (bucket.index == index) {
+                    window.merge(bucket);
+                }
+            }
+        }
+        return window;
+    }
+
+    public long getBucketMillis() {
+        return bucketMillis;
+    }
+
+    /**
+     * 保留的時間長度（毫秒）
+     */
+    public long getRetentionMillis() {
+        return bucketMillis * buckets.length;
+    }
+
+    private int slot(long index) {
+        return (int) Math.floorMod(index, (long) buckets.length);
+    }
+
+    private static class Bucket {
+        long index = Long.MIN_VALUE;
+        long orders;
+        long units;
+        long revenue;
+        final LongLongHashMap productUnits = new LongLongHashMap();
+        final LongLongHashMap productRevenue = new LongLongHashMap();
+        final LongLongHashMap productCategory = new LongLongHashMap();
+        final LongLongHashMap categoryUnits = new LongLongHashMap();
+        final LongLongHashMap categoryRevenue = new LongLongHashMap();
+
+        void reset(long newIndex) {
+            index = newIndex;
+            orders = 0;
+            units = 0;
+            revenue = 0;
+            productUnits.clear();
+            productRevenue.clear();
+            productCategory.clear();
+            categoryUnits.clear();
+            categoryRevenue.clear();
+        }
+    }
+
+    /**
+     * 一段時間範圍的合併結果（查詢端私有，不需同步）
+     */
+    public static class Window {
+        private long orders;
+        private long units;
+        private long revenue;
+        private final LongLongHashMap productUnits = new LongLongHashMap();
+        private final LongLongHashMap productRevenue = new LongLongHashMap();
+        private final LongLongHashMap productCategory = new LongLongHashMap();
+        private final LongLongHashMap categoryUnits = new LongLongHashMap();
+        private final LongLongHashMap categoryRevenue = new LongLongHashMap();
+
+        private void merge(Bucket bucket) {
+            orders += bucket.orders;
+            units += bucket.units;
+            revenue += bucket.revenue;
+            bucket.productUnits.forEach(productUnits::addTo);
+            bucket.productRevenue.forEach(productRevenue::addTo);
+            // 依時間由舊到新合併，商品類別以最近一次結帳為準
+            bucket.productCategory.forEach(productCategory::put);
+            bucket.categoryUnits.forEach(categoryUnits::addTo);
+            bucket.categoryRevenue.forEach(categoryRevenue::addTo);
+        }
+
+        public long getOrders() {
+            return orders;
+        }
+
+        public long getUnits() {
+            return units;
+        }
+
+        /**
+         * 營收（分）
+         */
+        public long getRevenue() {
+            return revenue;
+        }
+
+        /**
+         * 前 limit 名商品
+         * @param categoryId 只計入這個類別的商品；null 表示全部
+         * @param byUnits    true 依件數排名，false 依營收排名
+         */
+        public List<Entry> topProducts(int limit, Long categoryId, boolean byUnits) {
+            List<Entry> entries = new ArrayList<>(productUnits.size());
+            productUnits.forEach((productId, units) -> {
+                long category = productCategory.get(productId, UNCATEGORIZED);
+                if (categoryId == null || categoryId == category) {
+                    entries.add(new Entry(productId, category, units, productRevenue.get(productId, 0L)));
+                }
+            });
+            return top(entries, limit, byUnits);
+        }
+
+        /**
+         * 前 limit 名類別
+         * @param byUnits true 依件數排名，false 依營收排名
+         */
+        public List<Entry> topCategories(int limit, boolean byUnits) {
+            List<Entry> entries = new ArrayList<>(categoryUnits.size());
+            categoryUnits.forEach((categoryId, units) ->
+                entries.add(new Entry(categoryId, categoryId, units, categoryRevenue.get(categoryId, 0L))));
+            return top(entries, limit, byUnits);
+        }
+
+        private static List<Entry> top(List<Entry> entries, int limit, boolean byUnits) {
+            Comparator<Entry> order = byUnits
+                ? Comparator.comparingLong(Entry::units).thenComparingLong(Entry::revenue)
+                : Comparator.comparingLong(Entry::revenue).thenComparingLong(Entry::units);
+            entries.sort(order.reversed().thenComparingLong(Entry::id));
+            return entries.size() > limit ? entries.subList(0, Math.max(0, limit)) : entries;
+        }
+    }
+
+    /**
+     * 排名項目：商品或類別 ID、所屬類別、件數與營收（分）
+     */
+    public record Entry(long id, long categoryId, long units, long revenue) {
+    }
+}
@@ -0,0 +1,213 @@
+package dev.backend.demo.service;
+
+import dev.backend.demo.dto.analytics.SalesEntryDTO;
+import dev.backend.demo.event.CheckoutCompletedEvent;
+import dev.backend.demo.exception.InvalidOperationException;
+import dev.backend.demo.model.Order;
+import dev.backend.demo.model.OrderItem;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * 銷售分析服務
+ *
+ * 在記憶體中維護依時間分桶的彙總（SalesAggregates）：每次結帳提交後累加到當下的桶，
+ * 儀表板查詢只合併記憶體中的桶，不再對資料庫下彙總 SQL。
+ *
+ * 啟動時從 orders / order_items 重建保留範圍內的桶，重新啟動不會遺失統計。
+ * 資料表由 Hibernate 建立（ddl-auto=update），因此需等 entityManagerFactory 初始化後才載入。
+ */
+@Slf4j
+@Service
+@DependsOn("entityManagerFactory")
+public class SalesAnalyticsService {
+
+    private static final Pattern DURATION = Pattern.compile("(\\d+)([mhd])");
+
+    private static final String REBUILD_SQL =
+        "SELECT o.order_id, o.created_at, i.product_id, i.category_id, i.quantity, i.subtotal " +
+        "FROM orders o JOIN order_items i ON i.order_id = o.order_id " +
+        "WHERE o.created_at >= ? ORDER BY o.order_id";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${analytics.bucket-minutes:5}")
+    private int bucketMinutes;
+
+    @Value("${analytics.retention-hours:48}")
+    private int retentionHours;
+
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    private SalesAggregates aggregates;
+
+    /**
+     * 從資料庫重建保留範圍內的彙總
+     */
+    @PostConstruct
+    public void rebuild() {
+        long bucketMillis = TimeUnit.MINUTES.toMillis(bucketMinutes);
+        int bucketCount = (int) Math.max(1, TimeUnit.HOURS.toMillis(retentionHours) / bucketMillis);
+        aggregates = new SalesAggregates(bucketMillis, bucketCount);
+
+        long since = System.currentTimeMillis() - aggregates.getRetentionMillis();
+        OrderLines lines = new OrderLines();
+        jdbcTemplate.query(REBUILD_SQL, rs -> {
+            long orderId = rs.getLong("order_id");
+            if (orderId != lines.orderId) {
+                lines.flush();
+                lines.orderId = orderId;
+                lines.timestamp = toMillis(rs.getTimestamp("created_at").toLocalDateTime());
+            }
+            long categoryId = rs.getLong("category_id");
+            lines.add(rs.getLong("product_id"), rs.wasNull() ? SalesAggregates.UNCATEGORIZED : categoryId,
+                rs.getInt("quantity"), toCents(rs.getBigDecimal("subtotal")));
+        }, new Timestamp(since));
+        lines.flush();
+        log.info("重建銷售彙總: orders={}, since={}", lines.orders, new Timestamp(since));
+    }
+
+    /**
+     * 結帳提交後把訂單計入當下的桶
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCheckout(CheckoutCompletedEvent event) {
+        Order order = event.getOrder();
+        OrderLines lines = new OrderLines();
+        lines.timestamp = toMillis(order.getCreatedAt());
+        for (OrderItem item : order.getItems()) {
+            lines.add(item.getProductId(),
+                item.getCategoryId() == null ? SalesAggregates.UNCATEGORIZED : item.getCategoryId(),
+                item.getQuantity(), toCents(item.getSubtotal()));
+        }
+        lines.flush();
+    }
+
+    // ========== 查詢 ==========
+
+    /**
+     * 解析時間範圍：today（今天 0 點至今）或最近一段時間（15m、1h、24h、2d）
+     * 範圍超過保留時間時從保留範圍的起點開始
+     */
+    public Range resolve(String window) {
+        LocalDateTime now = LocalDateTime.now(zone);
+        LocalDateTime from;
+        if ("today".equalsIgnoreCase(window)) {
+            from = LocalDate.now(zone).atStartOfDay();
+        } else {
+            Matcher matcher = DURATION.matcher(window == null ? "" : window.trim().toLowerCase());
+            if (!matcher.matches()) {
+                throw new InvalidOperationException("時間範圍格式錯誤: " + window + "（可用 today、15m、1h、2d）");
+            }
+            long amount = Long.parseLong(matcher.group(1));
+            Duration duration = switch (matcher.group(2)) {
+                case "m" -> Duration.ofMinutes(amount);
+                case "h" -> Duration.ofHours(amount);
+                default -> Duration.ofDays(amount);
+            };
+            from = now.minus(duration);
+        }
+        LocalDateTime earliest = now.minus(Duration.ofMillis(aggregates.getRetentionMillis()));
+        return new Range(from.isBefore(earliest) ? earliest : from, now);
+    }
+
+    public SalesAggregates.Window query(Range range) {
+        return aggregates.query(toMillis(range.from()), toMillis(range.to()) + 1);
+    }
+
+    public List<SalesEntryDTO> topProducts(SalesAggregates.Window window, int limit, Long categoryId, boolean byUnits) {
+        return window.topProducts(limit, categoryId, byUnits).stream()
+            .map(entry -> new SalesEntryDTO(entry.id(), categoryOrNull(entry.categoryId()), entry.units(), fromCents(entry.revenue())))
+            .collect(Collectors.toList());
+    }
+
+    public List<SalesEntryDTO> topCategories(SalesAggregates.Window window, int limit, boolean byUnits) {
+        return window.topCategories(limit, byUnits).stream()
+            .map(entry -> new SalesEntryDTO(null, categoryOrNull(entry.categoryId()), entry.units(), fromCents(entry.revenue())))
+            .collect(Collectors.toList());
+    }
+
+    public int getBucketMinutes() {
+        return bucketMinutes;
+    }
+
+    /**
+     * 查詢的時間範圍（含頭尾，以桶為單位計入）
+     */
+    public record Range(LocalDateTime from, LocalDateTime to) {
+    }
+
+    // ========== 內部實作 ==========
+
+    private long toMillis(LocalDateTime time) {
+        return time.atZone(zone).toInstant().toEpochMilli();
+    }
+
+    private static Long categoryOrNull(long categoryId) {
+        return categoryId == SalesAggregates.UNCATEGORIZED ? null : categoryId;
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount == null ? 0 : amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    private static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    /**
+     * 一筆訂單的明細，湊齊後一次寫入彙總
+     */
+    private class OrderLines {
+        long orderId = -1;
+        long timestamp;
+        long orders;
+        final List<long[]> lines = new ArrayList<>();
+
+        void add(long productId, long categoryId, int quantity, long amount) {
+            lines.add(new long[] {productId, categoryId, quantity, amount});
+        }
+
+        void flush() {
+            if (lines.isEmpty()) {
+                return;
+            }
+            int n = lines.size();
+            long[] productIds = new long[n];
+            long[] categoryIds = new long[n];
+            int[] quantities = new int[n];
+            long[] amounts = new long[n];
+            for (int i = 0; i < n; i++) {
+                long[] line = lines.get(i);
+                productIds[i] = line[0];
+                categoryIds[i] = line[1];
+                quantities[i] = (int) line[2];
+                amounts[i] = line[3];
+            }
+            aggregates.recordOrder(timestamp, productIds, categoryIds, quantities, amounts);
+            orders++;
+            lines.clear();
+        }
+    }
+}
@@ -0,0 +1,657 @@
+package dev.backend.demo.service;
+
+import dev.backend.demo.util.LongLongHashMap;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 商品名稱的前綴索引（輸入提示用），依權重（銷售量）取前 k 名
+ *
+ * 每個商品名稱正規化（轉小寫、去除重音符號、合併空白）後，從名稱開頭與每個詞的開頭各加入一個 key，
+ * 輸入名稱中間的詞也能比對到（例如 "tea" 比對到 "Chai Tea"）；中文每個字都視為詞的開頭。
+ *
+ * key 存放在壓縮路徑的 trie（radix tree）中：只有一個子節點的連續節點合併成一條邊，
+ * 節點數不超過 key 數的兩倍，與名稱長度無關。子節點依邊的第一個字元排序存放（以二分搜尋查找）。
+ * 每個節點預先算好子樹中權重最高的 k 個商品，查詢只需沿著前綴走到節點、直接取出結果，
+ * 與子樹大小無關。商品加入、移除或權重改變時，只更新受影響路徑上的節點：
+ * 加入與權重增加只把商品插入各節點原本的前 k 名，移除只重新計算前 k 名中有此商品的節點，
+ * 許多商品共用同一個 key（例如同一個詞）時，不必每次重新排序整個商品清單。
+ * 節點的商品清單依權重排序、保留多餘的容量，加入與移除以二分搜尋找到位置後就地移動（權重改變時移到新的位置）；
+ * 節點的前 k 名只需從自己清單的前 k 個與各子節點的前 k 名中選出，與清單長度無關。
+ *
+ * 查詢與寫入以讀寫鎖保護：查詢可並行，寫入彼此序列化。
+ */
+public class SuggestionTrie {
+
+    static final int MAX_KEY_LENGTH = 32;
+
+    private static final long[] EMPTY = new long[0];
+    private static final char[] NO_FIRST_CHARS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private final int k;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Node root = new Node("");
+    private final Map<Long, String> names = new HashMap<>();
+    private final LongLongHashMap weights = new LongLongHashMap();
+    private int nodeCount = 1;
+
+    private static final class Node {
+        // 從父節點到此節點的邊（一個以上的字元，根節點為空字串）
+        String label;
+        // 各子節點邊的第一個字元（排序）與對應的子節點
+        char[] firstChars = NO_FIRST_CHARS;
+        Node[] children = NO_CHILDREN;
+        // key 在此節點結束的商品（前 productCount 個，依權重遞減、商品 ID 遞增）
+        long[] products = EMPTY;
+        int productCount;
+        // putAll 期間加在清單尾端、尚未排序
+        boolean unsorted;
+        // 子樹中權重最高的 k 個商品（依權重遞減、商品 ID 遞增）
+        long[] top = EMPTY;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        int indexOf(char c) {
+            return Arrays.binarySearch(firstChars, c);
+        }
+    }
+
+    /**
+     * @param k 每個前綴保留的結果數（查詢結果數的上限）
+     */
+    public SuggestionTrie(int k) {
+        this.k = k;
+    }
+
+    /**
+     * 加入或取代一個商品的名稱
+     */
+    public void put(long productId, String name) {
+        List<String> keys = keys(name);
+        lock.writeLock().lock();
+        try {
+            removeLocked(productId);
+            if (keys.isEmpty()) {
+                return;
+            }
+            names.put(productId, name);
+            for (String key : keys) {
+                List<Node> path = insertLocked(key);
+                addProduct(path.get(path.size() - 1), productId);
+                // 子樹多了一個商品：新的前 k 名是「原本的前 k 名 + 此商品」中的前 k 名
+                promoteLocked(path, productId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 一次加入多個商品（建立索引用）：先移除既有的商品，再把所有 key 的商品加在各節點清單的尾端，
+     * 最後每個節點排序一次，並只計算一次每個節點的前 k 名
+     */
+    public void putAll(Map<Long, String> names) {
+        lock.writeLock().lock();
+        try {
+            names.keySet().forEach(this::removeLocked);
+            List<Node> unsorted = new ArrayList<>();
+            names.forEach((productId, name) -> {
+                List<String> keys = keys(name);
+                if (keys.isEmpty()) {
+                    return;
+                }
+                this.names.put(productId, name);
+                for (String key : keys) {
+                    List<Node> path = insertLocked(key);
+                    Node last = path.get(path.size() - 1);
+                    appendProduct(last, productId);
+                    if (!last.unsorted) {
+                        last.unsorted = true;
+                        unsorted.add(last);
+                    }
+                }
+            });
+            for (Node node : unsorted) {
+                sortProducts(node);
+            }
+            recomputeAllLocked(root);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 移除一個商品（不存在時不做任何事）；權重保留，重新加入時沿用
+     */
+    public void remove(long productId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 增加商品的權重（例如賣出的數量）
+     */
+    public void addWeight(long productId, long delta) {
+        lock.writeLock().lock();
+        try {
+            String name = names.get(productId);
+            if (name == null) {
+                weights.addTo(productId, delta);
+                return;
+            }
+            // 商品清單依權重排序：以原本的權重找到位置取出，改變權重後再放回
+            List<List<Node>> paths = new ArrayList<>();
+            for (String key : keys(name)) {
+                List<Node> path = pathLocked(key);
+                removeProduct(path.get(path.size() - 1), productId);
+                paths.add(path);
+            }
+            weights.addTo(productId, delta);
+            for (List<Node> path : paths) {
+                addProduct(path.get(path.size() - 1), productId);
+            }
+            for (List<Node> path : paths) {
+                if (delta >= 0) {
+                    promoteLocked(path, productId);
+                } else {
+                    recomputeLocked(path);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 以前綴查詢權重最高的商品 ID（最多 min(limit, k) 個）
+     * 超過 MAX_KEY_LENGTH 的前綴只比對前 MAX_KEY_LENGTH 個字元
+     */
+    public long[] suggest(String prefix, int limit) {
+        String normalized = normalize(prefix);
+        if (normalized.isEmpty()) {
+            return EMPTY;
+        }
+        lock.readLock().lock();
+        try {
+            String prefixKey = normalized.substring(0, Math.min(normalized.length(), MAX_KEY_LENGTH));
+            Node node = root;
+            int i = 0;
+            while (i < prefixKey.length()) {
+                int at = node.indexOf(prefixKey.charAt(i));
+                if (at < 0) {
+                    return EMPTY;
+                }
+                node = node.children[at];
+                // 前綴可能結束在邊的中間，此時子樹就是符合前綴的所有 key
+                int n = Math.min(node.label.length(), prefixKey.length() - i);
+                if (!node.label.regionMatches(0, prefixKey, i, n)) {
+                    return EMPTY;
+                }
+                i += n;
+            }
+            return node.top.length <= limit ? node.top.clone() : Arrays.copyOf(node.top, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long weight(long productId) {
+        lock.readLock().lock();
+        try {
+            return weights.get(productId, 0);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 索引中的商品數
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return names.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int nodeCount() {
+        lock.readLock().lock();
+        try {
+            return nodeCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 正規化：轉小寫、去除重音符號、非文字字元視為空白、合併連續空白
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(decomposed.length());
+        boolean space = true;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(Character.toLowerCase(c));
+                space = false;
+            } else if (!space) {
+                sb.append(' ');
+                space = true;
+            }
+        }
+        int length = sb.length();
+        if (length > 0 && sb.charAt(length - 1) == ' ') {
+            sb.setLength(length - 1);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 名稱的所有 key：從名稱開頭與每個詞的開頭到名稱結尾（最長 MAX_KEY_LENGTH 個字元，更長的前綴不再細分）
+     */
+    static List<String> keys(String name) {
+        String normalized = normalize(name);
+        Set<String> keys = new LinkedHashSet<>();
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (c == ' ') {
+                continue;
+            }
+            if (i == 0 || normalized.charAt(i - 1) == ' ' || Character.isIdeographic(c)) {
+                keys.add(normalized.substring(i, Math.min(normalized.length(), i + MAX_KEY_LENGTH)));
+            }
+        }
+        return new ArrayList<>(keys);
+    }
+
+    private void removeLocked(long productId) {
+        String name = names.remove(productId);
+        if (name == null) {
+            return;
+        }
+        for (String key : keys(name)) {
+            List<Node> path = pathLocked(key);
+            removeProduct(path.get(path.size() - 1), productId);
+            pruneLocked(path);
+            // 前 k 名中沒有此商品的節點不受影響（子節點的前 k 名沒有此商品時，祖先節點的也沒有）
+            for (int i = path.size() - 1; i >= 0; i--) {
+                Node node = path.get(i);
+                if (contains(node.top, productId)) {
+                    recomputeLocked(path.subList(i, i + 1));
+                }
+            }
+        }
+    }
+
+    /**
+     * 加入 key 的路徑（需要時新增葉節點或把邊分成兩段），回傳從根節點到 key 結尾的節點
+     */
+    private List<Node> insertLocked(String key) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            int at = node.indexOf(key.charAt(i));
+            if (at < 0) {
+                Node leaf = new Node(key.substring(i));
+                addChild(node, leaf);
+                path.add(leaf);
+                return path;
+            }
+            Node child = node.children[at];
+            String label = child.label;
+            int common = 1;
+            while (common < label.length() && i + common < key.length()
+                && label.charAt(common) == key.charAt(i + common)) {
+                common++;
+            }
+            if (common < label.length()) {
+                // key 在邊的中間分岔或結束：在分岔處插入一個節點
+                Node middle = new Node(label.substring(0, common));
+                child.label = label.substring(common);
+                middle.firstChars = new char[]{child.label.charAt(0)};
+                middle.children = new Node[]{child};
+                middle.top = child.top;
+                node.children[at] = middle;
+                nodeCount++;
+                child = middle;
+            }
+            node = child;
+            path.add(node);
+            i += common;
+        }
+        return path;
+    }
+
+    /**
+     * 從根節點到 key 結尾的節點（key 必須已存在）
+     */
+    private List<Node> pathLocked(String key) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            int at = node.indexOf(key.charAt(i));
+            if (at < 0 || !key.startsWith(node.children[at].label, i)) {
+                throw new IllegalStateException("前綴索引中沒有 key: " + key);
+            }
+            node = node.children[at];
+            path.add(node);
+            i += node.label.length();
+        }
+        return path;
+    }
+
+    /**
+     * 移除 key 的商品後整理路徑尾端：沒有商品也沒有子節點的節點移除，
+     * 沒有商品且只剩一個子節點的節點與子節點合併成一條邊（根節點除外）
+     */
+    private void pruneLocked(List<Node> path) {
+        int last = path.size() - 1;
+        Node node = path.get(last);
+        if (last == 0 || node.productCount > 0) {
+            return;
+        }
+        Node parent = path.get(last - 1);
+        if (node.children.length == 0) {
+            removeChild(parent, node);
+            path.remove(last);
+            // 父節點可能因此只剩一個子節點
+            if (last - 1 > 0 && parent.productCount == 0 && parent.children.length == 1) {
+                mergeWithChild(path.get(last - 2), parent);
+                path.remove(last - 1);
+            }
+        } else if (node.children.length == 1) {
+            mergeWithChild(parent, node);
+            path.remove(last);
+        }
+    }
+
+    private void mergeWithChild(Node parent, Node node) {
+        Node child = node.children[0];
+        child.label = node.label + child.label;
+        // 合併後的邊第一個字元不變，直接取代原來的位置
+        parent.children[parent.indexOf(node.label.charAt(0))] = child;
+        nodeCount--;
+    }
+
+    private void addChild(Node parent, Node child) {
+        char c = child.label.charAt(0);
+        int at = -parent.indexOf(c) - 1;
+        int length = parent.firstChars.length;
+        char[] firstChars = new char[length + 1];
+        Node[] children = new Node[length + 1];
+        System.arraycopy(parent.firstChars, 0, firstChars, 0, at);
+        System.arraycopy(parent.children, 0, children, 0, at);
+        System.arraycopy(parent.firstChars, at, firstChars, at + 1, length - at);
+        System.arraycopy(parent.children, at, children, at + 1, length - at);
+        firstChars[at] = c;
+        children[at] = child;
+        parent.firstChars = firstChars;
+        parent.children = children;
+        nodeCount++;
+    }
+
+    private void removeChild(Node parent, Node child) {
+        int at = parent.indexOf(child.label.charAt(0));
+        int length = parent.firstChars.length;
+        char[] firstChars = new char[length - 1];
+        Node[] children = new Node[length - 1];
+        System.arraycopy(parent.firstChars, 0, firstChars, 0, at);
+        System.arraycopy(parent.children, 0, children, 0, at);
+        System.arraycopy(parent.firstChars, at + 1, firstChars, at, length - at - 1);
+        System.arraycopy(parent.children, at + 1, children, at, length - at - 1);
+        parent.firstChars = firstChars;
+        parent.children = children;
+        nodeCount--;
+    }
+
+    /**
+     * 由下往上重新計算路徑上每個節點的前 k 名：
+     * 子樹的前 k 名一定在「此節點的商品 + 各子節點的前 k 名」之中
+     */
+    private void recomputeLocked(List<Node> path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node node = path.get(i);
+            node.top = topK(node);
+        }
+    }
+
+    /**
+     * 權重增加時只需調整路徑上各節點原本的前 k 名：
+     * 其他商品的權重沒有變，新的前 k 名是「原本的前 k 名 + 此商品」中的前 k 名
+     */
+    private void promoteLocked(List<Node> path, long productId) {
+        for (Node node : path) {
+            long[] top = node.top;
+            int at = 0;
+            while (at < top.length && top[at] != productId) {
+                at++;
+            }
+            if (at == top.length) {
+                if (top.length == k && compare(productId, top[k - 1]) > 0) {
+                    continue;
+                }
+                top = Arrays.copyOf(top, Math.min(k, top.length + 1));
+                at = top.length - 1;
+            } else {
+                // 陣列可能與其他節點共用，修改前先複製
+                top = top.clone();
+            }
+            // 往前移到正確的位置（插入排序的一步）
+            while (at > 0 && compare(productId, top[at - 1]) < 0) {
+                top[at] = top[at - 1];
+                at--;
+            }
+            top[at] = productId;
+            node.top = top;
+        }
+    }
+
+    private static boolean contains(long[] ids, long productId) {
+        for (long id : ids) {
+            if (id == productId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void recomputeAllLocked(Node node) {
+        for (Node child : node.children) {
+            recomputeAllLocked(child);
+        }
+        node.top = topK(node);
+    }
+
+    /**
+     * 此節點的商品與各子節點的前 k 名中的前 k 名：
+     * 以最大堆積保留目前的前 k 名（堆積頂端是其中排最後的），最後就地排序
+     */
+    private long[] topK(Node node) {
+        long[] heap = new long[k];
+        int size = 0;
+        for (int i = 0; i < node.productCount && i < k; i++) {
+            size = offer(heap, size, node.products[i]);
+        }
+        for (Node child : node.children) {
+            for (long productId : child.top) {
+                // 子節點的前 k 名已排序，之後的商品都不會進入前 k 名
+                if (size == k && compare(productId, heap[0]) > 0) {
+                    break;
+                }
+                size = offer(heap, size, productId);
+            }
+        }
+        for (int end = size - 1; end > 0; end--) {
+            long last = heap[end];
+            heap[end] = heap[0];
+            heap[0] = last;
+            siftDown(heap, 0, end);
+        }
+        return size == k ? heap : Arrays.copyOf(heap, size);
+    }
+
+    /**
+     * 候選商品排在目前的前 k 名之內時放入堆積（已在堆積中的商品不重複放入），回傳新的大小
+     */
+    private int offer(long[] heap, int size, long productId) {
+        if (size == k && compare(productId, heap[0]) >= 0) {
+            return size;
+        }
+        for (int i = 0; i < size; i++) {
+            if (heap[i] == productId) {
+                return size;
+            }
+        }
+        if (size < k) {
+            int at = size;
+            while (at > 0 && compare(productId, heap[(at - 1) / 2]) > 0) {
+                heap[at] = heap[(at - 1) / 2];
+                at = (at - 1) / 2;
+            }
+            heap[at] = productId;
+            return size + 1;
+        }
+        heap[0] = productId;
+        siftDown(heap, 0, size);
+        return size;
+    }
+
+    private void siftDown(long[] heap, int at, int size) {
+        long productId = heap[at];
+        while (2 * at + 1 < size) {
+            int child = 2 * at + 1;
+            if (child + 1 < size && compare(heap[child + 1], heap[child]) > 0) {
+                child++;
+            }
+            if (compare(productId, heap[child]) >= 0) {
+                break;
+            }
+            heap[at] = heap[child];
+            at = child;
+        }
+        heap[at] = productId;
+    }
+
+    /**
+     * 排序：權重遞減，相同時商品 ID 遞增
+     */
+    private int compare(long a, long b) {
+        int byWeight = Long.compare(weights.get(b, 0), weights.get(a, 0));
+        return byWeight != 0 ? byWeight : Long.compare(a, b);
+    }
+
+    /**
+     * 商品在節點清單中的位置（依 compare 的順序二分搜尋，不在清單中時為 -(插入位置) - 1）；
+     * 清單中商品的權重必須與放入時相同
+     */
+    private int indexOf(Node node, long productId) {
+        int low = 0;
+        int high = node.productCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int c = compare(node.products[mid], productId);
+            if (c < 0) {
+                low = mid + 1;
+            } else if (c > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * 依排序插入商品（已在清單中時不做任何事）
+     */
+    private void addProduct(Node node, long productId) {
+        int at = indexOf(node, productId);
+        if (at >= 0) {
+            return;
+        }
+        at = -at - 1;
+        ensureCapacity(node);
+        System.arraycopy(node.products, at, node.products, at + 1, node.productCount - at);
+        node.products[at] = productId;
+        node.productCount++;
+    }
+
+    private static void appendProduct(Node node, long productId) {
+        ensureCapacity(node);
+        node.products[node.productCount++] = productId;
+    }
+
+    /**
+     * 排序 putAll 加在尾端的商品（就地堆積排序）並去除重複
+     */
+    private void sortProducts(Node node) {
+        long[] products = node.products;
+        int count = node.productCount;
+        for (int i = count / 2 - 1; i >= 0; i--) {
+            siftDown(products, i, count);
+        }
+        for (int end = count - 1; end > 0; end--) {
+            long last = products[end];
+            products[end] = products[0];
+            products[0] = last;
+            siftDown(products, 0, end);
+        }
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            if (n == 0 || products[i] != products[n - 1]) {
+                products[n++] = products[i];
+            }
+        }
+        node.productCount = n;
+        node.unsorted = false;
+    }
+
+    private void removeProduct(Node node, long productId) {
+        int at = indexOf(node, productId);
+        if (at < 0) {
+            return;
+        }
+        System.arraycopy(node.products, at + 1, node.products, at, node.productCount - at - 1);
+        node.productCount--;
+        if (node.productCount == 0) {
+            node.products = EMPTY;
+        } else if (node.productCount * 4 < node.products.length) {
+            // 移除大部分商品後縮小容量
+            node.products = Arrays.copyOf(node.products, node.productCount * 2);
+        }
+    }
+
+    private static void ensureCapacity(Node node) {
+        if (node.productCount == node.products.length) {
+            node.products = Arrays.copyOf(node.products, Math.max(1, node.productCount * 2));
+        }
+    }
+}
@@ -0,0 +1,517 @@
+package dev.backend.demo.service;
+
+import dev.backend.demo.event.ProductChangedEvent;
+import dev.backend.demo.exception.InvalidOperationException;
+import dev.backend.demo.exception.ResourceNotFoundException;
+import dev.backend.demo.util.CsvReader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 供應商商品檔同步服務
+ *
+ * 供應商每天提供完整的商品檔（CSV），以「供應商 ID + 供應商 SKU」對應到商品，只寫入真正有變動的列：
+ * 1. 讀取該供應商目前所有 SKU 對應的商品與上次套用的內容雜湊（supplier_feed_items）
+ * 2. 串流讀取商品檔，計算每列的內容雜湊（名稱、類別、描述、單價）：
+ *    新的 SKU 新增商品；雜湊不同的更新商品；相同的略過，不寫入也不改變 updatedAt
+ * 3. 讀完後，商品檔中沒有出現的 SKU 軟刪除對應的商品
+ *
+ * 新增、更新、刪除各自累積 batchSize 筆後以陣列參數一次寫入（每批一個交易），
+ * 批次失敗時改為逐筆寫入，找出是哪幾列造成錯誤；每批提交後發布商品異動事件。
+ *
+ * 格式錯誤的列記錄後略過，但其 SKU 視為仍存在，不會被刪除。
+ * 要刪除的 SKU 超過原有數量的 maxDeleteRatio 時（例如檔案被截斷）不執行刪除，作業結果中註明。
+ *
+ * 管理者刪除（軟刪除）的商品保留原本的 SKU 對應作為墓碑：之後的商品檔中仍有這個 SKU 時略過（skipped），
+ * 不會以新的商品 ID 重新上架。要讓供應商重新上架，刪除 supplier_feed_items 中對應的列即可。
+ * 同步本身因 SKU 從商品檔消失而刪除的商品則一併移除對應，SKU 日後重新出現時新增商品。
+ */
+@Slf4j
+@Service
+public class SupplierFeedSyncService {
+
+    // 含已刪除的商品（墓碑）；商品列已不存在的對應視為沒有對應
+    private static final String LOAD_ITEMS =
+        "SELECT f.sku, f.product_id, f.content_hash, p.deleted_at IS NOT NULL FROM supplier_feed_items f " +
+        "JOIN products p ON p.product_id = f.product_id " +
+        "WHERE f.supplier_id = ?";
+
+    private static final String INSERT_PRODUCTS =
+        "INSERT INTO products (product_id, product_name, category_id, supplier_id, description, unit_price, created_at, updated_at) " +
+        "SELECT t.id, t.name, t.category_id, ?, t.description, t.unit_price, ?, ? " +
+        "FROM unnest(?::bigint[], ?::varchar[], ?::bigint[], ?::text[], ?::numeric[]) " +
+        "AS t(id, name, category_id, description, unit_price)";
+
+    private static final String UPDATE_PRODUCTS =
+        "UPDATE products p SET product_name = t.name, category_id = t.category_id, description = t.description, " +
+        "unit_price = t.unit_price, updated_at = ? " +
+        "FROM unnest(?::bigint[], ?::varchar[], ?::bigint[], ?::text[], ?::numeric[]) " +
+        "AS t(id, name, category_id, description, unit_price) " +
+        "WHERE p.product_id = t.id AND p.deleted_at IS NULL";
+
+    // 對應到已不存在的商品列的 SKU 重新出現時會新增商品，對應改到新的商品
+    private static final String UPSERT_ITEMS =
+        "INSERT INTO supplier_feed_items (product_id, supplier_id, sku, content_hash) " +
+        "SELECT t.id, ?, t.sku, t.hash FROM unnest(?::bigint[], ?::varchar[], ?::bigint[]) AS t(id, sku, hash) " +
+        "ON CONFLICT (supplier_id, sku) DO UPDATE SET product_id = EXCLUDED.product_id, content_hash = EXCLUDED.content_hash";
+
+    private static final String SOFT_DELETE_PRODUCTS =
+        "UPDATE products SET deleted_at = ? WHERE product_id = ANY (?) AND deleted_at IS NULL";
+
+    private static final String DELETE_ITEMS =
+        "DELETE FROM supplier_feed_items WHERE product_id = ANY (?)";
+
+    private static final Pattern SUPPLIER_FILE = Pattern.compile("supplier-(\\d+)\\.csv");
+    private static final int MAX_SKU_LENGTH = 100;
+    private static final int MAX_RECENT_JOBS = 20;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ProductTombstoneCache tombstoneCache;
+
+    @Value("${product.feed.directory:data/feeds}")
+    private String directory;
+
+    @Value("${product.feed.batch-size:2000}")
+    private int batchSize;
+
+    @Value("${product.feed.fetch-size:5000}")
+    private int fetchSize;
+
+    @Value("${product.feed.max-errors:1000}")
+    private int maxErrors;
+
+    @Value("${product.feed.max-delete-ratio:0.5}")
+    private double maxDeleteRatio;
+
+    // 正在同步的供應商（同一個供應商同時只能有一個作業）
+    private final Set<Long> running = ConcurrentHashMap.newKeySet();
+
+    private final RecentJobs<SyncJob> jobs = new RecentJobs<>("同步作業", MAX_RECENT_JOBS);
+
+    /**
+     * 上次套用的 SKU 狀態
+     * @param deleted 商品已被管理者刪除（墓碑，同步時略過）
+     */
+    private record Stored(long productId, long hash, boolean deleted) {
+    }
+
+    /**
+     * 商品檔中的一列（已驗證）
+     */
+    private record FeedRow(long row, String sku, String name, Long categoryId, String description,
+                           BigDecimal unitPrice, long hash, Long productId) {
+    }
+
+    /**
+     * 同步商品檔目錄中的一個檔案（在呼叫的執行緒中執行到完成）
+     * @param fileName 相對於 product.feed.directory 的檔名
+     * @throws InvalidOperationException 檔名不在目錄中，或該供應商的同步正在執行
+     * @throws ResourceNotFoundException 檔案不存在
+     */
+    public SyncJob sync(long supplierId, String fileName) throws IOException {
+        Path root = Path.of(directory).toAbsolutePath().normalize();
+        Path file = root.resolve(fileName == null ? "" : fileName).normalize();
+        if (!file.startsWith(root) || file.equals(root)) {
+            throw new InvalidOperationException("檔案必須位於商品檔目錄中: " + fileName);
+        }
+        if (!Files.isRegularFile(file)) {
+            throw new ResourceNotFoundException("商品檔不存在：" + fileName);
+        }
+        return syncFile(supplierId, file);
+    }
+
+    /**
+     * 定期同步商品檔目錄中所有 supplier-{供應商 ID}.csv（product.feed.cron，預設停用）
+     */
+    @Scheduled(cron = "${product.feed.cron:-}")
+    public void syncDirectory() {
+        Path root = Path.of(directory);
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(root, "supplier-*.csv")) {
+            for (Path file : files) {
+                Matcher matcher = SUPPLIER_FILE.matcher(file.getFileName().toString());
+                if (!matcher.matches()) {
+                    continue;
+                }
+                try {
+                    syncFile(Long.parseLong(matcher.group(1)), file);
+                } catch (IOException | RuntimeException e) {
+                    log.error("供應商商品檔同步失敗: file={}", file, e);
+                }
+            }
+        } catch (IOException e) {
+            log.error("無法讀取商品檔目錄: directory={}", root, e);
+        }
+    }
+
+    /**
+     * 查詢同步作業（可在執行中查詢進度）
+     * @throws ResourceNotFoundException 作業不存在或已過期
+     */
+    public SyncJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    /**
+     * 最近的同步作業（新的在前）
+     */
+    public List<SyncJob> getRecentJobs() {
+        return jobs.recent();
+    }
+
+    private SyncJob syncFile(long supplierId, Path file) throws IOException {
+        if (!running.add(supplierId)) {
+            throw new InvalidOperationException("供應商 " + supplierId + " 的商品檔正在同步");
+        }
+        SyncJob job = new SyncJob(supplierId, file.getFileName().toString(), maxErrors);
+        jobs.add(job);
+        log.info("開始同步供應商商品檔: jobId={}, supplierId={}, file={}", job.getId(), supplierId, file);
+        try {
+            Map<String, Stored> stored = load(supplierId);
+            job.existing = (int) stored.values().stream().filter(item -> !item.deleted()).count();
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                Set<String> seen = readFeed(new CsvReader(reader), supplierId, stored, job);
+                deleteMissing(supplierId, stored, seen, job);
+            }
+            job.finish(SyncJob.Status.COMPLETED, null);
+        } catch (SQLException e) {
+            fail(job, e);
+            throw new IllegalStateException("讀取供應商商品對應失敗", e);
+        } catch (IOException | RuntimeException e) {
+            fail(job, e);
+            throw e;
+        } finally {
+            running.remove(supplierId);
+        }
+        log.info("供應商商品檔同步完成: jobId={}, supplierId={}, rows={}, inserted={}, updated={}, unchanged={}, skipped={}, deleted={}, failed={}, elapsed={}ms",
+            job.getId(), supplierId, job.rows.get(), job.inserted.get(), job.updated.get(), job.unchanged.get(),
+            job.skipped.get(), job.deleted.get(), job.failed.get(), job.getElapsedMs());
+        return job;
+    }
+
+    private void fail(SyncJob job, Exception e) {
+        job.finish(SyncJob.Status.FAILED, e.getMessage());
+        log.error("供應商商品檔同步中斷: jobId={}, supplierId={}", job.getId(), job.supplierId, e);
+    }
+
+    // ========== 讀取 ==========
+
+    /**
+     * 以 JDBC 游標讀取供應商目前所有 SKU 的狀態（含已刪除商品的墓碑）
+     */
+    private Map<String, Stored> load(long supplierId) throws SQLException {
+        // 在交易中（關閉 autocommit）設定 fetch size，PostgreSQL 才會分批取回而不是一次載入整個結果集
+        return JdbcBatches.inTransaction(dataSource, connection -> {
+            Map<String, Stored> stored = new HashMap<>();
+            try (PreparedStatement statement = connection.prepareStatement(LOAD_ITEMS)) {
+                statement.setFetchSize(fetchSize);
+                statement.setLong(1, supplierId);
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        stored.put(rs.getString(1), new Stored(rs.getLong(2), rs.getLong(3), rs.getBoolean(4)));
+                    }
+                }
+            }
+            return stored;
+        });
+    }
+
+    /**
+     * CSV 第一列為欄位名稱：sku、productName、unitPrice 必填，categoryId、description 選填
+     * @return 商品檔中出現的所有 SKU（含格式錯誤的列）
+     */
+    private Set<String> readFeed(CsvReader csv, long supplierId, Map<String, Stored> stored, SyncJob job)
+            throws IOException {
+        Map<String, Integer> columns = csv.readHeader();
+        Set<String> seen = new HashSet<>();
+        if (columns == null) {
+            return seen;
+        }
+        if (!columns.containsKey("sku") || !columns.containsKey("productName") || !columns.containsKey("unitPrice")) {
+            throw new InvalidOperationException("商品檔缺少必要欄位 sku、productName 或 unitPrice");
+        }
+
+        List<FeedRow> inserts = new ArrayList<>();
+        List<FeedRow> updates = new ArrayList<>();
+        List<String> record;
+        while ((record = csv.nextNonBlank()) != null) {
+            long row = csv.getRecordLine();
+            job.rows.incrementAndGet();
+            String sku = CsvReader.column(record, columns, "sku");
+            sku = sku == null ? "" : sku.trim();
+            if (sku.isEmpty() || sku.length() > MAX_SKU_LENGTH) {
+                job.fail(row, "sku 不可為空或超過 " + MAX_SKU_LENGTH + " 個字元");
+                continue;
+            }
+            if (!seen.add(sku)) {
+                job.fail(row, "sku 重複: " + sku);
+                continue;
+            }
+            Stored current = stored.get(sku);
+            if (current != null && current.deleted()) {
+                // 管理者已刪除的商品不重新上架
+                job.skipped.incrementAndGet();
+                continue;
+            }
+            FeedRow feedRow;
+            try {
+                String name = ProductImportService.parseName(CsvReader.column(record, columns, "productName"));
+                BigDecimal unitPrice = ProductImportService.parsePrice(CsvReader.column(record, columns, "unitPrice"));
+                Long categoryId = ProductImportService.parseId(CsvReader.column(record, columns, "categoryId"), "categoryId");
+                String description = CsvReader.column(record, columns, "description");
+                description = description == null || description.isEmpty() ? null : description;
+                feedRow = new FeedRow(row, sku, name, categoryId, description, unitPrice,
+                    contentHash(name, categoryId, description, unitPrice), current == null ? null : current.productId());
+            } catch (IllegalArgumentException e) {
+                job.fail(row, e.getMessage());
+                continue;
+            }
+
+            if (current == null) {
+                inserts.add(feedRow);
+            } else if (current.hash() != feedRow.hash()) {
+                updates.add(feedRow);
+            } else {
+                job.unchanged.incrementAndGet();
+            }
+            if (inserts.size() >= batchSize) {
+                writeBatch(inserts, batch -> insert(supplierId, batch), ProductChangedEvent.Type.CREATED, job.inserted, job);
+            }
+            if (updates.size() >= batchSize) {
+                writeBatch(updates, batch -> update(supplierId, batch), ProductChangedEvent.Type.UPDATED, job.updated, job);
+            }
+        }
+        writeBatch(inserts, batch -> insert(supplierId, batch), ProductChangedEvent.Type.CREATED, job.inserted, job);
+        writeBatch(updates, batch -> update(supplierId, batch), ProductChangedEvent.Type.UPDATED, job.updated, job);
+        return seen;
+    }
+
+    /**
+     * 內容雜湊：名稱、類別、描述、單價（正規化後）以長度前綴串接，取 SHA-256 的前 8 個位元組
+     */
+    static long contentHash(String name, Long categoryId, String description, BigDecimal unitPrice) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        update(digest, name);
+        update(digest, categoryId == null ? null : categoryId.toString());
+        update(digest, description == null || description.isEmpty() ? null : description);
+        update(digest, unitPrice == null ? null : unitPrice.stripTrailingZeros().toPlainString());
+        return ByteBuffer.wrap(digest.digest()).getLong();
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        if (value == null) {
+            digest.update(ByteBuffer.allocate(4).putInt(-1).array());
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update(ByteBuffer.allocate(4).putInt(bytes.length).array());
+        digest.update(bytes);
+    }
+
+    // ========== 寫入 ==========
+
+    @FunctionalInterface
+    private interface BatchWriter {
+        /**
+         * 在一個交易中寫入一批，回傳異動的商品 ID
+         */
+        List<Long> write(List<FeedRow> batch) throws SQLException;
+    }
+
+    /**
+     * 寫入累積的列並清空；整批失敗時改為逐筆寫入，失敗的列記錄在作業中
+     */
+    private void writeBatch(List<FeedRow> rows, BatchWriter writer, ProductChangedEvent.Type type,
+                            AtomicLong counter, SyncJob job) {
+        List<Long> ids = JdbcBatches.writeWithFallback(job, rows.size(),
+            (from, to) -> writer.write(rows.subList(from, to)), i -> rows.get(i).row());
+        counter.addAndGet(ids.size());
+        job.writes.addAndGet(ids.size());
+        rows.clear();
+        if (!ids.isEmpty()) {
+            eventPublisher.publishEvent(new ProductChangedEvent(ids, type));
+        }
+    }
+
+    private List<Long> insert(long supplierId, List<FeedRow> batch) throws SQLException {
+        return JdbcBatches.inTransaction(dataSource, connection -> {
+            Long[] ids = JdbcBatches.allocateProductIds(connection, batch.size());
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            try (PreparedStatement insert = connection.prepareStatement(INSERT_PRODUCTS)) {
+                insert.setLong(1, supplierId);
+                insert.setTimestamp(2, now);
+                insert.setTimestamp(3, now);
+                setProductArrays(connection, insert, 4, ids, batch);
+                insert.executeUpdate();
+            }
+            upsertItems(connection, supplierId, ids, batch);
+            return List.of(ids);
+        });
+    }
+
+    private List<Long> update(long supplierId, List<FeedRow> batch) throws SQLException {
+        return JdbcBatches.inTransaction(dataSource, connection -> {
+            Long[] ids = batch.stream().map(FeedRow::productId).toArray(Long[]::new);
+            try (PreparedStatement update = connection.prepareStatement(UPDATE_PRODUCTS)) {
+                update.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
+                setProductArrays(connection, update, 2, ids, batch);
+                update.executeUpdate();
+            }
+            upsertItems(connection, supplierId, ids, batch);
+            return List.of(ids);
+        });
+    }
+
+    /**
+     * 商品檔中沒有出現的 SKU：軟刪除對應的商品並移除對應（已刪除商品的墓碑保留）
+     */
+    private void deleteMissing(long supplierId, Map<String, Stored> stored, Set<String> seen, SyncJob job) {
+        List<Long> missing = new ArrayList<>();
+        stored.forEach((sku, item) -> {
+            if (!item.deleted() && !seen.contains(sku)) {
+                missing.add(item.productId());
+            }
+        });
+        if (missing.isEmpty()) {
+            return;
+        }
+        if (missing.size() > job.existing * maxDeleteRatio) {
+            job.setMessage("商品檔中缺少 " + missing.size() + " / " + job.existing
+                + " 個 SKU，超過 product.feed.max-delete-ratio，未執行刪除");
+            log.warn("供應商商品檔缺少過多 SKU，未執行刪除: jobId={}, supplierId={}, missing={}, existing={}",
+                job.getId(), supplierId, missing.size(), job.existing);
+            return;
+        }
+        Collections.sort(missing);
+        for (int from = 0; from < missing.size(); from += batchSize) {
+            List<Long> batch = missing.subList(from, Math.min(missing.size(), from + batchSize));
+            try {
+                JdbcBatches.inTransaction(dataSource, connection -> {
+                    try (PreparedStatement delete = connection.prepareStatement(SOFT_DELETE_PRODUCTS)) {
+                        delete.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
+                        delete.setArray(2, connection.createArrayOf("bigint", batch.toArray()));
+                        delete.executeUpdate();
+                    }
+                    try (PreparedStatement delete = connection.prepareStatement(DELETE_ITEMS)) {
+                        delete.setArray(1, connection.createArrayOf("bigint", batch.toArray()));
+                        delete.executeUpdate();
+                    }
+                    return batch;
+                });
+            } catch (SQLException e) {
+                // 對應仍在，下次同步會再嘗試刪除
+                job.setMessage("刪除商品失敗: " + e.getMessage());
+                log.error("供應商商品檔刪除失敗: jobId={}, supplierId={}, products={}", job.getId(), supplierId, batch.size(), e);
+                return;
+            }
+            batch.forEach(tombstoneCache::add);
+            job.deleted.addAndGet(batch.size());
+            job.writes.addAndGet(batch.size());
+            eventPublisher.publishEvent(new ProductChangedEvent(List.copyOf(batch), ProductChangedEvent.Type.DELETED));
+        }
+    }
+
+    private static void setProductArrays(Connection connection, PreparedStatement statement, int index, Long[] ids,
+                                         List<FeedRow> batch) throws SQLException {
+        statement.setArray(index, connection.createArrayOf("bigint", ids));
+        statement.setArray(index + 1, connection.createArrayOf("varchar", batch.stream().map(FeedRow::name).toArray()));
+        statement.setArray(index + 2, connection.createArrayOf("bigint", batch.stream().map(FeedRow::categoryId).toArray()));
+        statement.setArray(index + 3, connection.createArrayOf("text", batch.stream().map(FeedRow::description).toArray()));
+        statement.setArray(index + 4, connection.createArrayOf("numeric", batch.stream().map(FeedRow::unitPrice).toArray()));
+    }
+
+    private static void upsertItems(Connection connection, long supplierId, Long[] ids, List<FeedRow> batch)
+            throws SQLException {
+        try (PreparedStatement upsert = connection.prepareStatement(UPSERT_ITEMS)) {
+            upsert.setLong(1, supplierId);
+            upsert.setArray(2, connection.createArrayOf("bigint", ids));
+            upsert.setArray(3, connection.createArrayOf("varchar", batch.stream().map(FeedRow::sku).toArray()));
+            upsert.setArray(4, connection.createArrayOf("bigint", batch.stream().map(FeedRow::hash).toArray()));
+            upsert.executeUpdate();
+        }
+    }
+
+    /**
+     * 同步作業的進度與結果（計數可在執行中讀取）
+     */
+    public static class SyncJob extends BatchJob {
+
+        private final long supplierId;
+        private final String file;
+        private final AtomicLong inserted = new AtomicLong();
+        private final AtomicLong updated = new AtomicLong();
+        private final AtomicLong unchanged = new AtomicLong();
+        // 管理者已刪除而略過的 SKU
+        private final AtomicLong skipped = new AtomicLong();
+        private final AtomicLong deleted = new AtomicLong();
+        // 寫入的商品數（新增 + 更新 + 刪除）
+        private final AtomicLong writes = new AtomicLong();
+        // 同步前該供應商對應到現有商品的 SKU 數（不含墓碑）
+        private volatile int existing;
+
+        SyncJob(long supplierId, String file, int maxErrors) {
+            super(maxErrors);
+            this.supplierId = supplierId;
+            this.file = file;
+        }
+
+        @Override
+        protected void describe(Map<String, Object> map) {
+            map.put("supplierId", supplierId);
+            map.put("file", file);
+            map.put("existing", existing);
+            map.put("inserted", inserted.get());
+            map.put("updated", updated.get());
+            map.put("unchanged", unchanged.get());
+            map.put("skipped", skipped.get());
+            map.put("deleted", deleted.get());
+            map.put("writes", writes.get());
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package dev.backend.demo.store;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 文件模式的購物車 JSON 結構（carts.document）
+ * <pre>
+ * {"nextLineId": 3, "lines": [{"lineId": 1, "productId": 7, "quantity": 2, "unitPrice": 19.90}, ...]}
+ * </pre>
+ */
+class CartDocument {
+    
+    public long nextLineId = 1;
+    public List<Line> lines = new ArrayList<>();
+    
+    Line findLine(Long productId) {
+        for (Line line : lines) {
+            if (line.productId.equals(productId)) {
+                return line;
+            }
+        }
+        return null;
+    }
+    
+    static class Line {
+        public long lineId;
+        public Long productId;
+        public int quantity;
+        public BigDecimal unitPrice;
+        
+        public Line() {}
+        
+        Line(long lineId, Long productId, int quantity, BigDecimal unitPrice) {
+            this.lineId = lineId;
+            this.productId = productId;
+            this.quantity = quantity;
+            this.unitPrice = unitPrice;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package dev.backend.demo.store;
+
+import java.math.BigDecimal;
+
+/**
+ * 購物車項目快照
+ */
+public class CartLine {
+    
+    private final Long lineId;
+    private final Long productId;
+    private final int quantity;
+    private final BigDecimal unitPrice;
+    
+    public CartLine(Long lineId, Long productId, int quantity, BigDecimal unitPrice) {
+        this.lineId = lineId;
+        this.productId = productId;
+        this.quantity = quantity;
+        this.unitPrice = unitPrice;
+    }
+    
+    public Long getLineId() {
+        return lineId;
+    }
+    
+    public Long getProductId() {
+        return productId;
+    }
+    
+    public int getQuantity() {
+        return quantity;
+    }
+    
+    public BigDecimal getUnitPrice() {
+        return unitPrice;
+    }
+    
+    /**
+     * 計算小計
+     */
+    public BigDecimal getSubtotal() {
+        return unitPrice.multiply(BigDecimal.valueOf(quantity));
+    }
+}
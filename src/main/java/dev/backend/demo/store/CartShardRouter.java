@@ -0,0 +1,176 @@
+package dev.backend.demo.store;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 購物車分片路由
+ *
+ * 使用者先以 userId 雜湊到固定數量的桶（bucket），再由「桶 → 分片」對照表決定所在分片。
+ * 重新分片時以桶為單位搬移，不需要改變雜湊函數；對照表存放在主資料庫的 cart_shard_buckets。
+ *
+ * 桶搬移期間：
+ * - 已搬移的使用者記錄在 movedUsers，路由到目標分片；其餘仍在來源分片
+ * - 每個桶有一把讀寫鎖：一般操作持有讀鎖，搬移單一使用者與最後切換對照表時持有寫鎖
+ *
+ * 搬移中的桶會記錄在 cart_shard_buckets.migrating_to，程序中途停止時，
+ * 下次啟動由 ShardedCartStore 在接收請求前完成剩餘的搬移。
+ *
+ * 注意：鎖只在單一節點內有效，多節點部署時請在只有一個節點接收購物車寫入時執行重新分片。
+ */
+@Slf4j
+public class CartShardRouter {
+
+    private final JdbcTemplate directory;
+    private final int bucketCount;
+    private final int shardCount;
+    private final ReadWriteLock[] bucketLocks;
+
+    // 桶 → 分片對照表，copy-on-write
+    private volatile int[] bucketToShard;
+
+    // 搬移中的桶 → 目標分片
+    private final Map<Integer, Integer> migrating = new ConcurrentHashMap<>();
+
+    // 搬移中的桶裡已完成搬移的使用者
+    private final Set<Long> movedUsers = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param directory   主資料庫，存放 cart_shard_buckets 對照表
+     * @param bucketCount 桶數（建立後不可變更）
+     * @param shardCount  目前設定的分片數
+     */
+    public CartShardRouter(JdbcTemplate directory, int bucketCount, int shardCount) {
+        this.directory = directory;
+        this.bucketCount = bucketCount;
+        this.shardCount = shardCount;
+        this.bucketLocks = new ReadWriteLock[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            bucketLocks[i] = new ReentrantReadWriteLock();
+        }
+        this.bucketToShard = loadDirectory();
+    }
+
+    /**
+     * 載入桶對照表；第一次啟動時依 bucket % shardCount 建立並寫入
+     */
+    private int[] loadDirectory() {
+        directory.execute("CREATE TABLE IF NOT EXISTS cart_shard_buckets ("
+            + "bucket INT PRIMARY KEY, shard INT NOT NULL, migrating_to INT)");
+
+        int[] mapping = new int[bucketCount];
+        Arrays.fill(mapping, -1);
+        directory.query("SELECT bucket, shard, migrating_to FROM cart_shard_buckets", rs -> {
+            int bucket = rs.getInt("bucket");
+            if (bucket >= bucketCount) {
+                throw new IllegalStateException("cart_shard_buckets 的桶數與設定不符: bucket=" + bucket
+                    + ", buckets=" + bucketCount);
+            }
+            mapping[bucket] = rs.getInt("shard");
+            int target = rs.getInt("migrating_to");
+            if (!rs.wasNull()) {
+                migrating.put(bucket, target);
+            }
+        });
+
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            if (mapping[bucket] < 0) {
+                mapping[bucket] = bucket % shardCount;
+                directory.update("INSERT INTO cart_shard_buckets (bucket, shard) VALUES (?, ?) "
+                    + "ON CONFLICT (bucket) DO NOTHING", bucket, mapping[bucket]);
+            }
+            if (mapping[bucket] >= shardCount) {
+                throw new IllegalStateException("桶 " + bucket + " 對應到未設定的分片 " + mapping[bucket]
+                    + "，移除分片前請先將其上的桶搬走");
+            }
+        }
+        log.info("載入購物車分片對照表: buckets={}, shards={}", bucketCount, shardCount);
+        return mapping;
+    }
+
+    /**
+     * 計算使用者所屬的桶
+     */
+    public int bucketOf(Long userId) {
+        long h = userId * 0x9E3779B97F4A7C15L;
+        return Math.floorMod((int) (h ^ (h >>> 32)), bucketCount);
+    }
+
+    /**
+     * 計算使用者目前所在的分片（呼叫者需持有該桶的讀鎖或寫鎖）
+     */
+    public int shardOf(Long userId) {
+        int bucket = bucketOf(userId);
+        Integer target = migrating.get(bucket);
+        if (target != null && movedUsers.contains(userId)) {
+            return target;
+        }
+        return bucketToShard[bucket];
+    }
+
+    public ReadWriteLock lockFor(Long userId) {
+        return bucketLocks[bucketOf(userId)];
+    }
+
+    public ReadWriteLock lockForBucket(int bucket) {
+        return bucketLocks[bucket];
+    }
+
+    public int getBucketCount() {
+        return bucketCount;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public int shardOfBucket(int bucket) {
+        return bucketToShard[bucket];
+    }
+
+    // ========== 重新分片狀態轉換（由 ShardedCartStore 呼叫） ==========
+
+    void beginMigration(int bucket, int targetShard) {
+        directory.update("UPDATE cart_shard_buckets SET migrating_to = ? WHERE bucket = ?", targetShard, bucket);
+        migrating.put(bucket, targetShard);
+    }
+
+    void markMoved(Long userId) {
+        movedUsers.add(userId);
+    }
+
+    /**
+     * 完成桶搬移：寫入對照表並切換路由（呼叫者需持有該桶的寫鎖）
+     */
+    void completeMigration(int bucket, int targetShard) {
+        directory.update("UPDATE cart_shard_buckets SET shard = ?, migrating_to = NULL WHERE bucket = ?",
+            targetShard, bucket);
+        int[] mapping = bucketToShard.clone();
+        mapping[bucket] = targetShard;
+        bucketToShard = mapping;
+        migrating.remove(bucket);
+        movedUsers.removeIf(userId -> bucketOf(userId) == bucket);
+    }
+
+    /**
+     * 取得搬移中桶的目標分片
+     * @return 目標分片，未在搬移中則為 null
+     */
+    public Integer migrationTarget(int bucket) {
+        return migrating.get(bucket);
+    }
+
+    /**
+     * 目前所有搬移中的桶（桶 → 目標分片）
+     */
+    public Map<Integer, Integer> migrations() {
+        return Map.copyOf(migrating);
+    }
+}
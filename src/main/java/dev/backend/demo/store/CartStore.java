@@ -0,0 +1,62 @@
+package dev.backend.demo.store;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * 購物車儲存 SPI (Service Provider Interface)
+ * 
+ * CartService 只透過這個介面存取購物車資料，不直接依賴 JPA 實體或 Repository。
+ * 實作由 cart.store.type 設定選擇（見 CartStoreConfig）：
+ * - jpa：     JpaCartStore，使用 carts / cart_items 資料表（預設）
+ * - document：DocumentCartStore，整個購物車存成 carts.document (JSONB)
+ * - sharded： ShardedCartStore，依 userId 雜湊分散到多個資料庫
+ * - offheap： OffHeapCartStore，記憶體映射檔案中的雜湊表，不佔用 Java heap
+ * 
+ * 所有實作都必須通過同一組 contract 測試（CartStoreContractTest）。
+ * 每個方法對單一使用者而言都是原子操作。
+ */
+public interface CartStore {
+    
+    /**
+     * 查詢使用者的購物車
+     * @return 購物車快照，不存在則為 Optional.empty()
+     */
+    Optional<StoredCart> find(Long userId);
+    
+    /**
+     * 取得使用者的購物車，不存在則建立空購物車
+     */
+    StoredCart getOrCreate(Long userId);
+    
+    /**
+     * 增加商品數量；商品不在購物車中則新增項目（以 unitPrice 作為單價）
+     * 購物車不存在時會自動建立
+     */
+    void addQuantity(Long userId, Long productId, int quantity, BigDecimal unitPrice);
+    
+    /**
+     * 設定商品數量
+     * @return false 表示購物車或項目不存在
+     */
+    boolean setQuantity(Long userId, Long productId, int quantity);
+    
+    /**
+     * 移除購物車中的商品
+     * @return false 表示購物車或項目不存在
+     */
+    boolean removeLine(Long userId, Long productId);
+    
+    /**
+     * 清空購物車（保留購物車本身；OffHeapCartStore 則釋放空的購物車，之後 find 回傳 Optional.empty()）
+     */
+    void clear(Long userId);
+    
+    /**
+     * 刪除指向這些商品的購物車項目（已刪除商品的清除）
+     * @param batchSize 本次最多刪除的列數；實作可一次處理全部
+     * @return 實際刪除的項目數
+     */
+    int purgeProducts(Collection<Long> productIds, int batchSize);
+}
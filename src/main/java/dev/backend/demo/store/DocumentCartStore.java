@@ -0,0 +1,228 @@
+package dev.backend.demo.store;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.backend.demo.exception.InvalidOperationException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * 文件模式購物車儲存
+ *
+ * 整個購物車以一份 JSON 文件存放在 carts.document (JSONB) 欄位，不使用 cart_items 資料表：
+ * - 讀取：一次單列 SELECT
+ * - 寫入：讀取 → 在記憶體修改文件 → 一次單列 UPDATE
+ * - 以 carts.version 做樂觀鎖，版本不符時重新讀取並重試
+ *
+ * 適合項目數少（50 項以下）且總是整車讀取的購物車。
+ * 注意：切換到文件模式後，原本存在 cart_items 的項目不會被讀取。
+ */
+@Slf4j
+public class DocumentCartStore implements CartStore {
+
+    private static final int MAX_RETRIES = 10;
+
+    private static final String SELECT_CART =
+        "SELECT cart_id, user_id, document, version FROM carts WHERE user_id = ?";
+
+    private static final String INSERT_CART =
+        "INSERT INTO carts (user_id, created_at, updated_at, document, version) "
+            + "VALUES (?, now(), now(), CAST(? AS jsonb), 0) ON CONFLICT (user_id) DO NOTHING";
+
+    private static final String UPDATE_CART =
+        "UPDATE carts SET document = CAST(? AS jsonb), version = version + 1, updated_at = now() "
+            + "WHERE cart_id = ? AND version = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final int maxLines;
+
+    public DocumentCartStore(int maxLines) {
+        this.maxLines = maxLines;
+    }
+
+    /**
+     * 供測試或分片使用：指定 JdbcTemplate 與 ObjectMapper
+     */
+    public DocumentCartStore(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper, int maxLines) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.maxLines = maxLines;
+    }
+
+    @Override
+    public Optional<StoredCart> find(Long userId) {
+        return load(userId).map(Row::toStoredCart);
+    }
+
+    @Override
+    public StoredCart getOrCreate(Long userId) {
+        return loadOrCreate(userId).toStoredCart();
+    }
+
+    @Override
+    public void addQuantity(Long userId, Long productId, int quantity, BigDecimal unitPrice) {
+        mutate(userId, true, document -> {
+            CartDocument.Line line = document.findLine(productId);
+            if (line != null) {
+                line.quantity += quantity;
+                return true;
+            }
+            if (document.lines.size() >= maxLines) {
+                throw new InvalidOperationException("購物車項目數已達上限：" + maxLines);
+            }
+            document.lines.add(new CartDocument.Line(document.nextLineId++, productId, quantity, unitPrice));
+            return true;
+        });
+    }
+
+    @Override
+    public boolean setQuantity(Long userId, Long productId, int quantity) {
+        return mutate(userId, false, document -> {
+            CartDocument.Line line = document.findLine(productId);
+            if (line == null) {
+                return false;
+            }
+            line.quantity = quantity;
+            return true;
+        });
+    }
+
+    @Override
+    public boolean removeLine(Long userId, Long productId) {
+        return mutate(userId, false, document -> document.lines.removeIf(line -> line.productId.equals(productId)));
+    }
+
+    @Override
+    public void clear(Long userId) {
+        mutate(userId, false, document -> {
+            if (document.lines.isEmpty()) {
+                return false;
+            }
+            document.lines.clear();
+            return true;
+        });
+    }
+
+    /**
+     * 以單一 set-based UPDATE 從文件中移除這些商品的項目
+     * @return 本批更新的購物車數（非項目數），少於 batchSize 表示已處理完畢
+     */
+    @Override
+    public int purgeProducts(Collection<Long> productIds, int batchSize) {
+        if (productIds.isEmpty()) {
+            return 0;
+        }
+        // productIds 皆為 Long，直接組成 IN 清單
+        String ids = productIds.stream().map(String::valueOf).collect(Collectors.joining(","));
+        String sql = "UPDATE carts c SET document = jsonb_set(c.document, '{lines}', COALESCE(("
+            + "SELECT jsonb_agg(l) FROM jsonb_array_elements(c.document->'lines') l "
+            + "WHERE (l->>'productId')::bigint NOT IN (" + ids + ")), '[]'::jsonb)), "
+            + "version = c.version + 1, updated_at = now() "
+            + "WHERE c.cart_id IN (SELECT cart_id FROM carts WHERE document IS NOT NULL AND EXISTS ("
+            + "SELECT 1 FROM jsonb_array_elements(document->'lines') l "
+            + "WHERE (l->>'productId')::bigint IN (" + ids + ")) LIMIT ?)";
+        return jdbcTemplate.update(sql, batchSize);
+    }
+
+    // ========== 讀寫輔助方法 ==========
+
+    /**
+     * 樂觀鎖讀取-修改-寫入迴圈
+     * @param create   購物車不存在時是否建立
+     * @param mutation 修改文件；回傳 false 表示沒有變更，不寫回
+     * @return mutation 的回傳值（購物車不存在且 create=false 時為 false）
+     */
+    private boolean mutate(Long userId, boolean create, Predicate<CartDocument> mutation) {
+        for (int attempt = 0; attempt < MAX_RETRIES; attempt++) {
+            Optional<Row> loaded = create ? Optional.of(loadOrCreate(userId)) : load(userId);
+            if (loaded.isEmpty()) {
+                return false;
+            }
+            Row row = loaded.get();
+            if (!mutation.test(row.document)) {
+                return false;
+            }
+            int updated = jdbcTemplate.update(UPDATE_CART, write(row.document), row.cartId, row.version);
+            if (updated == 1) {
+                return true;
+            }
+            log.debug("購物車版本衝突，重試: userId={}, version={}, attempt={}", userId, row.version, attempt);
+        }
+        throw new OptimisticLockingFailureException("購物車更新衝突次數過多: userId=" + userId);
+    }
+
+    private Optional<Row> load(Long userId) {
+        List<Row> rows = jdbcTemplate.query(SELECT_CART, rowMapper, userId);
+        return rows.isEmpty() ? Optional.empty() : Optional.of(rows.get(0));
+    }
+
+    private Row loadOrCreate(Long userId) {
+        Optional<Row> row = load(userId);
+        if (row.isPresent()) {
+            return row.get();
+        }
+        jdbcTemplate.update(INSERT_CART, userId, write(new CartDocument()));
+        return load(userId).orElseThrow();
+    }
+
+    private final RowMapper<Row> rowMapper = (rs, rowNum) -> {
+        String json = rs.getString("document");
+        return new Row(rs.getLong("cart_id"), rs.getLong("user_id"), rs.getLong("version"),
+            json == null ? new CartDocument() : read(json));
+    };
+
+    private String write(CartDocument document) {
+        try {
+            return objectMapper.writeValueAsString(document);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("購物車文件序列化失敗", e);
+        }
+    }
+
+    private CartDocument read(String json) {
+        try {
+            return objectMapper.readValue(json, CartDocument.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("購物車文件解析失敗", e);
+        }
+    }
+
+    /**
+     * carts 資料列：ID、版本號與解析後的文件
+     */
+    private static class Row {
+        final long cartId;
+        final long userId;
+        final long version;
+        final CartDocument document;
+
+        Row(long cartId, long userId, long version, CartDocument document) {
+            this.cartId = cartId;
+            this.userId = userId;
+            this.version = version;
+            this.document = document;
+        }
+
+        StoredCart toStoredCart() {
+            List<CartLine> lines = document.lines.stream()
+                .map(line -> new CartLine(line.lineId, line.productId, line.quantity, line.unitPrice))
+                .collect(Collectors.toList());
+            return new StoredCart(cartId, userId, lines);
+        }
+    }
+}
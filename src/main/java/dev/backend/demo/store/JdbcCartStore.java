@@ -0,0 +1,161 @@
+package dev.backend.demo.store;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * 正規化購物車儲存（純 JDBC）
+ *
+ * 與 JpaCartStore 相同的 carts / cart_items 結構，但不經過 JPA，可以掛在任意 DataSource 上，
+ * 供 ShardedCartStore 作為每個分片的儲存使用（結構見 db/cart-shard-schema.sql）。
+ *
+ * 每個寫入操作都是單一 SQL 語句：
+ * - 加入商品以 INSERT ... ON CONFLICT 同時建立購物車並累加數量，不會產生重複項目
+ * - carts.bucket 記錄使用者所屬的雜湊桶，重新分片時依桶搬移
+ */
+public class JdbcCartStore implements CartStore {
+
+    private static final String SELECT_CART =
+        "SELECT c.cart_id, c.user_id, i.cart_item_id, i.product_id, i.quantity, i.unit_price "
+            + "FROM carts c LEFT JOIN cart_items i ON i.cart_id = c.cart_id "
+            + "WHERE c.user_id = ? ORDER BY i.cart_item_id";
+
+    private static final String UPSERT_CART =
+        "INSERT INTO carts (user_id, bucket) VALUES (?, ?) ON CONFLICT (user_id) DO NOTHING";
+
+    private static final String ADD_QUANTITY =
+        "WITH c AS (INSERT INTO carts (user_id, bucket) VALUES (?, ?) "
+            + "ON CONFLICT (user_id) DO UPDATE SET updated_at = now() RETURNING cart_id) "
+            + "INSERT INTO cart_items (cart_id, product_id, quantity, unit_price) "
+            + "SELECT cart_id, ?, ?, ? FROM c "
+            + "ON CONFLICT (cart_id, product_id) DO UPDATE "
+            + "SET quantity = cart_items.quantity + EXCLUDED.quantity, updated_at = now()";
+
+    private static final String SET_QUANTITY =
+        "UPDATE cart_items i SET quantity = ?, updated_at = now() FROM carts c "
+            + "WHERE c.cart_id = i.cart_id AND c.user_id = ? AND i.product_id = ?";
+
+    private static final String REMOVE_LINE =
+        "DELETE FROM cart_items i USING carts c "
+            + "WHERE c.cart_id = i.cart_id AND c.user_id = ? AND i.product_id = ?";
+
+    private static final String CLEAR =
+        "DELETE FROM cart_items i USING carts c WHERE c.cart_id = i.cart_id AND c.user_id = ?";
+
+    private static final String PURGE_PRODUCTS =
+        "DELETE FROM cart_items WHERE cart_item_id IN ("
+            + "SELECT cart_item_id FROM cart_items WHERE product_id = ANY (?) LIMIT ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ToIntFunction<Long> bucketOf;
+
+    /**
+     * @param jdbcTemplate 分片資料庫
+     * @param bucketOf     計算使用者所屬的雜湊桶
+     */
+    public JdbcCartStore(JdbcTemplate jdbcTemplate, ToIntFunction<Long> bucketOf) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.bucketOf = bucketOf;
+    }
+
+    @Override
+    public Optional<StoredCart> find(Long userId) {
+        List<CartLine> lines = new ArrayList<>();
+        Long[] cartId = new Long[1];
+        jdbcTemplate.query(SELECT_CART, rs -> {
+            cartId[0] = rs.getLong("cart_id");
+            long lineId = rs.getLong("cart_item_id");
+            if (!rs.wasNull()) {
+                lines.add(new CartLine(lineId, rs.getLong("product_id"), rs.getInt("quantity"), rs.getBigDecimal("unit_price")));
+            }
+        }, userId);
+        return cartId[0] == null ? Optional.empty() : Optional.of(new StoredCart(cartId[0], userId, lines));
+    }
+
+    @Override
+    public StoredCart getOrCreate(Long userId) {
+        return find(userId).orElseGet(() -> {
+            jdbcTemplate.update(UPSERT_CART, userId, bucketOf.applyAsInt(userId));
+            return find(userId).orElseThrow();
+        });
+    }
+
+    @Override
+    public void addQuantity(Long userId, Long productId, int quantity, BigDecimal unitPrice) {
+        jdbcTemplate.update(ADD_QUANTITY, userId, bucketOf.applyAsInt(userId), productId, quantity, unitPrice);
+    }
+
+    @Override
+    public boolean setQuantity(Long userId, Long productId, int quantity) {
+        return jdbcTemplate.update(SET_QUANTITY, quantity, userId, productId) > 0;
+    }
+
+    @Override
+    public boolean removeLine(Long userId, Long productId) {
+        return jdbcTemplate.update(REMOVE_LINE, userId, productId) > 0;
+    }
+
+    @Override
+    public void clear(Long userId) {
+        jdbcTemplate.update(CLEAR, userId);
+    }
+
+    @Override
+    public int purgeProducts(Collection<Long> productIds, int batchSize) {
+        Long[] ids = productIds.toArray(new Long[0]);
+        return jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(PURGE_PRODUCTS)) {
+                statement.setArray(1, connection.createArrayOf("bigint", ids));
+                statement.setInt(2, batchSize);
+                return statement.executeUpdate();
+            }
+        });
+    }
+
+    // ========== 重新分片使用的操作 ==========
+
+    /**
+     * 列出此分片中屬於某個雜湊桶的使用者
+     */
+    public List<Long> findUserIdsInBucket(int bucket) {
+        return jdbcTemplate.queryForList("SELECT user_id FROM carts WHERE bucket = ?", Long.class, bucket);
+    }
+
+    /**
+     * 統計此分片每個雜湊桶的購物車數
+     */
+    public List<int[]> countByBucket() {
+        return jdbcTemplate.query("SELECT bucket, count(*) FROM carts GROUP BY bucket ORDER BY bucket",
+            (rs, rowNum) -> new int[] {rs.getInt(1), rs.getInt(2)});
+    }
+
+    /**
+     * 以來源分片的內容取代此分片中使用者的購物車（可重複執行）
+     */
+    public void importCart(StoredCart cart) {
+        Long userId = cart.getUserId();
+        jdbcTemplate.update(UPSERT_CART, userId, bucketOf.applyAsInt(userId));
+        clear(userId);
+        List<Object[]> rows = cart.getLines().stream()
+            .map(line -> new Object[] {line.getProductId(), line.getQuantity(), line.getUnitPrice(), userId})
+            .collect(Collectors.toList());
+        jdbcTemplate.batchUpdate("INSERT INTO cart_items (cart_id, product_id, quantity, unit_price) "
+            + "SELECT cart_id, ?, ?, ? FROM carts WHERE user_id = ?", rows);
+    }
+
+    /**
+     * 刪除使用者的購物車（項目由 ON DELETE CASCADE 一併刪除）
+     */
+    public void deleteCart(Long userId) {
+        jdbcTemplate.update("DELETE FROM carts WHERE user_id = ?", userId);
+    }
+}
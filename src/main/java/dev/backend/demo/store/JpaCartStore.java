@@ -0,0 +1,97 @@
+package dev.backend.demo.store;
+
+import dev.backend.demo.model.Cart;
+import dev.backend.demo.model.CartItem;
+import dev.backend.demo.repository.CartItemRepository;
+import dev.backend.demo.repository.CartRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * JPA 購物車儲存（預設實作）
+ * 購物車存放於 carts 資料表，項目存放於 cart_items 資料表
+ * 
+ * 建立購物車與加入商品不是「先查詢再儲存」，而是以 INSERT ... ON CONFLICT 在資料庫中完成
+ * （同 JdbcCartStore），同一使用者的並行請求不會遺失數量或產生重複的購物車／項目。
+ * 依賴 cart_items 的 (cart_id, product_id) 唯一約束：由 Hibernate 建表時建立，
+ * 已有重複項目的舊資料庫需先執行 db/cart-items-unique-key.sql。
+ */
+@Transactional
+public class JpaCartStore implements CartStore {
+    
+    @Autowired
+    private CartRepository cartRepository;
+    
+    @Autowired
+    private CartItemRepository cartItemRepository;
+    
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<StoredCart> find(Long userId) {
+        return cartRepository.findByUserIdWithItems(userId).map(this::toStoredCart);
+    }
+    
+    @Override
+    public StoredCart getOrCreate(Long userId) {
+        return cartRepository.findByUserIdWithItems(userId)
+            .map(this::toStoredCart)
+            .orElseGet(() -> {
+                // 另一個請求可能同時建立：ON CONFLICT DO NOTHING 後再讀一次
+                cartRepository.insertIfAbsent(userId);
+                return toStoredCart(cartRepository.findByUserIdWithItems(userId).orElseThrow());
+            });
+    }
+    
+    @Override
+    public void addQuantity(Long userId, Long productId, int quantity, BigDecimal unitPrice) {
+        cartItemRepository.addQuantity(userId, productId, quantity, unitPrice);
+    }
+    
+    @Override
+    public boolean setQuantity(Long userId, Long productId, int quantity) {
+        Optional<CartItem> cartItem = findItem(userId, productId);
+        cartItem.ifPresent(item -> {
+            item.setQuantity(quantity);
+            cartItemRepository.save(item);
+        });
+        return cartItem.isPresent();
+    }
+    
+    @Override
+    public boolean removeLine(Long userId, Long productId) {
+        Optional<CartItem> cartItem = findItem(userId, productId);
+        cartItem.ifPresent(cartItemRepository::delete);
+        return cartItem.isPresent();
+    }
+    
+    @Override
+    public void clear(Long userId) {
+        // 透過 orphanRemoval 刪除項目：同一交易中已載入的 Cart 仍持有這些項目時，
+        // 逐筆 delete 會在 flush 時被 cascade 重新保存，購物車不會被清空
+        cartRepository.findByUserIdWithItems(userId)
+            .ifPresent(cart -> cart.getItems().clear());
+    }
+    
+    @Override
+    public int purgeProducts(Collection<Long> productIds, int batchSize) {
+        return cartItemRepository.deleteBatchByProductIdIn(productIds, batchSize);
+    }
+    
+    private Optional<CartItem> findItem(Long userId, Long productId) {
+        return cartRepository.findByUserId(userId)
+            .flatMap(cart -> cartItemRepository.findByCartIdAndProductId(cart.getCartId(), productId));
+    }
+    
+    private StoredCart toStoredCart(Cart cart) {
+        List<CartLine> lines = cart.getItems().stream()
+            .map(item -> new CartLine(item.getCartItemId(), item.getProductId(), item.getQuantity(), item.getUnitPrice()))
+            .collect(Collectors.toList());
+        return new StoredCart(cart.getCartId(), cart.getUserId(), lines);
+    }
+}
@@ -0,0 +1,534 @@
+package dev.backend.demo.store;
+
+import dev.backend.demo.exception.InvalidOperationException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Off-heap 購物車儲存
+ *
+ * 購物車存放在記憶體映射檔案（memory-mapped file）中的開放定址雜湊表，以 userId 為鍵。
+ * 資料不在 Java heap 上，大量活躍購物車不會增加 GC 壓力；檔案由作業系統寫回磁碟，重啟後可繼續使用。
+ *
+ * 檔案格式（所有數值皆為 native byte order）：
+ * <pre>
+ * Header (64 bytes)
+ *   0  int   magic
+ *   4  int   格式版本
+ *   8  int   capacity（槽位數，2 的次方）
+ *   12 int   maxLines（每個購物車的項目上限）
+ *   16 long  下一個 cartId
+ *   24 long  下一個 lineId
+ * Slot (24 + maxLines * 32 bytes)
+ *   0  long  userId（0 表示空槽，-1 表示已釋放）
+ *   8  long  cartId
+ *   16 int   項目數
+ *   24 Line[maxLines]
+ * Line (32 bytes，固定寬度)
+ *   0  long  lineId
+ *   8  long  productId
+ *   16 long  單價（以分為單位，scale = 2）
+ *   24 int   數量
+ * </pre>
+ *
+ * 槽位區分成多個映射區段（每段不超過 1GB，槽位數為 2 的次方），檔案大小不受單一映射區 2GB 的限制。
+ *
+ * 購物車清空（clear、移除最後一個項目、清除已刪除商品後沒有項目）時釋放槽位：
+ * 釋放的槽位標記為 -1，線性探測時跳過、建立購物車時優先重用；
+ * 後面緊接空槽的釋放標記不再位於任何探測路徑上，直接改回空槽。
+ * 空的購物車因此不會一直佔用槽位，find 也不再找到它（與沒有購物車相同）。
+ *
+ * 並行控制：
+ * - 查詢以 volatile 讀取 userId 探測，不取鎖；佔用與釋放槽位由一個鎖序列化（先取此鎖，再取槽位鎖）
+ * - 槽位內容的讀寫由分段鎖（lock striping）保護；取得槽位鎖後確認槽位仍屬於同一個使用者，
+ *   期間被釋放或重用時重新探測
+ */
+@Slf4j
+public class OffHeapCartStore implements CartStore, AutoCloseable {
+
+    private static final int MAGIC = 0x43415254; // "CART"
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int HEADER_SIZE = 64;
+    private static final int HEADER_CAPACITY = 8;
+    private static final int HEADER_MAX_LINES = 12;
+    private static final int HEADER_NEXT_CART_ID = 16;
+    private static final int HEADER_NEXT_LINE_ID = 24;
+
+    private static final int SLOT_USER_ID = 0;
+    private static final int SLOT_CART_ID = 8;
+    private static final int SLOT_LINE_COUNT = 16;
+    private static final int SLOT_LINES = 24;
+
+    private static final int LINE_SIZE = 32;
+    private static final int LINE_ID = 0;
+    private static final int LINE_PRODUCT_ID = 8;
+    private static final int LINE_UNIT_PRICE = 16;
+    private static final int LINE_QUANTITY = 24;
+
+    // 槽位的 userId：空槽與已釋放
+    private static final long EMPTY = 0L;
+    private static final long RELEASED = -1L;
+
+    private static final int LOCK_STRIPES = 256;
+    private static final int MAX_SEGMENT_SIZE = 1 << 30;
+
+    // 以 long 為單位存取 ByteBuffer 的 VarHandle，支援 volatile 讀取與 CAS
+    private static final VarHandle LONG =
+        MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final MappedByteBuffer[] segments;
+    private final int segmentShift;
+    private final int capacity;
+    private final int maxLines;
+    private final int slotSize;
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+    // 佔用與釋放槽位
+    private final ReentrantLock claimLock = new ReentrantLock();
+
+    /**
+     * 開啟或建立 off-heap 購物車檔案
+     * @param path     檔案路徑
+     * @param capacity 槽位數（會向上取整為 2 的次方），即可同時容納的非空購物車數量
+     * @param maxLines 每個購物車的項目上限
+     */
+    public OffHeapCartStore(Path path, int capacity, int maxLines) {
+        this(path, capacity, maxLines, MAX_SEGMENT_SIZE);
+    }
+
+    /**
+     * @param maxSegmentSize 每個映射區段的大小上限（bytes，測試時以較小的值產生多個區段）
+     */
+    OffHeapCartStore(Path path, int capacity, int maxLines, int maxSegmentSize) {
+        this.capacity = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        this.maxLines = maxLines;
+        this.slotSize = SLOT_LINES + maxLines * LINE_SIZE;
+        if (this.capacity <= 0 || slotSize > maxSegmentSize) {
+            throw new IllegalArgumentException("off-heap 購物車容量或項目上限過大: capacity=" + capacity
+                + ", maxLines=" + maxLines);
+        }
+        int slotsPerSegment = Math.min(this.capacity, Integer.highestOneBit(maxSegmentSize / slotSize));
+        this.segmentShift = Integer.numberOfTrailingZeros(slotsPerSegment);
+        this.segments = new MappedByteBuffer[this.capacity / slotsPerSegment];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            header.order(ByteOrder.nativeOrder());
+            long segmentSize = (long) slotsPerSegment * slotSize;
+            for (int i = 0; i < segments.length; i++) {
+                segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + i * segmentSize, segmentSize);
+                segments[i].order(ByteOrder.nativeOrder());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("無法開啟 off-heap 購物車檔案: " + path, e);
+        }
+
+        if (header.getInt(0) == MAGIC) {
+            verifyHeader(path);
+            log.info("載入 off-heap 購物車檔案: path={}, capacity={}, maxLines={}, segments={}",
+                path, this.capacity, maxLines, segments.length);
+        } else {
+            header.putInt(4, FORMAT_VERSION);
+            header.putInt(HEADER_CAPACITY, this.capacity);
+            header.putInt(HEADER_MAX_LINES, maxLines);
+            header.putLong(HEADER_NEXT_CART_ID, 1L);
+            header.putLong(HEADER_NEXT_LINE_ID, 1L);
+            header.putInt(0, MAGIC);
+            log.info("建立 off-heap 購物車檔案: path={}, capacity={}, maxLines={}, segments={}",
+                path, this.capacity, maxLines, segments.length);
+        }
+    }
+
+    private void verifyHeader(Path path) {
+        if (header.getInt(4) != FORMAT_VERSION
+                || header.getInt(HEADER_CAPACITY) != capacity
+                || header.getInt(HEADER_MAX_LINES) != maxLines) {
+            throw new IllegalStateException("off-heap 購物車檔案格式與設定不符: " + path
+                + " (capacity=" + header.getInt(HEADER_CAPACITY) + ", maxLines=" + header.getInt(HEADER_MAX_LINES) + ")");
+        }
+    }
+
+    @Override
+    public Optional<StoredCart> find(Long userId) {
+        int slot = lockSlot(userId, false);
+        if (slot < 0) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(readCart(slot));
+        } finally {
+            lockFor(slot).unlock();
+        }
+    }
+
+    @Override
+    public StoredCart getOrCreate(Long userId) {
+        int slot = lockSlot(userId, true);
+        try {
+            return readCart(slot);
+        } finally {
+            lockFor(slot).unlock();
+        }
+    }
+
+    @Override
+    public void addQuantity(Long userId, Long productId, int quantity, BigDecimal unitPrice) {
+        int slot = lockSlot(userId, true);
+        try {
+            ByteBuffer buffer = segment(slot);
+            int base = slotOffset(slot);
+            int line = indexOf(buffer, base, productId);
+            if (line >= 0) {
+                int offset = lineOffset(base, line) + LINE_QUANTITY;
+                buffer.putInt(offset, buffer.getInt(offset) + quantity);
+                return;
+            }
+
+            int count = buffer.getInt(base + SLOT_LINE_COUNT);
+            if (count >= maxLines) {
+                throw new InvalidOperationException("購物車項目數已達上限：" + maxLines);
+            }
+            int offset = lineOffset(base, count);
+            buffer.putLong(offset + LINE_ID, (long) LONG.getAndAdd(header, HEADER_NEXT_LINE_ID, 1L));
+            buffer.putLong(offset + LINE_PRODUCT_ID, productId);
+            buffer.putLong(offset + LINE_UNIT_PRICE, toCents(unitPrice));
+            buffer.putInt(offset + LINE_QUANTITY, quantity);
+            buffer.putInt(base + SLOT_LINE_COUNT, count + 1);
+        } finally {
+            lockFor(slot).unlock();
+        }
+    }
+
+    @Override
+    public boolean setQuantity(Long userId, Long productId, int quantity) {
+        int slot = lockSlot(userId, false);
+        if (slot < 0) {
+            return false;
+        }
+        try {
+            ByteBuffer buffer = segment(slot);
+            int base = slotOffset(slot);
+            int line = indexOf(buffer, base, productId);
+            if (line < 0) {
+                return false;
+            }
+            buffer.putInt(lineOffset(base, line) + LINE_QUANTITY, quantity);
+            return true;
+        } finally {
+            lockFor(slot).unlock();
+        }
+    }
+
+    @Override
+    public boolean removeLine(Long userId, Long productId) {
+        int slot = lockSlot(userId, false);
+        if (slot < 0) {
+            return false;
+        }
+        boolean emptied;
+        try {
+            ByteBuffer buffer = segment(slot);
+            int base = slotOffset(slot);
+            int line = indexOf(buffer, base, productId);
+            if (line < 0) {
+                return false;
+            }
+            removeAt(buffer, base, line);
+            emptied = buffer.getInt(base + SLOT_LINE_COUNT) == 0;
+        } finally {
+            lockFor(slot).unlock();
+        }
+        if (emptied) {
+            releaseIfEmpty(slot, userId);
+        }
+        return true;
+    }
+
+    /**
+     * 清空購物車並釋放槽位（之後 find 回傳 Optional.empty()，再加入商品時建立新的購物車）
+     */
+    @Override
+    public void clear(Long userId) {
+        int slot = lockSlot(userId, false);
+        if (slot < 0) {
+            return;
+        }
+        try {
+            segment(slot).putInt(slotOffset(slot) + SLOT_LINE_COUNT, 0);
+        } finally {
+            lockFor(slot).unlock();
+        }
+        releaseIfEmpty(slot, userId);
+    }
+
+    /**
+     * 掃描所有購物車，移除指向這些商品的項目（因此清空的購物車釋放槽位）
+     * 純記憶體操作，一次處理全部，不受 batchSize 限制
+     */
+    @Override
+    public int purgeProducts(Collection<Long> productIds, int batchSize) {
+        int removed = 0;
+        for (int slot = 0; slot < capacity; slot++) {
+            ByteBuffer buffer = segment(slot);
+            int base = slotOffset(slot);
+            long userId = (long) LONG.getVolatile(buffer, base + SLOT_USER_ID);
+            if (userId <= 0L) {
+                continue;
+            }
+            boolean emptied = false;
+            ReentrantLock lock = lockFor(slot);
+            lock.lock();
+            try {
+                if ((long) LONG.getVolatile(buffer, base + SLOT_USER_ID) != userId) {
+                    continue;
+                }
+                int count = buffer.getInt(base + SLOT_LINE_COUNT);
+                for (int line = count - 1; line >= 0; line--) {
+                    if (productIds.contains(buffer.getLong(lineOffset(base, line) + LINE_PRODUCT_ID))) {
+                        removeAt(buffer, base, line);
+                        removed++;
+                    }
+                }
+                emptied = count > 0 && buffer.getInt(base + SLOT_LINE_COUNT) == 0;
+            } finally {
+                lock.unlock();
+            }
+            if (emptied) {
+                releaseIfEmpty(slot, userId);
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * 將映射內容寫回磁碟並關閉檔案
+     */
+    @Override
+    public void close() throws IOException {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+        header.force();
+        channel.close();
+    }
+
+    // ========== 雜湊表操作 ==========
+
+    /**
+     * 找到使用者的槽位並取得槽位鎖（呼叫端負責 unlock）
+     * @param create 找不到時是否佔用一個槽位
+     * @return 槽位索引，找不到且 create=false 時回傳 -1（未取鎖）
+     */
+    private int lockSlot(Long userId, boolean create) {
+        long key = userId;
+        if (key <= 0) {
+            throw new IllegalArgumentException("userId 必須大於 0: " + userId);
+        }
+        while (true) {
+            int slot = findSlot(key);
+            if (slot < 0) {
+                if (!create) {
+                    return -1;
+                }
+                slot = claimSlot(key);
+            }
+            ReentrantLock lock = lockFor(slot);
+            lock.lock();
+            if ((long) LONG.getVolatile(segment(slot), slotOffset(slot) + SLOT_USER_ID) == key) {
+                return slot;
+            }
+            // 取鎖前槽位已被釋放（或已由其他使用者重用）
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 以線性探測尋找使用者的槽位（跳過已釋放的槽位，遇到空槽結束）
+     * @return 槽位索引，找不到時回傳 -1
+     */
+    private int findSlot(long key) {
+        int mask = capacity - 1;
+        int slot = hash(key) & mask;
+        for (int probes = 0; probes < capacity; probes++, slot = (slot + 1) & mask) {
+            long current = (long) LONG.getVolatile(segment(slot), slotOffset(slot) + SLOT_USER_ID);
+            if (current == key) {
+                return slot;
+            }
+            if (current == EMPTY) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 為使用者佔用探測路徑上第一個已釋放或空的槽位（已有槽位時回傳該槽位）
+     */
+    private int claimSlot(long key) {
+        claimLock.lock();
+        try {
+            int existing = findSlot(key);
+            if (existing >= 0) {
+                return existing;
+            }
+            int mask = capacity - 1;
+            int slot = hash(key) & mask;
+            for (int probes = 0; probes < capacity; probes++, slot = (slot + 1) & mask) {
+                ByteBuffer buffer = segment(slot);
+                int base = slotOffset(slot);
+                long current = (long) LONG.getVolatile(buffer, base + SLOT_USER_ID);
+                if (current != EMPTY && current != RELEASED) {
+                    continue;
+                }
+                // 持有槽位鎖時初始化，最後才寫入 userId：其他執行緒看到 userId 後取鎖時必定看到完整的初始化內容
+                ReentrantLock lock = lockFor(slot);
+                lock.lock();
+                try {
+                    buffer.putLong(base + SLOT_CART_ID, (long) LONG.getAndAdd(header, HEADER_NEXT_CART_ID, 1L));
+                    buffer.putInt(base + SLOT_LINE_COUNT, 0);
+                    LONG.setVolatile(buffer, base + SLOT_USER_ID, key);
+                    return slot;
+                } finally {
+                    lock.unlock();
+                }
+            }
+            throw new IllegalStateException("off-heap 購物車儲存空間已滿: capacity=" + capacity);
+        } finally {
+            claimLock.unlock();
+        }
+    }
+
+    /**
+     * 購物車仍屬於同一個使用者且沒有項目時釋放槽位；
+     * 後面是空槽時，這個槽位與前面連續的已釋放槽位都不在任何探測路徑上，改回空槽
+     */
+    private void releaseIfEmpty(int slot, long key) {
+        claimLock.lock();
+        try {
+            ByteBuffer buffer = segment(slot);
+            int base = slotOffset(slot);
+            ReentrantLock lock = lockFor(slot);
+            lock.lock();
+            try {
+                if ((long) LONG.getVolatile(buffer, base + SLOT_USER_ID) != key
+                        || buffer.getInt(base + SLOT_LINE_COUNT) != 0) {
+                    return;
+                }
+                LONG.setVolatile(buffer, base + SLOT_USER_ID, RELEASED);
+            } finally {
+                lock.unlock();
+            }
+            int mask = capacity - 1;
+            int next = (slot + 1) & mask;
+            if ((long) LONG.getVolatile(segment(next), slotOffset(next) + SLOT_USER_ID) != EMPTY) {
+                return;
+            }
+            for (int i = slot, n = 0; n < capacity; i = (i - 1) & mask, n++) {
+                ByteBuffer previous = segment(i);
+                if ((long) LONG.getVolatile(previous, slotOffset(i) + SLOT_USER_ID) != RELEASED) {
+                    break;
+                }
+                LONG.setVolatile(previous, slotOffset(i) + SLOT_USER_ID, EMPTY);
+            }
+        } finally {
+            claimLock.unlock();
+        }
+    }
+
+    private StoredCart readCart(int slot) {
+        ByteBuffer buffer = segment(slot);
+        int base = slotOffset(slot);
+        int count = buffer.getInt(base + SLOT_LINE_COUNT);
+        List<CartLine> lines = new ArrayList<>(count);
+        for (int line = 0; line < count; line++) {
+            int offset = lineOffset(base, line);
+            lines.add(new CartLine(
+                buffer.getLong(offset + LINE_ID),
+                buffer.getLong(offset + LINE_PRODUCT_ID),
+                buffer.getInt(offset + LINE_QUANTITY),
+                BigDecimal.valueOf(buffer.getLong(offset + LINE_UNIT_PRICE), 2)));
+        }
+        return new StoredCart(buffer.getLong(base + SLOT_CART_ID), buffer.getLong(base + SLOT_USER_ID), lines);
+    }
+
+    private int indexOf(ByteBuffer buffer, int base, long productId) {
+        int count = buffer.getInt(base + SLOT_LINE_COUNT);
+        for (int line = 0; line < count; line++) {
+            if (buffer.getLong(lineOffset(base, line) + LINE_PRODUCT_ID) == productId) {
+                return line;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 移除項目：以最後一筆覆蓋被移除的位置，保持項目連續
+     */
+    private void removeAt(ByteBuffer buffer, int base, int line) {
+        int last = buffer.getInt(base + SLOT_LINE_COUNT) - 1;
+        if (line != last) {
+            int from = lineOffset(base, last);
+            int to = lineOffset(base, line);
+            for (int i = 0; i < LINE_SIZE; i += 8) {
+                buffer.putLong(to + i, buffer.getLong(from + i));
+            }
+        }
+        buffer.putInt(base + SLOT_LINE_COUNT, last);
+    }
+
+    private MappedByteBuffer segment(int slot) {
+        return segments[slot >>> segmentShift];
+    }
+
+    /**
+     * 槽位在所屬區段中的位置
+     */
+    private int slotOffset(int slot) {
+        return (slot & ((1 << segmentShift) - 1)) * slotSize;
+    }
+
+    private int lineOffset(int base, int line) {
+        return base + SLOT_LINES + line * LINE_SIZE;
+    }
+
+    private ReentrantLock lockFor(int slot) {
+        return locks[slot & (LOCK_STRIPES - 1)];
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+}
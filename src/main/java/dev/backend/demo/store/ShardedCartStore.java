@@ -0,0 +1,206 @@
+package dev.backend.demo.store;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
+
+/**
+ * 雜湊分片購物車儲存
+ *
+ * 依 userId 雜湊將 carts / cart_items 分散到多個 PostgreSQL 資料庫，每個分片有自己的連線池，
+ * 寫入上限隨分片數增加。路由規則見 CartShardRouter；每個分片使用 JdbcCartStore。
+ *
+ * 線上重新分片：moveBucket 逐一搬移桶內的使用者，搬移單一使用者時只短暫鎖住該桶，
+ * 其他桶的讀寫不受影響。
+ */
+@Slf4j
+public class ShardedCartStore implements CartStore, AutoCloseable {
+
+    private final CartShardRouter router;
+    private final List<JdbcCartStore> shards;
+    private final List<DataSource> dataSources;
+
+    /**
+     * @param router      分片路由
+     * @param shards      每個分片的儲存（索引即分片編號）
+     * @param dataSources 每個分片的連線池，關閉時一併釋放
+     */
+    public ShardedCartStore(CartShardRouter router, List<JdbcCartStore> shards, List<DataSource> dataSources) {
+        this.router = router;
+        this.shards = List.copyOf(shards);
+        this.dataSources = List.copyOf(dataSources);
+    }
+
+    @Override
+    public Optional<StoredCart> find(Long userId) {
+        return route(userId, shard -> shard.find(userId));
+    }
+
+    @Override
+    public StoredCart getOrCreate(Long userId) {
+        return route(userId, shard -> shard.getOrCreate(userId));
+    }
+
+    @Override
+    public void addQuantity(Long userId, Long productId, int quantity, BigDecimal unitPrice) {
+        route(userId, shard -> {
+            shard.addQuantity(userId, productId, quantity, unitPrice);
+            return null;
+        });
+    }
+
+    @Override
+    public boolean setQuantity(Long userId, Long productId, int quantity) {
+        return route(userId, shard -> shard.setQuantity(userId, productId, quantity));
+    }
+
+    @Override
+    public boolean removeLine(Long userId, Long productId) {
+        return route(userId, shard -> shard.removeLine(userId, productId));
+    }
+
+    @Override
+    public void clear(Long userId) {
+        route(userId, shard -> {
+            shard.clear(userId);
+            return null;
+        });
+    }
+
+    /**
+     * 每個分片各刪除最多 batchSize 列
+     * @return 所有分片中刪除最多的一個分片的列數，等於 batchSize 表示還有剩餘
+     */
+    @Override
+    public int purgeProducts(Collection<Long> productIds, int batchSize) {
+        int max = 0;
+        for (JdbcCartStore shard : shards) {
+            max = Math.max(max, shard.purgeProducts(productIds, batchSize));
+        }
+        return max;
+    }
+
+    private <T> T route(Long userId, Function<JdbcCartStore, T> operation) {
+        Lock lock = router.lockFor(userId).readLock();
+        lock.lock();
+        try {
+            return operation.apply(shards.get(router.shardOf(userId)));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ========== 重新分片 ==========
+
+    /**
+     * 將一個桶搬移到目標分片（線上執行，可重複呼叫以續傳中斷的搬移）
+     *
+     * 1. 在對照表標記搬移中
+     * 2. 逐一搬移使用者：持有桶寫鎖 → 複製到目標分片 → 從來源刪除 → 標記已搬移
+     * 3. 持有桶寫鎖，搬移期間新建立的使用者一併搬走後切換對照表
+     *
+     * @return 搬移的使用者數
+     */
+    public int moveBucket(int bucket, int targetShard) {
+        if (targetShard < 0 || targetShard >= shards.size()) {
+            throw new IllegalArgumentException("分片不存在: " + targetShard);
+        }
+        Integer inProgress = router.migrationTarget(bucket);
+        if (inProgress != null && inProgress != targetShard) {
+            throw new IllegalStateException("桶 " + bucket + " 正在搬移到分片 " + inProgress);
+        }
+        int sourceShard = router.shardOfBucket(bucket);
+        if (sourceShard == targetShard) {
+            return 0;
+        }
+
+        log.info("開始搬移購物車桶: bucket={}, from={}, to={}", bucket, sourceShard, targetShard);
+        router.beginMigration(bucket, targetShard);
+        JdbcCartStore source = shards.get(sourceShard);
+        JdbcCartStore target = shards.get(targetShard);
+
+        int moved = 0;
+        Lock lock = router.lockForBucket(bucket).writeLock();
+        for (Long userId : source.findUserIdsInBucket(bucket)) {
+            lock.lock();
+            try {
+                moveUser(userId, source, target);
+            } finally {
+                lock.unlock();
+            }
+            moved++;
+        }
+
+        lock.lock();
+        try {
+            for (Long userId : source.findUserIdsInBucket(bucket)) {
+                moveUser(userId, source, target);
+                moved++;
+            }
+            router.completeMigration(bucket, targetShard);
+        } finally {
+            lock.unlock();
+        }
+        log.info("完成搬移購物車桶: bucket={}, from={}, to={}, users={}", bucket, sourceShard, targetShard, moved);
+        return moved;
+    }
+
+    private void moveUser(Long userId, JdbcCartStore source, JdbcCartStore target) {
+        source.find(userId).ifPresent(target::importCart);
+        source.deleteCart(userId);
+        router.markMoved(userId);
+    }
+
+    /**
+     * 完成上次中斷的搬移
+     * 由容器在 bean 初始化時（接收請求前）呼叫；不在建構子中執行，建構期間不存取資料庫
+     */
+    @PostConstruct
+    public void resumeMigrations() {
+        for (Map.Entry<Integer, Integer> migration : router.migrations().entrySet()) {
+            log.warn("續傳中斷的購物車桶搬移: bucket={}, to={}", migration.getKey(), migration.getValue());
+            moveBucket(migration.getKey(), migration.getValue());
+        }
+    }
+
+    /**
+     * 每個分片上每個桶的購物車數（分片 → [桶, 數量] 清單）
+     */
+    public List<List<int[]>> bucketCounts() {
+        List<List<int[]>> counts = new ArrayList<>();
+        for (JdbcCartStore shard : shards) {
+            counts.add(shard.countByBucket());
+        }
+        return counts;
+    }
+
+    public CartShardRouter getRouter() {
+        return router;
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    /**
+     * 關閉所有分片連線池
+     */
+    @Override
+    public void close() {
+        for (DataSource dataSource : dataSources) {
+            if (dataSource instanceof HikariDataSource hikari) {
+                hikari.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package dev.backend.demo.store;
+
+import java.util.List;
+
+/**
+ * 購物車快照
+ * CartStore 回傳的唯讀資料，與底層儲存方式（JPA 實體、off-heap 記錄）無關
+ */
+public class StoredCart {
+    
+    private final Long cartId;
+    private final Long userId;
+    private final List<CartLine> lines;
+    
+    public StoredCart(Long cartId, Long userId, List<CartLine> lines) {
+        this.cartId = cartId;
+        this.userId = userId;
+        this.lines = List.copyOf(lines);
+    }
+    
+    public Long getCartId() {
+        return cartId;
+    }
+    
+    public Long getUserId() {
+        return userId;
+    }
+    
+    public List<CartLine> getLines() {
+        return lines;
+    }
+    
+    /**
+     * 依商品 ID 查找項目
+     * @return 項目，不存在則回傳 null
+     */
+    public CartLine findLine(Long productId) {
+        for (CartLine line : lines) {
+            if (line.getProductId().equals(productId)) {
+                return line;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,488 @@
+package dev.backend.demo.util;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * 壓縮點陣圖（不可變，Roaring bitmap 的簡化版）
+ *
+ * 32 位元整數依高 16 位元分成多個區塊，每個區塊依密度選擇儲存方式：
+ * - 少於等於 4096 個值：排序好的 char[]（每個值 2 bytes）
+ * - 超過 4096 個值：65536 位元的 long[1024]（固定 8 KB）
+ * 因此稀疏與密集的集合都不會浪費空間，交集、聯集與交集計數都以區塊為單位進行。
+ *
+ * 以 Builder 依遞增順序加入值後建立，建立後不再修改，可由多個執行緒共用。
+ * 以聯集、差集加入或移除少數值時只複製涉及的區塊，其他區塊與原本的點陣圖共用。
+ */
+public final class CompressedBitmap {
+
+    private static final int ARRAY_MAX = 4096;
+    private static final int WORDS = 1024;
+
+    public static final CompressedBitmap EMPTY = new CompressedBitmap(new int[0], new Object[0], 0);
+
+    // 區塊的高 16 位元（遞增）與內容：char[]（陣列區塊）或 long[]（點陣區塊）
+    private final int[] keys;
+    private final Object[] containers;
+    private final int cardinality;
+
+    private CompressedBitmap(int[] keys, Object[] containers, int cardinality) {
+        this.keys = keys;
+        this.containers = containers;
+        this.cardinality = cardinality;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 以任意順序的值建立（測試與小集合用）
+     */
+    public static CompressedBitmap of(int... values) {
+        int[] sorted = values.clone();
+        Arrays.sort(sorted);
+        Builder builder = builder();
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                builder.add(sorted[i]);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * 值的個數
+     */
+    public int cardinality() {
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    public boolean contains(int value) {
+        int i = Arrays.binarySearch(keys, value >>> 16);
+        if (i < 0) {
+            return false;
+        }
+        return contains(containers[i], (char) value);
+    }
+
+    /**
+     * 交集
+     */
+    public CompressedBitmap and(CompressedBitmap other) {
+        int[] resultKeys = new int[Math.min(keys.length, other.keys.length)];
+        Object[] resultContainers = new Object[resultKeys.length];
+        int count = 0;
+        int total = 0;
+        for (int i = 0, j = 0; i < keys.length && j < other.keys.length; ) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Object container = and(containers[i], other.containers[j]);
+                int size = size(container);
+                if (size > 0) {
+                    resultKeys[count] = keys[i];
+                    resultContainers[count++] = container;
+                    total += size;
+                }
+                i++;
+                j++;
+            }
+        }
+        return new CompressedBitmap(Arrays.copyOf(resultKeys, count), Arrays.copyOf(resultContainers, count), total);
+    }
+
+    /**
+     * 交集的個數（不建立交集）
+     */
+    public int andCardinality(CompressedBitmap other) {
+        int total = 0;
+        for (int i = 0, j = 0; i < keys.length && j < other.keys.length; ) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                total += andCardinality(containers[i], other.containers[j]);
+                i++;
+                j++;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 聯集
+     */
+    public CompressedBitmap or(CompressedBitmap other) {
+        int[] resultKeys = new int[keys.length + other.keys.length];
+        Object[] resultContainers = new Object[resultKeys.length];
+        int count = 0;
+        int total = 0;
+        int i = 0;
+        int j = 0;
+        while (i < keys.length || j < other.keys.length) {
+            Object container;
+            if (j == other.keys.length || (i < keys.length && keys[i] < other.keys[j])) {
+                resultKeys[count] = keys[i];
+                container = containers[i++];
+            } else if (i == keys.length || keys[i] > other.keys[j]) {
+                resultKeys[count] = other.keys[j];
+                container = other.containers[j++];
+            } else {
+                resultKeys[count] = keys[i];
+                container = or(containers[i++], other.containers[j++]);
+            }
+            resultContainers[count++] = container;
+            total += size(container);
+        }
+        return new CompressedBitmap(Arrays.copyOf(resultKeys, count), Arrays.copyOf(resultContainers, count), total);
+    }
+
+    /**
+     * 差集（在這個點陣圖中但不在 other 中的值）
+     */
+    public CompressedBitmap andNot(CompressedBitmap other) {
+        int[] resultKeys = new int[keys.length];
+        Object[] resultContainers = new Object[keys.length];
+        int count = 0;
+        int total = 0;
+        for (int i = 0, j = 0; i < keys.length; i++) {
+            while (j < other.keys.length && other.keys[j] < keys[i]) {
+                j++;
+            }
+            Object container = containers[i];
+            if (j < other.keys.length && other.keys[j] == keys[i]) {
+                container = andNot(container, other.containers[j]);
+            }
+            int size = size(container);
+            if (size > 0) {
+                resultKeys[count] = keys[i];
+                resultContainers[count++] = container;
+                total += size;
+            }
+        }
+        return new CompressedBitmap(Arrays.copyOf(resultKeys, count), Arrays.copyOf(resultContainers, count), total);
+    }
+
+    /**
+     * 依遞增順序走訪大於等於 from 的值，action 回傳 false 時停止
+     */
+    public void forEach(int from, IntPredicate action) {
+        int fromKey = from >>> 16;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] < fromKey) {
+                continue;
+            }
+            int high = keys[i] << 16;
+            int fromLow = keys[i] == fromKey ? from & 0xFFFF : 0;
+            Object container = containers[i];
+            if (container instanceof char[] array) {
+                int start = Arrays.binarySearch(array, (char) fromLow);
+                for (int k = start >= 0 ? start : -start - 1; k < array.length; k++) {
+                    if (!action.test(high | array[k])) {
+                        return;
+                    }
+                }
+            } else {
+                long[] words = (long[]) container;
+                for (int w = fromLow >>> 6; w < WORDS; w++) {
+                    long word = words[w];
+                    if (w == fromLow >>> 6) {
+                        word &= -1L << fromLow;
+                    }
+                    while (word != 0) {
+                        if (!action.test(high | (w << 6) | Long.numberOfTrailingZeros(word))) {
+                            return;
+                        }
+                        word &= word - 1;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 約略佔用的位元組數
+     */
+    public long sizeInBytes() {
+        long bytes = keys.length * 4L;
+        for (Object container : containers) {
+            bytes += container instanceof char[] array ? array.length * 2L : WORDS * 8L;
+        }
+        return bytes;
+    }
+
+    // ========== 區塊運算 ==========
+
+    private static int size(Object container) {
+        if (container instanceof char[] array) {
+            return array.length;
+        }
+        return cardinality((long[]) container);
+    }
+
+    private static int cardinality(long[] words) {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    private static boolean contains(Object container, char low) {
+        if (container instanceof char[] array) {
+            return Arrays.binarySearch(array, low) >= 0;
+        }
+        return (((long[]) container)[low >>> 6] & (1L << low)) != 0;
+    }
+
+    private static Object and(Object a, Object b) {
+        if (a instanceof char[] left && b instanceof char[] right) {
+            char[] result = new char[Math.min(left.length, right.length)];
+            int count = 0;
+            for (int i = 0, j = 0; i < left.length && j < right.length; ) {
+                if (left[i] < right[j]) {
+                    i++;
+                } else if (left[i] > right[j]) {
+                    j++;
+                } else {
+                    result[count++] = left[i];
+                    i++;
+                    j++;
+                }
+            }
+            return Arrays.copyOf(result, count);
+        }
+        if (a instanceof char[] || b instanceof char[]) {
+            char[] array = a instanceof char[] left ? left : (char[]) b;
+            long[] words = a instanceof long[] left ? left : (long[]) b;
+            char[] result = new char[array.length];
+            int count = 0;
+            for (char value : array) {
+                if ((words[value >>> 6] & (1L << value)) != 0) {
+                    result[count++] = value;
+                }
+            }
+            return Arrays.copyOf(result, count);
+        }
+        long[] left = (long[]) a;
+        long[] right = (long[]) b;
+        long[] words = new long[WORDS];
+        int count = 0;
+        for (int w = 0; w < WORDS; w++) {
+            words[w] = left[w] & right[w];
+            count += Long.bitCount(words[w]);
+        }
+        return count > ARRAY_MAX ? words : toArray(words, count);
+    }
+
+    private static int andCardinality(Object a, Object b) {
+        if (a instanceof char[] left && b instanceof char[] right) {
+            int count = 0;
+            for (int i = 0, j = 0; i < left.length && j < right.length; ) {
+                if (left[i] < right[j]) {
+                    i++;
+                } else if (left[i] > right[j]) {
+                    j++;
+                } else {
+                    count++;
+                    i++;
+                    j++;
+                }
+            }
+            return count;
+        }
+        if (a instanceof char[] || b instanceof char[]) {
+            char[] array = a instanceof char[] left ? left : (char[]) b;
+            long[] words = a instanceof long[] left ? left : (long[]) b;
+            int count = 0;
+            for (char value : array) {
+                if ((words[value >>> 6] & (1L << value)) != 0) {
+                    count++;
+                }
+            }
+            return count;
+        }
+        long[] left = (long[]) a;
+        long[] right = (long[]) b;
+        int count = 0;
+        for (int w = 0; w < WORDS; w++) {
+            count += Long.bitCount(left[w] & right[w]);
+        }
+        return count;
+    }
+
+    private static Object or(Object a, Object b) {
+        if (a instanceof char[] left && b instanceof char[] right && left.length + right.length <= ARRAY_MAX) {
+            char[] result = new char[left.length + right.length];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < left.length && j < right.length) {
+                if (left[i] < right[j]) {
+                    result[count++] = left[i++];
+                } else if (left[i] > right[j]) {
+                    result[count++] = right[j++];
+                } else {
+                    result[count++] = left[i++];
+                    j++;
+                }
+            }
+            while (i < left.length) {
+                result[count++] = left[i++];
+            }
+            while (j < right.length) {
+                result[count++] = right[j++];
+            }
+            return Arrays.copyOf(result, count);
+        }
+        long[] words = toWords(a);
+        if (b instanceof char[] array) {
+            for (char value : array) {
+                words[value >>> 6] |= 1L << value;
+            }
+        } else {
+            long[] other = (long[]) b;
+            for (int w = 0; w < WORDS; w++) {
+                words[w] |= other[w];
+            }
+        }
+        int count = cardinality(words);
+        return count > ARRAY_MAX ? words : toArray(words, count);
+    }
+
+    private static Object andNot(Object a, Object b) {
+        if (a instanceof char[] left) {
+            char[] result = new char[left.length];
+            int count = 0;
+            for (char value : left) {
+                if (!contains(b, value)) {
+                    result[count++] = value;
+                }
+            }
+            return Arrays.copyOf(result, count);
+        }
+        long[] words = ((long[]) a).clone();
+        if (b instanceof char[] array) {
+            for (char value : array) {
+                words[value >>> 6] &= ~(1L << value);
+            }
+        } else {
+            long[] other = (long[]) b;
+            for (int w = 0; w < WORDS; w++) {
+                words[w] &= ~other[w];
+            }
+        }
+        int count = cardinality(words);
+        return count > ARRAY_MAX ? words : toArray(words, count);
+    }
+
+    /**
+     * 轉成點陣（一律複製，不修改原本的區塊）
+     */
+    private static long[] toWords(Object container) {
+        if (container instanceof long[] words) {
+            return words.clone();
+        }
+        long[] words = new long[WORDS];
+        for (char value : (char[]) container) {
+            words[value >>> 6] |= 1L << value;
+        }
+        return words;
+    }
+
+    private static char[] toArray(long[] words, int count) {
+        char[] array = new char[count];
+        int k = 0;
+        for (int w = 0; w < WORDS; w++) {
+            long word = words[w];
+            while (word != 0) {
+                array[k++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return array;
+    }
+
+    /**
+     * 依遞增順序加入值以建立點陣圖
+     */
+    public static final class Builder {
+
+        private int[] keys = new int[4];
+        private Object[] containers = new Object[4];
+        private int count;
+        private int cardinality;
+
+        private int currentKey = -1;
+        private char[] buffer = new char[16];
+        private int bufferSize;
+        private long last = -1;
+
+        private Builder() {
+        }
+
+        /**
+         * @throws IllegalArgumentException value 不大於前一個加入的值（以無號數比較）
+         */
+        public Builder add(int value) {
+            long unsigned = Integer.toUnsignedLong(value);
+            if (unsigned <= last) {
+                throw new IllegalArgumentException("值必須遞增加入: " + unsigned);
+            }
+            last = unsigned;
+            int key = value >>> 16;
+            if (key != currentKey) {
+                flush();
+                currentKey = key;
+            }
+            if (bufferSize == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            buffer[bufferSize++] = (char) value;
+            return this;
+        }
+
+        public CompressedBitmap build() {
+            flush();
+            CompressedBitmap bitmap = new CompressedBitmap(Arrays.copyOf(keys, count), Arrays.copyOf(containers, count),
+                cardinality);
+            count = 0;
+            cardinality = 0;
+            currentKey = -1;
+            last = -1;
+            return bitmap;
+        }
+
+        private void flush() {
+            if (bufferSize == 0) {
+                return;
+            }
+            Object container;
+            if (bufferSize > ARRAY_MAX) {
+                long[] words = new long[WORDS];
+                for (int i = 0; i < bufferSize; i++) {
+                    words[buffer[i] >>> 6] |= 1L << buffer[i];
+                }
+                container = words;
+            } else {
+                container = Arrays.copyOf(buffer, bufferSize);
+            }
+            if (count == keys.length) {
+                keys = Arrays.copyOf(keys, count * 2);
+                containers = Arrays.copyOf(containers, count * 2);
+            }
+            keys[count] = currentKey;
+            containers[count++] = container;
+            cardinality += bufferSize;
+            bufferSize = 0;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package dev.backend.demo.util;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * 一筆資料的 64 位元內容雜湊（依序加入各欄位）
+ *
+ * 只由欄位內容決定，不受 JVM、重新啟動或節點影響；字串逐字元計算（不使用 32 位元的 String.hashCode）。
+ * 各欄位之間加入長度或 null 標記，內容搬移到相鄰欄位也會得到不同的雜湊。
+ *
+ * 多筆資料的雜湊相加（溢位環繞）即為與順序無關的集合摘要：新增一筆加上它的雜湊、移除一筆減去它的雜湊，
+ * 不需要重新計算整個集合。
+ */
+public final class ContentHash {
+
+    private static final long PRIME = 0x100000001B3L;
+    private static final long NULL = 0x9E3779B97F4A7C15L;
+
+    private long hash = 0xCBF29CE484222325L;
+
+    public ContentHash add(long value) {
+        hash = (hash ^ value) * PRIME;
+        hash ^= hash >>> 29;
+        return this;
+    }
+
+    public ContentHash add(Long value) {
+        return value == null ? add(NULL) : add(value.longValue());
+    }
+
+    public ContentHash add(String value) {
+        if (value == null) {
+            return add(NULL);
+        }
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * PRIME;
+        }
+        return add(value.length());
+    }
+
+    /**
+     * 數值相同即視為相同（1.50 與 1.5 相同）
+     */
+    public ContentHash add(BigDecimal value) {
+        return value == null ? add(NULL) : add(value.stripTrailingZeros().toPlainString());
+    }
+
+    public ContentHash add(LocalDateTime value) {
+        return value == null ? add(NULL) : add(value.toEpochSecond(ZoneOffset.UTC)).add(value.getNano());
+    }
+
+    /**
+     * 雜湊值（最後再混合一次，讓每個位元都受所有欄位影響）
+     */
+    public long get() {
+        long h = hash;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,150 @@
+package dev.backend.demo.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 串流式 CSV 讀取器（RFC 4180）
+ *
+ * 一次讀一筆紀錄，不把整個檔案載入記憶體。支援以引號包住的欄位（欄位中可含逗號、換行，
+ * 引號以兩個引號表示），行尾可以是 \n 或 \r\n。
+ * 非執行緒安全。
+ */
+public class CsvReader {
+
+    private final Reader reader;
+    private int line = 1;
+    private int recordLine;
+    private int pushedBack = -2;
+
+    /**
+     * @param reader 呼叫者應傳入有緩衝的 Reader
+     */
+    public CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * 讀取下一筆紀錄
+     * @return 欄位值；檔案結束時為 null
+     * @throws IOException 讀取失敗，或引號沒有結束
+     */
+    public List<String> next() throws IOException {
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        recordLine = line;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean fieldStart = true;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("第 " + recordLine + " 行的引號沒有結束");
+                }
+                if (c == '"') {
+                    int next = read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        c = next;
+                        continue;
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && fieldStart) {
+                quoted = true;
+                fieldStart = false;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                fieldStart = true;
+            } else if (c == '\n' || c == -1) {
+                line++;
+                break;
+            } else if (c == '\r') {
+                int next = read();
+                if (next != '\n') {
+                    unread(next);
+                }
+                line++;
+                break;
+            } else {
+                field.append((char) c);
+                fieldStart = false;
+            }
+            c = read();
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * 讀取第一筆紀錄作為欄位名稱（去除前後空白與 UTF-8 BOM）
+     * @return 欄位名稱對應的位置；檔案是空的時為 null
+     */
+    public Map<String, Integer> readHeader() throws IOException {
+        List<String> header = next();
+        if (header == null) {
+            return null;
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().replace("\uFEFF", ""), i);
+        }
+        return columns;
+    }
+
+    /**
+     * 讀取下一筆紀錄，略過空白行
+     * @return 欄位值；檔案結束時為 null
+     */
+    public List<String> nextNonBlank() throws IOException {
+        List<String> record;
+        do {
+            record = next();
+        } while (record != null && record.size() == 1 && record.get(0).isBlank());
+        return record;
+    }
+
+    /**
+     * 依欄位名稱取值
+     * @param columns readHeader() 的結果
+     * @return 欄位值；沒有此欄位或這筆紀錄的欄位較少時為 null
+     */
+    public static String column(List<String> record, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        return index == null || index >= record.size() ? null : record.get(index);
+    }
+
+    /**
+     * 最近一次 next() 回傳的紀錄從第幾行開始（從 1 起算）
+     */
+    public int getRecordLine() {
+        return recordLine;
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != -2) {
+            int c = pushedBack;
+            pushedBack = -2;
+            return c;
+        }
+        return reader.read();
+    }
+
+    private void unread(int c) {
+        pushedBack = c;
+    }
+}
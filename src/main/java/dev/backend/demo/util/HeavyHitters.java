@@ -0,0 +1,146 @@
+package dev.backend.demo.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 熱門項目統計：count-min sketch 估計每個項目的次數，另外保留估計值最高的 k 個項目
+ *
+ * sketch 有 depth 列、每列 width 個計數器，項目在每一列各雜湊到一個計數器，
+ * 估計值取各列的最小值（只會高估，誤差約為總次數的 e / width），記憶體用量固定，與項目數無關。
+ *
+ * 前 k 名以項目 → 估計值的表保存，並快取目前的最小值：估計值不超過最小值的項目直接略過，
+ * 只有需要取代時才重新找出最小值。
+ *
+ * decay 把所有計數減半，讓統計偏重最近的次數（每個 decay 週期權重減半）。
+ * 非執行緒安全，呼叫者需自行同步。
+ */
+public final class HeavyHitters {
+
+    /**
+     * 前 k 名的項目與估計次數
+     */
+    public record Entry(long key, long count) {
+    }
+
+    private final int k;
+    private final long[][] sketch;
+    private final int widthMask;
+    private final Map<Long, Long> top = new HashMap<>();
+    private long topMin;
+    private long total;
+
+    /**
+     * @param width 每列的計數器數（取大於等於此值的 2 的次方）
+     * @param depth 列數（雜湊函數數）
+     * @param k 保留的熱門項目數
+     */
+    public HeavyHitters(int width, int depth, int k) {
+        int size = Integer.highestOneBit(Math.max(1, width - 1)) << 1;
+        this.sketch = new long[depth][size];
+        this.widthMask = size - 1;
+        this.k = k;
+    }
+
+    /**
+     * 累加項目的次數，回傳累加後的估計值
+     */
+    public long add(long key, long count) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < sketch.length; row++) {
+            int slot = slot(key, row);
+            sketch[row][slot] += count;
+            estimate = Math.min(estimate, sketch[row][slot]);
+        }
+        total += count;
+        offer(key, estimate);
+        return estimate;
+    }
+
+    /**
+     * 項目次數的估計值（可能高估，不會低估）
+     */
+    public long estimate(long key) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < sketch.length; row++) {
+            estimate = Math.min(estimate, sketch[row][slot(key, row)]);
+        }
+        return estimate;
+    }
+
+    /**
+     * 估計次數最高的項目（依次數遞減）
+     */
+    public List<Entry> top(int limit) {
+        List<Entry> entries = new ArrayList<>(top.size());
+        top.forEach((key, count) -> entries.add(new Entry(key, count)));
+        entries.sort(Comparator.comparingLong(Entry::count).reversed().thenComparingLong(Entry::key));
+        return entries.size() > limit ? new ArrayList<>(entries.subList(0, limit)) : entries;
+    }
+
+    /**
+     * 所有計數減半；減為 0 的項目移出前 k 名
+     */
+    public void decay() {
+        for (long[] row : sketch) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] >>= 1;
+            }
+        }
+        top.replaceAll((key, count) -> count >> 1);
+        top.values().removeIf(count -> count == 0);
+        topMin = top.size() < k ? 0 : minCount();
+        total >>= 1;
+    }
+
+    /**
+     * 目前計入的總次數（含減半）
+     */
+    public long total() {
+        return total;
+    }
+
+    private void offer(long key, long estimate) {
+        if (top.containsKey(key) || top.size() < k) {
+            top.put(key, estimate);
+            if (top.size() == k) {
+                topMin = minCount();
+            }
+            return;
+        }
+        // 快取的最小值可能因其他項目增加而偏低，取代前重新確認
+        if (estimate <= topMin || estimate <= (topMin = minCount())) {
+            return;
+        }
+        long evict = 0;
+        long min = Long.MAX_VALUE;
+        for (Map.Entry<Long, Long> entry : top.entrySet()) {
+            if (entry.getValue() < min) {
+                min = entry.getValue();
+                evict = entry.getKey();
+            }
+        }
+        top.remove(evict);
+        top.put(key, estimate);
+        topMin = minCount();
+    }
+
+    private long minCount() {
+        long min = Long.MAX_VALUE;
+        for (long count : top.values()) {
+            min = Math.min(min, count);
+        }
+        return min;
+    }
+
+    private int slot(long key, int row) {
+        long h = (key + row * 0x632BE59BD9B4E019L) * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 29;
+        h *= 0xBF58476D1CE4E5B9L;
+        h ^= h >>> 32;
+        return (int) h & widthMask;
+    }
+}
@@ -0,0 +1,150 @@
+package dev.backend.demo.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 序列化好的回應內容快取（原始與 gzip 兩種版本，存放在 heap 外）
+ *
+ * 每個項目在建立時壓縮一次（最高壓縮等級，成本只付一次），之後每次命中直接把位元組寫到回應，
+ * 不再序列化也不再壓縮。內容放在 direct ByteBuffer，不佔用 Java heap、不增加 GC 掃描負擔。
+ *
+ * 以最近最少使用（LRU）淘汰，總大小（原始 + gzip）不超過 maxBytes、項目數不超過 maxEntries。
+ * 取得的 ByteBuffer 是唯讀的獨立副本（共用內容、各自的位置），可同時寫給多個回應。
+ */
+public final class ResponseBytesCache<K> {
+
+    /**
+     * 一個快取項目
+     */
+    public static final class Entry {
+        private final ByteBuffer plain;
+        private final ByteBuffer gzip;
+
+        private Entry(ByteBuffer plain, ByteBuffer gzip) {
+            this.plain = plain;
+            this.gzip = gzip;
+        }
+
+        /**
+         * 原始內容（每次呼叫回傳新的唯讀副本，位置在開頭）
+         */
+        public ByteBuffer plain() {
+            return plain.duplicate();
+        }
+
+        /**
+         * gzip 壓縮後的內容
+         */
+        public ByteBuffer gzip() {
+            return gzip.duplicate();
+        }
+
+        long sizeInBytes() {
+            return plain.capacity() + gzip.capacity();
+        }
+    }
+
+    private final long maxBytes;
+    private final int maxEntries;
+    private final LinkedHashMap<K, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public ResponseBytesCache(long maxBytes, int maxEntries) {
+        this.maxBytes = maxBytes;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * 取得快取的內容；沒有時以 loader 產生（序列化好的位元組）並放入快取
+     *
+     * 同一個 key 同時未命中時可能各自產生一次，內容相同，後放入的取代先放入的
+     */
+    public Entry get(K key, Supplier<byte[]> loader) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+        }
+        if (entry != null) {
+            hits.incrementAndGet();
+            return entry;
+        }
+        misses.incrementAndGet();
+        byte[] content = loader.get();
+        entry = new Entry(toDirect(content), toDirect(gzip(content)));
+        if (entry.sizeInBytes() <= maxBytes) {
+            put(key, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * 清除所有項目
+     */
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long sizeInBytes() {
+        return bytes;
+    }
+
+    public long hits() {
+        return hits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    private synchronized void put(K key, Entry entry) {
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            bytes -= previous.sizeInBytes();
+        }
+        bytes += entry.sizeInBytes();
+        Iterator<Map.Entry<K, Entry>> eldest = entries.entrySet().iterator();
+        while ((bytes > maxBytes || entries.size() > maxEntries) && eldest.hasNext()) {
+            Entry evicted = eldest.next().getValue();
+            eldest.remove();
+            bytes -= evicted.sizeInBytes();
+        }
+    }
+
+    private static ByteBuffer toDirect(byte[] content) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(content.length);
+        buffer.put(content).flip();
+        return buffer.asReadOnlyBuffer();
+    }
+
+    static byte[] gzip(byte[] content) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, content.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
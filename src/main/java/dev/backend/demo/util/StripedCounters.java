@@ -0,0 +1,75 @@
+package dev.backend.demo.util;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 分散在多個分段（stripe）的 long → 計數累加器
+ *
+ * 每個執行緒依 thread id 固定使用其中一個分段，分段各自有鎖與 LongLongHashMap，
+ * 分段數足夠時不同執行緒幾乎不會競爭同一把鎖；累加只是一次無競爭的加鎖與雜湊表更新，
+ * 不配置物件。
+ *
+ * drain 逐一換掉每個分段的雜湊表並合併舊的內容，換表後的累加記在新表中，不會遺失。
+ */
+public final class StripedCounters {
+
+    private static final class Stripe extends ReentrantLock {
+        LongLongHashMap counts = new LongLongHashMap();
+    }
+
+    private final Stripe[] stripes;
+    private final int mask;
+
+    /**
+     * @param stripes 分段數（取大於等於此值的 2 的次方）
+     */
+    public StripedCounters(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new Stripe();
+        }
+        this.mask = size - 1;
+    }
+
+    public void increment(long key) {
+        add(key, 1);
+    }
+
+    public void add(long key, long delta) {
+        long id = Thread.currentThread().threadId() * 0x9E3779B97F4A7C15L;
+        Stripe stripe = stripes[(int) (id >>> 32) & mask];
+        stripe.lock();
+        try {
+            stripe.counts.addTo(key, delta);
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    /**
+     * 取出所有分段累加的計數並歸零
+     */
+    public LongLongHashMap drain() {
+        LongLongHashMap total = new LongLongHashMap();
+        for (Stripe stripe : stripes) {
+            LongLongHashMap counts;
+            stripe.lock();
+            try {
+                counts = stripe.counts;
+                if (counts.isEmpty()) {
+                    continue;
+                }
+                stripe.counts = new LongLongHashMap();
+            } finally {
+                stripe.unlock();
+            }
+            counts.forEach(total::addTo);
+        }
+        return total;
+    }
+
+    public int stripeCount() {
+        return stripes.length;
+    }
+}
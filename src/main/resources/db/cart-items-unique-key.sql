@@ -0,0 +1,41 @@
+-- 購物車項目唯一約束（cart.store.type=jpa，主資料庫的 cart_items）
+-- 加入商品以 INSERT ... ON CONFLICT (cart_id, product_id) 累加數量，依賴這個約束。
+-- 新建的資料庫由 Hibernate 建表時一併建立；舊版以「先查詢再儲存」加入商品，並行請求可能已留下重複的項目，
+-- 此時 Hibernate 無法建立約束。升級前在主資料庫執行一次（可重複執行，約束已存在時不做任何事）：
+--   psql -h localhost -U postgres -d demo -f src/main/resources/db/cart-items-unique-key.sql
+
+BEGIN;
+
+-- 擋住其他寫入直到提交，合併之後不會再出現新的重複項目
+LOCK TABLE cart_items IN SHARE ROW EXCLUSIVE MODE;
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'uk_cart_items_cart_product') THEN
+        RETURN;
+    END IF;
+
+    -- 合併同一購物車中重複的商品項目：保留 ID 最小的一列並加總數量，刪除其餘各列
+    WITH d AS (
+        SELECT min(cart_item_id) AS keep, sum(quantity) AS total
+        FROM cart_items
+        GROUP BY cart_id, product_id
+        HAVING count(*) > 1
+    ), u AS (
+        UPDATE cart_items i SET quantity = d.total, updated_at = now()
+        FROM d
+        WHERE i.cart_item_id = d.keep
+        RETURNING i.cart_item_id
+    )
+    DELETE FROM cart_items i
+    USING d, cart_items k
+    WHERE k.cart_item_id = d.keep
+      AND i.cart_id = k.cart_id
+      AND i.product_id = k.product_id
+      AND i.cart_item_id > d.keep;
+
+    -- 建成約束而非單純的唯一索引：Hibernate 啟動時以約束名稱移除並重建唯一約束
+    ALTER TABLE cart_items ADD CONSTRAINT uk_cart_items_cart_product UNIQUE (cart_id, product_id);
+END $$;
+
+COMMIT;
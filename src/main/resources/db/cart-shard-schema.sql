@@ -0,0 +1,28 @@
+-- 購物車分片資料庫結構（cart.store.type=sharded）
+-- 每個分片資料庫在啟動時執行一次，所有語句皆可重複執行
+-- 注意：分片必須是獨立的資料庫，不可與主資料庫（JPA 管理的 carts / cart_items）共用
+
+CREATE TABLE IF NOT EXISTS carts (
+    cart_id    BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id    BIGINT    NOT NULL,
+    bucket     INT       NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT now(),
+    updated_at TIMESTAMP NOT NULL DEFAULT now(),
+    CONSTRAINT uk_carts_user_id UNIQUE (user_id)
+);
+
+-- 重新分片時依 bucket 列出要搬移的使用者
+CREATE INDEX IF NOT EXISTS idx_carts_bucket ON carts (bucket);
+
+CREATE TABLE IF NOT EXISTS cart_items (
+    cart_item_id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    cart_id      BIGINT         NOT NULL REFERENCES carts (cart_id) ON DELETE CASCADE,
+    product_id   BIGINT         NOT NULL,
+    quantity     INT            NOT NULL,
+    unit_price   NUMERIC(10, 2) NOT NULL,
+    created_at   TIMESTAMP      NOT NULL DEFAULT now(),
+    updated_at   TIMESTAMP      NOT NULL DEFAULT now(),
+    CONSTRAINT uk_cart_items_cart_product UNIQUE (cart_id, product_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_cart_items_product_id ON cart_items (product_id);
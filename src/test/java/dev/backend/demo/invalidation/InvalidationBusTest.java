@@ -0,0 +1,171 @@
+package dev.backend.demo.invalidation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.backend.demo.invalidation.InvalidationBus.Invalidation;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGNotification;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * InvalidationBus 送出前的合併、切分與失敗降級，以及接收端合併的測試（不需要資料庫）
+ */
+class InvalidationBusTest {
+
+    private static final String NODE = "node-a";
+
+    @Test
+    void mergesSameEntityAndActionAndDedupesKeys() {
+        List<Invalidation> merged = InvalidationBus.merge(List.of(
+            keys("product", "updated", "1", "2"),
+            keys("product", "deleted", "3"),
+            keys("product", "updated", "2", "4"),
+            keys("category", null, "9")), NODE, 1000);
+
+        assertEquals(List.of(
+            keys("product", "updated", "1", "2", "4"),
+            keys("product", "deleted", "3"),
+            keys("category", null, "9")), merged);
+    }
+
+    @Test
+    void flushAllAbsorbsKeysOfTheSameEntity() {
+        List<Invalidation> merged = InvalidationBus.merge(List.of(
+            keys("product", "updated", "1"),
+            all("product"),
+            keys("category", null, "9"),
+            all("product")), NODE, 1000);
+
+        assertEquals(List.of(all("product"), keys("category", null, "9")), merged);
+    }
+
+    @Test
+    void tooManyKeysBecomeFlushAll() {
+        // 同一實體不同動作的 key 合計超過上限
+        List<Invalidation> merged = InvalidationBus.merge(List.of(
+            keys("product", "updated", "1", "2"),
+            keys("product", "deleted", "3", "2"),
+            keys("category", null, "7", "8", "9")), NODE, 3);
+
+        assertEquals(List.of(all("product"), keys("category", null, "7", "8", "9")), merged);
+        // 剛好等於上限時保留 key
+        assertEquals(List.of(keys("category", null, "7", "8", "9")),
+            InvalidationBus.merge(List.of(keys("category", null, "7", "8", "9")), NODE, 3));
+    }
+
+    @Test
+    void splitsKeysToFitNotificationLimit() throws Exception {
+        // 每個 key 100 bytes，加上引號與逗號 103 bytes：7000 bytes 放得下 67 個
+        Set<String> keys = new LinkedHashSet<>();
+        for (int i = 0; i < 150; i++) {
+            keys.add(String.format("%0100d", i));
+        }
+        Invalidation large = new Invalidation(NODE, "product", "updated", keys, false);
+
+        List<Invalidation> split = InvalidationBus.split(List.of(large, all("category")), 7000);
+
+        assertEquals(List.of(67, 67, 16, 0), split.stream().map(invalidation -> invalidation.keys().size()).toList());
+        assertEquals(all("category"), split.get(3));
+        List<String> rejoined = new ArrayList<>();
+        ObjectMapper objectMapper = new ObjectMapper();
+        for (Invalidation invalidation : split.subList(0, 3)) {
+            assertEquals("product", invalidation.entity());
+            assertEquals("updated", invalidation.action());
+            rejoined.addAll(invalidation.keys());
+            // 序列化後仍在 PostgreSQL 的 8000 bytes 限制內
+            assertTrue(objectMapper.writeValueAsString(invalidation).getBytes(StandardCharsets.UTF_8).length < 8000);
+        }
+        assertEquals(new ArrayList<>(keys), rejoined);
+
+        // 單一 key 超過上限時自成一則，不會產生空的通知
+        List<Invalidation> oversized = InvalidationBus.split(List.of(keys("product", null, "x".repeat(20), "y")), 10);
+        assertEquals(List.of(Set.of("x".repeat(20)), Set.of("y")), oversized.stream().map(Invalidation::keys).toList());
+    }
+
+    @Test
+    void failedBatchIsRetriedAsFlushAllTogetherWithNewKeys() {
+        List<Invalidation> failed = InvalidationBus.merge(List.of(
+            keys("product", "updated", "1"),
+            keys("product", "deleted", "2"),
+            keys("category", null, "9")), NODE, 1000);
+
+        List<Invalidation> retry = InvalidationBus.degrade(failed, NODE);
+        assertEquals(List.of(all("product"), all("category")), retry);
+
+        // 重送時與之後排入的通知合併：已全部失效的實體不再帶 key
+        List<Invalidation> batch = new ArrayList<>(retry);
+        batch.add(keys("product", "updated", "3"));
+        batch.add(keys("supplier", null, "5"));
+        assertEquals(List.of(all("product"), all("category"), keys("supplier", null, "5")),
+            InvalidationBus.merge(batch, NODE, 1000));
+    }
+
+    @Test
+    void receiverDrainsNotificationsQueuedDuringAReload() throws Exception {
+        // 重新載入期間累積的通知：連續幾次都有，直到沒有新的通知為止
+        Deque<PGNotification[]> queued = new ArrayDeque<>(List.of(
+            new PGNotification[] {notification("b"), notification("c")},
+            new PGNotification[] {notification("d")},
+            new PGNotification[0],
+            new PGNotification[] {notification("e")}));
+        List<PGNotification> batch = InvalidationBus.drain(timeout -> queued.poll(),
+            new PGNotification[] {notification("a")}, 1, 1000);
+
+        assertEquals(List.of("a", "b", "c", "d"), batch.stream().map(PGNotification::getParameter).toList());
+        assertEquals(1, queued.size());
+
+        // 通知持續送達時，超過時間上限就先處理已取出的
+        List<PGNotification> bounded = InvalidationBus.drain(timeout -> new PGNotification[] {notification("x")},
+            new PGNotification[] {notification("a")}, 1, 0);
+        assertEquals(1, bounded.size());
+    }
+
+    @Test
+    void receiverCoalescesRepeatedFlushAllFromSeveralNodes() {
+        // 其他節點各送了多次全部失效與一些 key：同一實體只重新載入一次，key 不再個別處理
+        List<Invalidation> received = List.of(
+            new Invalidation("node-b", "product", null, Set.of(), true),
+            new Invalidation("node-c", "product", "UPDATED", Set.of("1"), false),
+            new Invalidation("node-c", "product", null, Set.of(), true),
+            new Invalidation("node-b", "category", null, Set.of("9"), false),
+            new Invalidation("node-b", "product", null, Set.of(), true));
+
+        assertEquals(List.of(all("product"), keys("category", null, "9")),
+            InvalidationBus.merge(received, NODE, Integer.MAX_VALUE));
+    }
+
+    private static PGNotification notification(String parameter) {
+        return new PGNotification() {
+            @Override
+            public String getName() {
+                return "cache_invalidation";
+            }
+
+            @Override
+            public int getPID() {
+                return 0;
+            }
+
+            @Override
+            public String getParameter() {
+                return parameter;
+            }
+        };
+    }
+
+    private static Invalidation keys(String entity, String action, String... keys) {
+        return new Invalidation(NODE, entity, action, new LinkedHashSet<>(List.of(keys)), false);
+    }
+
+    private static Invalidation all(String entity) {
+        return new Invalidation(NODE, entity, null, Set.of(), true);
+    }
+}
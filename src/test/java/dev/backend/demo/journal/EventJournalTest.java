@@ -0,0 +1,175 @@
+package dev.backend.demo.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * EventJournal / JournalReader 測試
+ */
+class EventJournalTest {
+    
+    // 每個分段只放得下 10 筆，方便測試換分段
+    private static final int SMALL_SEGMENT = JournalSegments.HEADER_SIZE + 10 * JournalSegments.RECORD_SIZE;
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    void replayReturnsEventsInOrderAcrossSegments() {
+        try (EventJournal journal = new EventJournal(directory, SMALL_SEGMENT, 1000, 1000)) {
+            for (int i = 1; i <= 35; i++) {
+                assertTrue(journal.append(JournalEvent.Type.CART_ITEM_ADDED, 7, i, i, i * 100L));
+            }
+            awaitSequence(journal, 35);
+        }
+        assertEquals(4, JournalSegments.list(directory).size());
+        
+        List<JournalEvent> events = readAll(1);
+        assertEquals(35, events.size());
+        for (int i = 0; i < 35; i++) {
+            JournalEvent event = events.get(i);
+            assertEquals(i + 1, event.sequence());
+            assertEquals(JournalEvent.Type.CART_ITEM_ADDED, event.type());
+            assertEquals(7, event.userId());
+            assertEquals(i + 1, event.productId());
+            assertEquals(i + 1, event.quantity());
+            assertEquals((i + 1) * 100L, event.amountCents());
+        }
+        
+        List<JournalEvent> fromMiddle = readAll(23);
+        assertEquals(13, fromMiddle.size());
+        assertEquals(23, fromMiddle.get(0).sequence());
+    }
+    
+    @Test
+    void tailingReaderSeesNewEvents() {
+        try (EventJournal journal = new EventJournal(directory, SMALL_SEGMENT, 1000, 1000);
+             JournalReader reader = journal.reader(1)) {
+            List<JournalEvent> seen = new ArrayList<>();
+            assertEquals(0, reader.poll(seen::add, 100));
+            
+            for (int round = 1; round <= 3; round++) {
+                for (int i = 0; i < 7; i++) {
+                    journal.append(JournalEvent.Type.CHECKOUT, round, 0, 1, 0);
+                }
+                awaitSequence(journal, round * 7L);
+                while (seen.size() < round * 7) {
+                    reader.poll(seen::add, 100);
+                }
+            }
+            assertEquals(21, seen.size());
+            assertEquals(22, reader.getNextSequence());
+        }
+    }
+    
+    @Test
+    void reopenContinuesAfterLastEvent() {
+        try (EventJournal journal = new EventJournal(directory, SMALL_SEGMENT, 1000, 1000)) {
+            for (int i = 0; i < 13; i++) {
+                journal.append(JournalEvent.Type.CART_CLEARED, 1, 0, 0, 0);
+            }
+            awaitSequence(journal, 13);
+        }
+        try (EventJournal journal = new EventJournal(directory, SMALL_SEGMENT, 1000, 1000)) {
+            assertEquals(13, journal.getLastSequence());
+            journal.append(JournalEvent.Type.CART_CLEARED, 2, 0, 0, 0);
+            awaitSequence(journal, 14);
+        }
+        List<JournalEvent> events = readAll(1);
+        assertEquals(14, events.size());
+        assertEquals(2, events.get(13).userId());
+    }
+    
+    @Test
+    void reopenDiscardsTornRecord() throws IOException {
+        try (EventJournal journal = new EventJournal(directory, SMALL_SEGMENT, 1000, 1000)) {
+            for (int i = 0; i < 3; i++) {
+                journal.append(JournalEvent.Type.CART_ITEM_REMOVED, 1, i, 0, 0);
+            }
+            awaitSequence(journal, 3);
+        }
+        // 模擬寫到一半中斷：第 4 筆只有部分 body，沒有長度欄位
+        Path file = JournalSegments.fileFor(directory, 1);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {1, 2, 3, 4}),
+                JournalSegments.HEADER_SIZE + 3L * JournalSegments.RECORD_SIZE + 12);
+        }
+        
+        try (EventJournal journal = new EventJournal(directory, SMALL_SEGMENT, 1000, 1000)) {
+            assertEquals(3, journal.getLastSequence());
+            journal.append(JournalEvent.Type.CHECKOUT, 9, 0, 0, 0);
+            awaitSequence(journal, 4);
+        }
+        List<JournalEvent> events = readAll(1);
+        assertEquals(4, events.size());
+        assertEquals(JournalEvent.Type.CHECKOUT, events.get(3).type());
+    }
+    
+    @Test
+    void concurrentProducersGetContiguousSequences() throws Exception {
+        int producers = 32;
+        int perProducer = 500;
+        try (EventJournal journal = new EventJournal(directory, 64 * 1024, 1000, producers * perProducer)) {
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int p = 0; p < producers; p++) {
+                    long userId = p;
+                    executor.submit(() -> {
+                        for (int i = 0; i < perProducer; i++) {
+                            assertTrue(journal.append(JournalEvent.Type.CART_ITEM_ADDED, userId, i, 1, 0));
+                        }
+                    });
+                }
+            }
+            awaitSequence(journal, producers * perProducer);
+            assertEquals(0, journal.getDroppedCount());
+        }
+        
+        List<JournalEvent> events = readAll(1);
+        assertEquals(producers * perProducer, events.size());
+        long[] lastProductPerUser = new long[producers];
+        java.util.Arrays.fill(lastProductPerUser, -1);
+        for (int i = 0; i < events.size(); i++) {
+            JournalEvent event = events.get(i);
+            assertEquals(i + 1, event.sequence());
+            // 同一個生產者的事件保持送出順序
+            assertTrue(event.productId() > lastProductPerUser[(int) event.userId()]);
+            lastProductPerUser[(int) event.userId()] = event.productId();
+        }
+    }
+    
+    @Test
+    void appendDropsWhenQueueIsFull() {
+        try (EventJournal journal = new EventJournal(directory, SMALL_SEGMENT, 1000, 0)) {
+            assertFalse(journal.append(JournalEvent.Type.CHECKOUT, 1, 0, 0, 0));
+            assertEquals(1, journal.getDroppedCount());
+        }
+    }
+    
+    private List<JournalEvent> readAll(long fromSequence) {
+        List<JournalEvent> events = new ArrayList<>();
+        try (JournalReader reader = new JournalReader(directory, fromSequence)) {
+            reader.replay(events::add);
+        }
+        return events;
+    }
+    
+    private void awaitSequence(EventJournal journal, long sequence) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (journal.getLastSequence() < sequence) {
+            assertTrue(System.currentTimeMillis() < deadline, "等待寫入逾時");
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package dev.backend.demo.service;
+
+import dev.backend.demo.dto.cart.CartItemDTO;
+import dev.backend.demo.dto.cart.CartResponseDTO;
+import dev.backend.demo.model.Product;
+import dev.backend.demo.repository.ProductRepository;
+import dev.backend.demo.store.CartLine;
+import dev.backend.demo.store.CartStore;
+import dev.backend.demo.store.StoredCart;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CartService 併發壓力測試
+ *
+ * 以大量虛擬執行緒同時對同一位使用者、同一個商品呼叫 addToCart / updateQuantity / removeFromCart，
+ * 檢查「讀取後寫入」邏輯常見的問題：
+ * - 遺失更新：最終數量必須等於所有成功加入的數量總和
+ * - 重複資料列：同一商品在購物車中只能有一個項目，同一使用者只能有一台購物車
+ * - 總計一致：totalItems / totalPrice 必須等於各項目加總
+ * 並輸出每種情境的吞吐量與延遲。
+ *
+ * 需要本機 PostgreSQL，預設不執行：
+ * ./mvnw test -Dtest=CartServiceStressTest -Dcart.stress=true
+ * 可用 -Dcart.stress.store=document|offheap|sharded 指定儲存後端（預設 jpa），
+ * -Dcart.stress.threads / -Dcart.stress.ops 調整執行緒數與每個執行緒的操作次數。
+ */
+@EnabledIfSystemProperty(named = "cart.stress", matches = "true")
+@SpringBootTest(properties = {
+    "cart.store.type=${cart.stress.store:jpa}",
+    "spring.jpa.show-sql=false"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class CartServiceStressTest {
+
+    private static final int THREADS = Integer.getInteger("cart.stress.threads", 64);
+    private static final int OPS_PER_THREAD = Integer.getInteger("cart.stress.ops", 20);
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CartStore cartStore;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Value("${cart.store.type}")
+    private String storeType;
+
+    private final List<Long> productIds = new ArrayList<>();
+    private final Map<String, Report> reports = Collections.synchronizedMap(new TreeMap<>());
+
+    @BeforeEach
+    void createProducts() {
+        if (productIds.isEmpty()) {
+            for (int i = 0; i < 8; i++) {
+                Product product = new Product("stress-test-" + i, null, null, null, new BigDecimal("12.50"));
+                productIds.add(productRepository.save(product).getProductId());
+            }
+        }
+    }
+
+    @AfterAll
+    void printReports() {
+        System.out.println();
+        System.out.println("=== CartService 併發壓力測試（store=" + storeType + ", threads=" + THREADS
+            + ", ops/thread=" + OPS_PER_THREAD + "）===");
+        System.out.printf("%-28s %8s %8s %12s %10s %10s%n", "scenario", "ok", "failed", "ops/s", "p50(us)", "p99(us)");
+        reports.values().forEach(Report::print);
+    }
+
+    /**
+     * 同一使用者、同一商品同時累加：最終數量 = 成功次數，只有一個項目
+     */
+    @Test
+    void concurrentAddsToSameProductAreNotLost() throws Exception {
+        Long userId = newUserId();
+        Long productId = productIds.get(0);
+
+        Report report = run("add same product", (thread, op) -> cartService.addToCart(userId, productId, 1));
+
+        StoredCart cart = cartStore.find(userId).orElseThrow();
+        List<CartLine> lines = linesFor(cart, productId);
+        assertEquals(1, lines.size(), "同一商品出現重複的購物車項目");
+        assertEquals(report.succeeded.get(), lines.get(0).getQuantity(), "遺失更新：最終數量不等於成功加入的次數");
+        assertEquals(0, report.failed.get(), "併發加入購物車不應失敗: " + report.errors);
+        assertTotalsConsistent(cartService.getCart(userId));
+    }
+
+    /**
+     * 新使用者第一次加入商品時同時建立購物車：只能有一台購物車，所有商品都在
+     */
+    @Test
+    void concurrentFirstAddsCreateSingleCart() throws Exception {
+        Long userId = newUserId();
+
+        Report report = run("first add (new cart)", (thread, op) ->
+            cartService.addToCart(userId, productIds.get(thread % productIds.size()), 1));
+
+        StoredCart cart = cartStore.find(userId).orElseThrow();
+        Map<Long, Long> linesPerProduct = cart.getLines().stream()
+            .collect(Collectors.groupingBy(CartLine::getProductId, Collectors.counting()));
+        linesPerProduct.forEach((productId, count) ->
+            assertEquals(1L, count, "同一商品出現重複的購物車項目: productId=" + productId));
+        int total = cart.getLines().stream().mapToInt(CartLine::getQuantity).sum();
+        assertEquals(report.succeeded.get(), total, "遺失更新：數量總和不等於成功加入的次數");
+        assertEquals(0, report.failed.get(), "併發建立購物車不應失敗: " + report.errors);
+    }
+
+    /**
+     * 同時以不同數值更新同一項目：最終數量必須是其中一次寫入的值，且只有一個項目
+     */
+    @Test
+    void concurrentUpdatesLeaveOneWrittenValue() throws Exception {
+        Long userId = newUserId();
+        Long productId = productIds.get(1);
+        cartService.addToCart(userId, productId, 1);
+
+        Set<Integer> written = ConcurrentHashMap.newKeySet();
+        Report report = run("update same line", (thread, op) -> {
+            int quantity = 1 + (thread * OPS_PER_THREAD + op) % 999;
+            cartService.updateQuantity(userId, productId, quantity);
+            written.add(quantity);
+        });
+
+        List<CartLine> lines = linesFor(cartStore.find(userId).orElseThrow(), productId);
+        assertEquals(1, lines.size(), "同一商品出現重複的購物車項目");
+        assertTrue(written.contains(lines.get(0).getQuantity()), "最終數量不是任何一次寫入的值");
+        assertEquals(0, report.failed.get(), "併發更新數量不應失敗: " + report.errors);
+    }
+
+    /**
+     * 加入、更新、移除交錯執行：不可出現重複項目，數量在合法範圍內，總計一致
+     */
+    @Test
+    void mixedOperationsKeepCartConsistent() throws Exception {
+        Long userId = newUserId();
+        Long productId = productIds.get(2);
+        cartService.addToCart(userId, productId, 1);
+
+        Report report = run("mixed add/update/remove", (thread, op) -> {
+            switch (ThreadLocalRandom.current().nextInt(3)) {
+                case 0 -> cartService.addToCart(userId, productId, 1);
+                case 1 -> ignoreNotInCart(() -> cartService.updateQuantity(userId, productId, 1 + thread % 5));
+                default -> ignoreNotInCart(() -> cartService.removeFromCart(userId, productId));
+            }
+        });
+
+        List<CartLine> lines = linesFor(cartStore.find(userId).orElseThrow(), productId);
+        assertTrue(lines.size() <= 1, "同一商品出現重複的購物車項目");
+        lines.forEach(line -> assertTrue(line.getQuantity() > 0 && line.getQuantity() <= 999,
+            "數量超出範圍: " + line.getQuantity()));
+        assertEquals(0, report.failed.get(), "併發操作不應失敗: " + report.errors);
+        assertTotalsConsistent(cartService.getCart(userId));
+    }
+
+    /**
+     * 不同使用者各自操作（無競爭），作為吞吐量基準
+     */
+    @Test
+    void independentUsersThroughput() throws Exception {
+        long base = newUserId();
+
+        Report report = run("independent users", (thread, op) ->
+            cartService.addToCart(base + thread, productIds.get(op % productIds.size()), 1));
+
+        for (int thread = 0; thread < THREADS; thread++) {
+            int total = cartStore.find(base + thread).orElseThrow().getLines().stream()
+                .mapToInt(CartLine::getQuantity).sum();
+            assertEquals(OPS_PER_THREAD, total, "使用者 " + (base + thread) + " 的數量總和錯誤");
+        }
+        assertEquals(0, report.failed.get(), "無競爭的操作不應失敗: " + report.errors);
+    }
+
+    // ========== 輔助方法 ==========
+
+    /**
+     * 以 THREADS 個虛擬執行緒同時開始，各執行 OPS_PER_THREAD 次操作
+     */
+    private Report run(String scenario, Operation operation) throws Exception {
+        Report report = new Report(scenario);
+        CountDownLatch start = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                executor.submit(() -> {
+                    start.await();
+                    for (int op = 0; op < OPS_PER_THREAD; op++) {
+                        long begin = System.nanoTime();
+                        try {
+                            operation.run(thread, op);
+                            report.succeeded.incrementAndGet();
+                        } catch (RuntimeException e) {
+                            report.failed.incrementAndGet();
+                            report.errors.merge(e.getClass().getSimpleName(), 1, Integer::sum);
+                        }
+                        report.record(System.nanoTime() - begin);
+                    }
+                    return null;
+                });
+            }
+            report.startNanos = System.nanoTime();
+            start.countDown();
+        }
+        report.elapsedNanos = System.nanoTime() - report.startNanos;
+        reports.put(scenario, report);
+        return report;
+    }
+
+    private void ignoreNotInCart(Runnable operation) {
+        try {
+            operation.run();
+        } catch (dev.backend.demo.exception.ResourceNotFoundException e) {
+            // 項目已被其他執行緒移除，屬於正常結果
+        }
+    }
+
+    private List<CartLine> linesFor(StoredCart cart, Long productId) {
+        return cart.getLines().stream()
+            .filter(line -> line.getProductId().equals(productId))
+            .collect(Collectors.toList());
+    }
+
+    private void assertTotalsConsistent(CartResponseDTO cart) {
+        int totalItems = cart.getItems().stream().mapToInt(CartItemDTO::getQuantity).sum();
+        BigDecimal totalPrice = cart.getItems().stream()
+            .map(CartItemDTO::getSubtotal)
+            .reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(totalItems, cart.getTotalItems(), "totalItems 與項目加總不一致");
+        assertEquals(0, totalPrice.compareTo(cart.getTotalPrice()), "totalPrice 與項目加總不一致");
+    }
+
+    private Long newUserId() {
+        return ThreadLocalRandom.current().nextLong(1_000_000_000L, Long.MAX_VALUE / 2);
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+        void run(int thread, int op);
+    }
+
+    /**
+     * 單一情境的結果：成功 / 失敗次數、失敗類型、延遲分布
+     */
+    private static class Report {
+        final String scenario;
+        final AtomicInteger succeeded = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        final Map<String, Integer> errors = new ConcurrentHashMap<>();
+        final long[] latencies = new long[THREADS * OPS_PER_THREAD];
+        final AtomicLong recorded = new AtomicLong();
+        long startNanos;
+        long elapsedNanos;
+
+        Report(String scenario) {
+            this.scenario = scenario;
+        }
+
+        void record(long nanos) {
+            latencies[(int) recorded.getAndIncrement()] = nanos;
+        }
+
+        void print() {
+            long[] sorted = Arrays.copyOf(latencies, (int) recorded.get());
+            Arrays.sort(sorted);
+            double opsPerSecond = sorted.length / (elapsedNanos / 1_000_000_000.0);
+            System.out.printf("%-28s %8d %8d %12.0f %10d %10d%s%n", scenario, succeeded.get(), failed.get(),
+                opsPerSecond, percentile(sorted, 50), percentile(sorted, 99),
+                errors.isEmpty() ? "" : "  " + errors);
+        }
+
+        private long percentile(long[] sorted, int p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p / 100.0 * sorted.length) - 1)] / 1000;
+        }
+    }
+}
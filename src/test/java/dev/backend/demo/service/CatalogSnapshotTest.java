@@ -0,0 +1,282 @@
+package dev.backend.demo.service;
+
+import dev.backend.demo.exception.InvalidOperationException;
+import dev.backend.demo.model.Category;
+import dev.backend.demo.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CatalogSnapshot 測試
+ */
+class CatalogSnapshotTest {
+    
+    @Test
+    void lookupsByIdAndCategory() {
+        CatalogSnapshot snapshot = CatalogSnapshot.of(List.of(
+            product(5, 1L), product(2, 1L), product(9, null), product(7, 3L)));
+        
+        assertEquals(List.of(2L, 5L, 7L, 9L), ids(snapshot.all()));
+        assertEquals(7L, snapshot.get(7).getProductId());
+        assertNull(snapshot.get(6));
+        assertEquals(List.of(2L, 5L), ids(snapshot.byCategory(1L)));
+        assertEquals(List.of(9L), ids(snapshot.byCategory(null)));
+        assertTrue(snapshot.byCategory(42L).isEmpty());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.all().set(0, product(1, null)));
+    }
+    
+    @Test
+    void copyOnWriteLeavesOriginalUnchanged() {
+        CatalogSnapshot original = CatalogSnapshot.of(List.of(product(2, 1L), product(5, 1L)));
+        
+        CatalogSnapshot added = original.with(product(3, 2L));
+        assertEquals(List.of(2L, 3L, 5L), ids(added.all()));
+        assertEquals(List.of(3L), ids(added.byCategory(2L)));
+        
+        // 取代：類別改變時索引跟著更新
+        CatalogSnapshot moved = added.with(product(5, 2L));
+        assertEquals(List.of(3L, 5L), ids(moved.byCategory(2L)));
+        assertEquals(List.of(2L), ids(moved.byCategory(1L)));
+        
+        CatalogSnapshot removed = moved.without(2);
+        assertEquals(List.of(3L, 5L), ids(removed.all()));
+        assertSame(removed, removed.without(99));
+        
+        assertEquals(List.of(2L, 5L), ids(original.all()));
+        assertEquals(List.of(2L, 5L), ids(original.byCategory(1L)));
+    }
+    
+    @Test
+    void batchChangesMergeIntoTheSnapshot() {
+        CatalogSnapshot snapshot = CatalogSnapshot.of(List.of(
+            product(1, 1L), product(3, 1L), product(5, 2L), product(7, null), product(9, 2L)));
+        Product moved = product(3, 2L);
+        Product renamed = product(9, 2L);
+        renamed.setProductName("renamed");
+        
+        // 3 換類別、9 改名、4 新增、5 與 8（不存在）移除
+        CatalogSnapshot changed = snapshot.with(List.of(3L, 4L, 5L, 8L, 9L), List.of(renamed, product(4, null), moved));
+        
+        assertEquals(List.of(1L, 3L, 4L, 7L, 9L), ids(changed.all()));
+        assertEquals(List.of(1L), ids(changed.byCategory(1L)));
+        assertEquals(List.of(3L, 9L), ids(changed.byCategory(2L)));
+        assertEquals(List.of(4L, 7L), ids(changed.byCategory(null)));
+        assertEquals("renamed", changed.get(9).getProductName());
+        assertNull(changed.get(5));
+        assertEquals(CatalogSnapshot.of(List.of(product(1, 1L), moved, product(4, null), product(7, null), renamed)).version(),
+            changed.version());
+        // 沒有任何改變時回傳自己
+        assertSame(changed, changed.with(List.of(42L), List.of()));
+    }
+    
+    @Test
+    void incrementalChangesMatchARebuiltSnapshot() {
+        // 每一步都讀取排序索引：之後的異動要把已建立的索引帶到新的快照（包含以類別樹展開子類別的索引）
+        CategoryTree tree = CategoryTree.of(List.of(category(1, null), category(2, 1L), category(3, 2L)));
+        Random random = new Random(42);
+        Map<Long, Product> expected = new TreeMap<>();
+        CatalogSnapshot snapshot = CatalogSnapshot.empty();
+        for (int step = 0; step < 300; step++) {
+            int operation = random.nextInt(3);
+            if (operation == 0) {
+                Product product = randomProduct(random);
+                expected.put(product.getProductId(), product);
+                snapshot = snapshot.with(product);
+            } else if (operation == 1) {
+                long productId = 1 + random.nextInt(40);
+                expected.remove(productId);
+                snapshot = snapshot.without(productId);
+            } else {
+                List<Long> productIds = new ArrayList<>();
+                List<Product> current = new ArrayList<>();
+                for (int i = random.nextInt(6); i >= 0; i--) {
+                    Product product = randomProduct(random);
+                    productIds.add(product.getProductId());
+                    if (random.nextBoolean()) {
+                        current.add(product);
+                    }
+                }
+                productIds.forEach(expected::remove);
+                current.forEach(product -> expected.put(product.getProductId(), product));
+                snapshot = snapshot.with(productIds, current);
+            }
+            
+            CatalogSnapshot rebuilt = CatalogSnapshot.of(expected.values());
+            assertEquals(ids(rebuilt.all()), ids(snapshot.all()), "step " + step);
+            assertEquals(rebuilt.version(), snapshot.version(), "step " + step);
+            for (Long categoryId : new Long[] {null, 0L, 1L, 2L, 3L}) {
+                assertEquals(ids(rebuilt.byCategory(categoryId)), ids(snapshot.byCategory(categoryId)), "step " + step);
+                for (ProductSort sort : ProductSort.values()) {
+                    assertEquals(ids(rebuilt.page(sort, false, categoryId, null, 100)),
+                        ids(snapshot.page(sort, false, categoryId, null, 100)), sort + " step " + step);
+                    assertEquals(ids(rebuilt.page(sort, true, categoryId, tree, null, 100)),
+                        ids(snapshot.page(sort, true, categoryId, tree, null, 100)), sort + " subtree step " + step);
+                }
+            }
+        }
+    }
+    
+    @Test
+    void pagesWalkEverySortInBothDirections() {
+        List<Product> products = new ArrayList<>();
+        for (long id = 1; id <= 57; id++) {
+            Product product = product(id, id % 3);
+            // 價格與名稱有大量重複，驗證以 ID 決定同值的順序
+            product.setUnitPrice(BigDecimal.valueOf(id % 7));
+            product.setProductName("p" + (id % 5));
+            product.setCreatedAt(LocalDateTime.of(2026, 1, 1, 0, 0).plusMinutes(id % 11));
+            products.add(product);
+        }
+        CatalogSnapshot snapshot = CatalogSnapshot.of(products);
+        
+        for (ProductSort sort : ProductSort.values()) {
+            for (boolean descending : new boolean[] {false, true}) {
+                for (Long categoryId : new Long[] {null, 2L}) {
+                    List<Product> expected = new ArrayList<>(categoryId == null ? products : snapshot.byCategory(categoryId));
+                    Comparator<Product> order = sort.comparator();
+                    expected.sort(descending ? order.reversed() : order);
+                    
+                    List<Product> walked = new ArrayList<>();
+                    ProductCursor cursor = null;
+                    while (true) {
+                        List<Product> page = snapshot.page(sort, descending, categoryId, cursor, 10);
+                        walked.addAll(page);
+                        if (page.size() < 10) {
+                            break;
+                        }
+                        // 經過編碼再解碼，與實際請求相同
+                        cursor = ProductCursor.decode(
+                            ProductCursor.after(sort, descending, categoryId, page.get(page.size() - 1)).encode());
+                    }
+                    assertEquals(ids(expected), ids(walked), sort + " desc=" + descending + " category=" + categoryId);
+                }
+            }
+        }
+    }
+    
+    @Test
+    void cursorStillWorksWhenItsProductIsRemoved() {
+        CatalogSnapshot snapshot = CatalogSnapshot.of(List.of(product(1, null), product(2, null), product(3, null)));
+        ProductCursor cursor = ProductCursor.after(ProductSort.ID, false, null, snapshot.get(2));
+        
+        assertEquals(List.of(3L), ids(snapshot.without(2).page(ProductSort.ID, false, null, cursor, 10)));
+        assertEquals(List.of(1L), ids(snapshot.without(2).page(ProductSort.ID, true, null, cursor, 10)));
+    }
+    
+    @Test
+    void versionFollowsUpdatesAndDeletions() {
+        CatalogSnapshot snapshot = CatalogSnapshot.of(List.of(product(2, 1L), product(5, 1L)));
+        // 相同資料重新載入得到相同版本
+        assertEquals(snapshot.version(), CatalogSnapshot.of(List.of(product(5, 1L), product(2, 1L))).version());
+
+        Product updated = product(5, 1L);
+        updated.setUpdatedAt(LocalDateTime.of(2026, 1, 15, 0, 0));
+        CatalogSnapshot changed = snapshot.with(updated);
+        assertNotEquals(snapshot.version(), changed.version());
+
+        CatalogSnapshot deleted = changed.without(2);
+        assertNotEquals(changed.version(), deleted.version());
+        assertEquals("0-0", CatalogSnapshot.empty().version());
+    }
+
+    @Test
+    void versionDoesNotDependOnClocks() {
+        CatalogSnapshot snapshot = CatalogSnapshot.of(List.of(product(2, 1L), product(5, 1L)));
+        Product later = product(2, 1L);
+        later.setUpdatedAt(LocalDateTime.of(2026, 1, 15, 0, 0));
+        snapshot = snapshot.with(later);
+
+        // 時鐘落後的節點寫入的修改早於目前最新的 updatedAt，版本仍然改變
+        Product skewed = product(5, 1L);
+        skewed.setUnitPrice(new BigDecimal("2.50"));
+        skewed.setUpdatedAt(LocalDateTime.of(2026, 1, 10, 0, 0));
+        CatalogSnapshot changed = snapshot.with(skewed);
+        assertNotEquals(snapshot.version(), changed.version());
+
+        // 增量更新與重新載入相同資料的版本相同；加入後再移除回到原本的版本
+        assertEquals(changed.version(), CatalogSnapshot.of(List.of(skewed, later)).version());
+        assertEquals(changed.version(), changed.with(product(8, 2L)).without(8).version());
+        // 金額只差多餘的 0 視為相同內容
+        Product samePrice = product(5, 1L);
+        samePrice.setUnitPrice(new BigDecimal("2.5"));
+        samePrice.setUpdatedAt(skewed.getUpdatedAt());
+        assertEquals(changed.version(), changed.with(samePrice).version());
+    }
+
+    @Test
+    void subtreePagesUnionDescendantCategories() {
+        // 1 → (2 → 4, 3)
+        CategoryTree tree = CategoryTree.of(List.of(category(1, null), category(2, 1L), category(3, 1L), category(4, 2L)));
+        CatalogSnapshot snapshot = CatalogSnapshot.of(List.of(
+            product(1, 4L), product(2, 1L), product(3, 3L), product(4, 9L), product(5, 2L), product(6, 4L)));
+        
+        assertEquals(List.of(1L, 2L, 3L, 5L, 6L), ids(snapshot.byCategories(tree.subtreeIds(1))));
+        assertEquals(List.of(1L, 5L, 6L), ids(snapshot.page(ProductSort.ID, false, 2L, tree, null, 10)));
+        assertEquals(List.of(5L), ids(snapshot.page(ProductSort.ID, false, 2L, null, null, 10)));
+        // 不在樹中的類別只取自己
+        assertEquals(List.of(4L), ids(snapshot.page(ProductSort.ID, false, 9L, tree, null, 10)));
+        assertEquals(2, snapshot.countByCategory(4L));
+        
+        ProductCursor cursor = ProductCursor.decode(ProductCursor.after(ProductSort.ID, true, 1L, true, snapshot.get(5)).encode());
+        assertTrue(cursor.includeSubcategories());
+        assertEquals(List.of(3L, 2L, 1L), ids(snapshot.page(ProductSort.ID, true, 1L, tree, cursor, 10)));
+        
+        // 類別移動後換上新的樹，不再使用舊樹的索引：4 移到 3 之下
+        CategoryTree moved = CategoryTree.of(List.of(category(1, null), category(2, 1L), category(3, 1L), category(4, 3L)));
+        assertEquals(List.of(5L), ids(snapshot.page(ProductSort.ID, false, 2L, moved, null, 10)));
+        assertEquals(List.of(1L, 3L, 6L), ids(snapshot.page(ProductSort.ID, false, 3L, moved, null, 10)));
+    }
+    
+    @Test
+    void versionOneCursorIsStillAccepted() {
+        // 版本 1：沒有 includeSubcategories 欄位
+        ProductCursor cursor = ProductCursor.decode("AQAAAAAAAAAAAAAAAAAAAAAAAAAAAAU");
+        assertEquals(ProductSort.ID, cursor.sort());
+        assertNull(cursor.categoryId());
+        assertFalse(cursor.includeSubcategories());
+        assertEquals(5L, cursor.productId());
+    }
+    
+    @Test
+    void invalidCursorIsRejected() {
+        assertThrows(InvalidOperationException.class, () -> ProductCursor.decode("not-a-cursor"));
+        assertThrows(InvalidOperationException.class, () -> ProductCursor.decode(""));
+    }
+    
+    private static Product randomProduct(Random random) {
+        int category = random.nextInt(4);
+        Product product = product(1 + random.nextInt(40), category == 0 ? null : (long) category);
+        product.setUnitPrice(BigDecimal.valueOf(random.nextInt(5)));
+        product.setProductName("p" + random.nextInt(5));
+        return product;
+    }
+    
+    private static Product product(long id, Long categoryId) {
+        Product product = new Product("p" + id, categoryId, null, null, BigDecimal.ONE);
+        product.setProductId(id);
+        product.setCreatedAt(LocalDateTime.of(2026, 1, 1, 0, 0));
+        return product;
+    }
+    
+    private static Category category(long id, Long parentId) {
+        Category category = new Category();
+        category.setCategoryId(id);
+        category.setCategoryName("c" + id);
+        category.setParentId(parentId);
+        return category;
+    }
+    
+    private static List<Long> ids(List<Product> products) {
+        return products.stream().map(Product::getProductId).toList();
+    }
+}
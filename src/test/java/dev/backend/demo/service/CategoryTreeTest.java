@@ -0,0 +1,167 @@
+package dev.backend.demo.service;
+
+import dev.backend.demo.model.Category;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CategoryTree 單元測試
+ */
+class CategoryTreeTest {
+
+    /**
+     * 1 電子
+     * ├── 2 電腦
+     * │   └── 4 筆電
+     * └── 3 耳機
+     * 5 服飾
+     */
+    private static final List<Category> SAMPLE = List.of(
+        category(3, "耳機", 1L), category(1, "電子", null), category(4, "筆電", 2L),
+        category(2, "電腦", 1L), category(5, "服飾", null));
+
+    @Test
+    void numbersSubtreesAsPreorderIntervals() {
+        CategoryTree tree = CategoryTree.of(SAMPLE);
+
+        assertEquals(List.of(1L, 2L, 4L, 3L, 5L), ids(tree.all()));
+        assertArrayEquals(new long[]{1, 2, 4, 3}, tree.subtreeIds(1));
+        assertArrayEquals(new long[]{2, 4}, tree.subtreeIds(2));
+        assertArrayEquals(new long[]{5}, tree.subtreeIds(5));
+        // 不在樹中的類別只有自己
+        assertArrayEquals(new long[]{42}, tree.subtreeIds(42));
+
+        assertTrue(tree.isWithin(4, 1));
+        assertTrue(tree.isWithin(2, 2));
+        assertFalse(tree.isWithin(1, 4));
+        assertFalse(tree.isWithin(3, 2));
+        assertFalse(tree.isWithin(42, 1));
+    }
+
+    @Test
+    void navigatesParentsChildrenAndPaths() {
+        CategoryTree tree = CategoryTree.of(SAMPLE);
+
+        assertEquals(List.of(1L, 5L), ids(tree.roots()));
+        assertEquals(List.of(2L, 3L), ids(tree.children(1)));
+        assertTrue(tree.children(4).isEmpty());
+        assertEquals(List.of(1L, 2L, 4L), ids(tree.ancestors(4)));
+        assertTrue(tree.ancestors(42).isEmpty());
+        assertEquals(2L, tree.parentId(4));
+        assertNull(tree.parentId(1));
+        assertEquals(2, tree.depth(4));
+        assertEquals(-1, tree.depth(42));
+        assertEquals("筆電", tree.get(4).getCategoryName());
+        assertNull(tree.get(42));
+    }
+
+    @Test
+    void sumsValuesOverSubtrees() {
+        CategoryTree tree = CategoryTree.of(SAMPLE);
+        // 依前序 1, 2, 4, 3, 5
+        assertArrayEquals(new long[]{1 + 2 + 4 + 3, 2 + 4, 4, 3, 5}, tree.subtreeSums(new long[]{1, 2, 4, 3, 5}));
+        assertThrows(IllegalArgumentException.class, () -> tree.subtreeSums(new long[2]));
+    }
+
+    @Test
+    void toleratesOrphansAndCycles() {
+        CategoryTree tree = CategoryTree.of(List.of(
+            category(1, "a", 99L),          // 上層不存在
+            category(2, "b", 2L),           // 指向自己
+            category(5, "c", 7L), category(7, "d", 6L), category(6, "e", 5L),  // 循環 5 → 7 → 6 → 5
+            category(8, "f", 6L)));
+
+        assertEquals(6, tree.size());
+        assertEquals(List.of(1L, 2L, 5L), ids(tree.roots()));
+        // 從循環中 ID 最小的 5 斷開：5 → 6 → (7, 8)
+        assertEquals(List.of(5L, 6L, 7L), ids(tree.ancestors(7)));
+        assertArrayEquals(new long[]{5, 6, 7, 8}, tree.subtreeIds(5));
+        assertNull(tree.parentId(5));
+    }
+
+    @Test
+    void versionChangesWithContent() {
+        CategoryTree tree = CategoryTree.of(SAMPLE);
+        assertEquals(tree.version(), CategoryTree.of(SAMPLE).version());
+        assertNotEquals(tree.version(), CategoryTree.of(SAMPLE.subList(0, 4)).version());
+        // 只移動類別（時間不變）版本也改變
+        List<Category> moved = new ArrayList<>(SAMPLE);
+        moved.set(2, category(4, "筆電", 3L));
+        assertNotEquals(tree.version(), CategoryTree.of(moved).version());
+        assertEquals(0, CategoryTree.empty().size());
+    }
+
+    @Test
+    void matchesParentWalkOnRandomTrees() {
+        Random random = new Random(11);
+        for (int round = 0; round < 20; round++) {
+            int n = 1 + random.nextInt(200);
+            List<Category> categories = new ArrayList<>();
+            Map<Long, Long> parents = new HashMap<>();
+            for (long id = 1; id <= n; id++) {
+                // 偶爾是最上層或指向不存在的類別（視為最上層）
+                int kind = random.nextInt(10);
+                Long parent = id == 1 || kind == 0 ? null : kind == 1 ? 1000 + id : (long) (1 + random.nextInt((int) id - 1));
+                parents.put(id, parent);
+            }
+            // 打亂 ID：上層類別不一定比子類別小
+            List<Long> shuffled = new ArrayList<>(parents.keySet());
+            Collections.shuffle(shuffled, random);
+            Map<Long, Long> rename = new HashMap<>();
+            for (int i = 0; i < n; i++) {
+                rename.put((long) (i + 1), shuffled.get(i));
+            }
+            Map<Long, Long> parentOf = new HashMap<>();
+            parents.forEach((id, parent) -> parentOf.put(rename.get(id), parent == null ? null : rename.getOrDefault(parent, parent)));
+            parentOf.forEach((id, parent) -> categories.add(category(id, "c" + id, parent)));
+
+            CategoryTree tree = CategoryTree.of(categories);
+            assertEquals(n, tree.size());
+            for (long a = 1; a <= n; a++) {
+                Set<Long> expected = new HashSet<>();
+                for (long d = 1; d <= n; d++) {
+                    if (isWithinByParentWalk(parentOf, d, a)) {
+                        expected.add(d);
+                    }
+                    assertEquals(isWithinByParentWalk(parentOf, d, a), tree.isWithin(d, a));
+                }
+                Set<Long> actual = new HashSet<>();
+                for (long id : tree.subtreeIds(a)) {
+                    actual.add(id);
+                }
+                assertEquals(expected, actual);
+            }
+        }
+    }
+
+    private static boolean isWithinByParentWalk(Map<Long, Long> parentOf, long descendant, long ancestor) {
+        for (Long id = descendant; id != null; id = parentOf.get(id)) {
+            if (id == ancestor) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Category category(long id, String name, Long parentId) {
+        Category category = new Category();
+        category.setCategoryId(id);
+        category.setCategoryName(name);
+        category.setParentId(parentId);
+        return category;
+    }
+
+    private static List<Long> ids(List<Category> categories) {
+        return categories.stream().map(Category::getCategoryId).toList();
+    }
+}
@@ -0,0 +1,68 @@
+package dev.backend.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CoOccurrenceMatrix 單元測試
+ */
+class CoOccurrenceMatrixTest {
+    
+    @Test
+    void countsEachPairOncePerOrder() {
+        CoOccurrenceMatrix matrix = new CoOccurrenceMatrix(4);
+        matrix.recordOrder(new long[] {1, 2, 3});
+        matrix.recordOrder(new long[] {1, 2, 2});
+        matrix.recordOrder(new long[] {1});
+        
+        assertEquals(List.of(new CoOccurrenceMatrix.Entry(2, 2), new CoOccurrenceMatrix.Entry(3, 1)),
+            matrix.topK(1, 10, id -> false));
+        assertEquals(List.of(new CoOccurrenceMatrix.Entry(1, 2), new CoOccurrenceMatrix.Entry(3, 1)),
+            matrix.topK(2, 10, id -> false));
+        assertTrue(matrix.topK(99, 10, id -> false).isEmpty());
+    }
+    
+    @Test
+    void topKKeepsStrongestAndBreaksTiesByProductId() {
+        CoOccurrenceMatrix matrix = new CoOccurrenceMatrix(8);
+        // 商品 i 與商品 0 共同出現 i % 7 次
+        for (long i = 1; i <= 200; i++) {
+            for (int n = 0; n < i % 7; n++) {
+                matrix.recordOrder(new long[] {0, i});
+            }
+        }
+        
+        List<CoOccurrenceMatrix.Entry> top = matrix.topK(0, 3, id -> false);
+        assertEquals(List.of(new CoOccurrenceMatrix.Entry(6, 6), new CoOccurrenceMatrix.Entry(13, 6),
+            new CoOccurrenceMatrix.Entry(20, 6)), top);
+        
+        List<CoOccurrenceMatrix.Entry> filtered = matrix.topK(0, 2, id -> id == 6 || id == 13);
+        assertEquals(List.of(new CoOccurrenceMatrix.Entry(20, 6), new CoOccurrenceMatrix.Entry(27, 6)), filtered);
+    }
+    
+    @Test
+    void snapshotRoundTripAcrossShardCounts() throws IOException {
+        CoOccurrenceMatrix matrix = new CoOccurrenceMatrix(16);
+        for (long i = 1; i <= 50; i++) {
+            matrix.recordOrder(new long[] {i, i + 1, i + 2});
+        }
+        
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        matrix.writeTo(new DataOutputStream(bytes));
+        CoOccurrenceMatrix restored = new CoOccurrenceMatrix(3);
+        restored.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        
+        assertEquals(matrix.productCount(), restored.productCount());
+        for (long i = 1; i <= 52; i++) {
+            assertEquals(matrix.topK(i, 10, id -> false), restored.topK(i, 10, id -> false));
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package dev.backend.demo.service;
+
+import dev.backend.demo.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FacetIndex 測試
+ */
+class FacetIndexTest {
+
+    private static final BigDecimal[] BOUNDS = {new BigDecimal("100"), new BigDecimal("500")};
+
+    private final FacetIndex index = new FacetIndex(CatalogSnapshot.of(List.of(
+        product(1, 1L, 10L, "50"),
+        product(2, 1L, 20L, "150"),
+        product(3, 2L, 10L, "150"),
+        product(4, 2L, 20L, "900"),
+        product(5, null, 10L, "100"))), BOUNDS);
+
+    @Test
+    void filtersOrWithinFacetAndAcrossFacets() {
+        Map<FacetIndex.Facet, List<Long>> filters = Map.of(
+            FacetIndex.Facet.CATEGORY, List.of(1L, 2L),
+            FacetIndex.Facet.SUPPLIER, List.of(10L));
+
+        FacetIndex.Selection selection = index.select(filters);
+
+        assertEquals(2, selection.matches().cardinality());
+        assertEquals(List.of(1L, 3L), ids(selection.page(null, 10)));
+        assertEquals(List.of(3L), ids(selection.page(1L, 10)));
+        assertEquals(5, index.select(Map.of()).matches().cardinality());
+    }
+
+    @Test
+    void countsApplyOtherFacetsOnly() {
+        Map<FacetIndex.Facet, List<Long>> filters = Map.of(
+            FacetIndex.Facet.CATEGORY, List.of(2L),
+            FacetIndex.Facet.PRICE_BAND, List.of(1L));
+
+        FacetIndex.Selection selection = index.select(filters);
+
+        // 類別的數量只套用價格條件：價格區間 1 的商品為 2、3、5
+        assertEquals(List.of(new FacetIndex.Count(1L, 1), new FacetIndex.Count(2L, 1), new FacetIndex.Count(null, 1)),
+            selection.counts(FacetIndex.Facet.CATEGORY));
+        // 價格區間的數量只套用類別條件
+        assertEquals(List.of(new FacetIndex.Count(1L, 1), new FacetIndex.Count(2L, 1)),
+            selection.counts(FacetIndex.Facet.PRICE_BAND));
+        assertEquals(List.of(new FacetIndex.Count(10L, 1)), selection.counts(FacetIndex.Facet.SUPPLIER));
+    }
+
+    @Test
+    void priceBandsAreHalfOpen() {
+        assertEquals(0L, index.priceBand(new BigDecimal("99.99")));
+        assertEquals(1L, index.priceBand(new BigDecimal("100")));
+        assertEquals(2L, index.priceBand(new BigDecimal("500")));
+        assertNull(index.bandMax(2));
+        assertEquals(new BigDecimal("100"), index.bandMin(1));
+    }
+
+    @Test
+    void incrementalChangesMatchARebuiltIndex() {
+        Random random = new Random(42);
+        Map<Long, Product> products = new HashMap<>();
+        for (long id = 1; id <= 200; id++) {
+            products.put(id, randomProduct(random, id));
+        }
+        CatalogSnapshot snapshot = CatalogSnapshot.of(products.values());
+        FacetIndex incremental = new FacetIndex(snapshot, BOUNDS);
+
+        for (int step = 0; step < 50; step++) {
+            // 每次新增、修改、刪除幾個商品（含未改變欄位值的修改）
+            List<Long> changed = new ArrayList<>();
+            for (int i = 0; i < 1 + random.nextInt(20); i++) {
+                long id = 1 + random.nextInt(300);
+                changed.add(id);
+                if (random.nextInt(4) == 0) {
+                    products.remove(id);
+                } else {
+                    products.put(id, randomProduct(random, id));
+                }
+            }
+            snapshot = snapshot.with(changed, changed.stream().map(products::get).filter(p -> p != null).toList());
+            incremental = incremental.with(changed, snapshot);
+            FacetIndex rebuilt = new FacetIndex(snapshot, BOUNDS);
+
+            for (Map<FacetIndex.Facet, List<Long>> filters : List.of(
+                Map.<FacetIndex.Facet, List<Long>>of(),
+                Map.of(FacetIndex.Facet.CATEGORY, List.of(1L, 3L)),
+                Map.of(FacetIndex.Facet.SUPPLIER, List.of(10L), FacetIndex.Facet.PRICE_BAND, List.of(0L, 2L)),
+                // 篩選結果很小，以走訪結果的方式計數
+                Map.of(FacetIndex.Facet.CATEGORY, List.of(1L), FacetIndex.Facet.SUPPLIER, List.of(10L)))) {
+                FacetIndex.Selection expected = rebuilt.select(filters);
+                FacetIndex.Selection actual = incremental.select(filters);
+                assertEquals(expected.matches().cardinality(), actual.matches().cardinality());
+                assertEquals(ids(expected.page(null, 500)), ids(actual.page(null, 500)));
+                assertEquals(ids(expected.page(150L, 5)), ids(actual.page(150L, 5)));
+                for (FacetIndex.Facet facet : FacetIndex.Facet.values()) {
+                    assertEquals(expected.counts(facet), actual.counts(facet));
+                }
+            }
+        }
+    }
+
+    private static Product randomProduct(Random random, long id) {
+        Long categoryId = random.nextInt(5) == 0 ? null : (long) random.nextInt(4);
+        return product(id, categoryId, 10L * (1 + random.nextInt(3)), String.valueOf(random.nextInt(1000)));
+    }
+
+    private static Product product(long id, Long categoryId, Long supplierId, String price) {
+        Product product = new Product("p" + id, categoryId, supplierId, null, new BigDecimal(price));
+        product.setProductId(id);
+        return product;
+    }
+
+    private static List<Long> ids(List<Product> products) {
+        return products.stream().map(Product::getProductId).toList();
+    }
+}
@@ -0,0 +1,81 @@
+package dev.backend.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * InvertedIndex / TextTokenizer 單元測試
+ */
+class InvertedIndexTest {
+
+    @Test
+    void tokenizesWordsAndCjkBigrams() {
+        assertEquals(List.of("藍牙", "earbuds", "pro2"), TextTokenizer.tokenize("藍牙 Earbuds-Pro2"));
+        assertEquals(List.of("無線", "線耳", "耳機"), TextTokenizer.tokenize("無線耳機"));
+        assertEquals(List.of("杯", "usb"), TextTokenizer.tokenize("杯, USB!"));
+        assertTrue(TextTokenizer.tokenize("  --  ").isEmpty());
+    }
+
+    @Test
+    void ranksNameMatchesAboveDescriptionMatches() {
+        InvertedIndex index = new InvertedIndex();
+        index.index(1, "Wireless mouse", "Ergonomic design");
+        index.index(2, "USB cable", "Works with any wireless mouse receiver");
+        index.index(3, "Desk lamp", "LED");
+
+        List<InvertedIndex.Hit> hits = index.search("wireless mouse", 10);
+
+        assertEquals(List.of(1L, 2L), hits.stream().map(InvertedIndex.Hit::productId).toList());
+        assertTrue(hits.get(0).score() > hits.get(1).score());
+        assertTrue(index.search("keyboard", 10).isEmpty());
+    }
+
+    @Test
+    void updatesAndRemovesAreVisibleToSearch() {
+        InvertedIndex index = new InvertedIndex();
+        index.index(1, "Red kettle", null);
+        index.index(2, "Blue kettle", null);
+
+        index.index(1, "Green teapot", null);
+        index.remove(2);
+
+        assertTrue(index.search("kettle", 10).isEmpty());
+        assertEquals(1L, index.search("teapot", 10).get(0).productId());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void compactionKeepsLiveDocuments() {
+        InvertedIndex index = new InvertedIndex();
+        for (long id = 1; id <= 5000; id++) {
+            index.index(id, "item " + id, id % 2 == 0 ? "even" : "odd");
+        }
+        // 刪除超過 20% 觸發整理
+        for (long id = 1; id <= 2000; id++) {
+            index.remove(id);
+        }
+
+        assertEquals(3000, index.size());
+        List<InvertedIndex.Hit> hits = index.search("even", 5000);
+        assertEquals(1500, hits.size());
+        assertTrue(hits.stream().allMatch(hit -> hit.productId() > 2000 && hit.productId() % 2 == 0));
+        assertEquals(4321L, index.search("4321", 1).get(0).productId());
+        assertTrue(index.search("1234", 1).isEmpty());
+    }
+
+    @Test
+    void returnsTopResultsInScoreOrder() {
+        InvertedIndex index = new InvertedIndex();
+        // 商品 i 的描述中 "sale" 出現 i 次
+        for (int id = 1; id <= 50; id++) {
+            index.index(id, "product", "sale ".repeat(id) + "filler ".repeat(50 - id));
+        }
+
+        List<InvertedIndex.Hit> hits = index.search("sale", 3);
+
+        assertEquals(List.of(50L, 49L, 48L), hits.stream().map(InvertedIndex.Hit::productId).toList());
+    }
+}
@@ -0,0 +1,139 @@
+package dev.backend.demo.service;
+
+import dev.backend.demo.util.JwtUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 商品批次更新測試：經由 POST /api/admin/products/bulk-update 寫入資料庫
+ * （需要 application.properties 設定的 PostgreSQL）
+ */
+@SpringBootTest(properties = "security.admin-user-ids=" + ProductBulkUpdateServiceTest.ADMIN_ID)
+@AutoConfigureMockMvc
+class ProductBulkUpdateServiceTest {
+
+    static final long ADMIN_ID = 900_000_001L;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // 每個測試的商品名稱前綴與專用的類別 ID（沒有外鍵，不需要真的建立類別）
+    private final String prefix = "bulk-test-" + UUID.randomUUID() + "-";
+    private final long categoryId = 1_000_000_000L + ThreadLocalRandom.current().nextLong(1_000_000_000L);
+
+    @BeforeEach
+    void createProducts() {
+        insert("a", "10.05", null);
+        insert("b", "0.01", null);
+        insert("c", "19.99", null);
+        // 已刪除的商品不更新
+        insert("deleted", "50.00", "now()");
+    }
+
+    @AfterEach
+    void deleteProducts() {
+        jdbcTemplate.update("DELETE FROM products WHERE product_name LIKE ?", prefix + "%");
+    }
+
+    @Test
+    void onlyAdminsMayBulkUpdate() throws Exception {
+        String body = "{\"where\": {\"categoryId\": " + categoryId + "}, \"set\": {\"unitPrice\": 1}}";
+        mockMvc.perform(post("/api/admin/products/bulk-update")
+                .contentType(MediaType.APPLICATION_JSON).content(body))
+            .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/admin/products/bulk-update")
+                .header("Authorization", "Bearer " + jwtUtil.generateToken("shopper", ADMIN_ID + 1))
+                .contentType(MediaType.APPLICATION_JSON).content(body))
+            .andExpect(status().isForbidden());
+        assertEquals(List.of(new BigDecimal("10.05"), new BigDecimal("0.01"), new BigDecimal("19.99"), new BigDecimal("50.00")),
+            prices());
+    }
+
+    @Test
+    void rejectsMissingOrConflictingPredicatesAndChanges() throws Exception {
+        // 沒有條件：不可以更新整個目錄
+        bulkUpdate("{\"where\": {}, \"set\": {\"unitPrice\": 1}}").andExpect(status().isBadRequest());
+        bulkUpdate("{\"where\": {\"productIds\": []}, \"set\": {\"unitPrice\": 1}}").andExpect(status().isBadRequest());
+        // 沒有更新內容、價格設定衝突、欄位驗證失敗
+        bulkUpdate("{\"where\": {\"categoryId\": " + categoryId + "}, \"set\": {}}").andExpect(status().isBadRequest());
+        bulkUpdate("{\"where\": {\"categoryId\": " + categoryId + "}, \"set\": {\"unitPrice\": 1, \"priceChangePercent\": 5}}")
+            .andExpect(status().isBadRequest());
+        bulkUpdate("{\"where\": {\"categoryId\": " + categoryId + "}, \"set\": {\"priceChangePercent\": -100}}")
+            .andExpect(status().isBadRequest());
+        bulkUpdate("{\"where\": {\"categoryId\": " + categoryId + "}}").andExpect(status().isBadRequest());
+
+        assertEquals(List.of(new BigDecimal("10.05"), new BigDecimal("0.01"), new BigDecimal("19.99"), new BigDecimal("50.00")),
+            prices());
+    }
+
+    @Test
+    void percentChangeRoundsToCents() throws Exception {
+        bulkUpdate("{\"where\": {\"categoryId\": " + categoryId + "}, \"set\": {\"priceChangePercent\": 5}}")
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.updated").value(3));
+        // 10.5525 → 10.55、0.0105 → 0.01、20.9895 → 20.99；已刪除的不變
+        assertEquals(List.of(new BigDecimal("10.55"), new BigDecimal("0.01"), new BigDecimal("20.99"), new BigDecimal("50.00")),
+            prices());
+
+        // 條件同時成立：只更新指定 ID 中屬於此類別的商品
+        Long first = jdbcTemplate.queryForObject(
+            "SELECT min(product_id) FROM products WHERE product_name LIKE ?", Long.class, prefix + "%");
+        bulkUpdate("{\"where\": {\"categoryId\": " + categoryId + ", \"productIds\": [" + first + ", -1]},"
+                + " \"set\": {\"priceChangePercent\": -33.333}}")
+            .andExpect(jsonPath("$.updated").value(1));
+        // 10.55 × 0.66667 = 7.0333685 → 7.03
+        assertEquals(new BigDecimal("7.03"), prices().get(0));
+    }
+
+    @Test
+    void overflowIsRejectedAndRolledBack() throws Exception {
+        insert("max", "99999999.99", null);
+
+        // 最貴的商品漲價後超過 numeric(10, 2)：整批不更新
+        bulkUpdate("{\"where\": {\"categoryId\": " + categoryId + "}, \"set\": {\"priceChangePercent\": 1}}")
+            .andExpect(status().isBadRequest());
+        assertEquals(List.of(new BigDecimal("10.05"), new BigDecimal("0.01"), new BigDecimal("19.99"), new BigDecimal("50.00"),
+            new BigDecimal("99999999.99")), prices());
+    }
+
+    private ResultActions bulkUpdate(String body) throws Exception {
+        return mockMvc.perform(post("/api/admin/products/bulk-update")
+            .header("Authorization", "Bearer " + jwtUtil.generateToken("admin", ADMIN_ID))
+            .contentType(MediaType.APPLICATION_JSON).content(body));
+    }
+
+    private void insert(String name, String price, String deletedAt) {
+        jdbcTemplate.update("INSERT INTO products (product_name, category_id, unit_price, created_at, updated_at, deleted_at)"
+                + " VALUES (?, ?, ?, now(), now(), " + (deletedAt == null ? "NULL" : deletedAt) + ")",
+            prefix + name, categoryId, new BigDecimal(price));
+    }
+
+    private List<BigDecimal> prices() {
+        return jdbcTemplate.queryForList("SELECT unit_price FROM products WHERE product_name LIKE ? ORDER BY product_id",
+            BigDecimal.class, prefix + "%");
+    }
+}
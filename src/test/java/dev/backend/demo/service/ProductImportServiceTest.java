@@ -0,0 +1,123 @@
+package dev.backend.demo.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ProductImportService 測試：欄位解析，以及寫入資料庫（需要 application.properties 設定的 PostgreSQL）
+ */
+@SpringBootTest(properties = "product.import.chunk-size=3")
+class ProductImportServiceTest {
+
+    @Autowired
+    private ProductImportService importService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // 每個測試的商品名稱前綴，結束後依此刪除
+    private final String prefix = "import-test-" + UUID.randomUUID() + "-";
+
+    @AfterEach
+    void deleteProducts() {
+        jdbcTemplate.update("DELETE FROM products WHERE product_name LIKE ?", prefix + "%");
+    }
+
+    @Test
+    void parsesNames() {
+        assertEquals("Chai", ProductImportService.parseName("  Chai "));
+        assertEquals("x".repeat(100), ProductImportService.parseName("x".repeat(100)));
+        assertThrows(IllegalArgumentException.class, () -> ProductImportService.parseName(null));
+        assertThrows(IllegalArgumentException.class, () -> ProductImportService.parseName("   "));
+        assertThrows(IllegalArgumentException.class, () -> ProductImportService.parseName("x".repeat(101)));
+    }
+
+    @Test
+    void parsesPricesThatFitNumeric10Scale2() {
+        assertEquals(new BigDecimal("18.5"), ProductImportService.parsePrice(" 18.5 "));
+        assertEquals(new BigDecimal("0"), ProductImportService.parsePrice("0"));
+        assertEquals(new BigDecimal("99999999.99"), ProductImportService.parsePrice("99999999.99"));
+        // 多餘的 0 不算超過兩位小數
+        assertEquals(new BigDecimal("1.2000"), ProductImportService.parsePrice("1.2000"));
+
+        for (String invalid : new String[]{null, "", "abc", "-1", "1.234", "100000000", "1e9"}) {
+            assertThrows(IllegalArgumentException.class, () -> ProductImportService.parsePrice(invalid), invalid);
+        }
+    }
+
+    @Test
+    void parsesOptionalIds() {
+        assertEquals(42L, ProductImportService.parseId(" 42 ", "categoryId"));
+        assertNull(ProductImportService.parseId(null, "categoryId"));
+        assertNull(ProductImportService.parseId(" ", "categoryId"));
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+            () -> ProductImportService.parseId("4.2", "supplierId"));
+        assertTrue(error.getMessage().startsWith("supplierId"));
+    }
+
+    @Test
+    void fallsBackToRowByRowWhenChunkFails() throws Exception {
+        // 通過驗證的列都符合資料表定義：暫時加上只拒絕第 5 筆的約束（NOT VALID 不檢查既有的列）
+        String constraint = "import_test_" + Math.abs(prefix.hashCode());
+        jdbcTemplate.execute("ALTER TABLE products ADD CONSTRAINT " + constraint
+            + " CHECK (product_name <> '" + prefix + "5') NOT VALID");
+        ProductImportService.ImportJob job;
+        try {
+            // 第 2 個 chunk（第 4 ~ 6 筆）整批寫入失敗，逐筆寫入時只有第 5 筆失敗；第 7 筆在驗證時就被排除
+            String csv = "productName,unitPrice\n"
+                + prefix + "1,1\n" + prefix + "2,2\n" + prefix + "3,3\n"
+                + prefix + "4,4\n" + prefix + "5,5\n" + prefix + "6,6\n"
+                + prefix + "7,-7\n";
+            job = importService.importProducts(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), ProductImportService.Format.CSV);
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE products DROP CONSTRAINT " + constraint);
+        }
+
+        Map<String, Object> result = job.toMap(true);
+        assertEquals(ProductImportService.ImportJob.Status.COMPLETED, job.getStatus());
+        assertEquals(7L, result.get("rows"));
+        assertEquals(5L, result.get("imported"));
+        assertEquals(2L, result.get("failed"));
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> errors = (List<Map<String, Object>>) result.get("errors");
+        assertEquals(List.of(6L, 8L), errors.stream().map(error -> error.get("row")).toList());
+
+        List<String> names = jdbcTemplate.queryForList(
+            "SELECT product_name FROM products WHERE product_name LIKE ? ORDER BY product_id", String.class, prefix + "%");
+        assertEquals(List.of(prefix + "1", prefix + "2", prefix + "3", prefix + "4", prefix + "6"), names);
+    }
+
+    @Test
+    void submitImportsInBackground() throws Exception {
+        String ndjson = "{\"productName\":\"" + prefix + "a\",\"unitPrice\":\"9.90\",\"categoryId\":1}\n"
+            + "not json\n"
+            + "{\"productName\":\"" + prefix + "b\",\"unitPrice\":1}\n";
+
+        ProductImportService.ImportJob job = importService.submit(
+            new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), ProductImportService.Format.NDJSON);
+        assertSame(job, importService.getJob(job.getId()));
+
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (job.getStatus() == ProductImportService.ImportJob.Status.RUNNING && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(ProductImportService.ImportJob.Status.COMPLETED, job.getStatus());
+        assertEquals(2L, job.toMap(false).get("imported"));
+        assertEquals(1L, job.toMap(false).get("failed"));
+        assertEquals(2, jdbcTemplate.queryForObject(
+            "SELECT count(*) FROM products WHERE product_name LIKE ?", Integer.class, prefix + "%"));
+    }
+}
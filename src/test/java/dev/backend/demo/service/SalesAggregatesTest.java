@@ -0,0 +1,65 @@
+package dev.backend.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SalesAggregates 測試
+ */
+class SalesAggregatesTest {
+    
+    private static final long MINUTE = 60_000L;
+    
+    // 5 分鐘一桶，保留 12 桶（1 小時）
+    private final SalesAggregates aggregates = new SalesAggregates(5 * MINUTE, 12);
+    
+    @Test
+    void totalsAndRankingsWithinWindow() {
+        long t = 1_000 * 5 * MINUTE;
+        aggregates.recordOrder(t, new long[] {1, 2}, new long[] {10, 20}, new int[] {2, 1}, new long[] {2000, 5000});
+        aggregates.recordOrder(t + MINUTE, new long[] {1}, new long[] {10}, new int[] {3}, new long[] {3000});
+        aggregates.recordOrder(t + 6 * MINUTE, new long[] {3}, new long[] {SalesAggregates.UNCATEGORIZED}, new int[] {1}, new long[] {100});
+        
+        SalesAggregates.Window all = aggregates.query(t, t + 10 * MINUTE);
+        assertEquals(3, all.getOrders());
+        assertEquals(7, all.getUnits());
+        assertEquals(10100, all.getRevenue());
+        
+        List<SalesAggregates.Entry> byRevenue = all.topProducts(10, null, false);
+        assertEquals(List.of(
+            new SalesAggregates.Entry(1, 10, 5, 5000),
+            new SalesAggregates.Entry(2, 20, 1, 5000),
+            new SalesAggregates.Entry(3, SalesAggregates.UNCATEGORIZED, 1, 100)), byRevenue);
+        
+        assertEquals(1, all.topProducts(1, null, true).get(0).id());
+        assertEquals(List.of(new SalesAggregates.Entry(2, 20, 1, 5000)), all.topProducts(10, 20L, false));
+        
+        List<SalesAggregates.Entry> categories = all.topCategories(2, true);
+        assertEquals(2, categories.size());
+        assertEquals(new SalesAggregates.Entry(10, 10, 5, 5000), categories.get(0));
+        
+        // 只含第一個桶
+        SalesAggregates.Window first = aggregates.query(t, t + MINUTE);
+        assertEquals(2, first.getOrders());
+        assertEquals(10000, first.getRevenue());
+    }
+    
+    @Test
+    void oldBucketsAreReusedAndLateOrdersIgnored() {
+        long t = 2_000 * 5 * MINUTE;
+        aggregates.recordOrder(t, new long[] {1}, new long[] {10}, new int[] {1}, new long[] {100});
+        
+        // 一小時後同一個位置被新的桶使用，舊資料清除
+        long later = t + 60 * MINUTE;
+        aggregates.recordOrder(later, new long[] {2}, new long[] {10}, new int[] {1}, new long[] {200});
+        assertFalse(aggregates.recordOrder(t + MINUTE, new long[] {1}, new long[] {10}, new int[] {1}, new long[] {100}));
+        
+        SalesAggregates.Window window = aggregates.query(t, later + MINUTE);
+        assertEquals(1, window.getOrders());
+        assertEquals(200, window.getRevenue());
+        assertEquals(0, aggregates.query(t, t + MINUTE).getOrders());
+    }
+}
@@ -0,0 +1,151 @@
+package dev.backend.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SuggestionTrie 單元測試
+ */
+class SuggestionTrieTest {
+
+    @Test
+    void normalizesAndKeysEveryWordStart() {
+        assertEquals("pate chinois", SuggestionTrie.normalize("  Pâté--Chinois! "));
+        assertEquals(List.of("chai tea 500g", "tea 500g", "500g"), SuggestionTrie.keys("Chai Tea (500g)"));
+        assertEquals(List.of("藍牙耳機", "牙耳機", "耳機", "機"), SuggestionTrie.keys("藍牙耳機"));
+        assertTrue(SuggestionTrie.keys(" -- ").isEmpty());
+    }
+
+    @Test
+    void ranksByWeightAndMatchesInnerWords() {
+        SuggestionTrie trie = new SuggestionTrie(10);
+        trie.put(1, "Chai Tea");
+        trie.put(2, "Chang Beer");
+        trie.put(3, "Green Tea");
+        trie.addWeight(3, 5);
+        trie.addWeight(2, 2);
+
+        assertArrayEquals(new long[]{2, 1}, trie.suggest("ch", 10));
+        assertArrayEquals(new long[]{3, 1}, trie.suggest("TE", 10));
+        assertArrayEquals(new long[]{3}, trie.suggest("te", 1));
+        assertArrayEquals(new long[]{1}, trie.suggest("chai t", 10));
+        assertEquals(0, trie.suggest("x", 10).length);
+        assertEquals(0, trie.suggest("  ", 10).length);
+    }
+
+    @Test
+    void renamesAndRemovesUpdateResultsAndFreeNodes() {
+        SuggestionTrie trie = new SuggestionTrie(10);
+        int empty = trie.nodeCount();
+        trie.put(1, "Chai");
+        trie.put(2, "Chang");
+        trie.addWeight(1, 1);
+
+        trie.put(1, "Ikura");
+        assertArrayEquals(new long[]{2}, trie.suggest("ch", 10));
+        assertArrayEquals(new long[]{1}, trie.suggest("ik", 10));
+
+        trie.remove(2);
+        trie.remove(1);
+        trie.remove(99);
+        assertEquals(0, trie.size());
+        assertEquals(empty, trie.nodeCount());
+
+        // 權重保留，重新加入時沿用
+        trie.put(1, "Chai");
+        assertEquals(1, trie.weight(1));
+    }
+
+    @Test
+    void matchesBruteForceUnderRandomUpdates() {
+        Random random = new Random(7);
+        String[] words = {"alpha", "alps", "beta", "bet", "gamma", "gam", "delta", "del", "茶", "茶葉"};
+        SuggestionTrie trie = new SuggestionTrie(5);
+        Map<Long, String> names = new HashMap<>();
+        Map<Long, Long> weights = new HashMap<>();
+        Map<Long, String> initial = new HashMap<>();
+        for (long id = 0; id < 50; id++) {
+            initial.put(id, randomName(random, words));
+        }
+        trie.putAll(initial);
+        names.putAll(initial);
+
+        for (int step = 0; step < 2000; step++) {
+            long id = random.nextInt(80);
+            int op = random.nextInt(10);
+            if (op < 4) {
+                String name = randomName(random, words);
+                trie.put(id, name);
+                names.put(id, name);
+            } else if (op < 5) {
+                trie.remove(id);
+                names.remove(id);
+            } else {
+                long delta = random.nextInt(20);
+                trie.addWeight(id, delta);
+                weights.merge(id, delta, Long::sum);
+            }
+            if (step % 50 == 0) {
+                for (String prefix : List.of("a", "al", "alp", "b", "bet", "g", "gamma ", "d", "茶", "alpha b")) {
+                    assertArrayEquals(bruteForce(names, weights, prefix, 5), trie.suggest(prefix, 5), prefix);
+                }
+            }
+        }
+
+        // 全部移除後只剩根節點（分岔的節點都已合併或移除）
+        for (long id = 0; id < 80; id++) {
+            trie.remove(id);
+        }
+        assertEquals(1, trie.nodeCount());
+    }
+
+    @Test
+    void putAllReplacesExistingProducts() {
+        Random random = new Random(11);
+        String[] words = {"alpha", "alps", "beta", "bet", "gamma", "茶", "茶葉"};
+        SuggestionTrie trie = new SuggestionTrie(4);
+        Map<Long, String> names = new HashMap<>();
+        Map<Long, Long> weights = new HashMap<>();
+        for (int round = 0; round < 20; round++) {
+            // 一部分是已存在的商品（改名），一部分是新商品
+            Map<Long, String> batch = new HashMap<>();
+            for (int i = 0; i < 30; i++) {
+                batch.put((long) random.nextInt(100), randomName(random, words));
+            }
+            trie.putAll(batch);
+            names.putAll(batch);
+            for (int i = 0; i < 10; i++) {
+                long id = random.nextInt(100);
+                long delta = random.nextInt(20);
+                trie.addWeight(id, delta);
+                weights.merge(id, delta, Long::sum);
+            }
+            for (String prefix : List.of("a", "alp", "b", "bet", "gamma", "茶", "beta a")) {
+                assertArrayEquals(bruteForce(names, weights, prefix, 4), trie.suggest(prefix, 4), prefix);
+            }
+        }
+        assertEquals(names.size(), trie.size());
+    }
+
+    private static String randomName(Random random, String[] words) {
+        return words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)];
+    }
+
+    private static long[] bruteForce(Map<Long, String> names, Map<Long, Long> weights, String prefix, int limit) {
+        String normalized = SuggestionTrie.normalize(prefix);
+        return names.entrySet().stream()
+            .filter(e -> SuggestionTrie.keys(e.getValue()).stream().anyMatch(key -> key.startsWith(normalized)))
+            .map(Map.Entry::getKey)
+            .sorted(Comparator.<Long>comparingLong(id -> -weights.getOrDefault(id, 0L)).thenComparing(id -> id))
+            .limit(limit)
+            .mapToLong(Long::longValue)
+            .toArray();
+    }
+}
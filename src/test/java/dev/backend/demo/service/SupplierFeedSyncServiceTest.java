@@ -0,0 +1,205 @@
+package dev.backend.demo.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SupplierFeedSyncService 測試：內容雜湊，以及同步寫入資料庫（需要 application.properties 設定的 PostgreSQL）
+ */
+@SpringBootTest(properties = {
+    "product.feed.directory=" + SupplierFeedSyncServiceTest.DIRECTORY,
+    "product.feed.batch-size=2"
+})
+class SupplierFeedSyncServiceTest {
+
+    static final String DIRECTORY = "target/feed-sync-test";
+
+    @Autowired
+    private SupplierFeedSyncService feedSyncService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // 每個測試專用的供應商 ID，結束後依此刪除
+    private final long supplierId = 1_000_000_000L + ThreadLocalRandom.current().nextLong(1_000_000_000L);
+
+    @AfterEach
+    void deleteSupplierData() throws IOException {
+        jdbcTemplate.update("DELETE FROM supplier_feed_items WHERE supplier_id = ?", supplierId);
+        jdbcTemplate.update("DELETE FROM products WHERE supplier_id = ?", supplierId);
+        Files.deleteIfExists(Path.of(DIRECTORY, fileName()));
+    }
+
+    @Test
+    void contentHashIgnoresFormattingButNotContent() {
+        long hash = SupplierFeedSyncService.contentHash("Chai", 1L, "Tea", new BigDecimal("18.00"));
+
+        // 與資料庫 numeric(10, 2) 相同的值視為未變動；空描述與 null 相同
+        assertEquals(hash, SupplierFeedSyncService.contentHash("Chai", 1L, "Tea", new BigDecimal("18")));
+        assertEquals(SupplierFeedSyncService.contentHash("Chai", null, null, BigDecimal.ONE),
+            SupplierFeedSyncService.contentHash("Chai", null, "", BigDecimal.ONE));
+
+        assertNotEquals(hash, SupplierFeedSyncService.contentHash("Chai", 1L, "Tea", new BigDecimal("18.01")));
+        assertNotEquals(hash, SupplierFeedSyncService.contentHash("Chai", 2L, "Tea", new BigDecimal("18.00")));
+        assertNotEquals(hash, SupplierFeedSyncService.contentHash("Chai", null, "Tea", new BigDecimal("18.00")));
+        // 欄位以長度區隔，內容搬移到相鄰欄位也算變動
+        assertNotEquals(SupplierFeedSyncService.contentHash("ab", null, "c", BigDecimal.ONE),
+            SupplierFeedSyncService.contentHash("a", null, "bc", BigDecimal.ONE));
+    }
+
+    @Test
+    void insertsUpdatesSkipsUnchangedAndSoftDeletesMissing() throws Exception {
+        Map<String, Object> first = sync("""
+            sku,productName,unitPrice,categoryId,description
+            A,Chai,18.00,1,Tea
+            B,Chang,19.00,1,
+            C,Syrup,10.00,2,
+            D,Cajun,22.00,2,
+            """);
+        assertEquals(4L, first.get("inserted"));
+        assertEquals(0, first.get("existing"));
+        Map<String, Long> ids = productIds();
+        assertEquals(4, ids.size());
+        LocalDateTime unchangedAt = updatedAt(ids.get("A"));
+
+        // A 只差價格格式（未變動）、B 改價、C 消失、D 未變動、E 新增
+        Map<String, Object> second = sync("""
+            sku,productName,unitPrice,categoryId,description
+            A,Chai,18,1,Tea
+            B,Chang,21.50,1,
+            D,Cajun,22.00,2,
+            E,Gumbo,21.35,2,
+            """);
+        assertEquals(SupplierFeedSyncService.SyncJob.Status.COMPLETED, second.get("status"));
+        assertEquals(4, second.get("existing"));
+        assertEquals(1L, second.get("inserted"));
+        assertEquals(1L, second.get("updated"));
+        assertEquals(2L, second.get("unchanged"));
+        assertEquals(1L, second.get("deleted"));
+        assertEquals(3L, second.get("writes"));
+
+        assertEquals(unchangedAt, updatedAt(ids.get("A")));
+        assertEquals(0, new BigDecimal("21.50").compareTo(jdbcTemplate.queryForObject(
+            "SELECT unit_price FROM products WHERE product_id = ?", BigDecimal.class, ids.get("B"))));
+        assertNotNull(jdbcTemplate.queryForObject(
+            "SELECT deleted_at FROM products WHERE product_id = ?", LocalDateTime.class, ids.get("C")));
+        // 刪除的 SKU 不再有對應；其他 SKU 仍對應原本的商品
+        Map<String, Long> after = productIds();
+        assertFalse(after.containsKey("C"));
+        assertEquals(ids.get("B"), after.get("B"));
+        assertEquals(4, after.size());
+    }
+
+    @Test
+    void doesNotDeleteWhenTooManySkusAreMissing() throws Exception {
+        sync("""
+            sku,productName,unitPrice
+            A,a,1
+            B,b,1
+            C,c,1
+            D,d,1
+            """);
+
+        // 4 個 SKU 缺少 3 個（超過 max-delete-ratio 0.5），例如檔案被截斷
+        Map<String, Object> truncated = sync("""
+            sku,productName,unitPrice
+            A,a,1
+            """);
+        assertEquals(0L, truncated.get("deleted"));
+        assertTrue(((String) truncated.get("message")).contains("max-delete-ratio"));
+        assertEquals(4, productIds().size());
+        assertEquals(0, jdbcTemplate.queryForObject(
+            "SELECT count(*) FROM products WHERE supplier_id = ? AND deleted_at IS NOT NULL", Integer.class, supplierId));
+    }
+
+    @Test
+    void duplicateSkusKeepTheFirstRow() throws Exception {
+        Map<String, Object> result = sync("""
+            sku,productName,unitPrice
+            A,first,1
+            B,b,2
+            A,second,3
+            """);
+
+        assertEquals(3L, result.get("rows"));
+        assertEquals(2L, result.get("inserted"));
+        assertEquals(1L, result.get("failed"));
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> errors = (List<Map<String, Object>>) result.get("errors");
+        assertEquals(4L, errors.get(0).get("row"));
+        assertEquals("first", jdbcTemplate.queryForObject(
+            "SELECT product_name FROM products WHERE product_id = ?", String.class, productIds().get("A")));
+    }
+
+    @Test
+    void productsDeletedByAdminAreNotRecreated() throws Exception {
+        String feed = """
+            sku,productName,unitPrice
+            A,a,1
+            B,b,2
+            """;
+        sync(feed);
+        Map<String, Long> ids = productIds();
+        jdbcTemplate.update("UPDATE products SET deleted_at = now() WHERE product_id = ?", ids.get("A"));
+
+        Map<String, Object> result = sync(feed.replace("a,1", "a,5"));
+        assertEquals(1, result.get("existing"));
+        assertEquals(1L, result.get("skipped"));
+        assertEquals(0L, result.get("inserted"));
+        assertEquals(0L, result.get("updated"));
+        assertEquals(1L, result.get("unchanged"));
+        // 墓碑保留，沒有以新的 ID 重新上架
+        assertEquals(ids, productIds());
+        assertEquals(2, jdbcTemplate.queryForObject(
+            "SELECT count(*) FROM products WHERE supplier_id = ?", Integer.class, supplierId));
+
+        // 商品檔中也沒有這個 SKU 時，墓碑不算缺少，不會被刪除
+        Map<String, Object> withoutA = sync("""
+            sku,productName,unitPrice
+            B,b,2
+            """);
+        assertEquals(0L, withoutA.get("deleted"));
+        assertNull(withoutA.get("message"));
+        assertEquals(ids, productIds());
+    }
+
+    private Map<String, Object> sync(String csv) throws IOException {
+        Path file = Path.of(DIRECTORY, fileName());
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, csv, StandardCharsets.UTF_8);
+        return feedSyncService.sync(supplierId, fileName()).toMap(true);
+    }
+
+    private String fileName() {
+        return "supplier-" + supplierId + ".csv";
+    }
+
+    private Map<String, Long> productIds() {
+        Map<String, Long> ids = new HashMap<>();
+        jdbcTemplate.query("SELECT sku, product_id FROM supplier_feed_items WHERE supplier_id = ?",
+            rs -> {
+                ids.put(rs.getString(1), rs.getLong(2));
+            }, supplierId);
+        return ids;
+    }
+
+    private LocalDateTime updatedAt(long productId) {
+        return jdbcTemplate.queryForObject("SELECT updated_at FROM products WHERE product_id = ?", LocalDateTime.class, productId);
+    }
+}
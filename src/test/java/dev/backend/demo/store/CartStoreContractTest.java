@@ -0,0 +1,185 @@
+package dev.backend.demo.store;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CartStore contract 測試
+ * 每個 CartStore 實作都繼承這個類別，確保行為一致
+ */
+abstract class CartStoreContractTest {
+    
+    protected abstract CartStore store();
+    
+    /**
+     * 每個測試使用不同的 userId，避免與既有資料互相干擾
+     */
+    protected Long newUserId() {
+        return ThreadLocalRandom.current().nextLong(1_000_000_000L, Long.MAX_VALUE / 2);
+    }
+    
+    /**
+     * 測試用商品 ID（1 ~ 9）；需要外鍵約束的實作可覆寫為實際存在的商品
+     */
+    protected Long product(int n) {
+        return (long) n;
+    }
+    
+    @Test
+    void findReturnsEmptyForUnknownUser() {
+        assertTrue(store().find(newUserId()).isEmpty());
+    }
+    
+    @Test
+    void getOrCreateIsIdempotent() {
+        Long userId = newUserId();
+        StoredCart first = store().getOrCreate(userId);
+        StoredCart second = store().getOrCreate(userId);
+        
+        assertNotNull(first.getCartId());
+        assertEquals(first.getCartId(), second.getCartId());
+        assertEquals(userId, second.getUserId());
+        assertTrue(second.getLines().isEmpty());
+    }
+    
+    @Test
+    void addQuantityCreatesCartAndMergesLines() {
+        Long userId = newUserId();
+        store().addQuantity(userId, product(1), 2, new BigDecimal("19.90"));
+        store().addQuantity(userId, product(1), 3, new BigDecimal("19.90"));
+        store().addQuantity(userId, product(2), 1, new BigDecimal("5.00"));
+        
+        StoredCart cart = store().find(userId).orElseThrow();
+        assertEquals(2, cart.getLines().size());
+        assertEquals(5, cart.findLine(product(1)).getQuantity());
+        assertEquals(0, new BigDecimal("19.90").compareTo(cart.findLine(product(1)).getUnitPrice()));
+        assertEquals(0, new BigDecimal("99.50").compareTo(cart.findLine(product(1)).getSubtotal()));
+        assertEquals(1, cart.findLine(product(2)).getQuantity());
+    }
+    
+    @Test
+    void setQuantityUpdatesExistingLineOnly() {
+        Long userId = newUserId();
+        assertFalse(store().setQuantity(userId, product(1), 4));
+        
+        store().addQuantity(userId, product(1), 1, BigDecimal.TEN);
+        assertTrue(store().setQuantity(userId, product(1), 4));
+        assertFalse(store().setQuantity(userId, product(2), 4));
+        
+        assertEquals(4, store().find(userId).orElseThrow().findLine(product(1)).getQuantity());
+    }
+    
+    @Test
+    void removeLineKeepsOtherLines() {
+        Long userId = newUserId();
+        store().addQuantity(userId, product(1), 1, BigDecimal.ONE);
+        store().addQuantity(userId, product(2), 2, BigDecimal.ONE);
+        store().addQuantity(userId, product(3), 3, BigDecimal.ONE);
+        
+        assertTrue(store().removeLine(userId, product(1)));
+        assertFalse(store().removeLine(userId, product(1)));
+        
+        List<CartLine> lines = store().find(userId).orElseThrow().getLines();
+        assertEquals(2, lines.size());
+        assertNull(store().find(userId).orElseThrow().findLine(product(1)));
+        assertEquals(3, store().find(userId).orElseThrow().findLine(product(3)).getQuantity());
+    }
+    
+    @Test
+    void clearKeepsCartButRemovesLines() {
+        Long userId = newUserId();
+        store().addQuantity(userId, product(1), 1, BigDecimal.ONE);
+        Long cartId = store().find(userId).orElseThrow().getCartId();
+        
+        store().clear(userId);
+        
+        StoredCart cart = store().find(userId).orElseThrow();
+        assertEquals(cartId, cart.getCartId());
+        assertTrue(cart.getLines().isEmpty());
+    }
+    
+    @Test
+    void cartsAreIsolatedPerUser() {
+        Long alice = newUserId();
+        Long bob = newUserId();
+        store().addQuantity(alice, product(1), 1, BigDecimal.ONE);
+        store().addQuantity(bob, product(1), 7, BigDecimal.ONE);
+        
+        assertEquals(1, store().find(alice).orElseThrow().findLine(product(1)).getQuantity());
+        assertEquals(7, store().find(bob).orElseThrow().findLine(product(1)).getQuantity());
+        assertNotEquals(store().find(alice).orElseThrow().getCartId(), store().find(bob).orElseThrow().getCartId());
+    }
+    
+    @Test
+    void purgeProductsRemovesMatchingLines() {
+        Long userId = newUserId();
+        Long deadProduct = product(9);
+        store().addQuantity(userId, deadProduct, 1, BigDecimal.ONE);
+        store().addQuantity(userId, product(1), 1, BigDecimal.ONE);
+        
+        int purged = 0;
+        int deleted;
+        do {
+            deleted = store().purgeProducts(List.of(deadProduct), 100);
+            purged += deleted;
+        } while (deleted == 100);
+        
+        assertEquals(1, purged);
+        StoredCart cart = store().find(userId).orElseThrow();
+        assertNull(cart.findLine(deadProduct));
+        assertNotNull(cart.findLine(product(1)));
+    }
+    
+    @Test
+    void concurrentAddsForSameUserAreNotLost() throws Exception {
+        // 購物車尚不存在：所有執行緒同時建立購物車並加入同一商品
+        // 樂觀鎖實作在衝突過多時可以拒絕請求（OptimisticLockingFailureException），但成功的累加不可遺失
+        Long userId = newUserId();
+        int threads = 4;
+        int addsPerThread = 5;
+        AtomicInteger succeeded = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < addsPerThread; i++) {
+                        try {
+                            store().addQuantity(userId, product(1), 1, BigDecimal.ONE);
+                            succeeded.incrementAndGet();
+                        } catch (OptimisticLockingFailureException e) {
+                            // 被拒絕的請求不計入
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        assertTrue(succeeded.get() > 0);
+        StoredCart cart = store().find(userId).orElseThrow();
+        assertEquals(1, cart.getLines().size());
+        assertEquals(succeeded.get(), cart.findLine(product(1)).getQuantity());
+    }
+}
@@ -0,0 +1,19 @@
+package dev.backend.demo.store;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * DocumentCartStore contract 測試（需要 application.properties 設定的 PostgreSQL）
+ */
+@SpringBootTest(properties = "cart.store.type=document")
+class DocumentCartStoreTest extends CartStoreContractTest {
+    
+    @Autowired
+    private CartStore store;
+    
+    @Override
+    protected CartStore store() {
+        return store;
+    }
+}
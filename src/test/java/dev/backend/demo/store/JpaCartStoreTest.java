@@ -0,0 +1,72 @@
+package dev.backend.demo.store;
+
+import dev.backend.demo.model.Product;
+import dev.backend.demo.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JpaCartStore contract 測試（需要 application.properties 設定的 PostgreSQL）
+ */
+@SpringBootTest(properties = "cart.store.type=jpa")
+class JpaCartStoreTest extends CartStoreContractTest {
+    
+    @Autowired
+    private CartStore store;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    private final List<Long> productIds = new ArrayList<>();
+    private final Set<Long> userIds = ConcurrentHashMap.newKeySet();
+    
+    @BeforeEach
+    void createProducts() {
+        // cart_items.product_id 有外鍵約束，需要實際存在的商品
+        for (int i = 1; i <= 9; i++) {
+            Product product = new Product("contract-test-" + i, null, null, null, BigDecimal.ONE);
+            productIds.add(productRepository.save(product).getProductId());
+        }
+    }
+    
+    @AfterEach
+    void deleteTestData() {
+        // 先刪除測試建立的購物車與項目，再刪除商品（外鍵約束）
+        for (Long userId : userIds) {
+            jdbcTemplate.update("DELETE FROM cart_items i USING carts c WHERE c.cart_id = i.cart_id AND c.user_id = ?", userId);
+            jdbcTemplate.update("DELETE FROM carts WHERE user_id = ?", userId);
+        }
+        productRepository.deleteAllById(productIds);
+        userIds.clear();
+        productIds.clear();
+    }
+    
+    @Override
+    protected CartStore store() {
+        return store;
+    }
+    
+    @Override
+    protected Long newUserId() {
+        Long userId = super.newUserId();
+        userIds.add(userId);
+        return userId;
+    }
+    
+    @Override
+    protected Long product(int n) {
+        return productIds.get(n - 1);
+    }
+}
@@ -0,0 +1,160 @@
+package dev.backend.demo.store;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * OffHeapCartStore 測試：contract 測試加上檔案持久化、容量限制、槽位重用與多個映射區段
+ */
+class OffHeapCartStoreTest extends CartStoreContractTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    private OffHeapCartStore store;
+    
+    @BeforeEach
+    void open() {
+        store = new OffHeapCartStore(tempDir.resolve("carts.bin"), 1024, 8);
+    }
+    
+    @AfterEach
+    void close() throws Exception {
+        store.close();
+    }
+    
+    @Override
+    protected CartStore store() {
+        return store;
+    }
+    
+    @Test
+    void cartsSurviveReopen() throws Exception {
+        Long userId = newUserId();
+        store.addQuantity(userId, 42L, 3, new BigDecimal("12.34"));
+        Long cartId = store.find(userId).orElseThrow().getCartId();
+        store.close();
+        
+        store = new OffHeapCartStore(tempDir.resolve("carts.bin"), 1024, 8);
+        StoredCart cart = store.find(userId).orElseThrow();
+        assertEquals(cartId, cart.getCartId());
+        assertEquals(3, cart.findLine(42L).getQuantity());
+        assertEquals(0, new BigDecimal("12.34").compareTo(cart.findLine(42L).getUnitPrice()));
+        
+        // 重新開啟後仍延續 ID 序號
+        assertNotEquals(cartId, store.getOrCreate(newUserId()).getCartId());
+    }
+    
+    @Test
+    void rejectsMismatchedLayout() throws Exception {
+        store.close();
+        assertThrows(IllegalStateException.class,
+            () -> new OffHeapCartStore(tempDir.resolve("carts.bin"), 1024, 16));
+        store = new OffHeapCartStore(tempDir.resolve("carts.bin"), 1024, 8);
+    }
+    
+    @Test
+    void rejectsLinesBeyondMaxLines() {
+        Long userId = newUserId();
+        for (long productId = 1; productId <= 8; productId++) {
+            store.addQuantity(userId, productId, 1, BigDecimal.ONE);
+        }
+        assertThrows(RuntimeException.class, () -> store.addQuantity(userId, 9L, 1, BigDecimal.ONE));
+        // 既有項目仍可累加
+        store.addQuantity(userId, 8L, 1, BigDecimal.ONE);
+        assertEquals(2, store.find(userId).orElseThrow().findLine(8L).getQuantity());
+    }
+    
+    @Test
+    @Override
+    void clearKeepsCartButRemovesLines() {
+        // off-heap 實作清空時釋放槽位：購物車不再存在，之後加入商品時建立新的購物車
+        Long userId = newUserId();
+        store.addQuantity(userId, 1L, 1, BigDecimal.ONE);
+        Long cartId = store.find(userId).orElseThrow().getCartId();
+        
+        store.clear(userId);
+        
+        assertTrue(store.find(userId).isEmpty());
+        StoredCart cart = store.getOrCreate(userId);
+        assertNotEquals(cartId, cart.getCartId());
+        assertTrue(cart.getLines().isEmpty());
+    }
+    
+    @Test
+    void emptiedCartsReleaseTheirSlots() throws Exception {
+        store.close();
+        store = new OffHeapCartStore(tempDir.resolve("small.bin"), 8, 4);
+        Long kept = newUserId();
+        store.addQuantity(kept, 1L, 1, BigDecimal.ONE);
+        
+        // 遠多於容量的購物車輪流建立後清空、移除最後一個項目、或因商品刪除而清空
+        for (int i = 0; i < 100; i++) {
+            Long userId = newUserId();
+            store.addQuantity(userId, 2L, 1, BigDecimal.ONE);
+            switch (i % 3) {
+                case 0 -> store.clear(userId);
+                case 1 -> assertTrue(store.removeLine(userId, 2L));
+                default -> assertEquals(1, store.purgeProducts(List.of(2L), 100));
+            }
+            assertTrue(store.find(userId).isEmpty());
+        }
+        assertEquals(1, store.find(kept).orElseThrow().findLine(1L).getQuantity());
+    }
+    
+    @Test
+    void randomChurnMatchesAMap() throws Exception {
+        store.close();
+        store = new OffHeapCartStore(tempDir.resolve("churn.bin"), 16, 4);
+        Random random = new Random(3);
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int step = 0; step < 5000; step++) {
+            // userId 集中在少數值，讓探測路徑上反覆出現釋放與重用的槽位
+            long userId = 1 + random.nextInt(24);
+            if (random.nextInt(3) > 0 && (expected.size() < 12 || expected.containsKey(userId))) {
+                store.addQuantity(userId, 1L, 1, BigDecimal.ONE);
+                expected.merge(userId, 1, Integer::sum);
+            } else {
+                store.clear(userId);
+                expected.remove(userId);
+            }
+            for (long id = 1; id <= 24; id++) {
+                Integer quantity = expected.get(id);
+                assertEquals(quantity, store.find(id).map(cart -> cart.findLine(1L).getQuantity()).orElse(null));
+            }
+        }
+    }
+    
+    @Test
+    void slotsSpanSeveralMappedSegments() throws Exception {
+        Path path = tempDir.resolve("segments.bin");
+        int slotSize = 24 + 8 * 32;
+        Map<Long, Long> cartIds = new HashMap<>();
+        // 每個區段 4 個槽位，64 個槽位分成 16 個區段
+        try (OffHeapCartStore segmented = new OffHeapCartStore(path, 64, 8, slotSize * 4)) {
+            for (long userId = 1; userId <= 40; userId++) {
+                segmented.addQuantity(userId, userId, (int) userId, BigDecimal.ONE);
+                cartIds.put(userId, segmented.find(userId).orElseThrow().getCartId());
+            }
+        }
+        // 檔案格式與區段大小無關：以單一區段重新開啟
+        try (OffHeapCartStore reopened = new OffHeapCartStore(path, 64, 8)) {
+            for (long userId = 1; userId <= 40; userId++) {
+                StoredCart cart = reopened.find(userId).orElseThrow();
+                assertEquals(cartIds.get(userId), cart.getCartId());
+                assertEquals((int) userId, cart.findLine(userId).getQuantity());
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package dev.backend.demo.store;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ShardedCartStore 測試：contract 測試加上線上搬移桶
+ *
+ * 需要多個本機 PostgreSQL（或同一伺服器上的多個資料庫），以逗號分隔的 JDBC URL 指定：
+ * ./mvnw test -Dtest=ShardedCartStoreTest \
+ *   -Dcart.shard.urls=jdbc:postgresql://localhost:5433/demo,jdbc:postgresql://localhost:5434/demo
+ * 第一個分片同時存放桶對照表。帳號密碼可用 cart.shard.username / cart.shard.password 指定。
+ */
+@EnabledIfSystemProperty(named = "cart.shard.urls", matches = ".+")
+class ShardedCartStoreTest extends CartStoreContractTest {
+    
+    private static final int BUCKETS = 64;
+    
+    private ShardedCartStore store;
+    private List<JdbcCartStore> shards;
+    
+    @BeforeEach
+    void open() {
+        String username = System.getProperty("cart.shard.username", "postgres");
+        String password = System.getProperty("cart.shard.password", "postgres123");
+        
+        List<DataSource> dataSources = new ArrayList<>();
+        for (String url : System.getProperty("cart.shard.urls").split(",")) {
+            DataSource dataSource = new DriverManagerDataSource(url.trim(), username, password);
+            new ResourceDatabasePopulator(new ClassPathResource("db/cart-shard-schema.sql")).execute(dataSource);
+            dataSources.add(dataSource);
+        }
+        
+        JdbcTemplate directory = new JdbcTemplate(dataSources.get(0));
+        directory.execute("DROP TABLE IF EXISTS cart_shard_buckets");
+        CartShardRouter router = new CartShardRouter(directory, BUCKETS, dataSources.size());
+        shards = new ArrayList<>();
+        for (DataSource dataSource : dataSources) {
+            shards.add(new JdbcCartStore(new JdbcTemplate(dataSource), router::bucketOf));
+        }
+        store = new ShardedCartStore(router, shards, dataSources);
+        store.resumeMigrations();
+    }
+    
+    @AfterEach
+    void close() {
+        store.close();
+    }
+    
+    @Override
+    protected CartStore store() {
+        return store;
+    }
+    
+    @Test
+    void cartsAreSpreadAcrossShards() {
+        for (int i = 0; i < 200; i++) {
+            store.addQuantity(newUserId(), 1L, 1, BigDecimal.ONE);
+        }
+        for (List<int[]> counts : store.bucketCounts()) {
+            assertFalse(counts.isEmpty(), "每個分片都應該有購物車");
+        }
+    }
+    
+    @Test
+    void moveBucketKeepsCartsConsistentUnderConcurrentWrites() throws Exception {
+        CartShardRouter router = store.getRouter();
+        Long anchor = newUserId();
+        int bucket = router.bucketOf(anchor);
+        
+        // 找出同一個桶的其他使用者
+        List<Long> users = new ArrayList<>(List.of(anchor));
+        while (users.size() < 20) {
+            Long userId = newUserId();
+            if (router.bucketOf(userId) == bucket) {
+                users.add(userId);
+            }
+        }
+        for (Long userId : users) {
+            store.addQuantity(userId, 1L, 1, BigDecimal.ONE);
+        }
+        
+        int source = router.shardOfBucket(bucket);
+        int target = (source + 1) % store.getShardCount();
+        
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        Future<Integer> writer = executor.submit(() -> {
+            int adds = 0;
+            while (running.get()) {
+                store.addQuantity(users.get(adds % users.size()), 1L, 1, BigDecimal.ONE);
+                adds++;
+            }
+            return adds;
+        });
+        
+        Thread.sleep(50);
+        store.moveBucket(bucket, target);
+        running.set(false);
+        int adds = writer.get();
+        executor.shutdown();
+        
+        assertEquals(target, router.shardOfBucket(bucket));
+        int total = 0;
+        for (Long userId : users) {
+            assertTrue(shards.get(source).find(userId).isEmpty(), "來源分片不應再有已搬移的購物車");
+            total += store.find(userId).orElseThrow().findLine(1L).getQuantity();
+        }
+        assertEquals(users.size() + adds, total, "搬移期間的寫入不應遺失");
+    }
+}
@@ -0,0 +1,103 @@
+package dev.backend.demo.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CompressedBitmap 測試（以 BitSet 為對照）
+ */
+class CompressedBitmapTest {
+
+    @Test
+    void setOperationsMatchBitSet() {
+        Random random = new Random(7);
+        // 稀疏、密集與混合的集合，跨越多個 65536 區塊
+        double[] densities = {0.001, 0.05, 0.5, 0.9};
+        for (double left : densities) {
+            for (double right : densities) {
+                BitSet a = randomBits(random, left);
+                BitSet b = randomBits(random, right);
+                CompressedBitmap x = toBitmap(a);
+                CompressedBitmap y = toBitmap(b);
+
+                BitSet and = (BitSet) a.clone();
+                and.and(b);
+                BitSet or = (BitSet) a.clone();
+                or.or(b);
+                BitSet andNot = (BitSet) a.clone();
+                andNot.andNot(b);
+
+                assertEquals(a.cardinality(), x.cardinality());
+                assertEquals(values(and), values(x.and(y)));
+                assertEquals(and.cardinality(), x.and(y).cardinality());
+                assertEquals(and.cardinality(), x.andCardinality(y));
+                assertEquals(values(or), values(x.or(y)));
+                assertEquals(or.cardinality(), x.or(y).cardinality());
+                assertEquals(values(andNot), values(x.andNot(y)));
+                assertEquals(andNot.cardinality(), x.andNot(y).cardinality());
+            }
+        }
+    }
+
+    @Test
+    void containsAndIterateFromOffset() {
+        CompressedBitmap bitmap = CompressedBitmap.of(70000, 3, 65535, 65536, 3);
+
+        assertEquals(4, bitmap.cardinality());
+        assertTrue(bitmap.contains(65536));
+        assertFalse(bitmap.contains(4));
+
+        List<Integer> seen = new ArrayList<>();
+        bitmap.forEach(4, value -> seen.add(value) && seen.size() < 2);
+        assertEquals(List.of(65535, 65536), seen);
+        assertTrue(CompressedBitmap.EMPTY.and(bitmap).isEmpty());
+        assertEquals(bitmap.cardinality(), CompressedBitmap.EMPTY.or(bitmap).cardinality());
+        assertTrue(bitmap.andNot(bitmap).isEmpty());
+        // 移除少數值：其他值不變
+        CompressedBitmap removed = bitmap.andNot(CompressedBitmap.of(3, 70000));
+        List<Integer> left = new ArrayList<>();
+        removed.forEach(0, left::add);
+        assertEquals(List.of(65535, 65536), left);
+        assertEquals(4, bitmap.cardinality());
+    }
+
+    @Test
+    void builderRejectsOutOfOrderValues() {
+        CompressedBitmap.Builder builder = CompressedBitmap.builder().add(5);
+
+        assertThrows(IllegalArgumentException.class, () -> builder.add(5));
+        assertThrows(IllegalArgumentException.class, () -> builder.add(1));
+    }
+
+    private static BitSet randomBits(Random random, double density) {
+        BitSet bits = new BitSet();
+        for (int i = 0; i < 200_000; i++) {
+            if (random.nextDouble() < density) {
+                bits.set(i);
+            }
+        }
+        return bits;
+    }
+
+    private static CompressedBitmap toBitmap(BitSet bits) {
+        CompressedBitmap.Builder builder = CompressedBitmap.builder();
+        bits.stream().forEach(builder::add);
+        return builder.build();
+    }
+
+    private static List<Integer> values(BitSet bits) {
+        return bits.stream().boxed().toList();
+    }
+
+    private static List<Integer> values(CompressedBitmap bitmap) {
+        List<Integer> values = new ArrayList<>();
+        bitmap.forEach(0, values::add);
+        return values;
+    }
+}
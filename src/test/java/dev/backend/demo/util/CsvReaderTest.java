@@ -0,0 +1,62 @@
+package dev.backend.demo.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CsvReaderTest {
+
+    @Test
+    void readsPlainAndQuotedFields() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("a,b,c\r\n1,\"x, \"\"y\"\"\",\n"));
+
+        assertEquals(List.of("a", "b", "c"), reader.next());
+        assertEquals(List.of("1", "x, \"y\"", ""), reader.next());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void quotedNewlinesKeepRecordLineNumbers() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("name\n\"line1\nline2\"\nlast"));
+
+        reader.next();
+        assertEquals(List.of("line1\nline2"), reader.next());
+        assertEquals(2, reader.getRecordLine());
+        assertEquals(List.of("last"), reader.next());
+        assertEquals(4, reader.getRecordLine());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void headerMapsNamesAndSkipsBlankLines() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("\uFEFFsku, productName ,unitPrice\n\nA1,Chai\n\r\nA2,Tea,3\n"));
+
+        Map<String, Integer> columns = reader.readHeader();
+        assertEquals(Map.of("sku", 0, "productName", 1, "unitPrice", 2), columns);
+        List<String> first = reader.nextNonBlank();
+        assertEquals(3, reader.getRecordLine());
+        assertEquals("Chai", CsvReader.column(first, columns, "productName"));
+        // 這筆紀錄的欄位較少、沒有此欄位
+        assertNull(CsvReader.column(first, columns, "unitPrice"));
+        assertNull(CsvReader.column(first, columns, "description"));
+        assertEquals(List.of("A2", "Tea", "3"), reader.nextNonBlank());
+        assertEquals(5, reader.getRecordLine());
+        assertNull(reader.nextNonBlank());
+
+        assertNull(new CsvReader(new StringReader("")).readHeader());
+    }
+
+    @Test
+    void unterminatedQuoteFails() {
+        CsvReader reader = new CsvReader(new StringReader("\"open,field\n"));
+
+        assertThrows(IOException.class, reader::next);
+    }
+}
@@ -0,0 +1,56 @@
+package dev.backend.demo.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * HeavyHitters 單元測試
+ */
+class HeavyHittersTest {
+
+    @Test
+    void findsHeaviestKeysInSkewedStream() {
+        HeavyHitters hitters = new HeavyHitters(1024, 4, 10);
+        Map<Long, Long> exact = new HashMap<>();
+        Random random = new Random(1);
+        for (int i = 0; i < 200000; i++) {
+            // Zipf 分佈：少數商品佔大部分次數
+            long key = (long) Math.floor(Math.pow(50000, random.nextDouble()));
+            hitters.add(key, 1);
+            exact.merge(key, 1L, Long::sum);
+        }
+
+        List<HeavyHitters.Entry> top = hitters.top(5);
+        List<Long> expected = exact.entrySet().stream()
+            .sorted(Map.Entry.<Long, Long>comparingByValue().reversed())
+            .limit(5).map(Map.Entry::getKey).toList();
+        assertEquals(expected, top.stream().map(HeavyHitters.Entry::key).toList());
+        for (Map.Entry<Long, Long> entry : exact.entrySet()) {
+            // 只會高估
+            assertTrue(hitters.estimate(entry.getKey()) >= entry.getValue());
+        }
+        assertEquals(200000, hitters.total());
+    }
+
+    @Test
+    void decayHalvesCountsAndLetsNewKeysTakeOver() {
+        HeavyHitters hitters = new HeavyHitters(256, 4, 2);
+        hitters.add(1, 100);
+        hitters.add(2, 80);
+        hitters.add(3, 1);
+        assertEquals(List.of(1L, 2L), hitters.top(10).stream().map(HeavyHitters.Entry::key).toList());
+
+        hitters.decay();
+        assertEquals(50, hitters.estimate(1));
+        assertEquals(new HeavyHitters.Entry(2, 40), hitters.top(10).get(1));
+
+        hitters.add(3, 60);
+        assertEquals(List.of(3L, 1L), hitters.top(10).stream().map(HeavyHitters.Entry::key).toList());
+    }
+}
@@ -0,0 +1,92 @@
+package dev.backend.demo.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResponseBytesCacheTest {
+
+    @Test
+    void loadsOnceAndServesPlainAndGzip() throws IOException {
+        ResponseBytesCache<String> cache = new ResponseBytesCache<>(1 << 20, 100);
+        AtomicInteger loads = new AtomicInteger();
+        byte[] json = "{\"items\":[1,2,3,3,3,3,3,3,3,3,3,3,3,3,3,3,3,3,3,3]}".getBytes(StandardCharsets.UTF_8);
+
+        ResponseBytesCache.Entry first = cache.get("a", () -> {
+            loads.incrementAndGet();
+            return json;
+        });
+        ResponseBytesCache.Entry second = cache.get("a", () -> {
+            loads.incrementAndGet();
+            return json;
+        });
+
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+        assertArrayEquals(json, bytes(second.plain()));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes(first.gzip())))) {
+            assertArrayEquals(json, in.readAllBytes());
+        }
+        // 每次取得的是獨立副本，讀完一個不影響另一個
+        ByteBuffer a = first.plain();
+        a.position(a.limit());
+        assertEquals(json.length, first.plain().remaining());
+        assertTrue(first.plain().isDirect());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedByBytesAndCount() {
+        byte[] content = new byte[1000];
+        long entrySize = content.length + ResponseBytesCache.gzip(content).length;
+        ResponseBytesCache<Integer> cache = new ResponseBytesCache<>(entrySize * 3, 100);
+
+        cache.get(1, () -> content);
+        cache.get(2, () -> content);
+        cache.get(3, () -> content);
+        cache.get(1, () -> content);
+        cache.get(4, () -> content);
+
+        // 2 最久未使用，被淘汰
+        assertEquals(3, cache.size());
+        assertEquals(entrySize * 3, cache.sizeInBytes());
+        long misses = cache.misses();
+        cache.get(1, () -> content);
+        cache.get(2, () -> content);
+        assertEquals(misses + 1, cache.misses());
+
+        ResponseBytesCache<Integer> small = new ResponseBytesCache<>(1 << 20, 2);
+        small.get(1, () -> content);
+        small.get(2, () -> content);
+        small.get(3, () -> content);
+        assertEquals(2, small.size());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.sizeInBytes());
+    }
+
+    @Test
+    void oversizedContentIsServedButNotCached() {
+        ResponseBytesCache<String> cache = new ResponseBytesCache<>(100, 10);
+        byte[] large = new byte[500];
+
+        assertEquals(500, cache.get("big", () -> large).plain().remaining());
+        assertEquals(0, cache.size());
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
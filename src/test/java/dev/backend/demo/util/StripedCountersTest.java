@@ -0,0 +1,49 @@
+package dev.backend.demo.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * StripedCounters 單元測試
+ */
+class StripedCountersTest {
+
+    @Test
+    void drainReturnsAllConcurrentIncrementsOnce() throws InterruptedException {
+        StripedCounters counters = new StripedCounters(8);
+        int threads = 16;
+        int perThread = 20000;
+        LongLongHashMap drained = new LongLongHashMap();
+        CountDownLatch done = new CountDownLatch(threads);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(Thread.ofVirtual().start(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    counters.increment(i % 100);
+                }
+                done.countDown();
+            }));
+        }
+        // 寫入期間同時 drain，合計不多也不少
+        while (done.getCount() > 0) {
+            counters.drain().forEach(drained::addTo);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        counters.drain().forEach(drained::addTo);
+
+        assertEquals(100, drained.size());
+        for (long key = 0; key < 100; key++) {
+            assertEquals((long) threads * perThread / 100, drained.get(key, 0));
+        }
+        assertTrue(counters.drain().isEmpty());
+        assertEquals(8, counters.stripeCount());
+        assertEquals(16, new StripedCounters(9).stripeCount());
+    }
+}